@@ -0,0 +1,84 @@
+package com.hillayes.auth.jwt;
+
+import io.smallrye.jwt.build.Jwt;
+import org.jose4j.jwk.JsonWebKeySet;
+import org.jose4j.jwt.JwtClaims;
+import org.jose4j.jwt.consumer.InvalidJwtException;
+import org.jose4j.jwt.consumer.JwtConsumer;
+import org.jose4j.jwt.consumer.JwtConsumerBuilder;
+import org.jose4j.keys.resolvers.JwksVerificationKeyResolver;
+import org.jose4j.lang.JoseException;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the signing of JWT claims, as performed for the access token issued on
+ * each login and token refresh, and the verification of the signed tokens, as
+ * performed on each authenticated request. Both the RSA and EC algorithms are
+ * measured.
+ * <p>
+ * Placed in the package of RotatedJwkSet in order to set its configuration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RotatedJwkSetBenchmark {
+    private static final String ISSUER = "https://hillayes.com/one-stop";
+    private static final String AUDIENCE = "com.hillayes";
+
+    @Param({ "RS256", RotatedJwkSet.EC_ALGORITHM })
+    public String algorithm;
+
+    private RotatedJwkSet jwkSet;
+    private JwtConsumer jwtConsumer;
+    private String userId;
+    private String xsrfToken;
+    private String token;
+
+    @Setup
+    public void setup() throws JoseException {
+        jwkSet = new RotatedJwkSet();
+        jwkSet.algorithm = algorithm;
+        jwkSet.jwkSetSize = 2;
+        // no rotation during the benchmark
+        jwkSet.rotationInterval = Duration.ofDays(1);
+        jwkSet.init();
+
+        JsonWebKeySet keySet = new JsonWebKeySet(jwkSet.toJson());
+        jwtConsumer = new JwtConsumerBuilder()
+            .setRequireExpirationTime()
+            .setExpectedIssuer(ISSUER)
+            .setExpectedAudience(AUDIENCE)
+            .setVerificationKeyResolver(new JwksVerificationKeyResolver(keySet.getJsonWebKeys()))
+            .build();
+
+        userId = UUID.randomUUID().toString();
+        xsrfToken = UUID.randomUUID().toString();
+        token = signClaims();
+    }
+
+    @TearDown
+    public void tearDown() {
+        jwkSet.destroy();
+    }
+
+    @Benchmark
+    public String signClaims() {
+        return jwkSet.signClaims(Jwt
+            .issuer(ISSUER)
+            .audience(AUDIENCE)
+            .upn(userId)
+            .expiresIn(Duration.ofMinutes(30))
+            .groups(Set.of("user"))
+            .claim("xsrf", xsrfToken));
+    }
+
+    @Benchmark
+    public JwtClaims verify() throws InvalidJwtException {
+        return jwtConsumer.processToClaims(token);
+    }
+}
@@ -0,0 +1,55 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.commons.caching.Cache;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Measures the reads of a cache shared by concurrent callers. The hit benchmark reads
+ * only keys that are cached; the churn benchmark reads from twice as many keys as the
+ * cache may hold, so that half of the reads load a value and force an eviction.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(4)
+public class CacheBenchmark {
+    private static final Function<Integer, String> RESOLVER = String::valueOf;
+
+    @Param({ "LRU", "LFU" })
+    public Cache.EvictionPolicy evictionPolicy;
+
+    @Param({ "1000" })
+    public int maxSize;
+
+    private Cache<Integer, String> cache;
+
+    @Setup
+    public void setup() {
+        cache = Cache.builder(Duration.ofHours(1))
+            .maxSize(maxSize)
+            .evictionPolicy(evictionPolicy)
+            .build();
+
+        for (int key = 0; key < maxSize; key++) {
+            cache.getValueOrCall(key, RESOLVER);
+        }
+    }
+
+    @Benchmark
+    public String hit() {
+        // only those keys pre-loaded
+        int key = ThreadLocalRandom.current().nextInt(maxSize);
+        return cache.getValueOrCall(key, RESOLVER);
+    }
+
+    @Benchmark
+    public String churn() {
+        int key = ThreadLocalRandom.current().nextInt(maxSize * 2);
+        return cache.getValueOrCall(key, RESOLVER);
+    }
+}
@@ -0,0 +1,127 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.rail.domain.AccountTransaction;
+import com.hillayes.rail.domain.Category;
+import com.hillayes.rail.domain.CategoryGroup;
+import com.hillayes.rail.domain.CategorySelector;
+import com.hillayes.rail.matcher.CategoryMatcher;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the classification of a chunk of polled transactions into categories. The
+ * compiled CategoryMatcher is compared with the evaluation of each selector in turn,
+ * as performed by the SQL LIKE predicates that it replaces. The latter is measured in
+ * memory, so the measure excludes the database round-trip. The compilation of the
+ * matcher, as performed when a category group's selectors change, is also measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class CategoryMatcherBenchmark {
+    private static final String[] WORDS = {
+        "TESCO", "SAINSBURYS", "AMAZON", "NETFLIX", "SPOTIFY", "SHELL", "BP", "COSTA",
+        "PRET", "UBER", "TFL", "COUNCIL", "WATER", "ENERGY", "RENT", "SALARY",
+        "CARD", "PAYMENT", "DIRECT", "DEBIT", "TRANSFER", "STORES", "LONDON", "ONLINE"
+    };
+
+    @Param({ "10", "100", "1000" })
+    public int selectorCount;
+
+    @Param({ "500" })
+    public int chunkSize;
+
+    private UUID accountId;
+    private List<CategorySelector> selectors;
+    private List<AccountTransaction> transactions;
+    private CategoryMatcher matcher;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        accountId = UUID.randomUUID();
+
+        // ten selectors per category; each testing one or two fields
+        CategoryGroup group = CategoryGroup.builder()
+            .id(UUID.randomUUID())
+            .userId(UUID.randomUUID())
+            .name("benchmark")
+            .build();
+        Category category = null;
+        for (int i = 0; i < selectorCount; i++) {
+            if (i % 10 == 0) {
+                category = group.addCategory("category " + i, builder -> builder.id(UUID.randomUUID()));
+            }
+
+            String text = WORDS[random.nextInt(WORDS.length)] + " " + i;
+            boolean withRef = random.nextBoolean();
+            category.add(accountId, selector -> {
+                selector.creditorContains(text);
+                if (withRef) {
+                    selector.refContains(WORDS[random.nextInt(WORDS.length)]);
+                }
+            });
+        }
+        selectors = group.getCategories().stream()
+            .flatMap(c -> c.getSelectors().stream())
+            .toList();
+
+        // some transactions will match a selector; most will not
+        transactions = new ArrayList<>(chunkSize);
+        for (int i = 0; i < chunkSize; i++) {
+            transactions.add(AccountTransaction.builder()
+                .accountId(accountId)
+                .internalTransactionId(UUID.randomUUID().toString())
+                .reference(words(random, 3))
+                .additionalInformation(words(random, 4))
+                .creditorName(words(random, 2) + " " + random.nextInt(selectorCount * 2))
+                .build());
+        }
+
+        matcher = new CategoryMatcher(selectors);
+    }
+
+    @Benchmark
+    public void matcher(Blackhole blackhole) {
+        for (AccountTransaction transaction : transactions) {
+            blackhole.consume(matcher.categorise(transaction));
+        }
+    }
+
+    @Benchmark
+    public void perSelector(Blackhole blackhole) {
+        for (AccountTransaction transaction : transactions) {
+            Set<UUID> result = new HashSet<>();
+            for (CategorySelector selector : selectors) {
+                if ((selector.getAccountId().equals(transaction.getAccountId()))
+                    && (contains(transaction.getAdditionalInformation(), selector.getInfoContains()))
+                    && (contains(transaction.getReference(), selector.getRefContains()))
+                    && (contains(transaction.getCreditorName(), selector.getCreditorContains()))) {
+                    result.add(selector.getCategory().getId());
+                }
+            }
+            blackhole.consume(result);
+        }
+    }
+
+    @Benchmark
+    public CategoryMatcher compile() {
+        return new CategoryMatcher(selectors);
+    }
+
+    // as the SQL predicate: "(text is null or field like concat('%', text, '%'))"
+    private static boolean contains(String field, String text) {
+        return (text == null) || ((field != null) && (field.contains(text)));
+    }
+
+    private static String words(Random random, int count) {
+        StringJoiner result = new StringJoiner(" ");
+        for (int i = 0; i < count; i++) {
+            result.add(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.hillayes.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compares the JMH JSON results of a benchmark run with those of an earlier (baseline)
+ * run; typically taken from another commit. Each benchmark's change in score is listed
+ * and those that have worsened by more than the threshold percentage are reported as
+ * regressions, causing a non-zero exit status.
+ * <p>
+ * Arguments: &lt;result-file&gt; &lt;threshold-percent&gt; [&lt;baseline-file&gt;]. If no
+ * baseline is given, the comparison is skipped.
+ */
+public class CompareResults {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static void main(String[] args) throws IOException {
+        if ((args.length < 3) || (args[2].isBlank())) {
+            System.out.println("No baseline given - comparison skipped");
+            return;
+        }
+
+        File resultFile = new File(args[0]);
+        double threshold = Double.parseDouble(args[1]);
+        File baselineFile = new File(args[2]);
+
+        Map<String, Score> results = readScores(resultFile);
+        Map<String, Score> baseline = readScores(baselineFile);
+
+        int regressions = 0;
+        System.out.printf("Comparing %s with baseline %s (threshold: %.1f%%)%n", resultFile, baselineFile, threshold);
+        for (Map.Entry<String, Score> entry : new TreeMap<>(results).entrySet()) {
+            Score result = entry.getValue();
+            Score base = baseline.get(entry.getKey());
+            if (base == null) {
+                System.out.printf("  %-80s %12.3f %-10s (new)%n", entry.getKey(), result.score(), result.unit());
+                continue;
+            }
+
+            double change = (base.score() == 0) ? 0 : ((result.score() - base.score()) / base.score()) * 100;
+            // for throughput, a higher score is better; for all other modes, lower is better
+            double worsened = result.higherIsBetter() ? -change : change;
+            boolean regressed = worsened > threshold;
+            if (regressed) {
+                regressions++;
+            }
+
+            System.out.printf("  %-80s %12.3f %-10s %+7.1f%%%s%n",
+                entry.getKey(), result.score(), result.unit(), change, regressed ? "  REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.out.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Reads the scores from the given JMH JSON result file, keyed on the benchmark's
+     * name, mode and parameter values.
+     */
+    private static Map<String, Score> readScores(File file) throws IOException {
+        Map<String, Score> result = new LinkedHashMap<>();
+        for (JsonNode node : MAPPER.readTree(file)) {
+            StringBuilder key = new StringBuilder(node.path("benchmark").asText())
+                .append(" [").append(node.path("mode").asText()).append(']');
+
+            JsonNode params = node.path("params");
+            params.fieldNames().forEachRemaining(name ->
+                key.append(' ').append(name).append('=').append(params.path(name).asText()));
+
+            JsonNode metric = node.path("primaryMetric");
+            result.put(key.toString(), new Score(
+                metric.path("score").asDouble(),
+                metric.path("scoreUnit").asText(),
+                "thrpt".equals(node.path("mode").asText())));
+        }
+        return result;
+    }
+
+    private record Score(double score, String unit, boolean higherIsBetter) {}
+}
@@ -0,0 +1,66 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.commons.correlation.CorrelationContext;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import org.jboss.logmanager.MDC;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the overhead of propagating the correlation ID, and logging context, to
+ * the threads of an executor. The submit benchmarks compare a task submitted to an
+ * executor that propagates the context with one that does not.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class CorrelationBenchmark {
+    private static final Runnable TASK = () -> {};
+
+    @Param({ "true", "false" })
+    public boolean propagateContext;
+
+    private ExecutorService executor;
+    private CorrelationContext context;
+
+    @Setup
+    public void setup() {
+        executor = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .executorType(ExecutorType.FIXED)
+            .name("benchmark")
+            .numberOfThreads(1)
+            .propagateContext(propagateContext)
+            .build());
+
+        MDC.put(Correlation.CORRELATION_KEY, UUID.randomUUID().toString());
+        context = CorrelationContext.capture();
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+        MDC.clear();
+    }
+
+    @Benchmark
+    public CorrelationContext capture() {
+        return CorrelationContext.capture();
+    }
+
+    @Benchmark
+    public void run() {
+        context.run(TASK);
+    }
+
+    @Benchmark
+    public Object submit() throws ExecutionException, InterruptedException {
+        return executor.submit(TASK).get();
+    }
+}
@@ -0,0 +1,74 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.events.UserLocation;
+import com.hillayes.events.events.auth.UserAuthenticated;
+import com.hillayes.events.serializers.EventPacketCodec;
+import com.hillayes.events.serializers.EventPacketDeserializer;
+import com.hillayes.events.serializers.EventPacketSerializer;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the encoding and decoding of EventPackets, as performed on every message
+ * sent to, and received from, the message broker. Each codec is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class EventPacketBenchmark {
+    private static final String TOPIC = Topic.USER_AUTH.topicName();
+
+    @Param({ "json", "binary" })
+    public String codec;
+
+    private EventPacketSerializer serializer;
+    private EventPacketDeserializer deserializer;
+    private EventPacket eventPacket;
+    private byte[] encoded;
+
+    @Setup
+    public void setup() {
+        serializer = new EventPacketSerializer(EventPacketCodec.forName(codec));
+        deserializer = new EventPacketDeserializer();
+
+        UserAuthenticated payload = UserAuthenticated.builder()
+            .userId(UUID.randomUUID())
+            .dateLogin(Instant.now())
+            .authProvider("google")
+            .userAgent("Mozilla/5.0 (Macintosh; Intel Mac OS X 10_15_7) AppleWebKit/537.36")
+            .userLocation(UserLocation.builder()
+                .ip("192.168.1.1")
+                .city("London")
+                .country("GB")
+                .latitude("51.5072")
+                .longitude("-0.1276")
+                .build())
+            .build();
+
+        eventPacket = new EventPacket(UUID.randomUUID(), Topic.USER_AUTH,
+            UUID.randomUUID().toString(), 0, Instant.now(),
+            payload.getUserId().toString(), payload.getClass().getName(), EventPacket.serialize(payload));
+        encoded = serializer.serialize(TOPIC, eventPacket);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(TOPIC, eventPacket);
+    }
+
+    @Benchmark
+    public EventPacket deserialize() {
+        return deserializer.deserialize(TOPIC, encoded);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        EventPacket result = deserializer.deserialize(TOPIC, serializer.serialize(TOPIC, eventPacket));
+        return result.getPayloadContent();
+    }
+}
@@ -0,0 +1,38 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.auth.crypto.PasswordCrypto;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the hashing and verification of passwords, as performed on user
+ * registration and each username/password login. The cost is deliberately high,
+ * so a change in score reflects a change in the hashing parameters.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class PasswordCryptoBenchmark {
+    private final char[] password = "correct-horse-battery-staple".toCharArray();
+
+    private PasswordCrypto passwordCrypto;
+    private String hash;
+
+    @Setup
+    public void setup() throws NoSuchAlgorithmException {
+        passwordCrypto = new PasswordCrypto();
+        hash = passwordCrypto.getHash(password);
+    }
+
+    @Benchmark
+    public String getHash() {
+        return passwordCrypto.getHash(password);
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return passwordCrypto.verify(password, hash);
+    }
+}
@@ -0,0 +1,103 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.commons.jdbc.BulkWriter;
+import com.hillayes.shares.domain.PriceHistory;
+import com.hillayes.shares.domain.SharePriceResolution;
+import com.hillayes.shares.repository.PriceHistorySqlMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the binding of entities to the parameters of a native SQL statement, as
+ * performed by the bulk writes of share price history. The statements are discarded,
+ * so the measure excludes the database round-trip.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SqlEntityMapperBenchmark {
+    @Param({ "500" })
+    public int chunkSize;
+
+    @Param({ "5000" })
+    public int rowCount;
+
+    private PriceHistorySqlMapper mapper;
+    private BulkWriter<PriceHistory> bulkWriter;
+    private Connection connection;
+    private PreparedStatement statement;
+    private List<PriceHistory> prices;
+
+    @Setup
+    public void setup() {
+        mapper = new PriceHistorySqlMapper();
+        bulkWriter = BulkWriter.builder("price_history", mapper)
+            .chunkSize(chunkSize)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        statement = discardingStatement();
+        connection = (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[] { Connection.class }, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "prepareStatement" -> statement;
+                    case "isWrapperFor" -> false;
+                    default -> null;
+                });
+
+        UUID shareIndexId = UUID.randomUUID();
+        LocalDate date = LocalDate.now().minusDays(rowCount);
+        prices = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            BigDecimal price = BigDecimal.valueOf(100 + (i % 50), 2);
+            prices.add(PriceHistory.builder()
+                .id(PriceHistory.PrimaryKey.builder()
+                    .shareIndexId(shareIndexId)
+                    .resolution(SharePriceResolution.DAILY)
+                    .date(date.plusDays(i))
+                    .build())
+                .open(price)
+                .high(price)
+                .low(price)
+                .close(price)
+                .volume(1000L + i)
+                .build());
+        }
+    }
+
+    @Benchmark
+    public PreparedStatement mapChunk() {
+        for (int i = 0; i < chunkSize; i++) {
+            mapper.map(statement, i, prices.get(i));
+        }
+        return statement;
+    }
+
+    @Benchmark
+    public int bulkInsert() {
+        return bulkWriter.insert(connection, prices);
+    }
+
+    /**
+     * Returns a PreparedStatement that discards the values bound to it, and reports
+     * a single row written for each execution.
+     */
+    private static PreparedStatement discardingStatement() {
+        return (PreparedStatement) Proxy.newProxyInstance(SqlEntityMapperBenchmark.class.getClassLoader(),
+            new Class<?>[] { PreparedStatement.class }, (proxy, method, args) ->
+                switch (method.getName()) {
+                    case "executeUpdate" -> 1;
+                    case "isWrapperFor" -> false;
+                    default -> null;
+                });
+    }
+}
@@ -0,0 +1,107 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.notification.config.EmailConfiguration;
+import com.hillayes.notification.config.TemplateName;
+import com.hillayes.notification.repository.TemplateRepository;
+import com.hillayes.notification.service.SendEmailService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the rendering of email templates. The renderEmail benchmark follows the
+ * same steps as SendEmailService; rendering the subject, the content and, finally,
+ * the common header into which the content is placed.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class TemplateRepositoryBenchmark {
+    private final Optional<Locale> locale = Optional.of(Locale.ENGLISH);
+
+    private TemplateRepository templateRepository;
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() {
+        templateRepository = new TemplateRepository(new StubConfiguration(Map.of(
+            TemplateName.HEADER, new StubTemplateConfig(Map.of(
+                Locale.ENGLISH, new StubLocaleTemplate("not-applicable", "header/en.html"))),
+            TemplateName.USER_REGISTERED, new StubTemplateConfig(Map.of(
+                Locale.ENGLISH, new StubLocaleTemplate(
+                    "Hi $recipient.name$, please complete your One-Stop registration",
+                    "user-registered/en.html")))
+        )));
+
+        params = new HashMap<>();
+        params.put("COMPANY_LONG_NAME", "Hillayes One-Stop");
+        params.put("COMPANY_COPYRIGHT_NAME", "One-Stop");
+        params.put("YEAR", LocalDate.now().getYear());
+        params.put("recipient", new SendEmailService.Recipient("jack@example.com", "Jack", Locale.ENGLISH));
+        params.put("acknowledge_uri", "https://one-stop.co.uk/accept?token=" + UUID.randomUUID());
+        params.put("expires", "10 minutes");
+    }
+
+    @Benchmark
+    public String renderSubject() {
+        return templateRepository.renderSubject(TemplateName.USER_REGISTERED, params, locale);
+    }
+
+    @Benchmark
+    public String renderTemplate() {
+        return templateRepository.renderTemplate(TemplateName.USER_REGISTERED, params, locale);
+    }
+
+    @Benchmark
+    public String renderEmail() {
+        Map<String, Object> emailParams = new HashMap<>(params);
+        emailParams.put("SUBJECT", templateRepository.renderSubject(TemplateName.USER_REGISTERED, emailParams, locale));
+        emailParams.put("__TEMPLATE_CONTENT__", templateRepository.renderTemplate(TemplateName.USER_REGISTERED, emailParams, locale));
+        return templateRepository.renderTemplate(TemplateName.HEADER, emailParams, locale);
+    }
+
+    /**
+     * Stands in for the configuration mapping, which is only available within a
+     * Quarkus application.
+     */
+    private record StubConfiguration(Map<TemplateName, EmailConfiguration.TemplateConfig> templates)
+        implements EmailConfiguration {
+        @Override
+        public boolean disabled() {
+            return false;
+        }
+
+        @Override
+        public Map<String, String> commonArgs() {
+            return Map.of();
+        }
+
+        @Override
+        public EmailConfiguration.Corresponder defaultSender() {
+            return null;
+        }
+    }
+
+    private record StubTemplateConfig(Map<Locale, EmailConfiguration.LocaleTemplate> templates)
+        implements EmailConfiguration.TemplateConfig {
+        @Override
+        public Optional<EmailConfiguration.Corresponder> sender() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<EmailConfiguration.Corresponder> recipient() {
+            return Optional.empty();
+        }
+    }
+
+    private record StubLocaleTemplate(String subject, String template)
+        implements EmailConfiguration.LocaleTemplate {
+    }
+}
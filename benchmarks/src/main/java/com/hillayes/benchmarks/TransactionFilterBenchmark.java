@@ -0,0 +1,64 @@
+package com.hillayes.benchmarks;
+
+import com.hillayes.rail.repository.TransactionFilter;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the construction of the transaction search query, and its parameters, as
+ * performed on each page of a user's transaction listing. A filter with every property
+ * set is measured, as is one with only the user and account.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class TransactionFilterBenchmark {
+    private TransactionFilter fullFilter;
+    private TransactionFilter accountFilter;
+
+    @Setup
+    public void setup() {
+        UUID userId = UUID.randomUUID();
+        UUID accountId = UUID.randomUUID();
+
+        fullFilter = TransactionFilter.builder()
+            .userId(userId)
+            .accountId(accountId)
+            .minAmount(10.00)
+            .maxAmount(250.00)
+            .reference("card payment")
+            .info("groceries")
+            .creditor("supermarket")
+            .build()
+            .dateRange(LocalDate.now().minusMonths(3), LocalDate.now());
+
+        accountFilter = TransactionFilter.builder()
+            .userId(userId)
+            .accountId(accountId)
+            .build();
+    }
+
+    @Benchmark
+    public String fullQuery() {
+        return fullFilter.toQuery();
+    }
+
+    @Benchmark
+    public Map<String, Object> fullParams() {
+        return fullFilter.toParams();
+    }
+
+    @Benchmark
+    public String accountQuery() {
+        return accountFilter.toQuery();
+    }
+
+    @Benchmark
+    public Map<String, Object> accountParams() {
+        return accountFilter.toParams();
+    }
+}
@@ -3,7 +3,7 @@ package com.hillayes.events.domain;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.hillayes.commons.json.MapperFactory;
 import com.hillayes.events.exceptions.EventPayloadDeserializationException;
 import com.hillayes.events.exceptions.EventPayloadSerializationException;
@@ -23,8 +23,6 @@ import java.util.UUID;
 @JsonInclude(JsonInclude.Include.NON_NULL)
 @RegisterForReflection
 public class EventPacket {
-    private static final ObjectMapper MAPPER = MapperFactory.defaultMapper();
-
     /**
      * The event's unique identifier. This is suitable for testing whether the event
      * has been processed by the consumer - idempotency.
@@ -114,7 +112,7 @@ public class EventPacket {
     public <T> T getPayloadContent() {
         if ((payloadContent == null) && (payload != null)) {
             try {
-                payloadContent = MAPPER.readValue(payload, Class.forName(payloadClass));
+                payloadContent = PayloadTypeRegistry.readerFor(payloadClass).readValue(payload);
             } catch (JsonProcessingException | ClassNotFoundException e) {
                 throw new EventPayloadDeserializationException(payloadClass, e);
             }
@@ -124,7 +122,10 @@ public class EventPacket {
 
     public static String serialize(Object payloadObject) {
         try {
-            return MAPPER.writeValueAsString(payloadObject);
+            ObjectWriter writer = (payloadObject == null)
+                ? MapperFactory.defaultMapper().writer()
+                : PayloadTypeRegistry.writerFor(payloadObject.getClass());
+            return writer.writeValueAsString(payloadObject);
         } catch (JsonProcessingException e) {
             throw new EventPayloadSerializationException(payloadObject.getClass().getName(), e);
         }
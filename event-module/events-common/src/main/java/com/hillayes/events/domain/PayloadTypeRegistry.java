@@ -0,0 +1,46 @@
+package com.hillayes.events.domain;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hillayes.commons.json.MapperFactory;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of the payload classes carried by EventPackets, and the JSON readers
+ * and writers used to (de)serialize them. This avoids resolving the payload class
+ * by name, and constructing its reader, on each event.
+ */
+public final class PayloadTypeRegistry {
+    private static final Map<String, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private PayloadTypeRegistry() {}
+
+    /**
+     * Returns the JSON reader for the named payload class.
+     *
+     * @param payloadClass the fully qualified name of the payload class.
+     * @return the reader for the named class.
+     * @throws ClassNotFoundException if the named class cannot be found.
+     */
+    public static ObjectReader readerFor(String payloadClass) throws ClassNotFoundException {
+        ObjectReader result = READERS.get(payloadClass);
+        if (result == null) {
+            result = MapperFactory.readerFor(Class.forName(payloadClass));
+            READERS.put(payloadClass, result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the JSON writer for the given payload class.
+     *
+     * @param payloadClass the payload class.
+     * @return the writer for the given class.
+     */
+    public static ObjectWriter writerFor(Class<?> payloadClass) {
+        return WRITERS.computeIfAbsent(payloadClass, MapperFactory::writerFor);
+    }
+}
@@ -9,7 +9,10 @@ public enum Topic {
     CONSENT("Rail consent related events."),
     TRANSACTION_AUDIT("Transaction audit related events."),
     PORTFOLIO("Share portfolio related events."),
-    RETRY_TOPIC("The queue for failed events to be retried."),
+    RETRY_TOPIC("The queue for failed events to be retried via the outbox (superseded by the retry tiers)."),
+    RETRY_TIER_1("The queue for failed events awaiting their first retry."),
+    RETRY_TIER_2("The queue for failed events awaiting their second retry."),
+    RETRY_TIER_3("The queue for failed events awaiting their third retry."),
     HOSPITAL_TOPIC("The queue for failed events to be sent to message hospital.");
 
     private final String summary;
@@ -27,6 +27,20 @@ public final class AnnotationUtils {
 
     public static Optional<String> getConsumerGroup(Object instance) {
         return getFirstAnnotation(instance.getClass(), ConsumerGroup.class)
-            .map(ConsumerGroup::value);
+            .map(ConsumerGroup::value)
+            .filter(group -> !group.isBlank());
+    }
+
+    public static int getConcurrency(Object instance) {
+        return getFirstAnnotation(instance.getClass(), ConsumerGroup.class)
+            .map(ConsumerGroup::concurrency)
+            .filter(concurrency -> concurrency > 0)
+            .orElse(1);
+    }
+
+    public static boolean isDeduplicated(Object instance) {
+        return getFirstAnnotation(instance.getClass(), ConsumerGroup.class)
+            .map(ConsumerGroup::deduplicate)
+            .orElse(true);
     }
 }
@@ -9,9 +9,32 @@ import java.lang.annotation.*;
  *
  * By specifying an explicit consumer group, consumers across service boundaries can share
  * messages from the same topic(s).
+ *
+ * The annotation can also specify the number of records the consumer may process
+ * concurrently. Records with the same key (or, where no key is given, from the same
+ * partition) will always be processed in the order they were received. For example:
+ * <pre>
+ *   &#064;ConsumerGroup(concurrency = 8)
+ * </pre>
  */
 @Target({ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 public @interface ConsumerGroup {
-    String value();
+    /**
+     * The name of the consumer group. If blank, the default consumer group is used.
+     */
+    String value() default "";
+
+    /**
+     * The maximum number of records to be processed concurrently. The default of 1
+     * processes records sequentially, in the order they were received.
+     */
+    int concurrency() default 1;
+
+    /**
+     * Whether events already processed by the consumer group are to be skipped. Events
+     * are identified by their EventPacket ID, so consumers that are expected to receive
+     * the same event more than once (e.g. on each retry) should disable this.
+     */
+    boolean deduplicate() default true;
 }
@@ -2,14 +2,19 @@ package com.hillayes.events.consumer;
 
 import com.hillayes.events.domain.EventPacket;
 import com.hillayes.events.domain.Topic;
+import com.hillayes.events.retry.DelayedRetryRelay;
+import com.hillayes.events.retry.RetryTier;
+import com.hillayes.events.retry.RetryTiers;
+import com.hillayes.events.sender.EventProducer;
+import io.micrometer.core.instrument.Metrics;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
 
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.Optional;
 
 import static com.hillayes.events.consumer.HeadersUtils.*;
 
@@ -19,42 +24,54 @@ import static com.hillayes.events.consumer.HeadersUtils.*;
  *
  * Two courses of action are available; queue the event for a retry or put the
  * event on the message-hospital queue for manual intervention.
+ *
+ * Events to be retried are placed on the retry tier for their retry count, where
+ * they are held (in the broker) for the tier's delay before being returned to their
+ * original topic by the {@link DelayedRetryRelay}. Once an event has passed through
+ * all tiers, it is placed on the message-hospital queue.
  */
 @RequiredArgsConstructor
 @Slf4j
 public class ConsumerErrorHandler {
-    private final Producer<String, EventPacket> producer;
+    private final EventProducer producer;
+
+    private final RetryTiers retryTiers;
 
     public void handle(ConsumerRecord<String, EventPacket> record,
                        EventConsumer eventConsumer,
                        Throwable error) {
         EventPacket eventPacket = record.value();
 
-        // has the event reached the max retry count
+        // has the event passed through all retry tiers
         int retryCount = eventPacket.getRetryCount();
-        Topic failureTopic = (retryCount < 3)
-            ? Topic.RETRY_TOPIC
-            : Topic.HOSPITAL_TOPIC;
+        Optional<RetryTier> retryTier = retryTiers.forRetry(retryCount);
+        Topic failureTopic = retryTier
+            .map(RetryTier::topic)
+            .orElse(Topic.HOSPITAL_TOPIC);
 
         if (log.isDebugEnabled()) {
             log.debug("Reposting event [failureTopic: {}, topic: {}, retryCount: {}, cause: {}]",
                 failureTopic, eventPacket.getTopic(), eventPacket.getRetryCount(), error.getMessage());
         }
 
-        ProducerRecord<String, EventPacket> retryRecord =
-            new ProducerRecord<>(failureTopic.topicName(), eventPacket);
+        Metrics.counter("events.consumer.failures",
+            "topic", record.topic(), "destination", failureTopic.topicName()).increment();
+
+        // a retried event carries its incremented retry count
+        ProducerRecord<String, EventPacket> retryRecord = new ProducerRecord<>(failureTopic.topicName(),
+            eventPacket.getKey(), retryTier.isPresent() ? forRetry(eventPacket) : eventPacket);
 
         retryRecord.headers()
             .add(REASON_HEADER, error.getClass().getName().getBytes(StandardCharsets.UTF_8))
-            .add(CAUSE_HEADER, error.getMessage().getBytes(StandardCharsets.UTF_8))
+            .add(CAUSE_HEADER, String.valueOf(error.getMessage()).getBytes(StandardCharsets.UTF_8))
             .add(CONSUMER_HEADER, eventConsumer.getClass().getName().getBytes(StandardCharsets.UTF_8));
 
-        if (failureTopic == Topic.RETRY_TOPIC) {
+        retryTier.ifPresent(tier -> {
             // calculate a time to retry the event
-            Instant scheduleFor = Instant.now().plusSeconds(20L * (retryCount + 1));
+            Instant scheduleFor = Instant.now().plus(tier.delay());
             retryRecord.headers()
                 .add(SCHEDULE_HEADER, scheduleFor.toString().getBytes(StandardCharsets.UTF_8));
-        }
+        });
 
         // send asynchronously to chosen failure topic
         producer.send(retryRecord, (metadata, exception) -> {
@@ -66,4 +83,10 @@ public class ConsumerErrorHandler {
             }
         });
     }
+
+    private EventPacket forRetry(EventPacket eventPacket) {
+        return new EventPacket(eventPacket.getId(), eventPacket.getTopic(), eventPacket.getCorrelationId(),
+            eventPacket.getRetryCount() + 1, eventPacket.getTimestamp(),
+            eventPacket.getKey(), eventPacket.getPayloadClass(), eventPacket.getPayload());
+    }
 }
@@ -1,9 +1,13 @@
 package com.hillayes.events.consumer;
 
 import com.hillayes.events.annotation.AnnotationUtils;
-import com.hillayes.events.domain.EventPacket;
 import com.hillayes.events.domain.Topic;
+import com.hillayes.events.postgres.EventLogFactory;
+import com.hillayes.events.retry.DelayedRetryRelay;
+import com.hillayes.events.retry.RetryTiers;
+import com.hillayes.events.sender.EventProducer;
 import com.hillayes.events.serializers.EventPacketDeserializer;
+import io.quarkus.arc.properties.IfBuildProperty;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import io.smallrye.common.annotation.Identifier;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -13,10 +17,10 @@ import jakarta.enterprise.inject.Produces;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
-import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
+import java.time.Duration;
 import java.util.*;
 
 @RegisterForReflection(targets = {
@@ -51,17 +55,63 @@ public class ConsumerFactory {
         return config;
     }
 
+    /**
+     * Creates the retry tiers through which failed events progress before being
+     * placed on the message-hospital queue.
+     *
+     * @param delays the delay applied by each tier, in the order they are used.
+     * @return the configured RetryTiers instance.
+     */
+    @Produces
+    @ApplicationScoped
+    public RetryTiers retryTiers(@ConfigProperty(name = "kafka.retry.delays", defaultValue = "PT20S,PT40S,PT60S") List<Duration> delays) {
+        return new RetryTiers(delays);
+    }
+
     /**
      * Creates the error handler that will decide if an event is to be retried or
      * placed on the message-hospital queue.
      *
      * @param producer the producer used to requeue events. See ProducerFactory.
+     * @param retryTiers the tiers on which events are held before being retried.
      * @return the configured ConsumerErrorHandler instance.
      */
     @Produces
     @ApplicationScoped
-    public ConsumerErrorHandler errorHandler(Producer<String, EventPacket> producer) {
-        return new ConsumerErrorHandler(producer);
+    public ConsumerErrorHandler errorHandler(EventProducer producer,
+                                             RetryTiers retryTiers) {
+        return new ConsumerErrorHandler(producer, retryTiers);
+    }
+
+    /**
+     * Creates a relay for each retry tier, to return the events held on that tier to
+     * their original topic once they are due.
+     *
+     * All services share the same consumer group for the relays; ensuring that only
+     * one service will relay a given failed event.
+     *
+     * @param retryTiers the tiers on which events are held before being retried.
+     * @param consumerConfig the broker consumer configuration.
+     * @param producer the producer used to return the events to their original topic.
+     * @return the collection of DelayedRetryRelays.
+     */
+    @IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "kafka", enableIfMissing = true)
+    @Produces
+    @ApplicationScoped
+    public Set<DelayedRetryRelay> retryRelays(RetryTiers retryTiers,
+                                              @Identifier("event-consumer-config") Properties consumerConfig,
+                                              EventProducer producer) {
+        Set<DelayedRetryRelay> relays = new HashSet<>();
+        retryTiers.getTiers().forEach(tier -> {
+            log.debug("Registering retry relay [topic: {}, delay: {}]", tier.topic(), tier.delay());
+            Properties config = new Properties();
+            config.putAll(consumerConfig);
+            config.put(ConsumerConfig.CLIENT_ID_CONFIG, DelayedRetryRelay.class.getSimpleName() + "-" + tier.topic().topicName());
+            config.put(ConsumerConfig.GROUP_ID_CONFIG, "retry-tier-group");
+
+            relays.add(new DelayedRetryRelay(new KafkaConsumer<>(config), producer, tier));
+        });
+        return relays;
     }
 
     /**
@@ -71,20 +121,33 @@ public class ConsumerFactory {
      * @param consumerConfig the broker consumer configuration.
      * @param errorHandler the error handler to which event errors are passed during
      * consumption.
+     * @param processedEventStores the optional persistent store of processed events.
+     * @param deduplicationCapacity the max number of processed event IDs held in memory
+     * for each consumer.
+     * @param deduplicationExpiry the duration for which processed events are recorded.
      * @return the collection of ConsumerProxies.
      */
+    @IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "kafka", enableIfMissing = true)
     @Produces
     @ApplicationScoped
     public Set<ConsumerProxy> consumers(@Any Instance<EventConsumer> instances,
                                         @Identifier("event-consumer-config") Properties consumerConfig,
-                                        ConsumerErrorHandler errorHandler) {
+                                        ConsumerErrorHandler errorHandler,
+                                        Instance<ProcessedEventStore> processedEventStores,
+                                        @ConfigProperty(name = "kafka.consumer.deduplication.capacity", defaultValue = "10000") int deduplicationCapacity,
+                                        @ConfigProperty(name = "kafka.consumer.deduplication.expiry", defaultValue = "P2D") Duration deduplicationExpiry) {
         log.info("Registering consumers");
+        ProcessedEventStore processedEventStore = processedEventStores.isResolvable()
+            ? processedEventStores.get()
+            : null;
         Set<ConsumerProxy> consumers = new HashSet<>();
         instances.stream().forEach(eventConsumer -> {
             Collection<Topic> topics = AnnotationUtils.getTopics(eventConsumer);
             Optional<String> consumerGroup = AnnotationUtils.getConsumerGroup(eventConsumer);
+            int concurrency = AnnotationUtils.getConcurrency(eventConsumer);
             if (!topics.isEmpty()) {
-                log.debug("Registering consumer [topics: {}, class: {}]", topics, eventConsumer.getClass().getName());
+                log.debug("Registering consumer [topics: {}, class: {}, concurrency: {}]",
+                    topics, eventConsumer.getClass().getName(), concurrency);
 
                 // Create a new config for each consumer - with defaults supplied from the global config
                 Properties config = new Properties();
@@ -92,7 +155,13 @@ public class ConsumerFactory {
                 config.put(ConsumerConfig.CLIENT_ID_CONFIG, eventConsumer.getClass().getSimpleName());
                 consumerGroup.ifPresent(group -> config.put(ConsumerConfig.GROUP_ID_CONFIG, group));
 
-                consumers.add(new ConsumerProxy(new KafkaConsumer<>(config), topics, eventConsumer, errorHandler));
+                EventDeduplicator deduplicator = AnnotationUtils.isDeduplicated(eventConsumer)
+                    ? new EventDeduplicator(config.getProperty(ConsumerConfig.GROUP_ID_CONFIG),
+                        deduplicationCapacity, deduplicationExpiry, processedEventStore)
+                    : null;
+
+                consumers.add(new ConsumerProxy(new KafkaConsumer<>(config), topics, eventConsumer,
+                    errorHandler, concurrency, deduplicator));
             }
         });
 
@@ -0,0 +1,123 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records the metrics of a ConsumerProxy:
+ * <ul>
+ *     <li>events.consumer.records - a count of the records polled, by topic.</li>
+ *     <li>events.consumer.handler - the time taken by the EventConsumer to process each
+ *     record, by topic, event class and outcome (success, failure or duplicate).</li>
+ *     <li>events.consumer.lag - the number of records by which the consumer is behind
+ *     the end of each assigned partition.</li>
+ * </ul>
+ * The lag is read from the KafkaConsumer after each poll, on the consumer's own
+ * thread, as the KafkaConsumer cannot be accessed from the thread that reads the
+ * metrics.
+ */
+class ConsumerMetrics {
+    private final MeterRegistry registry;
+
+    /**
+     * The name of the consumer, by which its metrics are tagged.
+     */
+    private final String consumer;
+
+    private final Map<TopicPartition, AtomicLong> lags = new ConcurrentHashMap<>();
+    private final Map<TopicPartition, Gauge> lagGauges = new ConcurrentHashMap<>();
+
+    ConsumerMetrics(MeterRegistry registry, String consumer) {
+        this.registry = registry;
+        this.consumer = consumer;
+    }
+
+    /**
+     * Records the number of records returned by a poll.
+     */
+    void polled(ConsumerRecords<String, EventPacket> records) {
+        records.partitions().forEach(partition ->
+            Counter.builder("events.consumer.records")
+                .tag("consumer", consumer)
+                .tag("topic", partition.topic())
+                .register(registry)
+                .increment(records.records(partition).size())
+        );
+    }
+
+    /**
+     * Records the time taken to process the given record.
+     *
+     * @param record the record processed.
+     * @param outcome the outcome of the processing; success, failure or duplicate.
+     * @param durationNanos the time taken.
+     */
+    void processed(ConsumerRecord<String, EventPacket> record, String outcome, long durationNanos) {
+        Timer.builder("events.consumer.handler")
+            .tag("consumer", consumer)
+            .tag("topic", record.topic())
+            .tag("event", eventName(record.value()))
+            .tag("outcome", outcome)
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Updates the lag of each partition assigned to the given broker. Must be called
+     * on the broker's own thread.
+     */
+    void updateLag(KafkaConsumer<String, EventPacket> broker) {
+        for (TopicPartition partition : broker.assignment()) {
+            OptionalLong lag = broker.currentLag(partition);
+            if (lag.isPresent()) {
+                lags.computeIfAbsent(partition, this::registerLag).set(lag.getAsLong());
+            }
+        }
+    }
+
+    /**
+     * Removes the lag gauges of the given partitions; once they are no longer
+     * assigned to the consumer.
+     */
+    void removeLag(Collection<TopicPartition> partitions) {
+        partitions.forEach(partition -> {
+            lags.remove(partition);
+            Gauge gauge = lagGauges.remove(partition);
+            if (gauge != null) {
+                registry.remove(gauge);
+            }
+        });
+    }
+
+    private AtomicLong registerLag(TopicPartition partition) {
+        AtomicLong result = new AtomicLong();
+        lagGauges.put(partition, Gauge.builder("events.consumer.lag", result, AtomicLong::get)
+            .tag("consumer", consumer)
+            .tag("topic", partition.topic())
+            .tag("partition", String.valueOf(partition.partition()))
+            .register(registry));
+        return result;
+    }
+
+    private String eventName(EventPacket event) {
+        String payloadClass = (event == null) ? null : event.getPayloadClass();
+        return (payloadClass == null)
+            ? "unknown"
+            : payloadClass.substring(payloadClass.lastIndexOf('.') + 1);
+    }
+}
@@ -3,15 +3,22 @@ package com.hillayes.events.consumer;
 import com.hillayes.events.domain.EventPacket;
 import com.hillayes.events.domain.Topic;
 import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import io.micrometer.core.instrument.Metrics;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.*;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 
 import java.time.Duration;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
 
 /**
  * A proxy for EventConsumer implementations. This proxy consumer will receive the
@@ -22,6 +29,17 @@ import java.util.Map;
  *
  * It will also maintain the event queue offsets and respond to changes in the message
  * partition allocations.
+ *
+ * When a concurrency greater than 1 is given, the records from each poll are grouped
+ * by their key (or partition, where no key is given) and each group is passed to a
+ * virtual thread for processing. Records within a group are processed in the order
+ * they were received, and no more than the given number of records are processed at
+ * any one time. Offsets are only committed up to the highest contiguous completed
+ * offset of each partition.
+ *
+ * When an EventDeduplicator is given, any event that has already been processed by
+ * the consumer group will be skipped, and its offset committed, without passing it to
+ * the EventConsumer.
  */
 @Slf4j
 public class ConsumerProxy implements Runnable {
@@ -50,6 +68,21 @@ public class ConsumerProxy implements Runnable {
      */
     private final ConsumerErrorHandler errorHandler;
 
+    /**
+     * The max number of records to be processed concurrently.
+     */
+    private final int concurrency;
+
+    /**
+     * Identifies the events already processed by the consumer group. May be null.
+     */
+    private final EventDeduplicator deduplicator;
+
+    /**
+     * Records the consumer's throughput, handler latency and lag.
+     */
+    private final ConsumerMetrics metrics;
+
     Map<TopicPartition, OffsetAndMetadata> currentOffsets;
 
     /**
@@ -63,10 +96,30 @@ public class ConsumerProxy implements Runnable {
                          Collection<Topic> topics,
                          EventConsumer eventConsumer,
                          ConsumerErrorHandler errorHandler) {
+        this(broker, topics, eventConsumer, errorHandler, 1);
+    }
+
+    public ConsumerProxy(KafkaConsumer<String, EventPacket> broker,
+                         Collection<Topic> topics,
+                         EventConsumer eventConsumer,
+                         ConsumerErrorHandler errorHandler,
+                         int concurrency) {
+        this(broker, topics, eventConsumer, errorHandler, concurrency, null);
+    }
+
+    public ConsumerProxy(KafkaConsumer<String, EventPacket> broker,
+                         Collection<Topic> topics,
+                         EventConsumer eventConsumer,
+                         ConsumerErrorHandler errorHandler,
+                         int concurrency,
+                         EventDeduplicator deduplicator) {
         this.broker = broker;
         this.eventConsumer = eventConsumer;
         this.topics = topics.stream().map(Topic::topicName).toList();
         this.errorHandler = errorHandler;
+        this.concurrency = Math.max(1, concurrency);
+        this.deduplicator = deduplicator;
+        this.metrics = new ConsumerMetrics(Metrics.globalRegistry, eventConsumer.getClass().getSimpleName());
     }
 
     public void stop() {
@@ -77,8 +130,21 @@ public class ConsumerProxy implements Runnable {
         return topics;
     }
 
+    public int getConcurrency() {
+        return concurrency;
+    }
+
     public void run() {
-        log.debug("Starting consumer [topics: {}]", topics);
+        log.debug("Starting consumer [topics: {}, concurrency: {}]", topics, concurrency);
+        // a pool of virtual threads on which concurrent records are processed - named
+        // for the event consumer, so that each consumer's executor metrics are distinct
+        ExecutorService workers = (concurrency > 1)
+            ? ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+                .name("topic-consumer-worker-" + eventConsumer.getClass().getSimpleName())
+                .executorType(ExecutorType.VIRTUAL)
+                .build())
+            : null;
+
         try {
             broker.subscribe(topics, new ConsumerRebalanceListener() {
                 public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
@@ -89,6 +155,7 @@ public class ConsumerProxy implements Runnable {
 
                 public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
                     log.trace("Lost partitions in re-balance. Committing current offsets");
+                    metrics.removeLag(partitions);
                     commitOffsets();
                 }
             });
@@ -97,32 +164,14 @@ public class ConsumerProxy implements Runnable {
                 log.trace("Polling for events [topics: {}]", topics);
                 ConsumerRecords<String, EventPacket> records = broker.poll(POLL_TIMEOUT);
                 log.trace("Records polled [topics: {}, size: {}]", topics, records.count());
+                metrics.polled(records);
 
-                for (ConsumerRecord<String, EventPacket> record : records) {
-                    if (log.isTraceEnabled()) {
-                        log.trace("topic = {}, partition = {}, offset = {}, customer = {}, country = {}",
-                            record.topic(), record.partition(), record.offset(), record.key(), record.value());
-                    }
-
-                    // using the correlation id from the record
-                    String prevId = Correlation.setCorrelationId(record.value().getCorrelationId());
-                    try {
-                        // pass record to topic handler
-                        eventConsumer.consume(record);
-
-                        // commit the offset
-                        softCommit(record);
-                    } catch (WakeupException e) {
-                        throw e;
-                    } catch (Exception e) {
-                        log.warn("Error from event handler [topic: {}]", record.topic(), e);
-                        hardCommit(record);
-
-                        errorHandler.handle(record, eventConsumer, e);
-                    } finally {
-                        Correlation.setCorrelationId(prevId);
-                    }
+                if (workers == null) {
+                    consumeSequentially(records);
+                } else {
+                    consumeConcurrently(workers, records);
                 }
+                metrics.updateLag(broker);
             }
         } catch (WakeupException e) {
             // ignore, we're closing
@@ -131,6 +180,9 @@ public class ConsumerProxy implements Runnable {
         } finally {
             try {
                 log.info("Closing consumer and committing offsets [topics: {}]", getTopics());
+                if (workers != null) {
+                    workers.shutdown();
+                }
                 commitOffsets();
             } finally {
                 broker.close();
@@ -139,6 +191,140 @@ public class ConsumerProxy implements Runnable {
         }
     }
 
+    /**
+     * Passes each of the given records to the event consumer, in the order they were
+     * received. Offsets are committed as each record is processed.
+     *
+     * @param records the records to be processed.
+     */
+    private void consumeSequentially(ConsumerRecords<String, EventPacket> records) {
+        for (ConsumerRecord<String, EventPacket> record : records) {
+            // on error, commit the offset before passing the record to the error handler
+            if (consume(record, this::hardCommit)) {
+                // commit the offset
+                softCommit(record);
+            }
+        }
+    }
+
+    /**
+     * Passes the given records to the event consumer on concurrent threads. The records
+     * are grouped by their key (or partition, where no key is given), and the records
+     * of each group are processed in the order they were received. The method returns
+     * when all records have been processed, and the offsets of the completed records
+     * have been committed.
+     *
+     * @param workers the executor on which the record groups are processed.
+     * @param records the records to be processed.
+     */
+    private void consumeConcurrently(ExecutorService workers,
+                                     ConsumerRecords<String, EventPacket> records) throws InterruptedException {
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // group the records by their ordering key - retaining their received order
+        Map<Object, List<ConsumerRecord<String, EventPacket>>> groups = new LinkedHashMap<>();
+        OffsetTracker offsets = new OffsetTracker();
+        for (ConsumerRecord<String, EventPacket> record : records) {
+            Object orderingKey = (record.key() != null)
+                ? record.key()
+                : new TopicPartition(record.topic(), record.partition());
+            groups.computeIfAbsent(orderingKey, k -> new ArrayList<>()).add(record);
+            offsets.dispatched(record);
+        }
+
+        // limits the number of records processed at any one time
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<Boolean>> results = new ArrayList<>(groups.size());
+        boolean success = true;
+        try {
+            groups.values().forEach(group -> results.add(workers.submit(() -> {
+                boolean groupSuccess = true;
+                for (ConsumerRecord<String, EventPacket> record : group) {
+                    permits.acquire();
+                    try {
+                        groupSuccess &= consume(record, failed -> {});
+                    } finally {
+                        permits.release();
+                        offsets.completed(record);
+                    }
+                }
+                return groupSuccess;
+            })));
+
+            // wait for all groups to complete
+            for (Future<Boolean> result : results) {
+                try {
+                    success &= result.get();
+                } catch (ExecutionException e) {
+                    log.error("Unexpected exception processing records [topics: {}]", topics, e.getCause());
+                    success = false;
+                }
+            }
+        } finally {
+            // only commit offsets up to the highest contiguous completed record
+            currentOffsets.putAll(offsets.committable());
+            count += records.count();
+        }
+
+        if (success) {
+            commitAsync();
+        } else {
+            commitOffsets();
+        }
+    }
+
+    /**
+     * Passes the given record to the event consumer, ensuring the record's correlation
+     * ID is set on the thread. Any error raised by the event consumer will be passed to
+     * the error handler.
+     *
+     * @param record the record to be processed.
+     * @param onError an action to be performed before an error is passed to the error handler.
+     * @return true if the record was processed without error.
+     */
+    private boolean consume(ConsumerRecord<String, EventPacket> record,
+                            Consumer<ConsumerRecord<String, EventPacket>> onError) {
+        if (log.isTraceEnabled()) {
+            log.trace("topic = {}, partition = {}, offset = {}, customer = {}, country = {}",
+                record.topic(), record.partition(), record.offset(), record.key(), record.value());
+        }
+
+        // using the correlation id from the record
+        String prevId = Correlation.setCorrelationId(record.value().getCorrelationId());
+        long start = System.nanoTime();
+        try {
+            EventPacket event = record.value();
+            if ((deduplicator != null) && (deduplicator.isDuplicate(event))) {
+                log.debug("Skipping duplicate event [topic: {}, eventId: {}, consumerGroup: {}]",
+                    record.topic(), event.getId(), deduplicator.getConsumerGroup());
+                metrics.processed(record, "duplicate", System.nanoTime() - start);
+                return true;
+            }
+
+            // pass record to topic handler
+            eventConsumer.consume(record);
+            metrics.processed(record, "success", System.nanoTime() - start);
+
+            if (deduplicator != null) {
+                deduplicator.processed(event);
+            }
+            return true;
+        } catch (WakeupException e) {
+            throw e;
+        } catch (Exception e) {
+            metrics.processed(record, "failure", System.nanoTime() - start);
+            log.warn("Error from event handler [topic: {}]", record.topic(), e);
+            onError.accept(record);
+
+            errorHandler.handle(record, eventConsumer, e);
+            return false;
+        } finally {
+            Correlation.setCorrelationId(prevId);
+        }
+    }
+
     /**
      * Commits the offset for the given record to the local cache. If the number of
      * records processed since the last commit has reached the commit frequency, the
@@ -149,12 +335,7 @@ public class ConsumerProxy implements Runnable {
     private void softCommit(ConsumerRecord<?, ?> record) {
         commitRecord(record);
         if (count++ % COMMIT_FREQUENCY == 0) {
-            broker.commitAsync(currentOffsets,
-                (Map<TopicPartition, OffsetAndMetadata> offsets, Exception error) -> {
-                    if (error != null) {
-                        log.warn("Failed to commit offsets", error);
-                    }
-                });
+            commitAsync();
         }
     }
 
@@ -169,6 +350,15 @@ public class ConsumerProxy implements Runnable {
             new OffsetAndMetadata(record.offset() + 1));
     }
 
+    private void commitAsync() {
+        broker.commitAsync(currentOffsets,
+            (Map<TopicPartition, OffsetAndMetadata> offsets, Exception error) -> {
+                if (error != null) {
+                    log.warn("Failed to commit offsets", error);
+                }
+            });
+    }
+
     private void commitOffsets() {
         if (!currentOffsets.isEmpty()) {
             broker.commitSync(currentOffsets);
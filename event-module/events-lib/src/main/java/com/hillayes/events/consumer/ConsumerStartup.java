@@ -1,8 +1,11 @@
 package com.hillayes.events.consumer;
 
+import com.hillayes.events.postgres.EventLogFactory;
+import com.hillayes.events.retry.DelayedRetryRelay;
 import com.hillayes.executors.concurrent.ExecutorConfiguration;
 import com.hillayes.executors.concurrent.ExecutorFactory;
 import com.hillayes.executors.concurrent.ExecutorType;
+import io.quarkus.arc.properties.IfBuildProperty;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -14,19 +17,40 @@ import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 @ApplicationScoped
+@IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "kafka", enableIfMissing = true)
 @RequiredArgsConstructor
 @Slf4j
 //@UnlessBuildProfile("test")
 public class ConsumerStartup {
     private final Set<ConsumerProxy> consumers;
 
+    private final Set<DelayedRetryRelay> retryRelays;
+
     public void startConsumers(@Observes StartupEvent ev) {
         log.info("Starting event consumers");
+
+        // the retry relays are started regardless of the service's own consumers
+        if (!retryRelays.isEmpty()) {
+            // each relay's poll blocks in the broker client's selector, which would hold the
+            // carrier of a virtual thread; so each is given a platform thread of its own
+            ExecutorService relayService = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+                .name("retry-relay")
+                .executorType(ExecutorType.FIXED)
+                .numberOfThreads(retryRelays.size())
+                .build());
+
+            retryRelays.forEach(relay -> {
+                log.debug("Starting retry relay [topic: {}]", relay.getTier().topic());
+                relayService.submit(relay);
+            });
+        }
+
         if (consumers.isEmpty()) {
             log.warn("No consumers registered");
             return;
         }
 
+        // as with the relays, each consumer's poll needs a platform thread of its own
         ExecutorService executorService = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
             .name("topic-consumer")
             .executorType(ExecutorType.FIXED)
@@ -46,5 +70,6 @@ public class ConsumerStartup {
             log.debug("Shutting down consumer [topics: {}]", consumer.getTopics());
             consumer.stop();
         });
+        retryRelays.forEach(DelayedRetryRelay::stop);
     }
 }
@@ -0,0 +1,115 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Records the EventPackets processed by a consumer group, so that any re-delivery
+ * of those events can be skipped before they reach the EventConsumer. Events may be
+ * re-delivered after a crash or partition re-balance, as offsets are only committed
+ * periodically.
+ * <p>
+ * The most recently processed event IDs are held in a bounded, in-memory cache. If a
+ * {@link ProcessedEventStore} is given, events are also recorded there; allowing
+ * duplicates to be recognised after the cache has been lost. Records expire after the
+ * given duration, by which time any re-delivery is expected to have occurred.
+ * <p>
+ * Errors raised by the store are logged, but not propagated; an event that cannot be
+ * checked is passed to the consumer.
+ */
+@Slf4j
+public class EventDeduplicator {
+    private final String consumerGroup;
+    private final Duration expiry;
+    private final ProcessedEventStore store;
+
+    /**
+     * The expiry of the most recently processed event IDs, in least-recently used order.
+     */
+    private final Map<UUID, Instant> recent;
+
+    /**
+     * @param consumerGroup the consumer group whose events are recorded.
+     * @param capacity the max number of event IDs to be held in memory.
+     * @param expiry the duration for which processed events are recorded.
+     * @param store the optional persistent store of processed events. May be null.
+     */
+    public EventDeduplicator(String consumerGroup, int capacity, Duration expiry, ProcessedEventStore store) {
+        this.consumerGroup = consumerGroup;
+        this.expiry = expiry;
+        this.store = store;
+        this.recent = Collections.synchronizedMap(new LinkedHashMap<>(Math.min(capacity, 1024), 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<UUID, Instant> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    /**
+     * Tests whether the given event has already been processed by the consumer group.
+     *
+     * @param event the event received by the consumer.
+     * @return true if the event has already been processed.
+     */
+    public boolean isDuplicate(EventPacket event) {
+        UUID eventId = event.getId();
+        if (eventId == null) {
+            return false;
+        }
+
+        Instant now = Instant.now();
+        Instant expires = recent.get(eventId);
+        if (expires != null) {
+            if (expires.isAfter(now)) {
+                return true;
+            }
+            recent.remove(eventId);
+        }
+
+        if (store != null) {
+            try {
+                if (store.isProcessed(consumerGroup, eventId)) {
+                    recent.put(eventId, now.plus(expiry));
+                    return true;
+                }
+            } catch (Exception e) {
+                log.warn("Failed to read processed event [consumerGroup: {}, eventId: {}]", consumerGroup, eventId, e);
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Records that the given event has been processed by the consumer group.
+     *
+     * @param event the event processed by the consumer.
+     */
+    public void processed(EventPacket event) {
+        UUID eventId = event.getId();
+        if (eventId == null) {
+            return;
+        }
+
+        Instant expires = Instant.now().plus(expiry);
+        recent.put(eventId, expires);
+        if (store != null) {
+            try {
+                store.markProcessed(consumerGroup, eventId, expires);
+            } catch (Exception e) {
+                log.warn("Failed to record processed event [consumerGroup: {}, eventId: {}]", consumerGroup, eventId, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.hillayes.events.consumer;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Tracks the offsets of records dispatched for concurrent processing, so that the
+ * offset committed for each partition never passes a record that has yet to
+ * complete. The committable offset of each partition is that of its lowest
+ * incomplete record or, when all records are complete, the offset following
+ * its highest record.
+ */
+class OffsetTracker {
+    /**
+     * The offsets of the records dispatched, but not yet completed, for each partition.
+     */
+    private final Map<TopicPartition, NavigableSet<Long>> pending = new ConcurrentHashMap<>();
+
+    /**
+     * The highest offset dispatched for each partition.
+     */
+    private final Map<TopicPartition, Long> highest = new ConcurrentHashMap<>();
+
+    /**
+     * Records that the given record has been dispatched for processing.
+     */
+    public void dispatched(ConsumerRecord<?, ?> record) {
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        pending.computeIfAbsent(partition, p -> new ConcurrentSkipListSet<>()).add(record.offset());
+        highest.merge(partition, record.offset(), Math::max);
+    }
+
+    /**
+     * Records that the processing of the given record is complete; whether it
+     * succeeded or was passed to the error handler.
+     */
+    public void completed(ConsumerRecord<?, ?> record) {
+        NavigableSet<Long> offsets = pending.get(new TopicPartition(record.topic(), record.partition()));
+        if (offsets != null) {
+            offsets.remove(record.offset());
+        }
+    }
+
+    /**
+     * Returns the offsets that can be committed for each partition. These are the
+     * offsets of the next record to be consumed, and will not pass any record still
+     * being processed.
+     */
+    public Map<TopicPartition, OffsetAndMetadata> committable() {
+        Map<TopicPartition, OffsetAndMetadata> result = new HashMap<>();
+        highest.forEach((partition, maxOffset) -> {
+            NavigableSet<Long> offsets = pending.get(partition);
+            Long lowestPending = (offsets == null) ? null : offsets.ceiling(Long.MIN_VALUE);
+            result.put(partition, new OffsetAndMetadata((lowestPending == null) ? maxOffset + 1 : lowestPending));
+        });
+        return result;
+    }
+}
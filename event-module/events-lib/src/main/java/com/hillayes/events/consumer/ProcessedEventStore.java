@@ -0,0 +1,32 @@
+package com.hillayes.events.consumer;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A persistent record of the events processed by each consumer group. Used by the
+ * {@link EventDeduplicator} to recognise events that are re-delivered after the
+ * consumer's in-memory record of them has been lost; for example, after a restart
+ * or a partition re-balance.
+ */
+public interface ProcessedEventStore {
+    /**
+     * Tests whether the identified event has been processed by the given consumer
+     * group, and the record of that processing has not yet expired.
+     *
+     * @param consumerGroup the consumer group that received the event.
+     * @param eventId the EventPacket's identifier.
+     * @return true if the event has already been processed.
+     */
+    boolean isProcessed(String consumerGroup, UUID eventId);
+
+    /**
+     * Records that the identified event has been processed by the given consumer
+     * group.
+     *
+     * @param consumerGroup the consumer group that processed the event.
+     * @param eventId the EventPacket's identifier.
+     * @param expires the time after which the record may be discarded.
+     */
+    void markProcessed(String consumerGroup, UUID eventId, Instant expires);
+}
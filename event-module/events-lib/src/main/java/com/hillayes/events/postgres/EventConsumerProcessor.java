@@ -0,0 +1,64 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.events.consumer.ConsumerErrorHandler;
+import com.hillayes.events.consumer.EventConsumer;
+import com.hillayes.events.consumer.EventDeduplicator;
+import com.hillayes.events.domain.EventPacket;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+/**
+ * Passes the records read from the {@link EventLog} to an EventConsumer; in the same
+ * way that the ConsumerProxy does for those read from Kafka. The record's correlation
+ * ID is set on the thread, duplicate events are skipped, and any error raised by the
+ * EventConsumer is passed to the ConsumerErrorHandler.
+ */
+@Slf4j
+public class EventConsumerProcessor implements EventLog.RecordProcessor {
+    private final EventConsumer eventConsumer;
+
+    private final ConsumerErrorHandler errorHandler;
+
+    /**
+     * Identifies the events already processed by the consumer group. May be null.
+     */
+    private final EventDeduplicator deduplicator;
+
+    public EventConsumerProcessor(EventConsumer eventConsumer,
+                                  ConsumerErrorHandler errorHandler,
+                                  EventDeduplicator deduplicator) {
+        this.eventConsumer = eventConsumer;
+        this.errorHandler = errorHandler;
+        this.deduplicator = deduplicator;
+    }
+
+    @Override
+    public boolean process(ConsumerRecord<String, EventPacket> record) {
+        // using the correlation id from the record
+        String prevId = Correlation.setCorrelationId(record.value().getCorrelationId());
+        try {
+            EventPacket event = record.value();
+            if ((deduplicator != null) && (deduplicator.isDuplicate(event))) {
+                log.debug("Skipping duplicate event [topic: {}, eventId: {}, consumerGroup: {}]",
+                    record.topic(), event.getId(), deduplicator.getConsumerGroup());
+                return true;
+            }
+
+            // pass record to topic handler
+            eventConsumer.consume(record);
+
+            if (deduplicator != null) {
+                deduplicator.processed(event);
+            }
+        } catch (Exception e) {
+            log.warn("Error from event handler [topic: {}]", record.topic(), e);
+            errorHandler.handle(record, eventConsumer, e);
+        } finally {
+            Correlation.setCorrelationId(prevId);
+        }
+
+        // the record is either processed or passed for retry
+        return true;
+    }
+}
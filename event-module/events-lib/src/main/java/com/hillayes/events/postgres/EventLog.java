@@ -0,0 +1,309 @@
+package com.hillayes.events.postgres;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.hillayes.commons.json.MapperFactory;
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.serializers.BinaryEventPacketCodec;
+import com.hillayes.events.serializers.EventPacketCodec;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.*;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * A partitioned log of events, held in PostgreSQL. Each topic is divided into a fixed
+ * number of partitions, and each event is appended to a partition at a position that
+ * increases with each append. Consumer groups record their position in each partition
+ * in a cursor table.
+ * <p>
+ * Appends to a partition are serialised by an advisory lock, held until the appending
+ * transaction ends; so events become visible in the order of their positions, and a
+ * consumer can never read past an event that is yet to be committed. Each append is
+ * made in a short transaction of its own, so the lock is only briefly held and no
+ * transaction holds the locks of more than one partition.
+ * <p>
+ * The tables are created by the Flyway migration db/event-log/R__init_event_log.sql.
+ * <p>
+ * A consumer claims a partition by locking the group's cursor for that partition,
+ * skipping any already locked by other consumers of the group. The lock is held until
+ * the consumer has processed the batch, and advanced the cursor.
+ */
+@Slf4j
+public class EventLog {
+    private static final TypeReference<Map<String, String>> HEADERS_TYPE = new TypeReference<>() {};
+
+    private final DataSource dataSource;
+    private final String schema;
+    private final int partitions;
+    private final EventPacketCodec codec = new BinaryEventPacketCodec();
+
+    /**
+     * Processes each record read from the log.
+     */
+    public interface RecordProcessor {
+        /**
+         * Processes the given record.
+         *
+         * @param record the record read from the log.
+         * @return true if the record was processed. False if it cannot yet be processed,
+         *     in which case no further records of its partition are passed until the
+         *     next poll.
+         */
+        boolean process(ConsumerRecord<String, EventPacket> record) throws Exception;
+    }
+
+    public EventLog(DataSource dataSource, String schema, int partitions) {
+        this.dataSource = dataSource;
+        this.schema = schema;
+        this.partitions = Math.max(1, partitions);
+    }
+
+    public int getPartitions() {
+        return partitions;
+    }
+
+    /**
+     * Returns the partition to which the given record is appended. Records with the
+     * same key are always appended to the same partition.
+     */
+    public int partitionFor(ProducerRecord<String, EventPacket> record) {
+        Object key = (record.key() != null) ? record.key() : record.value().getId();
+        return (key == null) ? 0 : Math.floorMod(key.hashCode(), partitions);
+    }
+
+    /**
+     * Appends the given record to the log, in a transaction of its own. The record is
+     * committed before this method returns. This must not be called within a JTA
+     * transaction; the {@link EventLogProducer} calls it from its own threads.
+     *
+     * @param record the record to be appended.
+     * @return the position at which the record was appended.
+     */
+    public long append(ProducerRecord<String, EventPacket> record) throws SQLException, IOException {
+        int partition = partitionFor(record);
+        byte[] packet = codec.encode(record.value());
+        String headers = encodeHeaders(record);
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                try (PreparedStatement lock = connection.prepareStatement("SELECT pg_advisory_xact_lock(?, ?)")) {
+                    lock.setInt(1, record.topic().hashCode());
+                    lock.setInt(2, partition);
+                    lock.execute();
+                }
+
+                long position;
+                try (PreparedStatement insert = connection.prepareStatement("INSERT INTO " + schema + ".event_log "
+                    + "(topic, partition, position, key, headers, packet) "
+                    + "VALUES (?, ?, nextval('" + schema + ".event_log_position_seq'), ?, ?, ?) RETURNING position")) {
+                    insert.setString(1, record.topic());
+                    insert.setInt(2, partition);
+                    insert.setString(3, record.key());
+                    insert.setString(4, headers);
+                    insert.setBytes(5, packet);
+                    try (ResultSet rs = insert.executeQuery()) {
+                        rs.next();
+                        position = rs.getLong(1);
+                    }
+                }
+
+                connection.commit();
+                return position;
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Ensures the given consumer group has a cursor for each partition of the given
+     * topics. A new cursor starts at the beginning of its partition.
+     */
+    public void join(String consumerGroup, Collection<String> topics) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("INSERT INTO " + schema + ".event_log_cursors "
+                 + "(consumer_group, topic, partition) VALUES (?, ?, ?) ON CONFLICT DO NOTHING")) {
+            for (String topic : topics) {
+                for (int partition = 0; partition < partitions; partition++) {
+                    insert.setString(1, consumerGroup);
+                    insert.setString(2, topic);
+                    insert.setInt(3, partition);
+                    insert.addBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+    }
+
+    /**
+     * Claims those partitions of the given topics not already claimed by another
+     * consumer of the group, and passes a batch of each partition's records to the
+     * given processor. Each partition's cursor is advanced past the records processed.
+     *
+     * @param consumerGroup the consumer group reading the records.
+     * @param topics the topics from which records are read.
+     * @param batchSize the max number of records read from each partition.
+     * @param processor the processor of the records.
+     * @return the number of records processed.
+     */
+    public int consume(String consumerGroup, Collection<String> topics,
+                       int batchSize, RecordProcessor processor) throws Exception {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                int result = 0;
+                for (Cursor cursor : claimCursors(connection, consumerGroup, topics)) {
+                    long position = cursor.position();
+                    for (ConsumerRecord<String, EventPacket> record : read(connection, cursor, batchSize)) {
+                        // an undecodable record is skipped, rather than stall its partition
+                        if (record.value() == null) {
+                            position = record.offset();
+                            continue;
+                        }
+
+                        if (!processor.process(record)) {
+                            break;
+                        }
+                        position = record.offset();
+                        result++;
+                    }
+
+                    if (position != cursor.position()) {
+                        advance(connection, consumerGroup, cursor, position);
+                    }
+                }
+                connection.commit();
+                return result;
+            } catch (Exception e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Deletes those records appended before the given date-time.
+     *
+     * @return the number of records deleted.
+     */
+    public int purge(Instant before) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement delete = connection.prepareStatement("DELETE FROM " + schema + ".event_log WHERE created_at < ?")) {
+            delete.setTimestamp(1, Timestamp.from(before));
+            return delete.executeUpdate();
+        }
+    }
+
+    private List<Cursor> claimCursors(Connection connection, String consumerGroup,
+                                      Collection<String> topics) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT topic, partition, position FROM "
+            + schema + ".event_log_cursors WHERE consumer_group = ? AND topic = ANY(?) "
+            + "FOR UPDATE SKIP LOCKED")) {
+            select.setString(1, consumerGroup);
+            select.setArray(2, connection.createArrayOf("varchar", topics.toArray()));
+            try (ResultSet rs = select.executeQuery()) {
+                List<Cursor> result = new ArrayList<>();
+                while (rs.next()) {
+                    result.add(new Cursor(rs.getString(1), rs.getInt(2), rs.getLong(3)));
+                }
+                return result;
+            }
+        }
+    }
+
+    private List<ConsumerRecord<String, EventPacket>> read(Connection connection, Cursor cursor,
+                                                           int batchSize) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("SELECT position, key, headers, packet, created_at FROM "
+            + schema + ".event_log WHERE topic = ? AND partition = ? AND position > ? ORDER BY position LIMIT ?")) {
+            select.setString(1, cursor.topic());
+            select.setInt(2, cursor.partition());
+            select.setLong(3, cursor.position());
+            select.setInt(4, batchSize);
+            try (ResultSet rs = select.executeQuery()) {
+                List<ConsumerRecord<String, EventPacket>> result = new ArrayList<>();
+                while (rs.next()) {
+                    result.add(toRecord(cursor, rs));
+                }
+                return result;
+            }
+        }
+    }
+
+    /**
+     * Creates a ConsumerRecord from the current row of the given result set. If the
+     * row cannot be decoded, the failure is logged and counted, and the record is
+     * returned without a value.
+     */
+    private ConsumerRecord<String, EventPacket> toRecord(Cursor cursor, ResultSet rs) throws SQLException {
+        long position = rs.getLong(1);
+        byte[] packet = rs.getBytes(4);
+
+        EventPacket value = null;
+        RecordHeaders headers = new RecordHeaders();
+        try {
+            value = codec.decode(packet);
+            headers = decodeHeaders(rs.getString(3));
+        } catch (Exception e) {
+            log.error("Skipping undecodable event [topic: {}, partition: {}, position: {}]",
+                cursor.topic(), cursor.partition(), position, e);
+            Metrics.counter("events.consumer.undecodable", "topic", cursor.topic()).increment();
+            value = null;
+        }
+
+        return new ConsumerRecord<>(cursor.topic(), cursor.partition(), position,
+            rs.getTimestamp(5).getTime(), TimestampType.CREATE_TIME, -1, packet.length,
+            rs.getString(2), value, headers, Optional.empty());
+    }
+
+    private void advance(Connection connection, String consumerGroup,
+                         Cursor cursor, long position) throws SQLException {
+        try (PreparedStatement update = connection.prepareStatement("UPDATE " + schema + ".event_log_cursors "
+            + "SET position = ? WHERE consumer_group = ? AND topic = ? AND partition = ?")) {
+            update.setLong(1, position);
+            update.setString(2, consumerGroup);
+            update.setString(3, cursor.topic());
+            update.setInt(4, cursor.partition());
+            update.executeUpdate();
+        }
+    }
+
+    private String encodeHeaders(ProducerRecord<String, EventPacket> record) throws IOException {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (Header header : record.headers()) {
+            if (header.value() != null) {
+                result.put(header.key(), new String(header.value(), StandardCharsets.UTF_8));
+            }
+        }
+        return result.isEmpty() ? null : MapperFactory.defaultMapper().writeValueAsString(result);
+    }
+
+    private RecordHeaders decodeHeaders(String headers) throws IOException {
+        RecordHeaders result = new RecordHeaders();
+        if (headers != null) {
+            MapperFactory.defaultMapper().readValue(headers, HEADERS_TYPE)
+                .forEach((key, value) -> result.add(key, value.getBytes(StandardCharsets.UTF_8)));
+        }
+        return result;
+    }
+
+    /**
+     * A consumer group's position in a partition.
+     */
+    private record Cursor(String topic, int partition, long position) {}
+}
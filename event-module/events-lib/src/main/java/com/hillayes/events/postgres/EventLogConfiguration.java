@@ -0,0 +1,58 @@
+package com.hillayes.events.postgres;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Configures the PostgreSQL event transport; used in place of Kafka when the build
+ * property "one-stop.events.transport" is set to "postgres". For example:
+ * <pre>
+ *   one-stop:
+ *     events:
+ *       transport: postgres
+ *       postgres:
+ *         partitions: 4
+ *         poll-interval: PT0.5S
+ * </pre>
+ * All services must share the same database, and the same schema for the event log.
+ * The tables are created by the migration in "db/event-log", which must be added to
+ * each service's Flyway locations (see the event-module README).
+ */
+@ConfigMapping(prefix = "one-stop.events.postgres")
+public interface EventLogConfiguration {
+    /**
+     * The DB schema in which the event log is held. This must be shared by all
+     * services, so is independent of each service's own schema. Must match the
+     * Flyway placeholder "event_log_schema".
+     */
+    @WithDefault("events")
+    String schema();
+
+    /**
+     * The number of partitions into which each topic is divided. Events with the
+     * same key are always written to the same partition, and each partition of a
+     * topic is consumed by only one consumer of each consumer group at a time.
+     */
+    @WithDefault("8")
+    int partitions();
+
+    /**
+     * The maximum number of events read from a partition in each poll.
+     */
+    @WithDefault("100")
+    int batchSize();
+
+    /**
+     * The interval between polls, when the previous poll found no events.
+     */
+    @WithDefault("PT0.25S")
+    Duration pollInterval();
+
+    /**
+     * The age after which events are deleted from the log; whether consumed or not.
+     */
+    @WithDefault("P7D")
+    Duration retention();
+}
@@ -0,0 +1,93 @@
+package com.hillayes.events.postgres;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+
+/**
+ * Repeatedly reads the records of the given topics from the {@link EventLog}, on behalf
+ * of a consumer group, and passes them to a {@link EventLog.RecordProcessor}. When no
+ * records are processed, the consumer waits for the poll interval before reading again.
+ * <p>
+ * Several consumers of the same group may run concurrently (for example, one in each
+ * instance of a service), each claiming those partitions not already claimed by another.
+ */
+@Slf4j
+public class EventLogConsumer implements Runnable {
+    private final EventLog eventLog;
+
+    private final String consumerGroup;
+
+    private final Collection<String> topics;
+
+    private final int batchSize;
+
+    private final Duration pollInterval;
+
+    private final EventLog.RecordProcessor processor;
+
+    private volatile boolean running = true;
+
+    public EventLogConsumer(EventLog eventLog,
+                            String consumerGroup,
+                            Collection<String> topics,
+                            int batchSize,
+                            Duration pollInterval,
+                            EventLog.RecordProcessor processor) {
+        this.eventLog = eventLog;
+        this.consumerGroup = consumerGroup;
+        this.topics = topics;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollInterval = pollInterval;
+        this.processor = processor;
+    }
+
+    public String getConsumerGroup() {
+        return consumerGroup;
+    }
+
+    public Collection<String> getTopics() {
+        return topics;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public void run() {
+        log.debug("Starting event log consumer [group: {}, topics: {}]", consumerGroup, topics);
+        try {
+            eventLog.join(consumerGroup, topics);
+            while (running) {
+                if (poll() == 0) {
+                    Thread.sleep(pollInterval.toMillis());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Unexpected exception [group: {}, topics: {}]", consumerGroup, topics, e);
+        } finally {
+            log.info("Closed event log consumer [group: {}, topics: {}]", consumerGroup, topics);
+        }
+    }
+
+    /**
+     * Reads and processes the next batch of records from each partition claimed by
+     * this consumer. If an error is raised, the batch is rolled back, and its records
+     * will be read again on the next poll.
+     *
+     * @return the number of records processed.
+     */
+    int poll() {
+        try {
+            int count = eventLog.consume(consumerGroup, topics, batchSize, processor);
+            log.trace("Records processed [group: {}, topics: {}, size: {}]", consumerGroup, topics, count);
+            return count;
+        } catch (Exception e) {
+            log.error("Failed to process records [group: {}, topics: {}]", consumerGroup, topics, e);
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.annotation.AnnotationUtils;
+import com.hillayes.events.consumer.ConsumerErrorHandler;
+import com.hillayes.events.consumer.EventConsumer;
+import com.hillayes.events.consumer.EventDeduplicator;
+import com.hillayes.events.consumer.ProcessedEventStore;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.retry.RetryTiers;
+import com.hillayes.events.sender.EventProducer;
+import io.quarkus.arc.properties.IfBuildProperty;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Any;
+import jakarta.enterprise.inject.Instance;
+import jakarta.enterprise.inject.Produces;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Produces the beans of the PostgreSQL event transport; in place of those produced
+ * by the ProducerFactory and ConsumerFactory for Kafka.
+ */
+@IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "postgres")
+@Slf4j
+public class EventLogFactory {
+    /**
+     * The build property that selects the event transport; either "kafka" (the
+     * default) or "postgres".
+     */
+    public static final String TRANSPORT_PROPERTY = "one-stop.events.transport";
+
+    @Produces
+    @ApplicationScoped
+    public EventLog eventLog(DataSource dataSource,
+                             EventLogConfiguration configuration) {
+        log.info("Creating PostgreSQL event log [schema: {}, partitions: {}]",
+            configuration.schema(), configuration.partitions());
+        return new EventLog(dataSource, configuration.schema(), configuration.partitions());
+    }
+
+    @Produces
+    @ApplicationScoped
+    public EventProducer getProducer(EventLog eventLog) {
+        return new EventLogProducer(eventLog);
+    }
+
+    /**
+     * Creates a consumer for each retry tier, to return the events held on that tier
+     * to their original topic once they are due.
+     *
+     * All services share the same consumer group for the relays; ensuring that only
+     * one service will relay a given failed event.
+     */
+    @Produces
+    @ApplicationScoped
+    public Set<RetryRelayProcessor> retryRelays(RetryTiers retryTiers,
+                                                EventProducer producer) {
+        Set<RetryRelayProcessor> relays = new HashSet<>();
+        retryTiers.getTiers().forEach(tier -> relays.add(new RetryRelayProcessor(producer, tier)));
+        return relays;
+    }
+
+    /**
+     * Creates a processor for each EventConsumer instance located by the CDI context.
+     * Each is keyed by its consumer group, taken from the EventConsumer's ConsumerGroup
+     * annotation or, if absent, the default group.
+     */
+    @Produces
+    @ApplicationScoped
+    public Set<EventLogConsumer> consumers(@Any Instance<EventConsumer> instances,
+                                           EventLog eventLog,
+                                           EventLogConfiguration configuration,
+                                           ConsumerErrorHandler errorHandler,
+                                           Instance<ProcessedEventStore> processedEventStores,
+                                           @ConfigProperty(name = "kafka.group.id") Optional<String> groupId,
+                                           @ConfigProperty(name = "quarkus.application.name") String applicationName,
+                                           @ConfigProperty(name = "kafka.consumer.deduplication.capacity", defaultValue = "10000") int deduplicationCapacity,
+                                           @ConfigProperty(name = "kafka.consumer.deduplication.expiry", defaultValue = "P2D") Duration deduplicationExpiry) {
+        log.info("Registering event log consumers");
+        ProcessedEventStore processedEventStore = processedEventStores.isResolvable()
+            ? processedEventStores.get()
+            : null;
+        Set<EventLogConsumer> consumers = new HashSet<>();
+        instances.stream().forEach(eventConsumer -> {
+            Collection<Topic> topics = AnnotationUtils.getTopics(eventConsumer);
+            if (!topics.isEmpty()) {
+                String consumerGroup = AnnotationUtils.getConsumerGroup(eventConsumer)
+                    .orElse(groupId.orElse(applicationName));
+                log.debug("Registering event log consumer [topics: {}, class: {}, group: {}]",
+                    topics, eventConsumer.getClass().getName(), consumerGroup);
+
+                EventDeduplicator deduplicator = AnnotationUtils.isDeduplicated(eventConsumer)
+                    ? new EventDeduplicator(consumerGroup, deduplicationCapacity, deduplicationExpiry, processedEventStore)
+                    : null;
+
+                consumers.add(new EventLogConsumer(eventLog, consumerGroup,
+                    topics.stream().map(Topic::topicName).toList(),
+                    configuration.batchSize(), configuration.pollInterval(),
+                    new EventConsumerProcessor(eventConsumer, errorHandler, deduplicator)));
+            }
+        });
+
+        return consumers;
+    }
+}
@@ -0,0 +1,105 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.sender.EventProducer;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+
+/**
+ * An EventProducer that appends records to the {@link EventLog}, in place of a Kafka
+ * broker. Allows the existing senders (the outbox's EventDeliverer and the
+ * ConsumerErrorHandler) to be used, unchanged, with the PostgreSQL event transport.
+ * <p>
+ * Each record is appended on one of the producer's own threads; so the append runs in
+ * a short transaction of its own, rather than in any transaction of the caller (such
+ * as that in which the outbox delivers its events). The partition's lock is then held
+ * only for the duration of the append. As with Kafka, should the caller's transaction
+ * roll back, the appended records will be sent again; consumers are expected to
+ * tolerate such re-delivery.
+ * <p>
+ * The appends to each partition are made in the order in which they are sent.
+ */
+@Slf4j
+public class EventLogProducer implements EventProducer {
+    private final EventLog eventLog;
+
+    private final ExecutorService executor;
+
+    /**
+     * The last append queued for each partition. Each append waits for the previous
+     * append to its partition, preserving the order in which they are sent.
+     */
+    private final CompletableFuture<?>[] tails;
+
+    public EventLogProducer(EventLog eventLog) {
+        this(eventLog, ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name("event-log-producer")
+            .executorType(ExecutorType.FIXED)
+            .numberOfThreads(eventLog.getPartitions())
+            .propagateContext(false)
+            .build()));
+    }
+
+    EventLogProducer(EventLog eventLog, ExecutorService executor) {
+        this.eventLog = eventLog;
+        this.executor = executor;
+        this.tails = new CompletableFuture<?>[Math.max(1, eventLog.getPartitions())];
+        Arrays.fill(tails, CompletableFuture.completedFuture(null));
+    }
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, EventPacket> record, Callback callback) {
+        int partition = eventLog.partitionFor(record);
+
+        CompletableFuture<RecordMetadata> append;
+        synchronized (tails) {
+            // the outcome of the previous append has no bearing on this one
+            append = tails[partition].handleAsync((previous, error) -> append(record, partition), executor);
+            tails[partition] = append;
+        }
+
+        return append.whenComplete((metadata, error) -> {
+            Throwable cause = (error instanceof CompletionException) ? error.getCause() : error;
+            if (cause != null) {
+                log.error("Failed to append event [topic: {}]", record.topic(), cause);
+            }
+            if (callback != null) {
+                callback.onCompletion(metadata, (cause == null || cause instanceof Exception)
+                    ? (Exception) cause
+                    : new ExecutionException(cause));
+            }
+        });
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                log.warn("Timed-out waiting for event log appends to complete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private RecordMetadata append(ProducerRecord<String, EventPacket> record, int partition) {
+        try {
+            long position = eventLog.append(record);
+            log.trace("Appended event [topic: {}, position: {}]", record.topic(), position);
+            return new RecordMetadata(new TopicPartition(record.topic(), partition),
+                position, 0, System.currentTimeMillis(), -1, -1);
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+}
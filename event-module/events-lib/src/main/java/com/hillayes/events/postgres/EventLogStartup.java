@@ -0,0 +1,92 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import io.quarkus.arc.properties.IfBuildProperty;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the consumers of the PostgreSQL event transport, and schedules the deletion
+ * of events that have passed their retention period.
+ */
+@ApplicationScoped
+@IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "postgres")
+@RequiredArgsConstructor
+@Slf4j
+public class EventLogStartup {
+    private static final String RELAY_GROUP = "retry-tier-group";
+
+    private final EventLog eventLog;
+
+    private final EventLogConfiguration configuration;
+
+    private final Set<EventLogConsumer> consumers;
+
+    private final Set<RetryRelayProcessor> retryRelays;
+
+    private final List<EventLogConsumer> running = new ArrayList<>();
+
+    public void startConsumers(@Observes StartupEvent ev) {
+        log.info("Starting event log consumers");
+
+        // the retry relays are started regardless of the service's own consumers
+        retryRelays.forEach(relay -> {
+            log.debug("Starting retry relay [topic: {}]", relay.getTier().topic());
+            running.add(new EventLogConsumer(eventLog, RELAY_GROUP, List.of(relay.getTier().topic().topicName()),
+                configuration.batchSize(), configuration.pollInterval(), relay));
+        });
+        running.addAll(consumers);
+        if (consumers.isEmpty()) {
+            log.warn("No consumers registered");
+        }
+
+        if (!running.isEmpty()) {
+            ExecutorService executorService = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+                .name("event-log-consumer")
+                .executorType(ExecutorType.FIXED)
+                .numberOfThreads(running.size())
+                .build());
+            running.forEach(executorService::submit);
+        }
+
+        long interval = TimeUnit.HOURS.toMillis(1);
+        ScheduledExecutorService purgeService = (ScheduledExecutorService) ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .executorType(ExecutorType.SCHEDULED)
+            .name("event-log-purge")
+            .numberOfThreads(1)
+            .build());
+        purgeService.scheduleWithFixedDelay(this::purge, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdownConsumers() {
+        log.info("Shutting down event log consumers");
+        running.forEach(EventLogConsumer::stop);
+    }
+
+    /**
+     * Deletes those events that have passed their retention period.
+     */
+    void purge() {
+        try {
+            int count = eventLog.purge(Instant.now().minus(configuration.retention()));
+            log.debug("Purged event log [count: {}]", count);
+        } catch (Exception e) {
+            log.error("Failed to purge event log", e);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.retry.RetryTier;
+import com.hillayes.events.sender.EventProducer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.time.Clock;
+import java.time.Instant;
+
+import static com.hillayes.events.consumer.HeadersUtils.SCHEDULE_HEADER;
+import static com.hillayes.events.consumer.HeadersUtils.getHeader;
+
+/**
+ * Returns the failed events held on a retry tier's topic of the {@link EventLog} to
+ * their original topic, once each is due. The equivalent of the DelayedRetryRelay
+ * for the PostgreSQL event transport.
+ * <p>
+ * As each tier applies a fixed delay, the events on each partition become due in the
+ * order they were appended. So, when an event is not yet due, none that follow it on
+ * the same partition are read until the next poll.
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class RetryRelayProcessor implements EventLog.RecordProcessor {
+    private final EventProducer producer;
+
+    private final RetryTier tier;
+
+    private final Clock clock;
+
+    public RetryRelayProcessor(EventProducer producer, RetryTier tier) {
+        this(producer, tier, Clock.systemUTC());
+    }
+
+    public RetryTier getTier() {
+        return tier;
+    }
+
+    @Override
+    public boolean process(ConsumerRecord<String, EventPacket> record) throws Exception {
+        if (dueAt(record).isAfter(clock.instant())) {
+            return false;
+        }
+
+        EventPacket event = record.value();
+        log.debug("Relaying event for retry [topic: {}, eventId: {}, retryCount: {}]",
+            event.getTopic(), event.getId(), event.getRetryCount());
+
+        // wait for the append; if it fails the record will be read again
+        producer.send(new ProducerRecord<>(event.getTopic().topicName(), event.getKey(), event)).get();
+        return true;
+    }
+
+    /**
+     * Returns the time at which the given record is due to be relayed. Taken from the
+     * record's schedule header or, if absent, the record's timestamp plus the tier's
+     * delay.
+     */
+    private Instant dueAt(ConsumerRecord<String, EventPacket> record) {
+        return getHeader(record.headers(), SCHEDULE_HEADER)
+            .map(Instant::parse)
+            .orElseGet(() -> Instant.ofEpochMilli(record.timestamp()).plus(tier.delay()));
+    }
+}
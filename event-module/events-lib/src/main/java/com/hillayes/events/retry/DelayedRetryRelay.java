@@ -0,0 +1,183 @@
+package com.hillayes.events.retry;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.sender.EventProducer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.*;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import static com.hillayes.events.consumer.HeadersUtils.SCHEDULE_HEADER;
+import static com.hillayes.events.consumer.HeadersUtils.getHeader;
+
+/**
+ * Consumes the failed events held on a retry tier's topic and, once each is due,
+ * returns it to its original topic for re-delivery.
+ * <p>
+ * As each tier applies a fixed delay, the events on each partition become due in
+ * the order they were written. When the event at the head of a partition is not yet
+ * due, the partition is paused until it is; so no events are read (or held in memory)
+ * before they are due, and the consumer remains live within its group.
+ * <p>
+ * An event's offset is only committed once the broker has acknowledged its
+ * re-delivery; so an event may be re-delivered more than once, but never lost.
+ */
+@Slf4j
+public class DelayedRetryRelay implements Runnable {
+    private static final Duration MAX_POLL_TIMEOUT = Duration.ofSeconds(5);
+
+    private final KafkaConsumer<String, EventPacket> broker;
+
+    private final EventProducer producer;
+
+    private final RetryTier tier;
+
+    /**
+     * The time at which each paused partition is to be resumed.
+     */
+    final Map<TopicPartition, Instant> pausedUntil = new HashMap<>();
+
+    public DelayedRetryRelay(KafkaConsumer<String, EventPacket> broker,
+                             EventProducer producer,
+                             RetryTier tier) {
+        this.broker = broker;
+        this.producer = producer;
+        this.tier = tier;
+    }
+
+    public RetryTier getTier() {
+        return tier;
+    }
+
+    public void stop() {
+        broker.wakeup();
+    }
+
+    public void run() {
+        log.debug("Starting retry relay [topic: {}, delay: {}]", tier.topic(), tier.delay());
+        try {
+            broker.subscribe(List.of(tier.topic().topicName()), new ConsumerRebalanceListener() {
+                public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+                    log.debug("Partitions assigned [partitions: {}]", partitions);
+                }
+
+                public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+                    partitions.forEach(pausedUntil::remove);
+                }
+            });
+
+            while (true) {
+                resumeDuePartitions(Instant.now());
+                ConsumerRecords<String, EventPacket> records = broker.poll(nextPollTimeout(Instant.now()));
+                if (!records.isEmpty()) {
+                    relay(records, Instant.now());
+                }
+            }
+        } catch (WakeupException e) {
+            // ignore, we're closing
+        } catch (Exception e) {
+            log.error("Unexpected exception [topic: {}]", tier.topic(), e);
+        } finally {
+            broker.close();
+            log.info("Closed retry relay [topic: {}]", tier.topic());
+        }
+    }
+
+    /**
+     * Returns those records that are due to their original topics, and commits their
+     * offsets. Each partition whose head record is not yet due is rewound to that
+     * record and paused until it is due.
+     *
+     * @param records the records to be relayed.
+     * @param now the time against which the records' due times are compared.
+     */
+    void relay(ConsumerRecords<String, EventPacket> records, Instant now) throws InterruptedException {
+        Map<TopicPartition, OffsetAndMetadata> offsets = new HashMap<>();
+        List<Future<RecordMetadata>> sends = new ArrayList<>();
+        for (TopicPartition partition : records.partitions()) {
+            for (ConsumerRecord<String, EventPacket> record : records.records(partition)) {
+                Instant due = dueAt(record);
+                if (due.isAfter(now)) {
+                    log.trace("Pausing retry partition [partition: {}, until: {}]", partition, due);
+                    broker.seek(partition, record.offset());
+                    broker.pause(List.of(partition));
+                    pausedUntil.put(partition, due);
+                    break;
+                }
+
+                EventPacket event = record.value();
+                log.debug("Relaying event for retry [topic: {}, eventId: {}, retryCount: {}]",
+                    event.getTopic(), event.getId(), event.getRetryCount());
+                ProducerRecord<String, EventPacket> retry =
+                    new ProducerRecord<>(event.getTopic().topicName(), event.getKey(), event);
+                sends.add(producer.send(retry));
+                offsets.put(partition, new OffsetAndMetadata(record.offset() + 1));
+            }
+        }
+
+        // only commit the offsets once all events have been acknowledged
+        for (Future<RecordMetadata> send : sends) {
+            try {
+                send.get();
+            } catch (ExecutionException e) {
+                // rewind, so that the events are read again
+                log.error("Failed to relay events for retry [topic: {}]", tier.topic(), e.getCause());
+                broker.committed(offsets.keySet()).forEach((partition, committed) ->
+                    broker.seek(partition, committed == null ? 0 : committed.offset()));
+                return;
+            }
+        }
+
+        if (!offsets.isEmpty()) {
+            broker.commitSync(offsets);
+        }
+    }
+
+    /**
+     * Resumes those paused partitions whose head record is now due.
+     */
+    void resumeDuePartitions(Instant now) {
+        List<TopicPartition> due = pausedUntil.entrySet().stream()
+            .filter(entry -> !entry.getValue().isAfter(now))
+            .map(Map.Entry::getKey)
+            .toList();
+
+        if (!due.isEmpty()) {
+            log.trace("Resuming retry partitions [partitions: {}]", due);
+            due.forEach(pausedUntil::remove);
+            broker.resume(due);
+        }
+    }
+
+    /**
+     * Returns the time to wait on the next poll; no longer than the time until the
+     * next paused partition is to be resumed.
+     */
+    Duration nextPollTimeout(Instant now) {
+        return pausedUntil.values().stream()
+            .min(Comparator.naturalOrder())
+            .map(next -> Duration.between(now, next))
+            .filter(wait -> wait.compareTo(MAX_POLL_TIMEOUT) < 0)
+            .map(wait -> wait.isNegative() ? Duration.ZERO : wait)
+            .orElse(MAX_POLL_TIMEOUT);
+    }
+
+    /**
+     * Returns the time at which the given record is due to be relayed. Taken from the
+     * record's schedule header or, if absent, the record's timestamp plus the tier's
+     * delay.
+     */
+    private Instant dueAt(ConsumerRecord<String, EventPacket> record) {
+        return getHeader(record.headers(), SCHEDULE_HEADER)
+            .map(Instant::parse)
+            .orElseGet(() -> Instant.ofEpochMilli(record.timestamp()).plus(tier.delay()));
+    }
+}
@@ -0,0 +1,15 @@
+package com.hillayes.events.retry;
+
+import com.hillayes.events.domain.Topic;
+
+import java.time.Duration;
+
+/**
+ * A topic on which failed events are held for a fixed delay before being returned
+ * to their original topic for another delivery attempt.
+ *
+ * @param topic the topic on which the failed events are held.
+ * @param delay the delay before the events are re-delivered.
+ */
+public record RetryTier(Topic topic, Duration delay) {
+}
@@ -0,0 +1,57 @@
+package com.hillayes.events.retry;
+
+import com.hillayes.events.domain.Topic;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The ordered collection of retry tiers through which a failed event progresses.
+ * The first failure of an event is passed to the first tier, the second to the
+ * second tier, and so on. Once an event has passed through all tiers, any further
+ * failure will place it in the message hospital.
+ */
+public class RetryTiers {
+    /**
+     * The topics available to the retry tiers, in the order they are used.
+     */
+    private static final List<Topic> TIER_TOPICS = List.of(Topic.RETRY_TIER_1, Topic.RETRY_TIER_2, Topic.RETRY_TIER_3);
+
+    private final List<RetryTier> tiers;
+
+    /**
+     * @param delays the delay of each tier, in the order they are used. No more than
+     *     three tiers are supported.
+     */
+    public RetryTiers(List<Duration> delays) {
+        if (delays.size() > TIER_TOPICS.size()) {
+            throw new IllegalArgumentException("Too many retry tiers [max: " + TIER_TOPICS.size() + "]");
+        }
+
+        List<RetryTier> result = new ArrayList<>(delays.size());
+        for (int i = 0; i < delays.size(); i++) {
+            result.add(new RetryTier(TIER_TOPICS.get(i), delays.get(i)));
+        }
+        this.tiers = Collections.unmodifiableList(result);
+    }
+
+    public List<RetryTier> getTiers() {
+        return tiers;
+    }
+
+    /**
+     * Returns the tier on which an event, that has already been retried the given
+     * number of times, is to be held. Returns empty if the event has been retried
+     * through all tiers.
+     *
+     * @param retryCount the number of times the event has already been retried.
+     */
+    public Optional<RetryTier> forRetry(int retryCount) {
+        return ((retryCount >= 0) && (retryCount < tiers.size()))
+            ? Optional.of(tiers.get(retryCount))
+            : Optional.empty();
+    }
+}
@@ -0,0 +1,44 @@
+package com.hillayes.events.sender;
+
+import com.hillayes.events.domain.EventPacket;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.concurrent.Future;
+
+/**
+ * Sends event records to the event transport. Implemented for each transport; the
+ * Kafka broker (see {@link KafkaEventProducer}) and the PostgreSQL event log (see
+ * {@link com.hillayes.events.postgres.EventLogProducer}).
+ * <p>
+ * As with Kafka's Producer, sends are asynchronous; the returned Future (and any
+ * callback) completes once the transport acknowledges the record.
+ */
+public interface EventProducer extends AutoCloseable {
+    /**
+     * Sends the given record to the transport.
+     *
+     * @param record the record to be sent.
+     * @return a Future that completes with the record's metadata once acknowledged.
+     */
+    default Future<RecordMetadata> send(ProducerRecord<String, EventPacket> record) {
+        return send(record, null);
+    }
+
+    /**
+     * Sends the given record to the transport, and passes the outcome to the given
+     * callback.
+     *
+     * @param record the record to be sent.
+     * @param callback the callback to be called once the send completes. May be null.
+     * @return a Future that completes with the record's metadata once acknowledged.
+     */
+    Future<RecordMetadata> send(ProducerRecord<String, EventPacket> record, Callback callback);
+
+    /**
+     * Releases the transport's resources; waiting for any sends in progress.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,33 @@
+package com.hillayes.events.sender;
+
+import com.hillayes.events.domain.EventPacket;
+import lombok.RequiredArgsConstructor;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+
+import java.util.concurrent.Future;
+
+/**
+ * An {@link EventProducer} that sends records to the Kafka broker.
+ */
+@RequiredArgsConstructor
+public class KafkaEventProducer implements EventProducer {
+    private final Producer<String, EventPacket> producer;
+
+    @Override
+    public Future<RecordMetadata> send(ProducerRecord<String, EventPacket> record, Callback callback) {
+        return producer.send(record, callback);
+    }
+
+    @Override
+    public void close() {
+        producer.close();
+    }
+
+    @Override
+    public String toString() {
+        return producer.toString();
+    }
+}
@@ -1,18 +1,23 @@
 package com.hillayes.events.sender;
 
 import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.postgres.EventLogFactory;
+import com.hillayes.events.serializers.EventPacketCodec;
 import com.hillayes.events.serializers.EventPacketSerializer;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
+import io.quarkus.arc.properties.IfBuildProperty;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import io.smallrye.common.annotation.Identifier;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.producer.KafkaProducer;
-import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.inject.Produces;
+import java.util.Optional;
 import java.util.Properties;
 
 @RegisterForReflection(targets = {
@@ -24,35 +29,59 @@ import java.util.Properties;
 })
 @Slf4j
 public class ProducerFactory {
+    /**
+     * Creates the producer configuration. The producer's linger, batch-size, compression
+     * and idempotence are taken from the selected {@link ProducerProfile}; any of which
+     * may be overridden by their individual properties.
+     */
     @Produces
     @ApplicationScoped
     @Identifier("event-producer-config")
     public Properties getProducerConfig(@ConfigProperty(name = "kafka.producer.client", defaultValue = "hillayes.com") final String clientId,
                                         @ConfigProperty(name = "kafka.bootstrap.servers", defaultValue = "kafka:9092") final String bootstrapServers,
-                                        @ConfigProperty(name = "kafka.producer.lingerMs", defaultValue = "0") final String lingerMs,
+                                        @ConfigProperty(name = "kafka.producer.profile", defaultValue = "low-latency") final String profile,
+                                        @ConfigProperty(name = "kafka.producer.lingerMs") final Optional<Integer> lingerMs,
                                         @ConfigProperty(name = "kafka.producer.acksConfig", defaultValue = "all") final String acksConfig,
                                         @ConfigProperty(name = "kafka.producer.maxInFlightRequestsPerConnection", defaultValue = "3") final Integer maxInFlightRequestsPerConnection,
-                                        @ConfigProperty(name = "kafka.producer.batchSizeConfig", defaultValue = "16384") final Integer batchSizeConfig,
-                                        @ConfigProperty(name = "kafka.producer.maxBlockMsConfig", defaultValue = "60000") final Integer maxBlockMsConfig) {
-        Properties config = new Properties();
+                                        @ConfigProperty(name = "kafka.producer.batchSizeConfig") final Optional<Integer> batchSizeConfig,
+                                        @ConfigProperty(name = "kafka.producer.compressionType") final Optional<String> compressionType,
+                                        @ConfigProperty(name = "kafka.producer.idempotence") final Optional<Boolean> idempotence,
+                                        @ConfigProperty(name = "kafka.producer.maxBlockMsConfig", defaultValue = "60000") final Integer maxBlockMsConfig,
+                                        @ConfigProperty(name = "kafka.producer.codec", defaultValue = "json") final String codec) {
+        Properties config = ProducerProfile.fromName(profile).apply(new Properties());
         config.put(ProducerConfig.CLIENT_ID_CONFIG, clientId);
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.ACKS_CONFIG, acksConfig);
-        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventPacketSerializer.class);
         config.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequestsPerConnection);
-        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSizeConfig);
         config.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, maxBlockMsConfig);
+        config.put(EventPacketCodec.CODEC_CONFIG, codec);
 
-        log.debug("Kafka producer config: {}", config);
+        // individual properties override those of the profile
+        lingerMs.ifPresent(value -> config.put(ProducerConfig.LINGER_MS_CONFIG, value));
+        batchSizeConfig.ifPresent(value -> config.put(ProducerConfig.BATCH_SIZE_CONFIG, value));
+        compressionType.ifPresent(value -> config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, value));
+        idempotence.ifPresent(value -> config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, value));
+
+        log.debug("Kafka producer config [profile: {}, config: {}]", profile, config);
         return config;
     }
 
+    /**
+     * Creates the Kafka producer and, if enabled, binds its metrics to Micrometer; where
+     * they can be scraped with the service's other metrics.
+     */
+    @IfBuildProperty(name = EventLogFactory.TRANSPORT_PROPERTY, stringValue = "kafka", enableIfMissing = true)
     @Produces()
     @ApplicationScoped
-    public Producer<String, EventPacket> getProducer(@Identifier("event-producer-config") Properties producerConfig) {
+    public EventProducer getProducer(@Identifier("event-producer-config") Properties producerConfig,
+                                     @ConfigProperty(name = "kafka.producer.metrics", defaultValue = "true") boolean metricsEnabled) {
         log.info("Creating new Kafka Producer");
-        return new KafkaProducer<>(producerConfig);
+        KafkaProducer<String, EventPacket> producer = new KafkaProducer<>(producerConfig);
+        if (metricsEnabled) {
+            new KafkaClientMetrics(producer).bindTo(Metrics.globalRegistry);
+        }
+        return new KafkaEventProducer(producer);
     }
 }
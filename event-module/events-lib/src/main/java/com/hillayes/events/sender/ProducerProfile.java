@@ -0,0 +1,73 @@
+package com.hillayes.events.sender;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Properties;
+
+/**
+ * Pre-defined tunings of the Kafka producer, selected by the configuration property
+ * "kafka.producer.profile". Each of the profile's settings may be overridden by its
+ * individual configuration property. For example:
+ * <pre>
+ *   kafka:
+ *     producer:
+ *       profile: high-throughput
+ *       lingerMs: 50
+ * </pre>
+ *
+ * All profiles enable idempotence, so that a send retried by the producer cannot
+ * duplicate the event on the topic.
+ */
+public enum ProducerProfile {
+    /**
+     * Each event is sent as soon as possible, without compression. Suited to services
+     * that send few events, and whose consumers are waiting on them.
+     */
+    LOW_LATENCY(0, 16384, "none"),
+
+    /**
+     * Events are held briefly, to be sent in compressed batches.
+     */
+    BALANCED(5, 65536, "lz4"),
+
+    /**
+     * Events are held for longer, to be sent in larger compressed batches. Suited to
+     * services that send bursts of events; trading a few milliseconds of latency for
+     * fewer, smaller broker requests.
+     */
+    HIGH_THROUGHPUT(20, 262144, "zstd");
+
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+
+    ProducerProfile(int lingerMs, int batchSize, String compressionType) {
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+    }
+
+    /**
+     * Returns the profile identified by the given name. The name is case-insensitive,
+     * and may use either hyphens or underscores; e.g. "high-throughput".
+     *
+     * @throws IllegalArgumentException if the name is not recognised.
+     */
+    public static ProducerProfile fromName(String name) {
+        return ProducerProfile.valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+
+    /**
+     * Applies the profile's settings to the given producer configuration.
+     *
+     * @param config the configuration to be updated.
+     * @return the given configuration.
+     */
+    public Properties apply(Properties config) {
+        config.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        config.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        config.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        config.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true);
+        return config;
+    }
+}
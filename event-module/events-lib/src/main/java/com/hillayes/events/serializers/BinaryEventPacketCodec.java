@@ -0,0 +1,110 @@
+package com.hillayes.events.serializers;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A compact encoding of EventPackets. The envelope's fields are written in a fixed
+ * order, and the payload is written as raw UTF-8, without the escaping required to
+ * carry it within a JSON envelope.
+ * <p>
+ * The encoding starts with a zero byte, which can never start a JSON document. This
+ * allows the deserializer to distinguish it from messages written by the
+ * {@link JsonEventPacketCodec}.
+ */
+public class BinaryEventPacketCodec implements EventPacketCodec {
+    public static final String NAME = "binary";
+
+    static final byte MAGIC = 0x00;
+    static final byte VERSION = 1;
+
+    /**
+     * Tests whether the given data was encoded by this codec.
+     */
+    public static boolean isBinary(byte[] data) {
+        return (data.length > 1) && (data[0] == MAGIC);
+    }
+
+    @Override
+    public byte[] encode(EventPacket eventPacket) throws IOException {
+        String payload = eventPacket.getPayload();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128 + (payload == null ? 0 : payload.length()));
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(MAGIC);
+            out.writeByte(VERSION);
+
+            UUID id = eventPacket.getId();
+            out.writeBoolean(id != null);
+            if (id != null) {
+                out.writeLong(id.getMostSignificantBits());
+                out.writeLong(id.getLeastSignificantBits());
+            }
+
+            writeString(out, eventPacket.getTopic() == null ? null : eventPacket.getTopic().name());
+            writeString(out, eventPacket.getCorrelationId());
+            out.writeInt(eventPacket.getRetryCount());
+
+            Instant timestamp = eventPacket.getTimestamp();
+            out.writeBoolean(timestamp != null);
+            if (timestamp != null) {
+                out.writeLong(timestamp.getEpochSecond());
+                out.writeInt(timestamp.getNano());
+            }
+
+            writeString(out, eventPacket.getKey());
+            writeString(out, eventPacket.getPayloadClass());
+            writeString(out, payload);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public EventPacket decode(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data))) {
+            if (in.readByte() != MAGIC) {
+                throw new IOException("Not a binary encoded EventPacket");
+            }
+            byte version = in.readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported EventPacket encoding [version: " + version + "]");
+            }
+
+            UUID id = in.readBoolean() ? new UUID(in.readLong(), in.readLong()) : null;
+            String topicName = readString(in);
+            String correlationId = readString(in);
+            int retryCount = in.readInt();
+            Instant timestamp = in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+            String key = readString(in);
+            String payloadClass = readString(in);
+            String payload = readString(in);
+
+            return new EventPacket(id, topicName == null ? null : Topic.valueOf(topicName),
+                correlationId, retryCount, timestamp, key, payloadClass, payload);
+        }
+    }
+
+    private void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
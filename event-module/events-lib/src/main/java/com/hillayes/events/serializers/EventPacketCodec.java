@@ -0,0 +1,38 @@
+package com.hillayes.events.serializers;
+
+import com.hillayes.events.domain.EventPacket;
+
+import java.io.IOException;
+
+/**
+ * Encodes and decodes EventPackets for transport on the message broker.
+ */
+public interface EventPacketCodec {
+    /**
+     * The Kafka serializer configuration property used to select the codec with
+     * which EventPackets are encoded. The deserializer detects the codec from the
+     * content of each message.
+     */
+    String CODEC_CONFIG = "event.packet.codec";
+
+    /**
+     * Returns the codec identified by the given name; "json" or "binary".
+     *
+     * @param name the name of the codec. If null, the json codec is returned.
+     * @return the identified codec.
+     * @throws IllegalArgumentException if the name is not recognised.
+     */
+    static EventPacketCodec forName(String name) {
+        if ((name == null) || (name.isBlank()) || (JsonEventPacketCodec.NAME.equalsIgnoreCase(name))) {
+            return new JsonEventPacketCodec();
+        }
+        if (BinaryEventPacketCodec.NAME.equalsIgnoreCase(name)) {
+            return new BinaryEventPacketCodec();
+        }
+        throw new IllegalArgumentException("Unknown event packet codec [name: " + name + "]");
+    }
+
+    byte[] encode(EventPacket eventPacket) throws IOException;
+
+    EventPacket decode(byte[] data) throws IOException;
+}
@@ -1,20 +1,18 @@
 package com.hillayes.events.serializers;
 
-import com.fasterxml.jackson.databind.ObjectReader;
-import com.hillayes.commons.json.MapperFactory;
 import com.hillayes.events.domain.EventPacket;
 import org.apache.kafka.common.serialization.Deserializer;
 
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 
+/**
+ * Deserializes EventPackets written by any {@link EventPacketCodec}. The codec is
+ * detected from the content of each message, allowing producers to switch codec
+ * while messages in the previous encoding remain on the topics.
+ */
 public class EventPacketDeserializer implements Deserializer<EventPacket> {
-    private final ObjectReader objectReader;
-
-    public EventPacketDeserializer() {
-        this.objectReader = MapperFactory.readerFor(EventPacket.class);
-    }
+    private final EventPacketCodec jsonCodec = new JsonEventPacketCodec();
+    private final EventPacketCodec binaryCodec = new BinaryEventPacketCodec();
 
     @Override
     public EventPacket deserialize(String topic, byte[] data) {
@@ -22,8 +20,10 @@ public class EventPacketDeserializer implements Deserializer<EventPacket> {
             return null;
         }
 
-        try (InputStream is = new ByteArrayInputStream(data)) {
-            return objectReader.readValue(is);
+        try {
+            return BinaryEventPacketCodec.isBinary(data)
+                ? binaryCodec.decode(data)
+                : jsonCodec.decode(data);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -1,18 +1,33 @@
 package com.hillayes.events.serializers;
 
-import com.fasterxml.jackson.databind.ObjectWriter;
-import com.hillayes.commons.json.MapperFactory;
 import com.hillayes.events.domain.EventPacket;
 import org.apache.kafka.common.serialization.Serializer;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Map;
 
+/**
+ * Serializes EventPackets using the {@link EventPacketCodec} named by the
+ * configuration property {@link EventPacketCodec#CODEC_CONFIG}. The JSON codec
+ * is used by default, as it can be read by all consumers.
+ */
 public class EventPacketSerializer implements Serializer<EventPacket> {
-    private final ObjectWriter objectWriter;
+    private EventPacketCodec codec;
 
     public EventPacketSerializer() {
-        this.objectWriter = MapperFactory.writerFor(EventPacket.class);
+        this.codec = new JsonEventPacketCodec();
+    }
+
+    public EventPacketSerializer(EventPacketCodec codec) {
+        this.codec = codec;
+    }
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        Object name = configs.get(EventPacketCodec.CODEC_CONFIG);
+        if (name != null) {
+            codec = EventPacketCodec.forName(name.toString());
+        }
     }
 
     @Override
@@ -21,9 +36,8 @@ public class EventPacketSerializer implements Serializer<EventPacket> {
             return null;
         }
 
-        try (ByteArrayOutputStream output = new ByteArrayOutputStream()) {
-            objectWriter.writeValue(output, data);
-            return output.toByteArray();
+        try {
+            return codec.encode(data);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,29 @@
+package com.hillayes.events.serializers;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.hillayes.commons.json.MapperFactory;
+import com.hillayes.events.domain.EventPacket;
+
+import java.io.IOException;
+
+/**
+ * The original encoding of EventPackets; a JSON envelope in which the payload is
+ * carried as an escaped JSON string.
+ */
+public class JsonEventPacketCodec implements EventPacketCodec {
+    public static final String NAME = "json";
+
+    private static final ObjectWriter WRITER = MapperFactory.writerFor(EventPacket.class);
+    private static final ObjectReader READER = MapperFactory.readerFor(EventPacket.class);
+
+    @Override
+    public byte[] encode(EventPacket eventPacket) throws IOException {
+        return WRITER.writeValueAsBytes(eventPacket);
+    }
+
+    @Override
+    public EventPacket decode(byte[] data) throws IOException {
+        return READER.readValue(data);
+    }
+}
@@ -0,0 +1,32 @@
+-- the event log of the PostgreSQL event transport; shared by all services, so held in
+-- its own schema (see EventLogConfiguration). Only applied when the location
+-- "db/event-log" is added to quarkus.flyway.locations.
+
+-- each service applies this migration; prevent their concurrent creation of the tables
+SELECT pg_advisory_xact_lock(hashtext('${event_log_schema}.event_log'));
+
+CREATE SCHEMA IF NOT EXISTS ${event_log_schema};
+
+CREATE SEQUENCE IF NOT EXISTS ${event_log_schema}.event_log_position_seq;
+
+CREATE TABLE IF NOT EXISTS ${event_log_schema}.event_log (
+  topic varchar(256) NOT NULL,
+  partition smallint NOT NULL,
+  position bigint NOT NULL,
+  key varchar(256) NULL,
+  headers text NULL,
+  packet bytea NOT NULL,
+  created_at timestamp NOT NULL DEFAULT CURRENT_TIMESTAMP,
+  PRIMARY KEY (topic, partition, position)
+);
+-- supports the purge of events that have passed their retention period
+CREATE INDEX IF NOT EXISTS idx_event_log_created_at ON ${event_log_schema}.event_log (created_at);
+
+-- records each consumer group's position in each partition
+CREATE TABLE IF NOT EXISTS ${event_log_schema}.event_log_cursors (
+  consumer_group varchar(256) NOT NULL,
+  topic varchar(256) NOT NULL,
+  partition smallint NOT NULL,
+  position bigint NOT NULL DEFAULT 0,
+  PRIMARY KEY (consumer_group, topic, partition)
+);
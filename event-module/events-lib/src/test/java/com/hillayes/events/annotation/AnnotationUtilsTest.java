@@ -7,6 +7,7 @@ import java.util.Collection;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class AnnotationUtilsTest {
@@ -75,6 +76,39 @@ public class AnnotationUtilsTest {
         assertEquals("group2", consumerGroup.get());
     }
 
+    @Test
+    public void testConcurrency() {
+        // when: getConcurrency is called on a class with no concurrency
+        int concurrency = AnnotationUtils.getConcurrency(new TopicConsumerAnnotatedClass());
+
+        // then: the default concurrency is returned
+        assertEquals(1, concurrency);
+    }
+
+    @Test
+    public void testConcurrencyNoGroup() {
+        // when: getConcurrency is called on a class with concurrency
+        int concurrency = AnnotationUtils.getConcurrency(new ConcurrentClass());
+
+        // then: the concurrency is returned
+        assertEquals(5, concurrency);
+
+        // and: no consumer group is defined
+        assertTrue(AnnotationUtils.getConsumerGroup(new ConcurrentClass()).isEmpty());
+    }
+
+    @Test
+    public void testDeduplicated() {
+        // when: isDeduplicated is called on classes that don't disable it
+        // then: deduplication is enabled
+        assertTrue(AnnotationUtils.isDeduplicated(new TopicConsumerAnnotatedClass()));
+        assertTrue(AnnotationUtils.isDeduplicated(new TopicsConsumedAnnotatedClass()));
+
+        // when: isDeduplicated is called on a class that disables it
+        // then: deduplication is disabled
+        assertFalse(AnnotationUtils.isDeduplicated(new DuplicatesClass()));
+    }
+
     @TopicConsumer(Topic.USER_AUTH)
     @TopicConsumer(Topic.USER)
     @ConsumerGroup("group1")
@@ -96,4 +130,12 @@ public class AnnotationUtilsTest {
 
     @ConsumerGroup("group2")
     public static class GroupSubClass extends TopicConsumerAnnotatedClass {}
+
+    @TopicConsumer(Topic.USER)
+    @ConsumerGroup(concurrency = 5)
+    public static class ConcurrentClass {}
+
+    @TopicConsumer(Topic.RETRY_TOPIC)
+    @ConsumerGroup(value = "group3", deduplicate = false)
+    public static class DuplicatesClass {}
 }
@@ -0,0 +1,96 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.retry.RetryTiers;
+import com.hillayes.events.sender.EventProducer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import static com.hillayes.events.consumer.HeadersUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ConsumerErrorHandlerTest {
+    private final EventProducer producer = mock(EventProducer.class);
+
+    private final ConsumerErrorHandler fixture = new ConsumerErrorHandler(producer,
+        new RetryTiers(List.of(Duration.ofSeconds(20), Duration.ofSeconds(40))));
+
+    @Test
+    public void testFirstFailure() {
+        // given: an event that has not been retried
+        ConsumerRecord<String, EventPacket> record = record(0);
+
+        // when: the event fails
+        Instant before = Instant.now();
+        fixture.handle(record, mock(EventConsumer.class), new RuntimeException("test"));
+
+        // then: the event is placed on the first retry tier
+        ProducerRecord<String, EventPacket> sent = captureSent();
+        assertEquals(Topic.RETRY_TIER_1.topicName(), sent.topic());
+
+        // and: its retry count is incremented
+        assertEquals(record.value().getId(), sent.value().getId());
+        assertEquals(1, sent.value().getRetryCount());
+
+        // and: it is scheduled after the tier's delay
+        Instant scheduleFor = getHeader(sent.headers(), SCHEDULE_HEADER).map(Instant::parse).orElseThrow();
+        assertFalse(scheduleFor.isBefore(before.plusSeconds(20)));
+
+        // and: the failure is recorded
+        assertEquals("test", getHeader(sent.headers(), CAUSE_HEADER).orElse(null));
+        assertEquals(RuntimeException.class.getName(), getHeader(sent.headers(), REASON_HEADER).orElse(null));
+    }
+
+    @Test
+    public void testSecondFailure() {
+        // given: an event that has been retried once
+        ConsumerRecord<String, EventPacket> record = record(1);
+
+        // when: the event fails
+        fixture.handle(record, mock(EventConsumer.class), new RuntimeException("test"));
+
+        // then: the event is placed on the second retry tier
+        ProducerRecord<String, EventPacket> sent = captureSent();
+        assertEquals(Topic.RETRY_TIER_2.topicName(), sent.topic());
+        assertEquals(2, sent.value().getRetryCount());
+    }
+
+    @Test
+    public void testFinalFailure() {
+        // given: an event that has passed through all retry tiers
+        ConsumerRecord<String, EventPacket> record = record(2);
+
+        // when: the event fails
+        fixture.handle(record, mock(EventConsumer.class), new RuntimeException());
+
+        // then: the event is placed on the hospital topic
+        ProducerRecord<String, EventPacket> sent = captureSent();
+        assertEquals(Topic.HOSPITAL_TOPIC.topicName(), sent.topic());
+        assertEquals(2, sent.value().getRetryCount());
+
+        // and: no schedule is given
+        assertTrue(getHeader(sent.headers(), SCHEDULE_HEADER).isEmpty());
+    }
+
+    private ProducerRecord<String, EventPacket> captureSent() {
+        ArgumentCaptor<ProducerRecord<String, EventPacket>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(producer).send(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    private ConsumerRecord<String, EventPacket> record(int retryCount) {
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            retryCount, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        return new ConsumerRecord<>(Topic.USER.topicName(), 0, 0, "key", event);
+    }
+}
@@ -0,0 +1,93 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ConsumerMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private final ConsumerMetrics fixture = new ConsumerMetrics(registry, "TestConsumer");
+
+    private final TopicPartition partition = new TopicPartition(Topic.USER.topicName(), 0);
+
+    @Test
+    public void testPolled() {
+        // when: records are polled
+        fixture.polled(new ConsumerRecords<>(Map.of(partition, List.of(record(0), record(1)))));
+
+        // then: the records are counted by topic
+        assertEquals(2.0, registry.get("events.consumer.records")
+            .tag("consumer", "TestConsumer")
+            .tag("topic", Topic.USER.topicName())
+            .counter().count());
+    }
+
+    @Test
+    public void testProcessed() {
+        // when: records are processed
+        fixture.processed(record(0), "success", TimeUnit.MILLISECONDS.toNanos(10));
+        fixture.processed(record(1), "success", TimeUnit.MILLISECONDS.toNanos(20));
+        fixture.processed(record(2), "failure", TimeUnit.MILLISECONDS.toNanos(5));
+
+        // then: the handler latency is recorded by event class and outcome
+        Timer success = registry.get("events.consumer.handler")
+            .tag("event", "String")
+            .tag("outcome", "success")
+            .timer();
+        assertEquals(2, success.count());
+        assertEquals(30.0, success.totalTime(TimeUnit.MILLISECONDS));
+
+        Timer failure = registry.get("events.consumer.handler")
+            .tag("outcome", "failure")
+            .timer();
+        assertEquals(1, failure.count());
+    }
+
+    @Test
+    public void testLag() {
+        // given: a broker with an assigned partition
+        KafkaConsumer<String, EventPacket> broker = mock(KafkaConsumer.class);
+        when(broker.assignment()).thenReturn(Set.of(partition));
+        when(broker.currentLag(partition)).thenReturn(OptionalLong.of(42));
+
+        // when: the lag is updated
+        fixture.updateLag(broker);
+
+        // then: the lag of the partition is recorded
+        assertEquals(42.0, registry.get("events.consumer.lag")
+            .tag("topic", Topic.USER.topicName())
+            .tag("partition", "0")
+            .gauge().value());
+
+        // when: the partition is revoked
+        fixture.removeLag(List.of(partition));
+
+        // then: the lag is no longer recorded
+        assertNull(registry.find("events.consumer.lag").gauge());
+    }
+
+    private ConsumerRecord<String, EventPacket> record(long offset) {
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            0, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        return new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "key", event);
+    }
+}
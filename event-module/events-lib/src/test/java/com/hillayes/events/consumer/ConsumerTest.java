@@ -6,15 +6,21 @@ import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.awaitility.Awaitility;
+import org.mockito.ArgumentCaptor;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Supplier;
 
@@ -160,6 +166,89 @@ public class ConsumerTest {
         verify(broker, times(size)).commitSync(any(Map.class));
     }
 
+    @Test
+    public void testConcurrentConsumerRecords() throws Exception {
+        // given: a consumer that processes records concurrently
+        ConsumerProxy fixture = new ConsumerProxy(broker, List.of(Topic.USER_AUTH), eventConsumer, errorHandler, 4);
+
+        // and: the event consumer records the order in which records are processed
+        List<ConsumerRecord<String, EventPacket>> consumed = Collections.synchronizedList(new ArrayList<>());
+        doAnswer(invocation -> {
+            consumed.add(invocation.getArgument(0));
+            return null;
+        }).when(eventConsumer).consume(any(ConsumerRecord.class));
+
+        // and: the consumer is run
+        new Thread(fixture).start();
+
+        // and: the consumer polls for records
+        Awaitility.await().untilAsserted(() -> verify(broker, atLeastOnce()).poll(any()));
+
+        // when: records for several keys are provided
+        List<ConsumerRecord<String, EventPacket>> records = List.of(
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 0, "key-a", mock(EventPacket.class)),
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 1, "key-b", mock(EventPacket.class)),
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 2, "key-a", mock(EventPacket.class)),
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 3, "key-b", mock(EventPacket.class))
+        );
+        int size = postEvents(records);
+
+        // then: the consumer processes the records
+        Awaitility.await().untilAsserted(() ->
+            verify(eventConsumer, atLeast(size)).consume(any(ConsumerRecord.class))
+        );
+
+        // and: the records of each key are processed in the order received
+        fixture.stop();
+        Awaitility.await().untilAsserted(() -> verify(broker).close());
+        List<Long> keyAOffsets = consumed.stream().filter(r -> r.key().equals("key-a")).map(ConsumerRecord::offset).toList();
+        List<Long> keyBOffsets = consumed.stream().filter(r -> r.key().equals("key-b")).map(ConsumerRecord::offset).toList();
+        assertEquals(keyAOffsets.stream().sorted().toList(), keyAOffsets);
+        assertEquals(keyBOffsets.stream().sorted().toList(), keyBOffsets);
+
+        // and: the offset following the last record is committed
+        ArgumentCaptor<Map<TopicPartition, OffsetAndMetadata>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(broker, atLeastOnce()).commitSync(captor.capture());
+        assertEquals(4, captor.getValue().get(new TopicPartition(Topic.USER_AUTH.topicName(), 0)).offset());
+
+        // and: the error handler is never called
+        verify(errorHandler, never()).handle(any(ConsumerRecord.class), eq(eventConsumer), any(RuntimeException.class));
+    }
+
+    @Test
+    public void testDuplicateRecords() throws Exception {
+        // given: a consumer that skips duplicate events
+        EventDeduplicator deduplicator = new EventDeduplicator("test-group", 100, Duration.ofMinutes(5), null);
+        ConsumerProxy fixture = new ConsumerProxy(broker, List.of(Topic.USER_AUTH), eventConsumer, errorHandler, 1, deduplicator);
+
+        // and: an event that is delivered more than once
+        EventPacket event = mock(EventPacket.class);
+        when(event.getId()).thenReturn(UUID.randomUUID());
+
+        // and: the consumer is run
+        new Thread(fixture).start();
+
+        // and: the consumer polls for records
+        Awaitility.await().untilAsserted(() -> verify(broker, atLeastOnce()).poll(any()));
+
+        // when: the same event is provided at different offsets (and on each poll)
+        postEvents(List.of(
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 0, "key", event),
+            new ConsumerRecord<>(Topic.USER_AUTH.topicName(), 0, 1, "key", event)
+        ));
+
+        // then: the offsets of all records are committed
+        Awaitility.await().untilAsserted(() -> verify(broker, atLeast(3)).poll(any()));
+        fixture.stop();
+        Awaitility.await().untilAsserted(() -> verify(broker).close());
+        ArgumentCaptor<Map<TopicPartition, OffsetAndMetadata>> captor = ArgumentCaptor.forClass(Map.class);
+        verify(broker, atLeastOnce()).commitSync(captor.capture());
+        assertEquals(2, captor.getValue().get(new TopicPartition(Topic.USER_AUTH.topicName(), 0)).offset());
+
+        // and: the event consumer processes the event only once
+        verify(eventConsumer, times(1)).consume(any(ConsumerRecord.class));
+    }
+
     private int postEvents(List<ConsumerRecord<String, EventPacket>> eventList) {
         events = new ConsumerRecords<>(Map.of(
             new TopicPartition(Topic.USER_AUTH.topicName(), 0), eventList
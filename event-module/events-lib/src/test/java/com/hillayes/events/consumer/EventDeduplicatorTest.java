@@ -0,0 +1,120 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EventDeduplicatorTest {
+    @Test
+    public void testInMemory() {
+        // given: a deduplicator with no persistent store
+        EventDeduplicator fixture = new EventDeduplicator("test-group", 10, Duration.ofMinutes(5), null);
+
+        // and: an event
+        EventPacket event = mockEvent();
+
+        // when: the event has not been processed
+        // then: it is not a duplicate
+        assertFalse(fixture.isDuplicate(event));
+
+        // when: the event is processed
+        fixture.processed(event);
+
+        // then: it is a duplicate
+        assertTrue(fixture.isDuplicate(event));
+    }
+
+    @Test
+    public void testCapacity() {
+        // given: a deduplicator with a capacity of 2 and no persistent store
+        EventDeduplicator fixture = new EventDeduplicator("test-group", 2, Duration.ofMinutes(5), null);
+
+        // when: three events are processed
+        EventPacket first = mockEvent();
+        fixture.processed(first);
+        fixture.processed(mockEvent());
+        fixture.processed(mockEvent());
+
+        // then: the least recently used event is no longer recorded
+        assertFalse(fixture.isDuplicate(first));
+    }
+
+    @Test
+    public void testExpiry() {
+        // given: a deduplicator whose records expire immediately
+        EventDeduplicator fixture = new EventDeduplicator("test-group", 10, Duration.ZERO, null);
+
+        // when: an event is processed
+        EventPacket event = mockEvent();
+        fixture.processed(event);
+
+        // then: the event is not a duplicate
+        assertFalse(fixture.isDuplicate(event));
+    }
+
+    @Test
+    public void testPersistentStore() {
+        // given: a persistent store that has recorded an event
+        EventPacket event = mockEvent();
+        ProcessedEventStore store = mock(ProcessedEventStore.class);
+        when(store.isProcessed("test-group", event.getId())).thenReturn(true);
+
+        // and: a deduplicator using that store
+        EventDeduplicator fixture = new EventDeduplicator("test-group", 10, Duration.ofMinutes(5), store);
+
+        // when: the event is tested
+        // then: it is a duplicate
+        assertTrue(fixture.isDuplicate(event));
+
+        // when: the event is tested again
+        // then: the in-memory record is used
+        assertTrue(fixture.isDuplicate(event));
+        verify(store, times(1)).isProcessed(anyString(), any());
+
+        // when: another event is processed
+        EventPacket other = mockEvent();
+        fixture.processed(other);
+
+        // then: it is recorded in the store
+        UUID otherId = other.getId();
+        verify(store).markProcessed(eq("test-group"), eq(otherId), any(Instant.class));
+    }
+
+    @Test
+    public void testPersistentStoreFails() {
+        // given: a persistent store that fails
+        ProcessedEventStore store = mock(ProcessedEventStore.class);
+        when(store.isProcessed(anyString(), any())).thenThrow(new RuntimeException("test"));
+        doThrow(new RuntimeException("test")).when(store).markProcessed(anyString(), any(), any());
+
+        // and: a deduplicator using that store
+        EventDeduplicator fixture = new EventDeduplicator("test-group", 10, Duration.ofMinutes(5), store);
+
+        // when: an event is tested
+        EventPacket event = mockEvent();
+
+        // then: it is not a duplicate
+        assertFalse(fixture.isDuplicate(event));
+
+        // when: the event is processed
+        fixture.processed(event);
+
+        // then: the in-memory record is still used
+        assertTrue(fixture.isDuplicate(event));
+    }
+
+    private EventPacket mockEvent() {
+        EventPacket result = mock(EventPacket.class);
+        when(result.getId()).thenReturn(UUID.randomUUID());
+        return result;
+    }
+}
@@ -0,0 +1,76 @@
+package com.hillayes.events.consumer;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+public class OffsetTrackerTest {
+    private final TopicPartition partition0 = new TopicPartition(Topic.USER.topicName(), 0);
+    private final TopicPartition partition1 = new TopicPartition(Topic.USER.topicName(), 1);
+
+    @Test
+    public void testNoRecords() {
+        // when: no records are dispatched
+        OffsetTracker fixture = new OffsetTracker();
+
+        // then: no offsets are committable
+        assertTrue(fixture.committable().isEmpty());
+    }
+
+    @Test
+    public void testAllCompleted() {
+        // given: records are dispatched
+        OffsetTracker fixture = new OffsetTracker();
+        ConsumerRecord<String, EventPacket> record1 = record(0, 10);
+        ConsumerRecord<String, EventPacket> record2 = record(0, 11);
+        fixture.dispatched(record1);
+        fixture.dispatched(record2);
+
+        // when: all records are completed
+        fixture.completed(record2);
+        fixture.completed(record1);
+
+        // then: the offset following the highest record is committable
+        Map<TopicPartition, OffsetAndMetadata> result = fixture.committable();
+        assertEquals(12, result.get(partition0).offset());
+    }
+
+    @Test
+    public void testGapInCompletion() {
+        // given: records are dispatched across partitions
+        OffsetTracker fixture = new OffsetTracker();
+        ConsumerRecord<String, EventPacket> record1 = record(0, 10);
+        ConsumerRecord<String, EventPacket> record2 = record(0, 11);
+        ConsumerRecord<String, EventPacket> record3 = record(0, 12);
+        ConsumerRecord<String, EventPacket> record4 = record(1, 20);
+        fixture.dispatched(record1);
+        fixture.dispatched(record2);
+        fixture.dispatched(record3);
+        fixture.dispatched(record4);
+
+        // when: a later record completes before an earlier one
+        fixture.completed(record1);
+        fixture.completed(record3);
+        fixture.completed(record4);
+
+        // then: the committable offset does not pass the incomplete record
+        Map<TopicPartition, OffsetAndMetadata> result = fixture.committable();
+        assertEquals(11, result.get(partition0).offset());
+
+        // and: the other partition is unaffected
+        assertEquals(21, result.get(partition1).offset());
+    }
+
+    private ConsumerRecord<String, EventPacket> record(int partition, long offset) {
+        return new ConsumerRecord<>(Topic.USER.topicName(), partition, offset, "key", mock(EventPacket.class));
+    }
+}
@@ -0,0 +1,107 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.events.consumer.ConsumerErrorHandler;
+import com.hillayes.events.consumer.EventConsumer;
+import com.hillayes.events.consumer.EventDeduplicator;
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class EventConsumerProcessorTest {
+    private EventConsumer eventConsumer;
+    private ConsumerErrorHandler errorHandler;
+    private EventDeduplicator deduplicator;
+    private EventConsumerProcessor fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        eventConsumer = mock(EventConsumer.class);
+        errorHandler = mock(ConsumerErrorHandler.class);
+        deduplicator = mock(EventDeduplicator.class);
+
+        fixture = new EventConsumerProcessor(eventConsumer, errorHandler, deduplicator);
+    }
+
+    @Test
+    public void testProcess() throws Exception {
+        // given: a record
+        ConsumerRecord<String, EventPacket> record = record();
+
+        // and: the consumer records the correlation ID
+        AtomicReference<String> correlationId = new AtomicReference<>();
+        doAnswer(invocation -> {
+            correlationId.set(Correlation.getCorrelationId().orElse(null));
+            return null;
+        }).when(eventConsumer).consume(record);
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is processed
+        assertTrue(result);
+
+        // and: the record is passed to the consumer - with the event's correlation ID
+        verify(eventConsumer).consume(record);
+        assertEquals(record.value().getCorrelationId(), correlationId.get());
+
+        // and: the event is recorded as processed
+        verify(deduplicator).processed(record.value());
+
+        // and: the error handler is not called
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void testProcess_Duplicate() throws Exception {
+        // given: a record that has already been processed
+        ConsumerRecord<String, EventPacket> record = record();
+        when(deduplicator.isDuplicate(record.value())).thenReturn(true);
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is skipped
+        assertTrue(result);
+        verify(eventConsumer, never()).consume(any(ConsumerRecord.class));
+        verify(deduplicator, never()).processed(any());
+    }
+
+    @Test
+    public void testProcess_Error() throws Exception {
+        // given: a record
+        ConsumerRecord<String, EventPacket> record = record();
+
+        // and: the consumer will fail
+        RuntimeException error = new RuntimeException("test");
+        doThrow(error).when(eventConsumer).consume(record);
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is passed to the error handler
+        verify(errorHandler).handle(record, eventConsumer, error);
+
+        // and: the record is not recorded as processed
+        verify(deduplicator, never()).processed(any());
+
+        // and: the record is not read again
+        assertTrue(result);
+    }
+
+    private ConsumerRecord<String, EventPacket> record() {
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            0, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        return new ConsumerRecord<>(Topic.USER.topicName(), 0, 0L, "key", event);
+    }
+}
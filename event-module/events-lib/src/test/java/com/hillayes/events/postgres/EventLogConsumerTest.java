@@ -0,0 +1,76 @@
+package com.hillayes.events.postgres;
+
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class EventLogConsumerTest {
+    private static final List<String> TOPICS = List.of("topic-a", "topic-b");
+
+    private EventLog eventLog;
+    private EventLog.RecordProcessor processor;
+    private EventLogConsumer fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        eventLog = mock(EventLog.class);
+        processor = mock(EventLog.RecordProcessor.class);
+        fixture = new EventLogConsumer(eventLog, "test-group", TOPICS, 50, Duration.ofMillis(10), processor);
+    }
+
+    @Test
+    public void testRun() throws Exception {
+        // when: the consumer is run
+        Thread thread = new Thread(fixture);
+        thread.start();
+
+        // then: the consumer joins its group
+        Awaitility.await().untilAsserted(() -> verify(eventLog).join("test-group", TOPICS));
+
+        // and: the consumer polls for records
+        Awaitility.await().untilAsserted(() ->
+            verify(eventLog, atLeast(2)).consume("test-group", TOPICS, 50, processor));
+
+        // when: the consumer is stopped
+        fixture.stop();
+
+        // then: the consumer ends
+        thread.join(Duration.ofSeconds(5));
+        assertEquals(Thread.State.TERMINATED, thread.getState());
+    }
+
+    @Test
+    public void testPoll() throws Exception {
+        // given: the log has records to be processed
+        when(eventLog.consume(any(), any(), anyInt(), any())).thenReturn(7);
+
+        // when: the consumer polls
+        int count = fixture.poll();
+
+        // then: the number of records processed is returned
+        assertEquals(7, count);
+        verify(eventLog).consume(eq("test-group"), eq(TOPICS), eq(50), eq(processor));
+    }
+
+    @Test
+    public void testPoll_Fails() throws Exception {
+        // given: the log fails
+        when(eventLog.consume(any(), any(), anyInt(), any())).thenThrow(new SQLException("test"));
+
+        // when: the consumer polls
+        int count = fixture.poll();
+
+        // then: no records are processed - they will be read again on the next poll
+        assertEquals(0, count);
+    }
+}
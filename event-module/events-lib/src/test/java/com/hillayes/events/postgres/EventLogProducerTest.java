@@ -0,0 +1,148 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class EventLogProducerTest {
+    private EventLog eventLog;
+    private EventLogProducer fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        eventLog = mock(EventLog.class);
+        when(eventLog.getPartitions()).thenReturn(8);
+        fixture = new EventLogProducer(eventLog, Executors.newFixedThreadPool(4));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        fixture.close();
+    }
+
+    @Test
+    public void testSend() throws Exception {
+        // given: the event log will append records to partition 3
+        ProducerRecord<String, EventPacket> record = record();
+        when(eventLog.partitionFor(record)).thenReturn(3);
+        when(eventLog.append(record)).thenReturn(1234L);
+
+        // and: a callback
+        Callback callback = mock(Callback.class);
+
+        // when: the record is sent
+        Future<RecordMetadata> result = fixture.send(record, callback);
+
+        // then: the result completes
+        RecordMetadata metadata = result.get(5, TimeUnit.SECONDS);
+
+        // and: the record is appended to the log
+        verify(eventLog).append(record);
+        assertEquals(record.topic(), metadata.topic());
+        assertEquals(3, metadata.partition());
+        assertEquals(1234L, metadata.offset());
+
+        // and: the callback is notified
+        verify(callback).onCompletion(metadata, null);
+    }
+
+    @Test
+    public void testSend_Fails() throws Exception {
+        // given: the event log will fail to append records
+        ProducerRecord<String, EventPacket> record = record();
+        SQLException error = new SQLException("test");
+        when(eventLog.append(record)).thenThrow(error);
+
+        // and: a callback
+        Callback callback = mock(Callback.class);
+
+        // when: the record is sent
+        Future<RecordMetadata> result = fixture.send(record, callback);
+
+        // then: the result completes with the error
+        ExecutionException thrown = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(error, thrown.getCause());
+
+        // and: the callback is notified
+        verify(callback).onCompletion(isNull(), eq(error));
+    }
+
+    @Test
+    public void testSend_AppendsOffCallerThread() throws Exception {
+        // given: the event log records the thread on which each append is made
+        ProducerRecord<String, EventPacket> record = record();
+        AtomicReference<Thread> appendThread = new AtomicReference<>();
+        when(eventLog.append(record)).then(invocation -> {
+            appendThread.set(Thread.currentThread());
+            return 1L;
+        });
+
+        // when: the record is sent
+        fixture.send(record).get(5, TimeUnit.SECONDS);
+
+        // then: the append is not made within the caller's thread (or its transaction)
+        assertNotNull(appendThread.get());
+        assertNotSame(Thread.currentThread(), appendThread.get());
+    }
+
+    @Test
+    public void testSend_PreservesPartitionOrder() throws Exception {
+        // given: all records are appended to the same partition
+        when(eventLog.partitionFor(any())).thenReturn(2);
+
+        // and: the event log records the order of its appends - the first being slow
+        List<ProducerRecord<String, EventPacket>> appended = new CopyOnWriteArrayList<>();
+        when(eventLog.append(any())).then(invocation -> {
+            ProducerRecord<String, EventPacket> record = invocation.getArgument(0);
+            if (appended.isEmpty()) {
+                Thread.sleep(100);
+            }
+            appended.add(record);
+            return (long) appended.size();
+        });
+
+        // and: a failure of one append
+        List<ProducerRecord<String, EventPacket>> records = IntStream.range(0, 10).mapToObj(i -> record()).toList();
+        doThrow(new SQLException("test")).when(eventLog).append(records.get(3));
+
+        // when: the records are sent
+        List<Future<RecordMetadata>> results = records.stream().map(fixture::send).toList();
+        for (Future<RecordMetadata> result : results) {
+            try {
+                result.get(5, TimeUnit.SECONDS);
+            } catch (ExecutionException ignore) {
+            }
+        }
+
+        // then: the records are appended in the order sent - the failure doesn't stall the others
+        List<ProducerRecord<String, EventPacket>> expected = new ArrayList<>(records);
+        expected.remove(3);
+        assertEquals(expected, appended);
+    }
+
+    private ProducerRecord<String, EventPacket> record() {
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            0, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        return new ProducerRecord<>(Topic.USER.topicName(), event.getKey(), event);
+    }
+}
@@ -0,0 +1,109 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.serializers.BinaryEventPacketCodec;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class EventLogTest {
+    private Connection connection;
+    private PreparedStatement claim;
+    private PreparedStatement read;
+    private PreparedStatement advance;
+    private EventLog fixture;
+
+    @BeforeEach
+    public void beforeEach() throws SQLException {
+        connection = mock(Connection.class);
+        claim = mock(PreparedStatement.class);
+        read = mock(PreparedStatement.class);
+        advance = mock(PreparedStatement.class);
+        when(connection.prepareStatement(contains("FOR UPDATE SKIP LOCKED"))).thenReturn(claim);
+        when(connection.prepareStatement(startsWith("SELECT position"))).thenReturn(read);
+        when(connection.prepareStatement(startsWith("UPDATE"))).thenReturn(advance);
+
+        DataSource dataSource = mock(DataSource.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        fixture = new EventLog(dataSource, "events", 4);
+    }
+
+    @Test
+    public void testConsume_SkipsUndecodable() throws Exception {
+        // given: the consumer claims a partition
+        ResultSet cursors = mock(ResultSet.class);
+        when(cursors.next()).thenReturn(true, false);
+        when(cursors.getString(1)).thenReturn(Topic.USER.topicName());
+        when(cursors.getInt(2)).thenReturn(1);
+        when(cursors.getLong(3)).thenReturn(10L);
+        when(claim.executeQuery()).thenReturn(cursors);
+
+        // and: the partition holds an undecodable record, followed by a valid one
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            0, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        ResultSet records = mock(ResultSet.class);
+        when(records.next()).thenReturn(true, true, false);
+        when(records.getLong(1)).thenReturn(11L, 12L);
+        when(records.getBytes(4)).thenReturn(new byte[] { 1, 2, 3 }, new BinaryEventPacketCodec().encode(event));
+        when(records.getTimestamp(5)).thenReturn(Timestamp.from(Instant.now()));
+        when(read.executeQuery()).thenReturn(records);
+
+        // when: the partition is consumed
+        List<ConsumerRecord<String, EventPacket>> processed = new ArrayList<>();
+        int count = fixture.consume("test-group", List.of(Topic.USER.topicName()), 10, record -> processed.add(record));
+
+        // then: only the valid record is passed to the processor
+        assertEquals(1, count);
+        assertEquals(1, processed.size());
+        assertEquals(12L, processed.get(0).offset());
+        assertEquals(event.getId(), processed.get(0).value().getId());
+
+        // and: the cursor is advanced past both records - the partition is not stalled
+        verify(advance).setLong(1, 12L);
+        verify(advance).executeUpdate();
+        verify(connection).commit();
+    }
+
+    @Test
+    public void testConsume_OnlyUndecodable() throws Exception {
+        // given: the consumer claims a partition
+        ResultSet cursors = mock(ResultSet.class);
+        when(cursors.next()).thenReturn(true, false);
+        when(cursors.getString(1)).thenReturn(Topic.USER.topicName());
+        when(cursors.getInt(2)).thenReturn(1);
+        when(cursors.getLong(3)).thenReturn(10L);
+        when(claim.executeQuery()).thenReturn(cursors);
+
+        // and: the partition holds only an undecodable record
+        ResultSet records = mock(ResultSet.class);
+        when(records.next()).thenReturn(true, false);
+        when(records.getLong(1)).thenReturn(11L);
+        when(records.getBytes(4)).thenReturn(new byte[] { 1, 2, 3 });
+        when(records.getTimestamp(5)).thenReturn(Timestamp.from(Instant.now()));
+        when(read.executeQuery()).thenReturn(records);
+
+        // when: the partition is consumed
+        EventLog.RecordProcessor processor = mock(EventLog.RecordProcessor.class);
+        int count = fixture.consume("test-group", List.of(Topic.USER.topicName()), 10, processor);
+
+        // then: no record is processed
+        assertEquals(0, count);
+        verifyNoInteractions(processor);
+
+        // and: the cursor is still advanced past the undecodable record
+        verify(advance).setLong(1, 11L);
+        verify(advance).executeUpdate();
+    }
+}
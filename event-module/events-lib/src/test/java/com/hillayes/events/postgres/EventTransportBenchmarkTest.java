@@ -0,0 +1,160 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.sender.EventProducer;
+import com.hillayes.events.sender.KafkaEventProducer;
+import com.hillayes.events.serializers.EventPacketDeserializer;
+import com.hillayes.events.serializers.EventPacketSerializer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.postgresql.ds.PGSimpleDataSource;
+
+import javax.sql.DataSource;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the throughput of the PostgreSQL event transport with that of Kafka. Not
+ * run as part of the normal build; it requires a running database and broker, given
+ * by the system properties:
+ * <pre>
+ *   mvn test -Dtest=EventTransportBenchmarkTest \
+ *       -Dbenchmark.postgres.url=jdbc:postgresql://localhost:5432/one-stop?user=...&password=... \
+ *       -Dbenchmark.kafka.servers=localhost:9092 \
+ *       -Dbenchmark.events=20000
+ * </pre>
+ * The Kafka comparison is skipped if no broker is given.
+ */
+@EnabledIfSystemProperty(named = "benchmark.postgres.url", matches = ".+")
+@Slf4j
+public class EventTransportBenchmarkTest {
+    private final int eventCount = Integer.getInteger("benchmark.events", 10000);
+
+    @Test
+    public void testThroughput() throws Exception {
+        String topic = "benchmark-" + UUID.randomUUID();
+
+        PGSimpleDataSource dataSource = new PGSimpleDataSource();
+        dataSource.setUrl(System.getProperty("benchmark.postgres.url"));
+        createTables(dataSource, "events_benchmark");
+        EventLog eventLog = new EventLog(dataSource, "events_benchmark", 8);
+
+        // when: events are appended to the event log
+        long produceNanos;
+        try (EventProducer producer = new EventLogProducer(eventLog)) {
+            produceNanos = produce(producer, topic);
+        }
+
+        // and: the events are consumed from the event log
+        AtomicInteger consumed = new AtomicInteger();
+        eventLog.join("benchmark-group", List.of(topic));
+        long start = System.nanoTime();
+        while (consumed.get() < eventCount) {
+            eventLog.consume("benchmark-group", List.of(topic), 500, record -> consumed.incrementAndGet() > 0);
+        }
+        long consumeNanos = System.nanoTime() - start;
+
+        // then: all events are consumed
+        assertEquals(eventCount, consumed.get());
+        report("postgres", produceNanos, consumeNanos);
+
+        String kafkaServers = System.getProperty("benchmark.kafka.servers");
+        if (kafkaServers != null) {
+            benchmarkKafka(kafkaServers, topic);
+        }
+    }
+
+    private void benchmarkKafka(String servers, String topic) throws Exception {
+        Properties producerConfig = new Properties();
+        producerConfig.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, servers);
+        producerConfig.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        producerConfig.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, EventPacketSerializer.class);
+        producerConfig.put(ProducerConfig.ACKS_CONFIG, "all");
+
+        long produceNanos;
+        try (EventProducer producer = new KafkaEventProducer(new KafkaProducer<>(producerConfig))) {
+            produceNanos = produce(producer, topic);
+        }
+
+        Properties consumerConfig = new Properties();
+        consumerConfig.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, servers);
+        consumerConfig.put(ConsumerConfig.GROUP_ID_CONFIG, "benchmark-group");
+        consumerConfig.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        consumerConfig.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        consumerConfig.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, EventPacketDeserializer.class);
+
+        int consumed = 0;
+        long start = System.nanoTime();
+        try (KafkaConsumer<String, EventPacket> consumer = new KafkaConsumer<>(consumerConfig)) {
+            consumer.subscribe(List.of(topic));
+            while (consumed < eventCount) {
+                consumed += consumer.poll(Duration.ofSeconds(1)).count();
+                consumer.commitSync();
+            }
+        }
+        long consumeNanos = System.nanoTime() - start;
+
+        assertEquals(eventCount, consumed);
+        report("kafka", produceNanos, consumeNanos);
+    }
+
+    /**
+     * Creates the event log tables, using the Flyway migration that creates them for
+     * the services.
+     */
+    private void createTables(DataSource dataSource, String schema) throws Exception {
+        String script;
+        try (InputStream in = getClass().getResourceAsStream("/db/event-log/R__init_event_log.sql")) {
+            script = new String(in.readAllBytes(), StandardCharsets.UTF_8)
+                .replace("${event_log_schema}", schema);
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute(script);
+        }
+    }
+
+    private long produce(EventProducer producer, String topic) throws Exception {
+        long start = System.nanoTime();
+        List<Future<RecordMetadata>> sends = new ArrayList<>(eventCount);
+        for (int i = 0; i < eventCount; i++) {
+            String key = String.valueOf(i % 100);
+            EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+                0, Instant.now(), key, String.class.getName(), "\"payload-" + i + "\"");
+            sends.add(producer.send(new ProducerRecord<>(topic, key, event)));
+        }
+        for (Future<RecordMetadata> send : sends) {
+            send.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void report(String transport, long produceNanos, long consumeNanos) {
+        log.info("Event transport throughput [transport: {}, events: {}, produced/sec: {}, consumed/sec: {}]",
+            transport, eventCount,
+            eventCount * 1_000_000_000L / Math.max(1, produceNanos),
+            eventCount * 1_000_000_000L / Math.max(1, consumeNanos));
+    }
+}
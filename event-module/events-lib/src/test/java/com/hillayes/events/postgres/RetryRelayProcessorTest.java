@@ -0,0 +1,110 @@
+package com.hillayes.events.postgres;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.retry.RetryTier;
+import com.hillayes.events.sender.EventProducer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static com.hillayes.events.consumer.HeadersUtils.SCHEDULE_HEADER;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class RetryRelayProcessorTest {
+    private final Instant now = Instant.now();
+
+    private EventProducer producer;
+    private RetryRelayProcessor fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        producer = mock(EventProducer.class);
+        when(producer.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        fixture = new RetryRelayProcessor(producer, new RetryTier(Topic.RETRY_TIER_1, Duration.ofSeconds(20)),
+            Clock.fixed(now, ZoneOffset.UTC));
+    }
+
+    @Test
+    public void testProcess_Due() throws Exception {
+        // given: a record that is due
+        ConsumerRecord<String, EventPacket> record = record(now.minusSeconds(1));
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is processed
+        assertTrue(result);
+
+        // and: the event is returned to its original topic
+        ArgumentCaptor<ProducerRecord<String, EventPacket>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(producer).send(captor.capture());
+        assertEquals(Topic.USER.topicName(), captor.getValue().topic());
+        assertEquals(record.value(), captor.getValue().value());
+    }
+
+    @Test
+    public void testProcess_NotDue() throws Exception {
+        // given: a record that is not yet due
+        ConsumerRecord<String, EventPacket> record = record(now.plusSeconds(1));
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is not processed
+        assertFalse(result);
+
+        // and: the event is not sent
+        verify(producer, never()).send(any());
+    }
+
+    @Test
+    public void testProcess_NoScheduleHeader() throws Exception {
+        // given: a record without a schedule header, written long before the tier's delay
+        ConsumerRecord<String, EventPacket> record = new ConsumerRecord<>(Topic.RETRY_TIER_1.topicName(), 0, 0L,
+            "key", event());
+
+        // when: the record is processed
+        boolean result = fixture.process(record);
+
+        // then: the record is due - as its timestamp plus the tier's delay has passed
+        assertTrue(result);
+        verify(producer).send(any());
+    }
+
+    @Test
+    public void testProcess_SendFails() {
+        // given: the producer fails to send
+        when(producer.send(any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("test")));
+
+        // when: a due record is processed
+        // then: the error is raised - so that the record is read again
+        assertThrows(ExecutionException.class, () -> fixture.process(record(now.minusSeconds(1))));
+    }
+
+    private ConsumerRecord<String, EventPacket> record(Instant due) {
+        ConsumerRecord<String, EventPacket> result = new ConsumerRecord<>(Topic.RETRY_TIER_1.topicName(), 0, 0L,
+            "key", event());
+        result.headers().add(SCHEDULE_HEADER, due.toString().getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    private EventPacket event() {
+        return new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            1, Instant.now(), "key", String.class.getName(), "\"payload\"");
+    }
+}
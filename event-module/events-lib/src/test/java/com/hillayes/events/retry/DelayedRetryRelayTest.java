@@ -0,0 +1,142 @@
+package com.hillayes.events.retry;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.sender.EventProducer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hillayes.events.consumer.HeadersUtils.SCHEDULE_HEADER;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.*;
+
+public class DelayedRetryRelayTest {
+    private final TopicPartition partition = new TopicPartition(Topic.RETRY_TIER_1.topicName(), 0);
+
+    private KafkaConsumer<String, EventPacket> broker;
+    private EventProducer producer;
+    private DelayedRetryRelay fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        broker = mock(KafkaConsumer.class);
+        producer = mock(EventProducer.class);
+        when(producer.send(any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        fixture = new DelayedRetryRelay(broker, producer, new RetryTier(Topic.RETRY_TIER_1, Duration.ofSeconds(20)));
+    }
+
+    @Test
+    public void testRelay_AllDue() throws Exception {
+        // given: records that are all due
+        Instant now = Instant.now();
+        ConsumerRecords<String, EventPacket> records = records(
+            record(0, now.minusSeconds(2)),
+            record(1, now.minusSeconds(1))
+        );
+
+        // when: the records are relayed
+        fixture.relay(records, now);
+
+        // then: each event is returned to its original topic
+        ArgumentCaptor<ProducerRecord<String, EventPacket>> captor = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(producer, times(2)).send(captor.capture());
+        captor.getAllValues().forEach(sent -> assertEquals(Topic.USER.topicName(), sent.topic()));
+
+        // and: the offset following the last record is committed
+        verify(broker).commitSync(Map.of(partition, new OffsetAndMetadata(2)));
+
+        // and: no partition is paused
+        verify(broker, never()).pause(any());
+        assertTrue(fixture.pausedUntil.isEmpty());
+    }
+
+    @Test
+    public void testRelay_HeadNotDue() throws Exception {
+        // given: records of which only the first is due
+        Instant now = Instant.now();
+        Instant due = now.plusSeconds(5);
+        ConsumerRecords<String, EventPacket> records = records(
+            record(0, now.minusSeconds(1)),
+            record(1, due),
+            record(2, due.plusSeconds(1))
+        );
+
+        // when: the records are relayed
+        fixture.relay(records, now);
+
+        // then: only the due event is returned to its original topic
+        verify(producer, times(1)).send(any());
+
+        // and: its offset is committed
+        verify(broker).commitSync(Map.of(partition, new OffsetAndMetadata(1)));
+
+        // and: the partition is rewound to the first record not yet due, and paused
+        verify(broker).seek(partition, 1);
+        verify(broker).pause(List.of(partition));
+        assertEquals(due, fixture.pausedUntil.get(partition));
+
+        // and: the next poll waits no longer than the time until it is due
+        assertEquals(Duration.ofSeconds(5), fixture.nextPollTimeout(now));
+
+        // when: the partition's head record becomes due
+        fixture.resumeDuePartitions(due);
+
+        // then: the partition is resumed
+        verify(broker).resume(List.of(partition));
+        assertTrue(fixture.pausedUntil.isEmpty());
+    }
+
+    @Test
+    public void testRelay_SendFails() throws Exception {
+        // given: the producer fails to send
+        when(producer.send(any())).thenReturn(CompletableFuture.failedFuture(new RuntimeException("test")));
+
+        // and: no offsets have been committed
+        when(broker.committed(anySet())).thenReturn(Map.of(partition, new OffsetAndMetadata(0)));
+
+        // and: a due record
+        Instant now = Instant.now();
+        ConsumerRecords<String, EventPacket> records = records(record(0, now.minusSeconds(1)));
+
+        // when: the records are relayed
+        fixture.relay(records, now);
+
+        // then: no offset is committed
+        verify(broker, never()).commitSync(any(Map.class));
+
+        // and: the partition is rewound to read the record again
+        verify(broker).seek(partition, 0);
+    }
+
+    private ConsumerRecord<String, EventPacket> record(long offset, Instant due) {
+        EventPacket event = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            1, Instant.now(), "key", String.class.getName(), "\"payload\"");
+
+        ConsumerRecord<String, EventPacket> result = new ConsumerRecord<>(partition.topic(), partition.partition(), offset, "key", event);
+        result.headers().add(SCHEDULE_HEADER, due.toString().getBytes(StandardCharsets.UTF_8));
+        return result;
+    }
+
+    @SafeVarargs
+    private ConsumerRecords<String, EventPacket> records(ConsumerRecord<String, EventPacket>... records) {
+        return new ConsumerRecords<>(Map.of(partition, List.of(records)));
+    }
+}
@@ -0,0 +1,44 @@
+package com.hillayes.events.retry;
+
+import com.hillayes.events.domain.Topic;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryTiersTest {
+    @Test
+    public void testForRetry() {
+        // given: two retry tiers
+        RetryTiers fixture = new RetryTiers(List.of(Duration.ofSeconds(10), Duration.ofMinutes(1)));
+
+        // when: the tier for the first retry is requested
+        Optional<RetryTier> tier = fixture.forRetry(0);
+
+        // then: the first tier is returned
+        assertTrue(tier.isPresent());
+        assertEquals(Topic.RETRY_TIER_1, tier.get().topic());
+        assertEquals(Duration.ofSeconds(10), tier.get().delay());
+
+        // when: the tier for the second retry is requested
+        tier = fixture.forRetry(1);
+
+        // then: the second tier is returned
+        assertTrue(tier.isPresent());
+        assertEquals(Topic.RETRY_TIER_2, tier.get().topic());
+        assertEquals(Duration.ofMinutes(1), tier.get().delay());
+
+        // when: the tier for a third retry is requested
+        // then: no tier is returned
+        assertTrue(fixture.forRetry(2).isEmpty());
+    }
+
+    @Test
+    public void testTooManyTiers() {
+        assertThrows(IllegalArgumentException.class, () ->
+            new RetryTiers(List.of(Duration.ofSeconds(1), Duration.ofSeconds(2), Duration.ofSeconds(3), Duration.ofSeconds(4))));
+    }
+}
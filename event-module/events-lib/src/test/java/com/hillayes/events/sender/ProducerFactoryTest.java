@@ -0,0 +1,56 @@
+package com.hillayes.events.sender;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProducerFactoryTest {
+    private final ProducerFactory fixture = new ProducerFactory();
+
+    @Test
+    public void testDefaultProfile() {
+        // when: the config is created with the default profile
+        Properties config = fixture.getProducerConfig("client", "localhost:9092", "low-latency",
+            Optional.empty(), "all", 3, Optional.empty(), Optional.empty(), Optional.empty(), 60000, "json");
+
+        // then: events are sent without delay or compression
+        assertEquals(0, config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(16384, config.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("none", config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(true, config.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+    }
+
+    @Test
+    public void testHighThroughputProfile() {
+        // when: the config is created with the high-throughput profile
+        Properties config = fixture.getProducerConfig("client", "localhost:9092", "high-throughput",
+            Optional.empty(), "all", 3, Optional.empty(), Optional.empty(), Optional.empty(), 60000, "json");
+
+        // then: events are batched and compressed
+        assertEquals(20, config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(262144, config.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("zstd", config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+    }
+
+    @Test
+    public void testOverrides() {
+        // when: the config is created with overrides of the profile's settings
+        Properties config = fixture.getProducerConfig("client", "localhost:9092", "balanced",
+            Optional.of(50), "all", 3, Optional.of(1024), Optional.of("gzip"), Optional.of(false), 60000, "json");
+
+        // then: the overrides are applied
+        assertEquals(50, config.get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(1024, config.get(ProducerConfig.BATCH_SIZE_CONFIG));
+        assertEquals("gzip", config.get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals(false, config.get(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG));
+    }
+
+    @Test
+    public void testUnknownProfile() {
+        assertThrows(IllegalArgumentException.class, () -> ProducerProfile.fromName("fastest"));
+    }
+}
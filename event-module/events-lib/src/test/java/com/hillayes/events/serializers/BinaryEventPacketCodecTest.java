@@ -0,0 +1,140 @@
+package com.hillayes.events.serializers;
+
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.events.events.auth.UserAuthenticated;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Slf4j
+public class BinaryEventPacketCodecTest {
+    private final BinaryEventPacketCodec fixture = new BinaryEventPacketCodec();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        // given: an EventPacket
+        EventPacket eventPacket = mockEventPacket();
+
+        // when: the event packet is encoded and decoded
+        EventPacket decoded = fixture.decode(fixture.encode(eventPacket));
+
+        // then: the decoded event packet has the same properties as the original
+        assertEquals(eventPacket.getId(), decoded.getId());
+        assertEquals(eventPacket.getCorrelationId(), decoded.getCorrelationId());
+        assertEquals(eventPacket.getTopic(), decoded.getTopic());
+        assertEquals(eventPacket.getRetryCount(), decoded.getRetryCount());
+        assertEquals(eventPacket.getTimestamp(), decoded.getTimestamp());
+        assertEquals(eventPacket.getKey(), decoded.getKey());
+        assertEquals(eventPacket.getPayloadClass(), decoded.getPayloadClass());
+        assertEquals(eventPacket.getPayload(), decoded.getPayload());
+
+        // and: the payload content can be read
+        UserAuthenticated content = decoded.getPayloadContent();
+        assertEquals(eventPacket.<UserAuthenticated>getPayloadContent().getUserId(), content.getUserId());
+    }
+
+    @Test
+    public void testRoundTrip_NullFields() throws Exception {
+        // given: an EventPacket with no optional properties
+        EventPacket eventPacket = new EventPacket(UUID.randomUUID(), Topic.USER, null,
+            2, Instant.now(), null, UserAuthenticated.class.getName(), null);
+
+        // when: the event packet is encoded and decoded
+        EventPacket decoded = fixture.decode(fixture.encode(eventPacket));
+
+        // then: the null properties are preserved
+        assertEquals(eventPacket.getId(), decoded.getId());
+        assertEquals(2, decoded.getRetryCount());
+        assertNull(decoded.getCorrelationId());
+        assertNull(decoded.getKey());
+        assertNull(decoded.getPayload());
+    }
+
+    @Test
+    public void testDeserializer_DetectsCodec() {
+        // given: an EventPacket
+        EventPacket eventPacket = mockEventPacket();
+
+        // and: a serializer for each codec
+        EventPacketSerializer jsonSerializer = new EventPacketSerializer();
+        EventPacketSerializer binarySerializer = new EventPacketSerializer();
+        binarySerializer.configure(Map.of(EventPacketCodec.CODEC_CONFIG, "binary"), false);
+
+        // when: the event packet is deserialized from each encoding
+        EventPacketDeserializer deserializer = new EventPacketDeserializer();
+        String topic = eventPacket.getTopic().topicName();
+        EventPacket fromJson = deserializer.deserialize(topic, jsonSerializer.serialize(topic, eventPacket));
+        EventPacket fromBinary = deserializer.deserialize(topic, binarySerializer.serialize(topic, eventPacket));
+
+        // then: both are decoded to the same event packet
+        assertEquals(eventPacket, fromJson);
+        assertEquals(eventPacket, fromBinary);
+        assertEquals(eventPacket.getPayload(), fromJson.getPayload());
+        assertEquals(eventPacket.getPayload(), fromBinary.getPayload());
+    }
+
+    @Test
+    public void testUnknownCodec() {
+        assertThrows(IllegalArgumentException.class, () -> EventPacketCodec.forName("xml"));
+    }
+
+    @Test
+    public void testCompareWithJson() throws Exception {
+        // given: an EventPacket
+        EventPacket eventPacket = mockEventPacket();
+        JsonEventPacketCodec jsonCodec = new JsonEventPacketCodec();
+
+        // when: the event packet is encoded by each codec
+        byte[] json = jsonCodec.encode(eventPacket);
+        byte[] binary = fixture.encode(eventPacket);
+
+        // then: the binary encoding is smaller
+        log.info("Encoded EventPacket size [json: {}, binary: {}]", json.length, binary.length);
+        assertTrue(binary.length < json.length);
+
+        // and: the relative cost of each codec is reported
+        int iterations = 20000;
+        long jsonNanos = time(iterations, () -> jsonCodec.decode(jsonCodec.encode(eventPacket)));
+        long binaryNanos = time(iterations, () -> fixture.decode(fixture.encode(eventPacket)));
+        log.info("EventPacket round-trip [iterations: {}, jsonMs: {}, binaryMs: {}]",
+            iterations, jsonNanos / 1_000_000, binaryNanos / 1_000_000);
+    }
+
+    private long time(int iterations, RoundTrip roundTrip) throws Exception {
+        // warm up before timing
+        for (int i = 0; i < iterations; i++) {
+            roundTrip.run();
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            roundTrip.run();
+        }
+        return System.nanoTime() - start;
+    }
+
+    private EventPacket mockEventPacket() {
+        UserAuthenticated payload = UserAuthenticated.builder()
+            .userId(UUID.randomUUID())
+            .dateLogin(Instant.now())
+            .build();
+
+        return new EventPacket(
+            UUID.randomUUID(),
+            Topic.USER_AUTH,
+            UUID.randomUUID().toString(),
+            0, Instant.now(),
+            "key", payload.getClass().getName(), EventPacket.serialize(payload)
+        );
+    }
+
+    private interface RoundTrip {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,117 @@
+package com.hillayes.outbox.config;
+
+import io.smallrye.config.ConfigMapping;
+import io.smallrye.config.WithDefault;
+
+import java.time.Duration;
+
+/**
+ * Determines how the event outbox delivers the events it has recorded. For example:
+ * <pre>
+ *   one-stop:
+ *     outbox:
+ *       delivery:
+ *         worker-count: 4
+ *         batch-size: 100
+ *         poll-interval: PT1M
+ * </pre>
+ */
+@ConfigMapping(prefix = "one-stop.outbox")
+public interface OutboxConfiguration {
+    /**
+     * The DB schema in which the outbox table is held. Used to identify the channel
+     * on which the outbox notifications are raised.
+     */
+    @WithDefault("${quarkus.hibernate-orm.database.default-schema:public}")
+    String schema();
+
+    Delivery delivery();
+
+    ProcessedEvents processedEvents();
+
+    Hospital hospital();
+
+    interface Delivery {
+        /**
+         * The delay, after start-up, before event delivery begins.
+         */
+        @WithDefault("PT10S")
+        Duration initialDelay();
+
+        /**
+         * The interval between each worker's polls of the outbox table. A worker
+         * that retrieves a full batch will not wait for this interval before
+         * claiming its next batch.
+         * <p>
+         * When listening for notifications, this polling is only a safety-net.
+         */
+        @WithDefault("PT30S")
+        Duration pollInterval();
+
+        /**
+         * Whether the workers are to be woken by database notifications when events
+         * are committed to the outbox; rather than waiting for their next poll.
+         * Requires a PostgreSQL database.
+         */
+        @WithDefault("true")
+        boolean listenForNotifications();
+
+        /**
+         * The maximum number of events claimed by a worker on each poll.
+         */
+        @WithDefault("25")
+        int batchSize();
+
+        /**
+         * The number of workers, within each service instance, that will claim and
+         * deliver batches of events. Each worker claims a disjoint batch of events,
+         * so the workers of all instances can run concurrently.
+         */
+        @WithDefault("1")
+        int workerCount();
+
+        /**
+         * The maximum time to wait for the broker to acknowledge a batch of events.
+         * Events not acknowledged within this time will remain in the outbox and be
+         * re-delivered.
+         */
+        @WithDefault("PT30S")
+        Duration sendTimeout();
+    }
+
+    interface ProcessedEvents {
+        /**
+         * The interval at which expired records of processed events are deleted.
+         */
+        @WithDefault("PT1H")
+        Duration purgeInterval();
+    }
+
+    interface Hospital {
+        /**
+         * Determines how the events held in the message hospital are replayed.
+         */
+        Replay replay();
+
+        interface Replay {
+            /**
+             * The maximum number of events moved to the outbox in each batch.
+             */
+            @WithDefault("100")
+            int batchSize();
+
+            /**
+             * The pause between each batch of replayed events.
+             */
+            @WithDefault("PT1S")
+            Duration batchInterval();
+
+            /**
+             * The outbox backlog above which the replay will pause; allowing the
+             * events already replayed to be delivered before more are added.
+             */
+            @WithDefault("500")
+            int maxBacklog();
+        }
+    }
+}
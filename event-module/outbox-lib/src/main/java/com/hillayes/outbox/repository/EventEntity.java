@@ -72,6 +72,30 @@ public class EventEntity {
             .build();
     }
 
+    /**
+     * A factory method to create a new event entity for the replay of an event held
+     * in the message hospital. Called when the cause of the failure has been resolved.
+     * <p>
+     * The event retains its identity, but its retry count is reset; so that it will
+     * pass through the retry tiers again should it fail.
+     *
+     * @param hospitalEntity the message hospital entry whose event is to be replayed.
+     */
+    public static EventEntity forReplay(HospitalEntity hospitalEntity) {
+        Instant now = Instant.now();
+        return EventEntity.builder()
+            .eventId(hospitalEntity.getEventId())
+            .correlationId(hospitalEntity.getCorrelationId())
+            .retryCount(0)
+            .timestamp(now)
+            .scheduledFor(now)
+            .topic(hospitalEntity.getTopic())
+            .key(hospitalEntity.getKey())
+            .payloadClass(hospitalEntity.getPayloadClass())
+            .payload(hospitalEntity.getPayload())
+            .build();
+    }
+
     /**
      * Converts the EventEntity into an object ready to be delivered by the message
      * broker.
@@ -3,7 +3,7 @@ package com.hillayes.outbox.repository;
 import com.hillayes.commons.jpa.RepositoryBase;
 
 import jakarta.enterprise.context.ApplicationScoped;
-import jakarta.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
@@ -14,12 +14,36 @@ import java.util.UUID;
 public class EventRepository extends RepositoryBase<EventEntity, UUID> {
     /**
      * Returns scheduled events in the order they are scheduled. The events are locked
-     * to prevent allow update and prevent update conflicts.
+     * to prevent update conflicts. Any events already locked by another caller are
+     * skipped; allowing multiple workers, across all service instances, to claim
+     * disjoint batches of events concurrently.
      *
      * @param batchSize the max number of events to be returned.
-     * @return a stream of undelivered events.
+     * @return the list of undelivered events.
      */
     public List<EventEntity> listUndelivered(int batchSize) {
-        return lock("FROM EventEntity WHERE scheduledFor < CURRENT_TIMESTAMP ORDER BY scheduledFor", batchSize);
+        return lockSkipLocked("FROM EventEntity WHERE scheduledFor < CURRENT_TIMESTAMP ORDER BY scheduledFor", batchSize);
+    }
+
+    /**
+     * Deletes the identified events, in a single statement, once they have been
+     * delivered.
+     *
+     * @param ids the identifiers of the delivered events.
+     * @return the number of events deleted.
+     */
+    public long deleteDelivered(Collection<UUID> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return delete("id IN ?1", ids);
+    }
+
+    /**
+     * Returns the number of events that are due for delivery; including any that
+     * are currently claimed by a worker.
+     */
+    public long countBacklog() {
+        return count("scheduledFor < CURRENT_TIMESTAMP");
     }
 }
@@ -0,0 +1,45 @@
+package com.hillayes.outbox.repository;
+
+import com.hillayes.events.domain.Topic;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Selects the message hospital entries by their topic, event (payload) class and/or
+ * failure reason. Any null criteria will match all entries.
+ *
+ * @param topic the topic on which the failed event was delivered.
+ * @param payloadClass the class name of the failed event's payload.
+ * @param reason the reason for the failure; the class name of the error raised.
+ */
+public record HospitalFilter(Topic topic, String payloadClass, String reason) {
+    /**
+     * A filter that matches all entries.
+     */
+    public static final HospitalFilter ALL = new HospitalFilter(null, null, null);
+
+    /**
+     * Returns the HQL where-clause for this filter; referencing the positional
+     * parameters returned by {@link #parameters()}.
+     */
+    String whereClause() {
+        List<String> terms = new ArrayList<>();
+        int index = 1;
+        if (topic != null) terms.add("topic = ?" + index++);
+        if (payloadClass != null) terms.add("payloadClass = ?" + index++);
+        if (reason != null) terms.add("reason = ?" + index);
+        return terms.isEmpty() ? "" : " WHERE " + String.join(" AND ", terms);
+    }
+
+    /**
+     * Returns the positional parameters referenced by the {@link #whereClause()}.
+     */
+    Object[] parameters() {
+        List<Object> result = new ArrayList<>();
+        if (topic != null) result.add(topic);
+        if (payloadClass != null) result.add(payloadClass);
+        if (reason != null) result.add(reason);
+        return result.toArray();
+    }
+}
@@ -1,7 +1,8 @@
 package com.hillayes.outbox.repository;
 
-import com.hillayes.commons.jpa.RepositoryBase;
 import com.hillayes.commons.jpa.OrderBy;
+import com.hillayes.commons.jpa.Page;
+import com.hillayes.commons.jpa.RepositoryBase;
 
 import jakarta.enterprise.context.ApplicationScoped;
 import java.util.List;
@@ -22,4 +23,50 @@ public class HospitalRepository extends RepositoryBase<HospitalEntity, UUID> {
     public List<HospitalEntity> list(int page, int pageSize) {
         return listAll("FROM HospitalEntity", page, pageSize, OrderBy.descending("timestamp"));
     }
+
+    /**
+     * Returns the identified page of those hospital events that match the given filter,
+     * in their descending timestamp order.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param pageIndex the zero-based page number to be returned.
+     * @param pageSize the max number of events to be returned.
+     * @return the requested page of hospital events.
+     */
+    public Page<HospitalEntity> findByFilter(HospitalFilter filter, int pageIndex, int pageSize) {
+        return pageAll("FROM HospitalEntity" + filter.whereClause(),
+            OrderBy.descending("timestamp"), pageIndex, pageSize, filter.parameters());
+    }
+
+    /**
+     * Returns the number of hospital events that match the given filter.
+     */
+    public long countByFilter(HospitalFilter filter) {
+        return count("FROM HospitalEntity" + filter.whereClause(), filter.parameters());
+    }
+
+    /**
+     * Returns the number of hospital events for each combination of topic, event class
+     * and failure reason; in descending order of that number.
+     */
+    public List<HospitalSummary> summarise() {
+        return getEntityManager().createQuery("SELECT new com.hillayes.outbox.repository.HospitalSummary"
+                + "(h.topic, h.payloadClass, h.reason, COUNT(h)) FROM HospitalEntity h "
+                + "GROUP BY h.topic, h.payloadClass, h.reason ORDER BY COUNT(h) DESC", HospitalSummary.class)
+            .getResultList();
+    }
+
+    /**
+     * Locks, and returns, the oldest hospital events that match the given filter, so
+     * they can be replayed. Any events already locked by another caller are skipped;
+     * allowing concurrent replays to claim disjoint batches of events.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param batchSize the max number of events to be returned.
+     * @return the locked hospital events.
+     */
+    public List<HospitalEntity> lockForReplay(HospitalFilter filter, int batchSize) {
+        return lockSkipLocked("FROM HospitalEntity" + filter.whereClause() + " ORDER BY timestamp",
+            batchSize, filter.parameters());
+    }
 }
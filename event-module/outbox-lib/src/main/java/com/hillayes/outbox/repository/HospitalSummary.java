@@ -0,0 +1,10 @@
+package com.hillayes.outbox.repository;
+
+import com.hillayes.events.domain.Topic;
+
+/**
+ * The number of message hospital entries that share the same topic, event (payload)
+ * class and failure reason. Used to triage the failures in the message hospital.
+ */
+public record HospitalSummary(Topic topic, String payloadClass, String reason, long count) {
+}
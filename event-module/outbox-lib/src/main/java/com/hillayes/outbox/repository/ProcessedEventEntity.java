@@ -0,0 +1,49 @@
+package com.hillayes.outbox.repository;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Records that an event has been processed by a consumer group. Used to skip any
+ * re-delivery of that event to the same consumer group. The record will be deleted
+ * once it has expired.
+ */
+@Entity
+@Table(name = "processed_events")
+@Getter
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor(access = AccessLevel.PROTECTED) // called by the persistence layer
+@AllArgsConstructor
+public class ProcessedEventEntity {
+    @EmbeddedId
+    @EqualsAndHashCode.Include
+    private PrimaryKey id;
+
+    /**
+     * The date-time after which the record may be deleted.
+     */
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class PrimaryKey implements Serializable {
+        /**
+         * The consumer group that processed the event.
+         */
+        @Column(name = "consumer_group", nullable = false)
+        private String consumerGroup;
+
+        /**
+         * The EventPacket's identifier.
+         */
+        @Column(name = "event_id", nullable = false)
+        private UUID eventId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.hillayes.outbox.repository;
+
+import com.hillayes.commons.jpa.RepositoryBase;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A repository used to record the events processed by each consumer group.
+ */
+@ApplicationScoped
+public class ProcessedEventRepository extends RepositoryBase<ProcessedEventEntity, ProcessedEventEntity.PrimaryKey> {
+    /**
+     * Records that the identified event has been processed by the given consumer group;
+     * replacing the expiry of any previous record. A single statement is used, so that
+     * concurrent consumers recording the same event cannot conflict.
+     *
+     * @param consumerGroup the consumer group that processed the event.
+     * @param eventId the identifier of the processed event.
+     * @param expires the date-time after which the record may be deleted.
+     */
+    public void upsert(String consumerGroup, UUID eventId, Instant expires) {
+        getEntityManager().createNativeQuery(
+                "INSERT INTO {h-schema}processed_events (consumer_group, event_id, expires_at)" +
+                    " VALUES (:consumerGroup, :eventId, :expiresAt)" +
+                    " ON CONFLICT (consumer_group, event_id)" +
+                    " DO UPDATE SET expires_at = EXCLUDED.expires_at")
+            .setParameter("consumerGroup", consumerGroup)
+            .setParameter("eventId", eventId)
+            .setParameter("expiresAt", expires)
+            .executeUpdate();
+    }
+
+    /**
+     * Deletes those records that expired before the given date-time.
+     *
+     * @param now the date-time against which expiry is tested.
+     * @return the number of records deleted.
+     */
+    public long deleteExpired(Instant now) {
+        return delete("expiresAt < ?1", now);
+    }
+}
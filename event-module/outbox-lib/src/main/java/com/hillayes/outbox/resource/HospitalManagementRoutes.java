@@ -0,0 +1,177 @@
+package com.hillayes.outbox.resource;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.hillayes.commons.json.MapperFactory;
+import com.hillayes.commons.jpa.Page;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.outbox.repository.HospitalEntity;
+import com.hillayes.outbox.repository.HospitalFilter;
+import com.hillayes.outbox.service.HospitalService;
+import io.quarkus.vertx.http.ManagementInterface;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Adds endpoints to the management interface (not the public API) that allow
+ * administrators to triage, and replay, the events held in the service's message
+ * hospital:
+ * <pre>
+ *   GET  /management/hospital/summary
+ *   GET  /management/hospital/events?topic=USER&payload-class=...&reason=...&page=0&page-size=20
+ *   POST /management/hospital/replay?topic=USER&payload-class=...&reason=...&limit=1000
+ * </pre>
+ * Each service holds its own message hospital, so each serves these endpoints on its
+ * own management port.
+ */
+@ApplicationScoped
+@Slf4j
+public class HospitalManagementRoutes {
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_REPLAY_LIMIT = 1000;
+    private static final int MAX_REPLAY_LIMIT = 10000;
+
+    private final HospitalService hospitalService;
+    private final String rootPath;
+
+    public HospitalManagementRoutes(HospitalService hospitalService,
+                                    @ConfigProperty(name = "quarkus.management.root-path", defaultValue = "q")
+                                    String rootPath) {
+        this.hospitalService = hospitalService;
+        this.rootPath = rootPath;
+    }
+
+    public void registerRoutes(@Observes ManagementInterface managementInterface) {
+        String path = "/" + rootPath + "/hospital";
+        log.debug("Registering hospital management routes [path: {}]", path);
+        managementInterface.router().get(path + "/summary").blockingHandler(this::getSummary);
+        managementInterface.router().get(path + "/events").blockingHandler(this::listEvents);
+        managementInterface.router().post(path + "/replay").blockingHandler(this::replayEvents);
+    }
+
+    private void getSummary(RoutingContext context) {
+        log.info("Summarising hospital events");
+        respond(context, 200, hospitalService.summarise());
+    }
+
+    private void listEvents(RoutingContext context) {
+        HospitalFilter filter;
+        int page;
+        int pageSize;
+        try {
+            filter = parseFilter(context);
+            page = parseInt(context.queryParams().get("page"), "page", 0, 0, Integer.MAX_VALUE);
+            pageSize = parseInt(context.queryParams().get("page-size"), "page-size", DEFAULT_PAGE_SIZE, 1, MAX_PAGE_SIZE);
+        } catch (IllegalArgumentException e) {
+            context.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        log.info("Listing hospital events [filter: {}, page: {}, page-size: {}]", filter, page, pageSize);
+        Page<HospitalEntity> eventsPage = hospitalService.listEvents(filter, page, pageSize);
+        respond(context, 200, new PaginatedHospitalEvents(
+            eventsPage.getPageIndex(),
+            eventsPage.getPageSize(),
+            eventsPage.getContentSize(),
+            eventsPage.getTotalCount(),
+            eventsPage.getTotalPages(),
+            eventsPage.getContent().stream().map(HospitalManagementRoutes::marshal).toList()));
+    }
+
+    private void replayEvents(RoutingContext context) {
+        HospitalFilter filter;
+        int limit;
+        try {
+            filter = parseFilter(context);
+            limit = parseInt(context.queryParams().get("limit"), "limit", DEFAULT_REPLAY_LIMIT, 1, MAX_REPLAY_LIMIT);
+        } catch (IllegalArgumentException e) {
+            context.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        log.info("Replaying hospital events [filter: {}, limit: {}]", filter, limit);
+        long count = hospitalService.replay(filter, limit);
+        respond(context, 202, new ReplayResponse(count));
+    }
+
+    private void respond(RoutingContext context, int status, Object body) {
+        try {
+            context.response()
+                .setStatusCode(status)
+                .putHeader("Content-Type", "application/json")
+                .end(MapperFactory.defaultMapper().writeValueAsString(body));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialise hospital response", e);
+            context.response().setStatusCode(500).end();
+        }
+    }
+
+    private static HospitalFilter parseFilter(RoutingContext context) {
+        return new HospitalFilter(
+            parseTopic(context.queryParams().get("topic")),
+            blankToNull(context.queryParams().get("payload-class")),
+            blankToNull(context.queryParams().get("reason")));
+    }
+
+    static Topic parseTopic(String value) {
+        if ((value == null) || (value.isBlank())) {
+            return null;
+        }
+        try {
+            return Topic.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("topic is not recognised: " + value);
+        }
+    }
+
+    static int parseInt(String value, String name, int defaultValue, int min, int max) {
+        if ((value == null) || (value.isBlank())) {
+            return defaultValue;
+        }
+        try {
+            int result = Integer.parseInt(value.trim());
+            if ((result < min) || (result > max)) {
+                throw new IllegalArgumentException(name + " must be between " + min + " and " + max);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be a number");
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return ((value == null) || (value.isBlank())) ? null : value.trim();
+    }
+
+    private static HospitalEventResponse marshal(HospitalEntity entity) {
+        return new HospitalEventResponse(
+            entity.getId(),
+            entity.getEventId(),
+            entity.getCorrelationId(),
+            entity.getRetryCount(),
+            entity.getTimestamp(),
+            entity.getTopic(),
+            entity.getKey(),
+            entity.getPayloadClass(),
+            entity.getConsumer(),
+            entity.getReason(),
+            entity.getCause(),
+            entity.getPayload());
+    }
+
+    public record HospitalEventResponse(UUID id, UUID eventId, String correlationId, int retryCount,
+                                        Instant timestamp, Topic topic, String key, String payloadClass,
+                                        String consumer, String reason, String cause, String payload) {}
+
+    public record PaginatedHospitalEvents(int page, int pageSize, int count, long total,
+                                          int totalPages, List<HospitalEventResponse> items) {}
+
+    public record ReplayResponse(long count) {}
+}
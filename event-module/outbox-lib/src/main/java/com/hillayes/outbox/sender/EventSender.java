@@ -19,8 +19,8 @@ public class EventSender {
     private final EventRepository eventRepository;
 
     /**
-     * Records the given event for delivery at the next scheduled delivery round.
-     * (see EventDeliverer#deliverEvents()).
+     * Records the given event for delivery once the caller's transaction is committed.
+     * (see EventDeliverer#wakeUp()).
      * <p>
      * This method should be called within the context of an active transaction.
      * Should that transaction roll-back for any reason, the event will not be
@@ -36,8 +36,8 @@ public class EventSender {
     }
 
     /**
-     * Records the given event for delivery at the next scheduled delivery round.
-     * (see EventDeliverer#deliverEvents()).
+     * Records the given event for delivery once the caller's transaction is committed.
+     * (see EventDeliverer#wakeUp()).
      * <p>
      * This method should be called within the context of an active transaction.
      * Should that transaction roll-back for any reason, the event will not be
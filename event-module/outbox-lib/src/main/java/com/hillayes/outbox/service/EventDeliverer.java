@@ -1,80 +1,109 @@
 package com.hillayes.outbox.service;
 
 import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.sender.EventProducer;
 import com.hillayes.executors.concurrent.ExecutorConfiguration;
 import com.hillayes.executors.concurrent.ExecutorFactory;
 import com.hillayes.executors.concurrent.ExecutorType;
+import com.hillayes.outbox.config.OutboxConfiguration;
 import com.hillayes.outbox.repository.EventEntity;
 import com.hillayes.outbox.repository.EventRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
 import io.quarkus.runtime.ShutdownEvent;
 import io.quarkus.runtime.StartupEvent;
 import jakarta.enterprise.context.Dependent;
 import jakarta.enterprise.event.Observes;
 import jakarta.transaction.Transactional;
-import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.clients.producer.RecordMetadata;
 
-import java.time.Duration;
+import javax.sql.DataSource;
 import java.util.List;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.Future;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * A scheduled service to read pending events from the event outbox table, at periodic
  * intervals, and send them to the message broker.
- * It also listens for events that have failed (raised errors during their processing)
- * and re-submit them.
+ * <p>
+ * A configurable number of workers will poll the outbox table. Each worker claims a
+ * batch of events, skipping any events already claimed by other workers (including
+ * those of other service instances). This allows delivery to scale-out with the number
+ * of workers and instances.
+ * <p>
+ * Rather than waiting for their next poll, the workers are woken when a transaction that
+ * wrote events to the outbox is committed (see {@link EventNotificationListener}). The
+ * polling then serves only as a safety-net; for example, to deliver events scheduled for
+ * re-delivery.
  */
 @Dependent
 @RequiredArgsConstructor
 @Slf4j
 public class EventDeliverer {
-    /**
-     * The delay before messages polling begins.
-     * TODO: move to a configurable property
-     */
-    private final static Duration INIT_DELAY = Duration.ofSeconds(10);
-
-    /**
-     * The frequency at which messages are polled from the database.
-     * TODO: move to a configurable property
-     */
-    private final static Duration POLL_FREQUENCY = Duration.ofSeconds(2);
-
-    /**
-     * The maximum number of messages retrieved on each poll.
-     * TODO: move to a configurable property
-     */
-    private final static int POLL_BATCH_SIZE = 25;
-
     // the repository to poll messages from the database
     private final EventRepository eventRepository;
 
     // the broker interface to send messages polled from the database
-    private final Producer<String, EventPacket> producer;
+    private final EventProducer producer;
 
-    /**
-     * A mutex to prevent delivery of events from multiple threads.
-     */
-    private final AtomicBoolean MUTEX = new AtomicBoolean();
+    // the configuration of the delivery workers
+    private final OutboxConfiguration configuration;
+
+    // the source of the connection on which outbox notifications are received
+    private final DataSource dataSource;
+
+    // indicates that a wake-up of the workers is already pending
+    private final AtomicBoolean wakeUpPending = new AtomicBoolean();
+
+    // the number of events due for delivery, as last counted
+    private final AtomicLong backlog = new AtomicLong();
+
+    private ScheduledExecutorService executor;
+
+    private EventNotificationListener notificationListener;
 
     public void init(@Observes StartupEvent ev) {
-        log.info("Scheduling EventDeliverer");
-        ScheduledExecutorService executor = (ScheduledExecutorService)ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+        OutboxConfiguration.Delivery delivery = configuration.delivery();
+        int workerCount = Math.max(1, delivery.workerCount());
+
+        log.info("Scheduling EventDeliverer [workers: {}, batchSize: {}, pollInterval: {}]",
+            workerCount, delivery.batchSize(), delivery.pollInterval());
+        executor = (ScheduledExecutorService)ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
             .executorType(ExecutorType.SCHEDULED)
             .name("event-deliverer")
-            .numberOfThreads(1)
+            .numberOfThreads(workerCount)
             .build());
 
-        executor.scheduleAtFixedRate(this::deliverEvents,
-            INIT_DELAY.toSeconds(), POLL_FREQUENCY.toSeconds(), TimeUnit.SECONDS);
+        // a fixed delay ensures a worker's runs never overlap
+        for (int i = 0; i < workerCount; i++) {
+            executor.scheduleWithFixedDelay(this::deliverEvents,
+                delivery.initialDelay().toMillis(), delivery.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        // periodically count the outbox backlog - exposed as a metric
+        Gauge.builder("events.outbox.backlog", backlog, AtomicLong::get)
+            .description("The number of events due for delivery from the outbox")
+            .register(Metrics.globalRegistry);
+        executor.scheduleWithFixedDelay(this::countBacklog,
+            delivery.initialDelay().toMillis(), delivery.pollInterval().toMillis(), TimeUnit.MILLISECONDS);
+
+        if (delivery.listenForNotifications()) {
+            String channel = configuration.schema() + "_events";
+            notificationListener = new EventNotificationListener(dataSource, channel, this::wakeUp);
+            ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+                .executorType(ExecutorType.FIXED)
+                .name("event-notification-listener")
+                .numberOfThreads(1)
+                .build())
+                .submit(notificationListener);
+        }
     }
 
     /**
@@ -82,6 +111,9 @@ public class EventDeliverer {
      */
     public void onStop(@Observes ShutdownEvent ev) {
         log.info("Shutting down EventDeliverer - started");
+        if (notificationListener != null) {
+            notificationListener.stop();
+        }
         if (producer != null) {
             log.info("Closing producer {}", producer);
             producer.close();
@@ -89,34 +121,70 @@ public class EventDeliverer {
         log.info("Shutting down EventDeliverer - complete");
     }
 
+    /**
+     * Wakes the delivery workers, without waiting for their next scheduled poll. Any
+     * wake-up requested whilst one is already pending will be ignored; the pending
+     * wake-up will deliver all events committed before it runs.
+     */
+    public void wakeUp() {
+        if ((executor != null) && (wakeUpPending.compareAndSet(false, true))) {
+            log.trace("Waking event delivery workers");
+            int workerCount = Math.max(1, configuration.delivery().workerCount());
+            for (int i = 0; i < workerCount; i++) {
+                executor.execute(() -> {
+                    wakeUpPending.set(false);
+                    deliverEvents();
+                });
+            }
+        }
+    }
+
     /**
      * A scheduled service to read pending events from the event outbox table and
-     * send them to the message broker.
+     * send them to the message broker. Whilst full batches are being delivered, the
+     * worker will continue to claim further batches without waiting for its next
+     * scheduled run.
      */
     public void deliverEvents() {
         log.trace("Polling events to deliver");
-        // if previous delivery is still in progress, skip this run
-        if (MUTEX.compareAndSet(false, true)) {
-            log.trace("Event delivery passed mutex");
-            try {
-                _deliverEvents();
-            } catch (Exception ignored) {
-            } finally {
-                MUTEX.set(false);
+        int batchSize = configuration.delivery().batchSize();
+        try {
+            while (_deliverEvents(batchSize) >= batchSize) {
+                log.trace("Full batch delivered - claiming next batch");
             }
+        } catch (Exception e) {
+            log.error("Event delivery failed", e);
+        }
+    }
+
+    /**
+     * Counts the events that are due for delivery, and records the result for the
+     * outbox backlog metric.
+     */
+    @Transactional
+    protected void countBacklog() {
+        try {
+            backlog.set(eventRepository.countBacklog());
+        } catch (Exception e) {
+            log.warn("Failed to count outbox backlog", e);
         }
     }
 
     /**
-     * Sends any undelivered events to the message broker, and marks them as delivered.
+     * Sends a batch of undelivered events to the message broker, and deletes those
+     * whose delivery is acknowledged. Any events whose delivery fails will remain in
+     * the outbox, and be retried on a later poll.
+     *
+     * @param batchSize the max number of events to be delivered.
+     * @return the number of events successfully delivered.
      */
     @Transactional(rollbackOn = Exception.class)
-    protected void _deliverEvents() throws Exception {
-        List<EventEntity> events = eventRepository.listUndelivered(POLL_BATCH_SIZE);
+    protected int _deliverEvents(int batchSize) throws Exception {
+        List<EventEntity> events = eventRepository.listUndelivered(batchSize);
         log.trace("Found events for delivery [size: {}]", events.size());
 
         if (events.isEmpty()) {
-            return;
+            return 0;
         }
         log.trace("Event batch delivery started");
 
@@ -125,31 +193,52 @@ public class EventDeliverer {
                 ProducerRecord<String, EventPacket> record =
                     new ProducerRecord<>(entity.getTopic().topicName(), entity.getKey(), entity.toEventPacket());
 
-                return new EventTuple(entity, producer.send(record));
+                CompletableFuture<Void> response = new CompletableFuture<>();
+                producer.send(record, (metadata, exception) -> {
+                    if (exception == null) {
+                        response.complete(null);
+                    } else {
+                        response.completeExceptionally(exception);
+                    }
+                });
+                return new EventTuple(entity, response);
             })
             .toList();
 
-        // wait for the events to be delivered
-        for (EventTuple record : records) {
-            try {
-                // block until event delivery is complete
-                record.eventResponse.get();
+        // wait for all events in the batch to be acknowledged
+        try {
+            CompletableFuture.allOf(records.stream().map(EventTuple::response).toArray(CompletableFuture[]::new))
+                .get(configuration.delivery().sendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Timed-out waiting for event delivery [batchSize: {}]", records.size());
+        } catch (Exception ignore) {
+            // failures are logged individually below
+        }
 
-                // delete the entity
-                eventRepository.delete(record.entity);
-            } catch (ExecutionException e) {
-                EventEntity entity = record.entity;
+        List<UUID> delivered = records.stream()
+            .filter(record -> {
+                CompletableFuture<Void> response = record.response();
+                if ((response.isDone()) && (!response.isCompletedExceptionally())) {
+                    return true;
+                }
+
+                EventEntity entity = record.entity();
                 log.error("Event delivery failed will be retried [id: {}, topic: {}, payload: {}]",
-                        entity.getId(), entity.getTopic(), entity.getPayloadClass(), e.getCause());
-                throw e;
-            }
-        }
-        log.trace("Event delivery complete");
+                    entity.getId(), entity.getTopic(), entity.getPayloadClass(),
+                    response.isDone() ? response.exceptionNow() : null);
+                return false;
+            })
+            .map(record -> record.entity().getId())
+            .toList();
+
+        // delete all delivered events in a single statement
+        eventRepository.deleteDelivered(delivered);
+        log.trace("Event delivery complete [delivered: {}, failed: {}]",
+            delivered.size(), records.size() - delivered.size());
+
+        return delivered.size();
     }
 
-    @AllArgsConstructor
-    private static class EventTuple {
-        private EventEntity entity;
-        private Future<RecordMetadata> eventResponse;
+    private record EventTuple(EventEntity entity, CompletableFuture<Void> response) {
     }
 }
@@ -0,0 +1,99 @@
+package com.hillayes.outbox.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Listens for notifications, raised by the database, when a transaction that wrote
+ * events to the outbox table is committed. On receipt of a notification, the given
+ * callback is invoked to wake the EventDeliverer.
+ * <p>
+ * The notifications are raised by a trigger on the outbox table (see R__init_events.sql),
+ * using the PostgreSQL LISTEN/NOTIFY mechanism. A dedicated connection is held for the
+ * life of the listener. Should that connection fail, the listener will attempt to
+ * re-establish it after a delay. Should the database not support notifications, the
+ * listener will stop and event delivery will rely solely on polling.
+ */
+@Slf4j
+public class EventNotificationListener implements Runnable {
+    /**
+     * The max time to wait for notifications before checking whether the listener
+     * has been stopped.
+     */
+    private static final int WAIT_TIMEOUT_MS = 5000;
+
+    /**
+     * The delay before re-establishing a failed connection.
+     */
+    private static final Duration RECONNECT_DELAY = Duration.ofSeconds(10);
+
+    private final DataSource dataSource;
+
+    private final String channel;
+
+    private final Runnable onNotification;
+
+    private volatile boolean running = true;
+
+    /**
+     * @param dataSource the source from which to obtain the listener's connection.
+     * @param channel the name of the notification channel to listen to.
+     * @param onNotification the callback to be invoked when a notification is received.
+     */
+    public EventNotificationListener(DataSource dataSource, String channel, Runnable onNotification) {
+        this.dataSource = dataSource;
+        this.channel = channel;
+        this.onNotification = onNotification;
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    public void run() {
+        log.info("Listening for outbox notifications [channel: {}]", channel);
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                if (!connection.isWrapperFor(PGConnection.class)) {
+                    log.warn("Outbox notifications not supported - relying on polling [channel: {}]", channel);
+                    return;
+                }
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN \"" + channel + "\"");
+                }
+
+                // deliver any events written whilst we weren't listening
+                onNotification.run();
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(WAIT_TIMEOUT_MS);
+                    if ((notifications != null) && (notifications.length > 0)) {
+                        log.trace("Outbox notifications received [count: {}]", notifications.length);
+                        onNotification.run();
+                    }
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+
+                log.warn("Outbox notification listener failed - will reconnect [channel: {}]", channel, e);
+                try {
+                    Thread.sleep(RECONNECT_DELAY);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        log.info("Stopped listening for outbox notifications [channel: {}]", channel);
+    }
+}
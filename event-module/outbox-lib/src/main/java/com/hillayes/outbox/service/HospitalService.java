@@ -0,0 +1,155 @@
+package com.hillayes.outbox.service;
+
+import com.hillayes.commons.jpa.Page;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import com.hillayes.outbox.config.OutboxConfiguration;
+import com.hillayes.outbox.repository.*;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Manages the events held in the message hospital; those that have failed delivery
+ * and were not to be retried. Allows the failures to be triaged by their topic, event
+ * class and failure reason; and, once the cause has been resolved, the events to be
+ * replayed.
+ * <p>
+ * Events are replayed by moving them, in batches, from the message hospital to the
+ * event outbox; from where they are delivered as any other event. The batches are
+ * throttled so that the consumers are not overwhelmed; a pause is taken between each
+ * batch, and the replay waits whilst the outbox backlog exceeds a given limit.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+@Slf4j
+public class HospitalService {
+    private final HospitalRepository hospitalRepository;
+
+    private final EventRepository eventRepository;
+
+    private final OutboxConfiguration configuration;
+
+    private ExecutorService executor;
+
+    public void init(@Observes StartupEvent ev) {
+        executor = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .executorType(ExecutorType.FIXED)
+            .name("hospital-replay")
+            .numberOfThreads(1)
+            .build());
+    }
+
+    /**
+     * Returns the identified page of hospital events that match the given filter.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param pageIndex the zero-based page number to be returned.
+     * @param pageSize the max number of events to be returned.
+     */
+    @Transactional
+    public Page<HospitalEntity> listEvents(HospitalFilter filter, int pageIndex, int pageSize) {
+        log.info("Listing hospital events [filter: {}, page: {}, pageSize: {}]", filter, pageIndex, pageSize);
+        return hospitalRepository.findByFilter(filter, pageIndex, pageSize);
+    }
+
+    /**
+     * Returns the number of hospital events for each combination of topic, event class
+     * and failure reason.
+     */
+    @Transactional
+    public List<HospitalSummary> summarise() {
+        log.info("Summarising hospital events");
+        return hospitalRepository.summarise();
+    }
+
+    /**
+     * Starts the replay of those hospital events that match the given filter. The
+     * events are replayed in the background; this method returns once the replay
+     * has been queued.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param limit the max number of events to be replayed.
+     * @return the number of events to be replayed.
+     */
+    public long replay(HospitalFilter filter, int limit) {
+        long count = Math.min(limit, countEvents(filter));
+        log.info("Queuing hospital replay [filter: {}, limit: {}, count: {}]", filter, limit, count);
+        if (count > 0) {
+            executor.submit(() -> replayNow(filter, limit));
+        }
+        return count;
+    }
+
+    /**
+     * Replays those hospital events that match the given filter, in throttled batches.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param limit the max number of events to be replayed.
+     * @return the number of events replayed.
+     */
+    int replayNow(HospitalFilter filter, int limit) {
+        OutboxConfiguration.Hospital.Replay replay = configuration.hospital().replay();
+        int result = 0;
+        try {
+            while (result < limit) {
+                // wait for the outbox to deliver those events already replayed
+                while (countBacklog() > replay.maxBacklog()) {
+                    log.debug("Replay paused for outbox backlog [filter: {}, replayed: {}]", filter, result);
+                    Thread.sleep(replay.batchInterval().toMillis());
+                }
+
+                int count = replayBatch(filter, Math.min(replay.batchSize(), limit - result));
+                if (count == 0) {
+                    break;
+                }
+                result += count;
+                log.debug("Replayed hospital batch [filter: {}, size: {}, replayed: {}]", filter, count, result);
+
+                Thread.sleep(replay.batchInterval().toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            log.error("Hospital replay failed [filter: {}, replayed: {}]", filter, result, e);
+        }
+
+        log.info("Hospital replay complete [filter: {}, replayed: {}]", filter, result);
+        return result;
+    }
+
+    /**
+     * Moves a batch of hospital events, that match the given filter, to the event
+     * outbox for re-delivery.
+     *
+     * @param filter the criteria by which the events are selected.
+     * @param batchSize the max number of events to be replayed.
+     * @return the number of events replayed.
+     */
+    @Transactional
+    protected int replayBatch(HospitalFilter filter, int batchSize) {
+        List<HospitalEntity> batch = hospitalRepository.lockForReplay(filter, batchSize);
+        batch.forEach(entry -> {
+            eventRepository.save(EventEntity.forReplay(entry));
+            hospitalRepository.delete(entry);
+        });
+        return batch.size();
+    }
+
+    @Transactional
+    protected long countEvents(HospitalFilter filter) {
+        return hospitalRepository.countByFilter(filter);
+    }
+
+    @Transactional
+    protected long countBacklog() {
+        return eventRepository.countBacklog();
+    }
+}
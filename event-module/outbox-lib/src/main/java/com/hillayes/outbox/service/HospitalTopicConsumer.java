@@ -24,10 +24,13 @@ import static com.hillayes.events.consumer.HeadersUtils.*;
  * All services that use the outbox library will have a hospital-topic consumer. By setting
  * them all with the same consumer group, we can ensure that only one service will attempt
  * to process a given failed event.
+ *
+ * The same event may arrive on the hospital-topic from several consumer groups, so
+ * the consumer does not skip events it has already processed.
  */
 @ApplicationScoped
 @TopicConsumer(Topic.HOSPITAL_TOPIC)
-@ConsumerGroup("hospital-topic-group")
+@ConsumerGroup(value = "hospital-topic-group", deduplicate = false)
 @RequiredArgsConstructor
 @Slf4j
 public class HospitalTopicConsumer implements EventConsumer {
@@ -0,0 +1,73 @@
+package com.hillayes.outbox.service;
+
+import com.hillayes.events.consumer.ProcessedEventStore;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import com.hillayes.outbox.config.OutboxConfiguration;
+import com.hillayes.outbox.repository.ProcessedEventEntity;
+import com.hillayes.outbox.repository.ProcessedEventRepository;
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A persistent store of the events processed by each consumer group; allowing the
+ * event consumers to skip any event that is re-delivered. Expired records are
+ * deleted at periodic intervals.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+@Slf4j
+public class ProcessedEventService implements ProcessedEventStore {
+    private final ProcessedEventRepository processedEventRepository;
+
+    private final OutboxConfiguration configuration;
+
+    public void init(@Observes StartupEvent ev) {
+        long interval = configuration.processedEvents().purgeInterval().toMillis();
+        log.info("Scheduling processed event purge [interval: {}]", configuration.processedEvents().purgeInterval());
+
+        ScheduledExecutorService executor = (ScheduledExecutorService) ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .executorType(ExecutorType.SCHEDULED)
+            .name("processed-event-purge")
+            .numberOfThreads(1)
+            .build());
+        executor.scheduleWithFixedDelay(this::purgeExpired, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    @Transactional
+    public boolean isProcessed(String consumerGroup, UUID eventId) {
+        return processedEventRepository.findByIdOptional(new ProcessedEventEntity.PrimaryKey(consumerGroup, eventId))
+            .map(entity -> entity.getExpiresAt().isAfter(Instant.now()))
+            .orElse(false);
+    }
+
+    @Override
+    @Transactional
+    public void markProcessed(String consumerGroup, UUID eventId, Instant expires) {
+        processedEventRepository.upsert(consumerGroup, eventId, expires);
+    }
+
+    /**
+     * Deletes those records of processed events that have expired.
+     */
+    @Transactional
+    public void purgeExpired() {
+        try {
+            long count = processedEventRepository.deleteExpired(Instant.now());
+            log.debug("Purged expired processed events [count: {}]", count);
+        } catch (Exception e) {
+            log.error("Failed to purge expired processed events", e);
+        }
+    }
+}
@@ -22,13 +22,20 @@ import static com.hillayes.events.consumer.HeadersUtils.*;
 /**
  * Consumes retry-topic events, which are events that have failed delivery.
  *
+ * Failed events are now retried through the broker's retry tiers (see
+ * DelayedRetryRelay), without passing through the outbox. This consumer remains
+ * to re-deliver any events still held on the retry-topic by earlier versions.
+ *
  * All services that use the outbox library will have a retry-topic consumer. By setting
  * them all with the same consumer group, we can ensure that only one service will attempt
  * to process a given failed event.
+ *
+ * The same event may arrive on the retry-topic many times (once for each retry), so
+ * the consumer does not skip events it has already processed.
  */
 @ApplicationScoped
 @TopicConsumer(Topic.RETRY_TOPIC)
-@ConsumerGroup("retry-topic-group")
+@ConsumerGroup(value = "retry-topic-group", deduplicate = false)
 @RequiredArgsConstructor
 @Slf4j
 public class RetryTopicConsumer implements EventConsumer {
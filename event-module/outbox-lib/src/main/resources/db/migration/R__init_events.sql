@@ -12,6 +12,19 @@ CREATE TABLE IF NOT EXISTS ${flyway:defaultSchema}.events (
   payload_class text NULL,
   payload text NULL
 );
+CREATE INDEX IF NOT EXISTS idx_events_scheduled_for ON ${flyway:defaultSchema}.events (scheduled_for);
+
+-- notifies the EventDeliverer when a transaction that wrote events is committed
+CREATE OR REPLACE FUNCTION ${flyway:defaultSchema}.notify_events() RETURNS trigger AS $$
+BEGIN
+  PERFORM pg_notify('${flyway:defaultSchema}_events', '');
+  RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS events_notify ON ${flyway:defaultSchema}.events;
+CREATE TRIGGER events_notify AFTER INSERT ON ${flyway:defaultSchema}.events
+  FOR EACH STATEMENT EXECUTE FUNCTION ${flyway:defaultSchema}.notify_events();
 
 CREATE TABLE IF NOT EXISTS ${flyway:defaultSchema}.message_hospital (
   id uuid PRIMARY KEY,
@@ -27,3 +40,17 @@ CREATE TABLE IF NOT EXISTS ${flyway:defaultSchema}.message_hospital (
   payload_class text NULL,
   payload text NULL
 );
+-- supports the triage of failures, and the selection of events to be replayed
+CREATE INDEX IF NOT EXISTS idx_message_hospital_topic ON ${flyway:defaultSchema}.message_hospital (topic);
+CREATE INDEX IF NOT EXISTS idx_message_hospital_payload_class ON ${flyway:defaultSchema}.message_hospital (payload_class);
+CREATE INDEX IF NOT EXISTS idx_message_hospital_reason ON ${flyway:defaultSchema}.message_hospital (reason);
+CREATE INDEX IF NOT EXISTS idx_message_hospital_timestamp ON ${flyway:defaultSchema}.message_hospital ("timestamp");
+
+-- records the events processed by each consumer group, to skip their re-delivery
+CREATE TABLE IF NOT EXISTS ${flyway:defaultSchema}.processed_events (
+  consumer_group varchar(256) NOT NULL,
+  event_id uuid NOT NULL,
+  expires_at timestamp NOT NULL,
+  PRIMARY KEY (consumer_group, event_id)
+);
+CREATE INDEX IF NOT EXISTS idx_processed_events_expires_at ON ${flyway:defaultSchema}.processed_events (expires_at);
@@ -68,6 +68,38 @@ public class EventEntityTest {
         assertEquals(eventEntity.getRetryCount() + 1, redelivery.getRetryCount());
     }
 
+    @Test
+    public void testReplay() {
+        // given: an event payload
+        UserAuthenticated payload = UserAuthenticated.builder()
+            .userId(UUID.randomUUID())
+            .dateLogin(Instant.now())
+            .build();
+
+        // and: an event held in the message hospital, after several retries
+        EventPacket eventPacket = new EventPacket(UUID.randomUUID(), Topic.USER_AUTH, UUID.randomUUID().toString(),
+            3, Instant.now(), "key", payload.getClass().getName(), EventPacket.serialize(payload));
+        HospitalEntity hospitalEntity = HospitalEntity.fromEventPacket(eventPacket, "consumer", "reason", "cause");
+
+        // when: the event is to be replayed
+        EventEntity replay = EventEntity.forReplay(hospitalEntity);
+
+        // then: the event entity matches the original event
+        assertNull(replay.getId());
+        assertEquals(eventPacket.getId(), replay.getEventId());
+        assertEquals(eventPacket.getCorrelationId(), replay.getCorrelationId());
+        assertEquals(eventPacket.getTopic(), replay.getTopic());
+        assertEquals(eventPacket.getKey(), replay.getKey());
+        assertEquals(eventPacket.getPayloadClass(), replay.getPayloadClass());
+        assertEquals(eventPacket.getPayload(), replay.getPayload());
+
+        // and: the event is scheduled for immediate delivery
+        assertEquals(replay.getTimestamp(), replay.getScheduledFor());
+
+        // and: the retry count is reset
+        assertEquals(0, replay.getRetryCount());
+    }
+
     @Test
     public void testToEventPacket() {
         // given: an event payload
@@ -0,0 +1,41 @@
+package com.hillayes.outbox.repository;
+
+import com.hillayes.events.domain.Topic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HospitalFilterTest {
+    @Test
+    public void testNoCriteria() {
+        // when: a filter has no criteria
+        HospitalFilter filter = HospitalFilter.ALL;
+
+        // then: no where-clause is produced
+        assertEquals("", filter.whereClause());
+        assertEquals(0, filter.parameters().length);
+    }
+
+    @Test
+    public void testAllCriteria() {
+        // when: a filter has all criteria
+        HospitalFilter filter = new HospitalFilter(Topic.USER, "com.hillayes.UserCreated", "java.io.IOException");
+
+        // then: the where-clause references each criteria
+        assertEquals(" WHERE topic = ?1 AND payloadClass = ?2 AND reason = ?3", filter.whereClause());
+
+        // and: the parameters are in the same order
+        assertArrayEquals(new Object[] { Topic.USER, "com.hillayes.UserCreated", "java.io.IOException" },
+            filter.parameters());
+    }
+
+    @Test
+    public void testPartialCriteria() {
+        // when: a filter has only some criteria
+        HospitalFilter filter = new HospitalFilter(null, "com.hillayes.UserCreated", "java.io.IOException");
+
+        // then: the where-clause references only those criteria
+        assertEquals(" WHERE payloadClass = ?1 AND reason = ?2", filter.whereClause());
+        assertArrayEquals(new Object[] { "com.hillayes.UserCreated", "java.io.IOException" }, filter.parameters());
+    }
+}
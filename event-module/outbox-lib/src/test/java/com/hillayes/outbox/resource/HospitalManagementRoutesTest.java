@@ -0,0 +1,40 @@
+package com.hillayes.outbox.resource;
+
+import com.hillayes.events.domain.Topic;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HospitalManagementRoutesTest {
+    @Test
+    public void testParseTopic() {
+        assertNull(HospitalManagementRoutes.parseTopic(null));
+        assertNull(HospitalManagementRoutes.parseTopic(" "));
+        assertEquals(Topic.CONSENT, HospitalManagementRoutes.parseTopic("CONSENT"));
+        assertEquals(Topic.USER_AUTH, HospitalManagementRoutes.parseTopic("user_auth"));
+    }
+
+    @Test
+    public void testParseTopic_Unknown() {
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+            () -> HospitalManagementRoutes.parseTopic("not-a-topic"));
+        assertTrue(error.getMessage().contains("not-a-topic"));
+    }
+
+    @Test
+    public void testParseInt() {
+        assertEquals(20, HospitalManagementRoutes.parseInt(null, "page-size", 20, 1, 100));
+        assertEquals(20, HospitalManagementRoutes.parseInt("", "page-size", 20, 1, 100));
+        assertEquals(50, HospitalManagementRoutes.parseInt("50", "page-size", 20, 1, 100));
+    }
+
+    @Test
+    public void testParseInt_Invalid() {
+        assertThrows(IllegalArgumentException.class,
+            () -> HospitalManagementRoutes.parseInt("abc", "page-size", 20, 1, 100));
+        assertThrows(IllegalArgumentException.class,
+            () -> HospitalManagementRoutes.parseInt("0", "page-size", 20, 1, 100));
+        assertThrows(IllegalArgumentException.class,
+            () -> HospitalManagementRoutes.parseInt("101", "page-size", 20, 1, 100));
+    }
+}
@@ -3,36 +3,54 @@ package com.hillayes.outbox.service;
 import com.hillayes.events.domain.EventPacket;
 import com.hillayes.events.domain.Topic;
 import com.hillayes.events.events.auth.UserAuthenticated;
+import com.hillayes.events.sender.EventProducer;
+import com.hillayes.outbox.config.OutboxConfiguration;
 import com.hillayes.outbox.repository.EventEntity;
 import com.hillayes.outbox.repository.EventRepository;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import io.quarkus.runtime.ShutdownEvent;
-import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.ProducerRecord;
 import org.apache.kafka.clients.producer.RecordMetadata;
 import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 
+import javax.sql.DataSource;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
-import java.util.concurrent.Future;
-import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 public class EventDelivererTest {
-    private final Producer<String, EventPacket> producer = mock(Producer.class);
+    private final EventProducer producer = mock(EventProducer.class);
     private final EventRepository eventRepository = mock(EventRepository.class);
+    private final OutboxConfiguration configuration = mock(OutboxConfiguration.class);
+    private final OutboxConfiguration.Delivery deliveryConfig = mock(OutboxConfiguration.Delivery.class);
 
-    private final EventDeliverer fixture = new EventDeliverer(eventRepository, producer);
+    private final EventDeliverer fixture = new EventDeliverer(eventRepository, producer, configuration, mock(DataSource.class));
 
     @BeforeEach
     public void beforeEach() {
         reset(producer, eventRepository);
 
-        when(producer.send(any())).then(invocationOnMock -> mockResult());
+        when(configuration.delivery()).thenReturn(deliveryConfig);
+        when(deliveryConfig.batchSize()).thenReturn(25);
+        when(deliveryConfig.sendTimeout()).thenReturn(Duration.ofSeconds(5));
+
+        // the producer acknowledges each send
+        when(producer.send(any(), any())).then(invocation -> {
+            invocation.getArgument(1, Callback.class).onCompletion(mockRecordMetadata(), null);
+            return null;
+        });
     }
 
     @Test
@@ -44,6 +62,31 @@ public class EventDelivererTest {
         verify(producer).close();
     }
 
+    @Test
+    public void testCountBacklog() {
+        // given: a backlog of events
+        when(eventRepository.countBacklog()).thenReturn(12L);
+
+        // and: a meter registry
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Metrics.addRegistry(registry);
+        try {
+            // and: the deliverer is started
+            when(deliveryConfig.workerCount()).thenReturn(1);
+            when(deliveryConfig.initialDelay()).thenReturn(Duration.ofHours(1));
+            when(deliveryConfig.pollInterval()).thenReturn(Duration.ofHours(1));
+            fixture.init(null);
+
+            // when: the backlog is counted
+            fixture.countBacklog();
+
+            // then: the backlog is recorded in the metric
+            assertEquals(12.0, registry.get("events.outbox.backlog").gauge().value());
+        } finally {
+            Metrics.removeRegistry(registry);
+        }
+    }
+
     @Test
     public void testDeliverEvents_noEvents() throws Exception {
         // given: no waiting events
@@ -73,10 +116,68 @@ public class EventDelivererTest {
         verify(eventRepository).listUndelivered(anyInt());
 
         // and: events are all sent to the broker
-        verify(producer, times(waitingEvents.size())).send(any());
+        verify(producer, times(waitingEvents.size())).send(any(), any());
+
+        // and: the events are deleted from the repository in a single call
+        ArgumentCaptor<Collection<UUID>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(eventRepository).deleteDelivered(captor.capture());
+        assertEquals(waitingEvents.size(), captor.getValue().size());
+    }
+
+    @Test
+    public void testDeliverEvents_FullBatch() throws Exception {
+        // given: the batch size is small
+        when(deliveryConfig.batchSize()).thenReturn(2);
+
+        // and: more waiting events than a single batch
+        when(eventRepository.listUndelivered(2))
+            .thenReturn(List.of(createEventEntity(), createEventEntity()))
+            .thenReturn(List.of(createEventEntity()));
+
+        // when: events are delivered
+        fixture.deliverEvents();
+
+        // then: further batches are claimed until a partial batch is returned
+        verify(eventRepository, times(2)).listUndelivered(2);
+
+        // and: events are all sent to the broker
+        verify(producer, times(3)).send(any(), any());
+
+        // and: each batch is deleted
+        verify(eventRepository, times(2)).deleteDelivered(any());
+    }
+
+    @Test
+    public void testDeliverEvents_PartialFailure() throws Exception {
+        // given: waiting events
+        EventEntity failedEvent = createEventEntity();
+        List<EventEntity> waitingEvents = List.of(
+            createEventEntity(),
+            failedEvent,
+            createEventEntity()
+        );
+        when(eventRepository.listUndelivered(anyInt())).thenReturn(waitingEvents);
+
+        // and: the broker fails to deliver one of those events
+        doAnswer(invocation -> {
+            ProducerRecord<String, EventPacket> record = invocation.getArgument(0);
+            boolean failed = record.value().getId().equals(failedEvent.getEventId());
+            invocation.getArgument(1, Callback.class).onCompletion(
+                failed ? null : mockRecordMetadata(),
+                failed ? new RuntimeException("mock delivery failure") : null);
+            return null;
+        }).when(producer).send(any(), any());
+
+        // when: events are delivered
+        fixture.deliverEvents();
+
+        // then: events are all sent to the broker
+        verify(producer, times(waitingEvents.size())).send(any(), any());
 
-        // and: the events are deleted from the repository
-        verify(eventRepository, times(waitingEvents.size())).delete(any());
+        // and: only the delivered events are deleted from the repository
+        ArgumentCaptor<Collection<UUID>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(eventRepository).deleteDelivered(captor.capture());
+        assertEquals(waitingEvents.size() - 1, captor.getValue().size());
     }
 
     private EventEntity createEventEntity() {
@@ -90,41 +191,6 @@ public class EventDelivererTest {
         return EventEntity.forInitialDelivery(Topic.USER_AUTH, "test-key", event);
     }
 
-    private Future<RecordMetadata> mockResult() {
-        return new Future<>() {
-            @Override
-            public RecordMetadata get() {
-                return get(100, TimeUnit.MILLISECONDS);
-            }
-
-            @Override
-            public RecordMetadata get(long timeout, TimeUnit unit) {
-                try {
-                    Thread.sleep(500);
-                    return mockRecordMetadata();
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    throw new RuntimeException(e);
-                }
-            }
-
-            @Override
-            public boolean cancel(boolean mayInterruptIfRunning) {
-                return false;
-            }
-
-            @Override
-            public boolean isCancelled() {
-                return false;
-            }
-
-            @Override
-            public boolean isDone() {
-                return false;
-            }
-        };
-    }
-
     private RecordMetadata mockRecordMetadata() {
         return new RecordMetadata(
             new TopicPartition("test-topic", 0),
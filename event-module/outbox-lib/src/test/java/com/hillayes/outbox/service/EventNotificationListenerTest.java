@@ -0,0 +1,66 @@
+package com.hillayes.outbox.service;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class EventNotificationListenerTest {
+    private final DataSource dataSource = mock(DataSource.class);
+    private final Connection connection = mock(Connection.class);
+    private final Runnable callback = mock(Runnable.class);
+
+    @Test
+    public void testNotificationsNotSupported() throws Exception {
+        // given: the database does not support notifications
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+
+        // when: the listener is run
+        EventNotificationListener fixture = new EventNotificationListener(dataSource, "test_events", callback);
+        fixture.run();
+
+        // then: the listener returns without invoking the callback
+        verify(callback, never()).run();
+
+        // and: the connection is released
+        verify(connection).close();
+    }
+
+    @Test
+    public void testNotificationReceived() throws Exception {
+        // given: the database supports notifications
+        PGConnection pgConnection = mock(PGConnection.class);
+        Statement statement = mock(Statement.class);
+        when(dataSource.getConnection()).thenReturn(connection);
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+
+        EventNotificationListener fixture = new EventNotificationListener(dataSource, "test_events", callback);
+
+        // and: a notification is raised - after which the listener is stopped
+        when(pgConnection.getNotifications(anyInt())).then(invocation -> {
+            fixture.stop();
+            return new PGNotification[] { mock(PGNotification.class) };
+        });
+
+        // when: the listener is run
+        fixture.run();
+
+        // then: the listener subscribes to the channel
+        verify(statement).execute("LISTEN \"test_events\"");
+
+        // and: the callback is invoked on connection, and on notification
+        verify(callback, times(2)).run();
+
+        // and: the connection is released
+        verify(connection).close();
+    }
+}
@@ -0,0 +1,126 @@
+package com.hillayes.outbox.service;
+
+import com.hillayes.commons.jpa.Page;
+import com.hillayes.events.domain.EventPacket;
+import com.hillayes.events.domain.Topic;
+import com.hillayes.outbox.config.OutboxConfiguration;
+import com.hillayes.outbox.repository.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+public class HospitalServiceTest {
+    private final HospitalRepository hospitalRepository = mock(HospitalRepository.class);
+    private final EventRepository eventRepository = mock(EventRepository.class);
+    private final OutboxConfiguration configuration = mock(OutboxConfiguration.class);
+    private final OutboxConfiguration.Hospital.Replay replayConfig = mock(OutboxConfiguration.Hospital.Replay.class);
+
+    private final HospitalService fixture = new HospitalService(hospitalRepository, eventRepository, configuration);
+
+    @BeforeEach
+    public void beforeEach() {
+        OutboxConfiguration.Hospital hospitalConfig = mock(OutboxConfiguration.Hospital.class);
+        when(configuration.hospital()).thenReturn(hospitalConfig);
+        when(hospitalConfig.replay()).thenReturn(replayConfig);
+
+        when(replayConfig.batchSize()).thenReturn(10);
+        when(replayConfig.batchInterval()).thenReturn(Duration.ZERO);
+        when(replayConfig.maxBacklog()).thenReturn(100);
+    }
+
+    @Test
+    public void testListEvents() {
+        // given: a filter
+        HospitalFilter filter = new HospitalFilter(Topic.USER, null, null);
+
+        // and: a page of events matches that filter
+        Page<HospitalEntity> page = new Page<>(List.of(hospitalEntity()), 21, 2, 10);
+        when(hospitalRepository.findByFilter(filter, 2, 10)).thenReturn(page);
+
+        // when: the events are listed
+        Page<HospitalEntity> result = fixture.listEvents(filter, 2, 10);
+
+        // then: the page is returned
+        assertEquals(page, result);
+    }
+
+    @Test
+    public void testReplayNow() {
+        // given: 25 events are held in the hospital
+        List<HospitalEntity> entries = IntStream.range(0, 25).mapToObj(i -> hospitalEntity()).toList();
+        when(hospitalRepository.lockForReplay(any(), anyInt())).thenReturn(
+            entries.subList(0, 10), entries.subList(10, 20), entries.subList(20, 25), List.of());
+
+        // when: the events are replayed
+        int count = fixture.replayNow(HospitalFilter.ALL, 1000);
+
+        // then: all events are replayed
+        assertEquals(25, count);
+
+        // and: they are claimed in batches
+        verify(hospitalRepository, times(4)).lockForReplay(HospitalFilter.ALL, 10);
+
+        // and: each is moved to the outbox
+        ArgumentCaptor<EventEntity> captor = ArgumentCaptor.forClass(EventEntity.class);
+        verify(eventRepository, times(25)).save(captor.capture());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(entries.get(i).getEventId(), captor.getAllValues().get(i).getEventId());
+        }
+
+        // and: each is removed from the hospital
+        verify(hospitalRepository, times(25)).delete(any(HospitalEntity.class));
+    }
+
+    @Test
+    public void testReplayNow_Limit() {
+        // given: many events are held in the hospital
+        when(hospitalRepository.lockForReplay(any(), anyInt())).thenAnswer(invocation ->
+            IntStream.range(0, invocation.getArgument(1, Integer.class)).mapToObj(i -> hospitalEntity()).toList());
+
+        // when: a limited number of events are replayed
+        int count = fixture.replayNow(HospitalFilter.ALL, 15);
+
+        // then: only that number are replayed
+        assertEquals(15, count);
+
+        // and: the last batch is reduced to the limit
+        verify(hospitalRepository).lockForReplay(HospitalFilter.ALL, 10);
+        verify(hospitalRepository).lockForReplay(HospitalFilter.ALL, 5);
+        verify(eventRepository, times(15)).save(any());
+    }
+
+    @Test
+    public void testReplayNow_Backlog() {
+        // given: the outbox backlog exceeds the limit, until the third count
+        when(eventRepository.countBacklog()).thenReturn(200L, 150L, 50L);
+
+        // and: an event is held in the hospital
+        when(hospitalRepository.lockForReplay(any(), anyInt())).thenReturn(List.of(hospitalEntity()), List.of());
+
+        // when: the events are replayed
+        int count = fixture.replayNow(HospitalFilter.ALL, 1000);
+
+        // then: the replay waits for the backlog to reduce
+        verify(eventRepository, atLeast(3)).countBacklog();
+
+        // and: the event is replayed
+        assertEquals(1, count);
+    }
+
+    private HospitalEntity hospitalEntity() {
+        EventPacket eventPacket = new EventPacket(UUID.randomUUID(), Topic.USER, UUID.randomUUID().toString(),
+            3, Instant.now(), "key", String.class.getName(), "\"payload\"");
+        return HospitalEntity.fromEventPacket(eventPacket, "consumer", "reason", "cause");
+    }
+}
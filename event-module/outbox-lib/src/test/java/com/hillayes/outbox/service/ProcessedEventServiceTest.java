@@ -0,0 +1,77 @@
+package com.hillayes.outbox.service;
+
+import com.hillayes.outbox.config.OutboxConfiguration;
+import com.hillayes.outbox.repository.ProcessedEventEntity;
+import com.hillayes.outbox.repository.ProcessedEventRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProcessedEventServiceTest {
+    private final ProcessedEventRepository processedEventRepository = mock(ProcessedEventRepository.class);
+
+    private final ProcessedEventService fixture =
+        new ProcessedEventService(processedEventRepository, mock(OutboxConfiguration.class));
+
+    @Test
+    public void testIsProcessed() {
+        // given: a recorded event that has not expired
+        UUID eventId = UUID.randomUUID();
+        ProcessedEventEntity.PrimaryKey id = new ProcessedEventEntity.PrimaryKey("test-group", eventId);
+        when(processedEventRepository.findByIdOptional(id))
+            .thenReturn(Optional.of(new ProcessedEventEntity(id, Instant.now().plus(Duration.ofHours(1)))));
+
+        // when: the event is tested
+        // then: it has been processed
+        assertTrue(fixture.isProcessed("test-group", eventId));
+
+        // and: it has not been processed by another consumer group
+        assertFalse(fixture.isProcessed("other-group", eventId));
+    }
+
+    @Test
+    public void testIsProcessed_Expired() {
+        // given: a recorded event that has expired
+        UUID eventId = UUID.randomUUID();
+        ProcessedEventEntity.PrimaryKey id = new ProcessedEventEntity.PrimaryKey("test-group", eventId);
+        when(processedEventRepository.findByIdOptional(id))
+            .thenReturn(Optional.of(new ProcessedEventEntity(id, Instant.now().minusSeconds(1))));
+
+        // when: the event is tested
+        // then: it has not been processed
+        assertFalse(fixture.isProcessed("test-group", eventId));
+    }
+
+    @Test
+    public void testMarkProcessed() {
+        // given: an event to be recorded
+        UUID eventId = UUID.randomUUID();
+        Instant expires = Instant.now().plus(Duration.ofHours(1));
+
+        // when: the event is marked as processed
+        fixture.markProcessed("test-group", eventId, expires);
+
+        // then: the record is written in a single statement
+        verify(processedEventRepository).upsert("test-group", eventId, expires);
+
+        // and: no prior read, or separate insert, is made
+        verify(processedEventRepository, never()).findByIdOptional(any());
+        verify(processedEventRepository, never()).save(any());
+    }
+
+    @Test
+    public void testPurgeExpired() {
+        // when: expired records are purged
+        fixture.purgeExpired();
+
+        // then: the repository is called
+        verify(processedEventRepository).deleteExpired(any(Instant.class));
+    }
+}
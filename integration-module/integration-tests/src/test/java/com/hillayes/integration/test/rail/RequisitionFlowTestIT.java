@@ -17,6 +17,7 @@ import com.hillayes.nordigen.model.RequisitionStatus;
 import com.hillayes.onestop.api.*;
 import com.hillayes.sim.email.SendInBlueSimulator;
 import com.hillayes.sim.nordigen.NordigenSimClient;
+import com.hillayes.sim.nordigen.SimulatedLatency;
 import com.hillayes.sim.yapily.YapilySimClient;
 import io.restassured.response.Response;
 import org.junit.jupiter.api.BeforeAll;
@@ -253,4 +254,53 @@ public class RequisitionFlowTestIT extends ApiTestBase {
         // then: a not-found error is returned
         requisitionAdminApi.get(requisition.id, 404);
     }
+
+    @Test
+    public void testAccountPollUnderLatency() {
+        // given: a user
+        UserEntity user = UserUtils.mockUser();
+        user = UserUtils.createUser(getWiremockPort(), user);
+
+        UserConsentApi userConsentApi = new UserConsentApi(user.getAuthTokens());
+        AccountApi accountApi = new AccountApi(user.getAuthTokens());
+
+        // and: the user has initiated consent for an institution
+        InstitutionApi institutionApi = new InstitutionApi(user.getAuthTokens());
+        InstitutionResponse institution = institutionApi.getInstitution("SANDBOXFINANCE_SFIN0000");
+        UserConsentRequest consentRequest = new UserConsentRequest()
+            .callbackUri(URI.create("http://mock/callback/uri"));
+        userConsentApi.register(institution.getId(), consentRequest);
+
+        // and: the requisition process is complete
+        RailRequisitionAdminApi requisitionAdminApi = new RailRequisitionAdminApi(adminAuthTokens);
+        Requisition requisition = requisitionAdminApi.list(0, 100).results.get(0);
+        while (requisition.status != RequisitionStatus.LN) {
+            requisition = requisitionAdminApi.get(requisition.id);
+        }
+
+        // and: each call to the rail is delayed
+        long latency = 500;
+        nordigenClient.setLatency(latency);
+        try {
+            // when: the consent is given
+            userConsentApi.consentResponse(institution.getProvider(), requisition.reference, null, null);
+
+            // and: the user's accounts have been polled by the service
+            int accountCount = requisition.accounts.size();
+            await().atMost(Duration.ofSeconds(60)).pollInterval(Duration.ofMillis(100))
+                .untilAsserted(() ->
+                    assertEquals(accountCount, accountApi.getAccounts(0, 5).getCount())
+                );
+
+            // then: the poll of a single account took less than the summed latency of
+            // that account's rail calls - had they been made one after another, it
+            // could have taken no less
+            SimulatedLatency.AccountLatency account = nordigenClient.getAccountLatency(requisition.accounts.get(0));
+            assertTrue(account.count() > 1, "Account calls " + account.count());
+            assertTrue(account.elapsedMillis() < account.count() * latency,
+                "Elapsed " + account.elapsedMillis() + "ms for " + account.count() + " calls of " + latency + "ms");
+        } finally {
+            nordigenClient.setLatency(0);
+        }
+    }
 }
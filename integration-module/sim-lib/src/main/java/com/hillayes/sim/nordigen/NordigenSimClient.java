@@ -18,6 +18,46 @@ public interface NordigenSimClient {
     @Path("/reset")
     public Response reset();
 
+    /**
+     * Sets the delay applied to each request to the simulated Nordigen API; allowing
+     * tests to observe the effect of the rail's latency. Restored on reset.
+     * @param millis the delay, in milliseconds
+     * @return the response
+     */
+    @PUT
+    @Path("/latency")
+    public Response setLatency(@QueryParam("millis") long millis);
+
+    /**
+     * Returns the number of requests to the simulated Nordigen API that have been
+     * delayed since the latency was last set, or reset.
+     * @return the number of requests delayed
+     */
+    @GET
+    @Path("/latency/count")
+    public long getLatencyCount();
+
+    /**
+     * Returns the requests to the simulated Nordigen API, for the identified account,
+     * that have been delayed since the latency was last set, or reset; and the time
+     * from the start of the first to the end of the last.
+     * @param accountId the account's id
+     * @return the account's delayed requests
+     */
+    @GET
+    @Path("/latency/accounts/{accountId}")
+    public SimulatedLatency.AccountLatency getAccountLatency(@PathParam("accountId") String accountId);
+
+    /**
+     * Sets the number of calls permitted to each endpoint of each account; after which
+     * calls are rejected with a 429 response. Zero disables the limit. Disabled on reset.
+     * @param accountLimit the number of calls permitted
+     * @return the response
+     */
+    @PUT
+    @Path("/rate-limit")
+    public Response setRateLimit(@QueryParam("accountLimit") int accountLimit);
+
     /**
      * Allows a test to update the status of a requisition; to simulate the requisition's
      * status changing in the Nordigen system.
@@ -9,6 +9,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.eclipse.microprofile.rest.client.RestClientBuilder;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.UUID;
 
 @Path(NordigenSimulator.BASE_URI)
@@ -30,6 +31,12 @@ public class NordigenSimulator {
     @Inject
     AccountsEndpoint accountsEndpoint;
 
+    @Inject
+    SimulatedLatency simulatedLatency;
+
+    @Inject
+    SimulatedRateLimit simulatedRateLimit;
+
     public static NordigenSimClient client(String host) {
         URI baseUri = URI.create(host + BASE_URI);
         return RestClientBuilder.newBuilder()
@@ -52,6 +59,48 @@ public class NordigenSimulator {
         agreementsEndpoint.reset();
         requisitionsEndpoint.reset();
         accountsEndpoint.reset();
+        simulatedLatency.reset();
+        simulatedRateLimit.reset();
+    }
+
+    /**
+     * Sets the delay applied to each request to the simulated Nordigen API. The delay
+     * is restored to its configured value when the simulator is reset.
+     */
+    @PUT
+    @Path("/latency")
+    public void setLatency(@QueryParam("millis") long millis) {
+        simulatedLatency.setLatency(Duration.ofMillis(millis));
+    }
+
+    /**
+     * Returns the number of requests delayed since the latency was last set or reset.
+     */
+    @GET
+    @Path("/latency/count")
+    public long getLatencyCount() {
+        return simulatedLatency.getDelayedCount();
+    }
+
+    /**
+     * Returns the requests delayed for the identified account, and the time from the
+     * start of the first to the end of the last, since the latency was last set or reset.
+     */
+    @GET
+    @Path("/latency/accounts/{accountId}")
+    public SimulatedLatency.AccountLatency getAccountLatency(@PathParam("accountId") String accountId) {
+        return simulatedLatency.getAccountLatency(accountId);
+    }
+
+    /**
+     * Sets the number of calls permitted to each endpoint of each account; after which
+     * calls are rejected with a 429 response. A value of zero disables the limit. The
+     * limit is disabled when the simulator is reset.
+     */
+    @PUT
+    @Path("/rate-limit")
+    public void setRateLimit(@QueryParam("accountLimit") int accountLimit) {
+        simulatedRateLimit.setAccountLimit(accountLimit);
     }
 
     /**
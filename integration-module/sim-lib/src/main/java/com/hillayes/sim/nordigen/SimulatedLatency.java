@@ -0,0 +1,124 @@
+package com.hillayes.sim.nordigen;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Delays each request to the simulated Nordigen API by a configurable duration;
+ * allowing tests to observe the effect of the rail's latency. The initial delay is
+ * taken from the configuration property "one-stop.sim.nordigen.latency", and may be
+ * changed by a test via the simulator's "/latency" endpoint.
+ *
+ * The number of requests delayed is also recorded; so that a test can compare the
+ * time taken by an operation with the latency it would incur if those requests were
+ * made one after another. The requests for each account are also timed; from the
+ * start of the first to the end of the last. So a test can compare the time taken to
+ * poll a single account with the latency of that account's requests.
+ */
+@ApplicationScoped
+@Provider
+@Slf4j
+public class SimulatedLatency implements ContainerRequestFilter {
+    private static final String API_PATH = NordigenSimulator.BASE_URI + "/api/v2/";
+
+    // extracts the account ID from the path of the account endpoints
+    private static final Pattern ACCOUNT_PATH = Pattern.compile("/api/v2/accounts/([^/]+)/");
+
+    /**
+     * The requests delayed for an account, and the time from the start of the first
+     * to the end of the last.
+     */
+    public record AccountLatency(long count, long elapsedMillis) {}
+
+    private record AccountTimings(long count, long firstStart, long lastEnd) {}
+
+    private final Duration configuredLatency;
+
+    private volatile Duration latency;
+
+    private final AtomicLong delayedCount = new AtomicLong();
+
+    private final Map<String, AccountTimings> accountTimings = new ConcurrentHashMap<>();
+
+    public SimulatedLatency(@ConfigProperty(name = "one-stop.sim.nordigen.latency", defaultValue = "PT0S")
+                            Duration configuredLatency) {
+        this.configuredLatency = configuredLatency;
+        this.latency = configuredLatency;
+    }
+
+    public void setLatency(Duration latency) {
+        log.info("Setting Nordigen simulator latency [latency: {}]", latency);
+        this.latency = latency;
+        delayedCount.set(0);
+        accountTimings.clear();
+    }
+
+    /**
+     * Returns the number of requests delayed, and completed their delay, since the
+     * latency was last set or reset.
+     */
+    public long getDelayedCount() {
+        return delayedCount.get();
+    }
+
+    /**
+     * Returns the requests delayed for the identified account, and the time they took
+     * from the start of the first to the end of the last, since the latency was last
+     * set or reset.
+     */
+    public AccountLatency getAccountLatency(String accountId) {
+        AccountTimings timings = accountTimings.get(accountId);
+        return (timings == null)
+            ? new AccountLatency(0, 0)
+            : new AccountLatency(timings.count(), Duration.ofNanos(timings.lastEnd() - timings.firstStart()).toMillis());
+    }
+
+    /**
+     * Restores the latency to its configured value.
+     */
+    public void reset() {
+        latency = configuredLatency;
+        delayedCount.set(0);
+        accountTimings.clear();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        Duration delay = latency;
+        if ((delay.isZero()) || (delay.isNegative())) {
+            return;
+        }
+
+        String path = requestContext.getUriInfo().getRequestUri().getPath();
+        if (!path.contains(API_PATH)) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            Thread.sleep(delay);
+            delayedCount.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        Matcher matcher = ACCOUNT_PATH.matcher(path);
+        if (matcher.find()) {
+            long end = System.nanoTime();
+            accountTimings.merge(matcher.group(1), new AccountTimings(1, start, end), (a, b) -> new AccountTimings(
+                a.count() + b.count(), Math.min(a.firstStart(), b.firstStart()), Math.max(a.lastEnd(), b.lastEnd())));
+        }
+    }
+}
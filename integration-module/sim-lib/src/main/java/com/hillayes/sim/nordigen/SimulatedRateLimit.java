@@ -0,0 +1,96 @@
+package com.hillayes.sim.nordigen;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.container.ContainerRequestContext;
+import jakarta.ws.rs.container.ContainerRequestFilter;
+import jakarta.ws.rs.container.ContainerResponseContext;
+import jakarta.ws.rs.container.ContainerResponseFilter;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.ext.Provider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Simulates the daily limit that Nordigen applies to the calls made to each endpoint
+ * of each account. When enabled, the limit and the number of calls remaining are
+ * reported in the same headers as Nordigen; and, once the limit is exceeded, calls
+ * are rejected with a 429 (Too Many Requests) response. The limit is disabled until
+ * set by a test via the simulator's "/rate-limit" endpoint.
+ */
+@ApplicationScoped
+@Provider
+@Slf4j
+public class SimulatedRateLimit implements ContainerRequestFilter, ContainerResponseFilter {
+    static final String ACCOUNT_LIMIT = "HTTP_X_RATELIMIT_ACCOUNT_SUCCESS_LIMIT";
+    static final String ACCOUNT_REMAINING = "HTTP_X_RATELIMIT_ACCOUNT_SUCCESS_REMAINING";
+    static final String ACCOUNT_RESET = "HTTP_X_RATELIMIT_ACCOUNT_SUCCESS_RESET";
+
+    // identifies the account and endpoint of a request
+    private static final Pattern ACCOUNT_ENDPOINT =
+        Pattern.compile(NordigenSimulator.BASE_URI + "/api/v2/accounts/([^/]+)/([^/]+)/");
+
+    // the number of seconds, reported in the headers, until the limit is reset
+    private static final int RESET_SECONDS = 86400;
+
+    // the property by which the remaining count is passed from request to response
+    private static final String REMAINING_PROPERTY = SimulatedRateLimit.class.getName() + ".remaining";
+
+    private final Map<String, Integer> callCounts = new ConcurrentHashMap<>();
+
+    private volatile int accountLimit = 0;
+
+    /**
+     * Sets the number of calls permitted to each endpoint of each account. A value of
+     * zero disables the limit. The calls already counted are cleared.
+     */
+    public void setAccountLimit(int accountLimit) {
+        log.info("Setting Nordigen simulator rate-limit [accountLimit: {}]", accountLimit);
+        this.accountLimit = accountLimit;
+        callCounts.clear();
+    }
+
+    public void reset() {
+        accountLimit = 0;
+        callCounts.clear();
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext) {
+        int limit = accountLimit;
+        if (limit <= 0) {
+            return;
+        }
+
+        Matcher matcher = ACCOUNT_ENDPOINT.matcher(requestContext.getUriInfo().getRequestUri().getPath());
+        if (!matcher.find()) {
+            return;
+        }
+
+        int count = callCounts.merge(matcher.group(1) + "/" + matcher.group(2), 1, Integer::sum);
+        if (count > limit) {
+            log.debug("Simulating rate-limit exceeded [accountId: {}, endpoint: {}]", matcher.group(1), matcher.group(2));
+            requestContext.abortWith(Response.status(Response.Status.TOO_MANY_REQUESTS)
+                .header(ACCOUNT_LIMIT, limit)
+                .header(ACCOUNT_REMAINING, 0)
+                .header(ACCOUNT_RESET, RESET_SECONDS)
+                .build());
+            return;
+        }
+
+        requestContext.setProperty(REMAINING_PROPERTY, limit - count);
+    }
+
+    @Override
+    public void filter(ContainerRequestContext requestContext, ContainerResponseContext responseContext) {
+        Object remaining = requestContext.getProperty(REMAINING_PROPERTY);
+        if (remaining != null) {
+            responseContext.getHeaders().add(ACCOUNT_LIMIT, accountLimit);
+            responseContext.getHeaders().add(ACCOUNT_REMAINING, remaining);
+            responseContext.getHeaders().add(ACCOUNT_RESET, RESET_SECONDS);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.hillayes.commons.backoff;
+
+import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.commons.correlation.CorrelationContext;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * A non-blocking alternative to {@link BackoffStrategy}. Tasks return a CompletionStage
+ * and, when one fails, the retry is scheduled after an exponential, jittered delay. No
+ * thread is held while waiting out that delay; the retry is handed to the configured
+ * executor when the delay expires.
+ *
+ * Retries are limited, not only by the max number of attempts, but by a shared
+ * {@link RetryBudget}; and each call names a target (e.g. a remote service) whose
+ * {@link CircuitBreaker} will reject calls while that target is failing.
+ *
+ * Retries run with the correlation ID, and logging context, of the original caller.
+ *
+ * Instances are thread-safe and intended to be shared by all callers of the targets
+ * they guard.
+ */
+@Slf4j
+public class AsyncBackoffStrategy {
+    /**
+     * The default executor on which to run retries; a virtual thread per retry. Shared
+     * by all instances and never shut down.
+     */
+    private static final Executor DEFAULT_EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Duration retryInterval;
+    private final double retryExponent;
+    private final Duration maxInterval;
+    private final double jitter;
+    private final int maxAttempts;
+    private final RetryBudget retryBudget;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Predicate<Throwable> retryOn;
+    private final Executor executor;
+    private final Clock clock;
+
+    private final Map<String, CircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
+    private AsyncBackoffStrategy(Builder builder) {
+        this.retryInterval = builder.retryInterval;
+        this.retryExponent = builder.retryExponent;
+        this.maxInterval = builder.maxInterval;
+        this.jitter = builder.jitter;
+        this.maxAttempts = builder.maxAttempts;
+        this.retryBudget = builder.retryBudget;
+        this.failureThreshold = builder.failureThreshold;
+        this.openDuration = builder.openDuration;
+        this.retryOn = builder.retryOn;
+        this.executor = Correlation.propagate(builder.executor);
+        this.clock = builder.clock;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Executes the given task, retrying on failure, and returns a stage that completes
+     * with the task's eventual result. If the target's circuit breaker is open, the
+     * returned stage fails with a {@link CircuitBreakerOpenException}.
+     *
+     * The returned stage may be cancelled, in which case no further attempts are made.
+     *
+     * @param target the name of the target called by the task.
+     * @param task the supplier of the task's (asynchronous) result.
+     * @return a stage that completes with the task's result, or its final failure.
+     * @param <R> the return type.
+     */
+    public <R> CompletableFuture<R> execute(String target, Supplier<? extends CompletionStage<R>> task) {
+        CompletableFuture<R> result = new CompletableFuture<>();
+        retryBudget.deposit();
+        attempt(target, getCircuitBreaker(target), task, 1, CorrelationContext.capture(), result);
+        return result;
+    }
+
+    /**
+     * A convenience method to execute a blocking task on the configured executor,
+     * retrying on failure. The calling thread is not blocked.
+     *
+     * @param target the name of the target called by the task.
+     * @param task the task to be executed.
+     * @return a stage that completes with the task's result, or its final failure.
+     * @param <R> the return type.
+     */
+    public <R> CompletableFuture<R> supplyAsync(String target, Supplier<R> task) {
+        return execute(target, () -> CompletableFuture.supplyAsync(task, executor));
+    }
+
+    /**
+     * Returns the circuit breaker that guards the named target; creating it if necessary.
+     */
+    public CircuitBreaker getCircuitBreaker(String target) {
+        return circuitBreakers.computeIfAbsent(target, t ->
+            new CircuitBreaker(t, failureThreshold, openDuration, clock));
+    }
+
+    /**
+     * Returns the delay to be observed before the given attempt is retried. The delay
+     * grows exponentially with each attempt, up to the max interval, and is reduced
+     * by a random amount of up to the jitter proportion, so that callers that failed
+     * together do not retry together.
+     *
+     * @param attempt the number of the attempt that failed; starting at 1.
+     * @return the delay in milliseconds.
+     */
+    long getRetryInterval(int attempt) {
+        double interval = Math.min(
+            (double) retryInterval.toMillis() * Math.pow(retryExponent, attempt - 1),
+            (double) maxInterval.toMillis());
+        double reduction = (jitter > 0) ? ThreadLocalRandom.current().nextDouble(interval * jitter) : 0;
+        return Math.round(interval - reduction);
+    }
+
+    private <R> void attempt(String target, CircuitBreaker circuitBreaker,
+                             Supplier<? extends CompletionStage<R>> task,
+                             int attempt, CorrelationContext context,
+                             CompletableFuture<R> result) {
+        // the caller may have cancelled whilst the retry was pending
+        if (result.isDone()) {
+            return;
+        }
+
+        if (!circuitBreaker.tryAcquire()) {
+            result.completeExceptionally(new CircuitBreakerOpenException(target));
+            return;
+        }
+
+        CompletionStage<R> stage;
+        try {
+            stage = task.get();
+        } catch (Throwable e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        stage.whenComplete((value, error) -> {
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = unwrap(error);
+            log.debug("Caught exception [target: {}, attempt: {}]", target, attempt, cause);
+
+            // a non-retryable error indicates a fault in the request, not the target
+            if (!retryOn.test(cause)) {
+                circuitBreaker.onSuccess();
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            circuitBreaker.onFailure();
+            if (attempt >= maxAttempts) {
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            if (!retryBudget.tryWithdraw()) {
+                log.debug("Retry budget exhausted [target: {}, attempt: {}]", target, attempt);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            if (circuitBreaker.getState() == CircuitBreaker.State.OPEN) {
+                result.completeExceptionally(new CircuitBreakerOpenException(target, cause));
+                return;
+            }
+
+            long delay = getRetryInterval(attempt);
+            log.debug("Scheduling retry [target: {}, attempt: {}, delay: {}ms]", target, attempt + 1, delay);
+            CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS, executor)
+                .execute(context.wrap(() -> attempt(target, circuitBreaker, task, attempt + 1, context, result)));
+        });
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        Throwable result = error;
+        while (((result instanceof CompletionException) || (result instanceof ExecutionException))
+            && (result.getCause() != null)) {
+            result = result.getCause();
+        }
+        return result;
+    }
+
+    public static class Builder {
+        private Duration retryInterval = Duration.ofSeconds(1);
+        private double retryExponent = 2.0;
+        private Duration maxInterval = Duration.ofMinutes(1);
+        private double jitter = 0.5;
+        private int maxAttempts = 3;
+        private RetryBudget retryBudget = RetryBudget.unlimited();
+        private int failureThreshold = 5;
+        private Duration openDuration = Duration.ofSeconds(30);
+        private Predicate<Throwable> retryOn = e -> true;
+        private Executor executor = DEFAULT_EXECUTOR;
+        private Clock clock = Clock.systemUTC();
+
+        /**
+         * The delay before the first retry. Default 1 second.
+         */
+        public Builder retryInterval(Duration value) {
+            this.retryInterval = value;
+            return this;
+        }
+
+        /**
+         * The factor by which the delay grows with each retry. Default 2.0.
+         */
+        public Builder retryExponent(double value) {
+            this.retryExponent = value;
+            return this;
+        }
+
+        /**
+         * The upper limit of the delay between retries. Default 1 minute.
+         */
+        public Builder maxInterval(Duration value) {
+            this.maxInterval = value;
+            return this;
+        }
+
+        /**
+         * The proportion (0.0 - 1.0) by which each delay may be randomly reduced.
+         * Default 0.5.
+         */
+        public Builder jitter(double value) {
+            if ((value < 0) || (value > 1)) {
+                throw new IllegalArgumentException("jitter must be between 0.0 and 1.0");
+            }
+            this.jitter = value;
+            return this;
+        }
+
+        /**
+         * The max number of attempts, including the first. Default 3.
+         */
+        public Builder maxAttempts(int value) {
+            this.maxAttempts = value;
+            return this;
+        }
+
+        /**
+         * The budget from which retries are withdrawn. Default unlimited.
+         */
+        public Builder retryBudget(RetryBudget value) {
+            this.retryBudget = value;
+            return this;
+        }
+
+        /**
+         * The number of consecutive failures that open a target's circuit breaker.
+         * Default 5.
+         */
+        public Builder failureThreshold(int value) {
+            this.failureThreshold = value;
+            return this;
+        }
+
+        /**
+         * The period for which an open circuit breaker rejects calls. Default 30 seconds.
+         */
+        public Builder openDuration(Duration value) {
+            this.openDuration = value;
+            return this;
+        }
+
+        /**
+         * Identifies the errors that may be retried. Other errors fail immediately, and
+         * are not counted against the target's circuit breaker. Default all errors.
+         */
+        public Builder retryOn(Predicate<Throwable> value) {
+            this.retryOn = value;
+            return this;
+        }
+
+        /**
+         * The executor on which retries are run once their delay has expired. Default
+         * is a virtual thread per retry; so blocking tasks, such as those passed to
+         * {@link AsyncBackoffStrategy#supplyAsync(String, Supplier)}, don't occupy the common ForkJoinPool.
+         */
+        public Builder executor(Executor value) {
+            this.executor = value;
+            return this;
+        }
+
+        /**
+         * The clock by which circuit breakers measure their open period.
+         */
+        public Builder clock(Clock value) {
+            this.clock = value;
+            return this;
+        }
+
+        public AsyncBackoffStrategy build() {
+            return new AsyncBackoffStrategy(this);
+        }
+    }
+}
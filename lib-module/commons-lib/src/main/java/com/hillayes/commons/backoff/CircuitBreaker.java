@@ -0,0 +1,116 @@
+package com.hillayes.commons.backoff;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Records the outcome of calls to a single target (e.g. a remote service) and, after
+ * a number of consecutive failures, "opens" to reject further calls for a period. This
+ * gives a struggling target time to recover, rather than piling retries upon it.
+ *
+ * Once the open period has elapsed the breaker becomes HALF_OPEN, and a single trial
+ * call is permitted. If that call succeeds the breaker closes; if it fails the breaker
+ * opens again.
+ */
+@Slf4j
+public class CircuitBreaker {
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String target;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures = 0;
+    private Instant openedAt = null;
+    private boolean trialInProgress = false;
+
+    /**
+     * @param target the name of the target whose calls are recorded.
+     * @param failureThreshold the number of consecutive failures that open the breaker.
+     * @param openDuration the period for which an open breaker rejects calls.
+     * @param clock the clock from which the open period is measured.
+     */
+    public CircuitBreaker(String target, int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be greater than zero");
+        }
+        this.target = target;
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    /**
+     * Returns the current state of the breaker. An OPEN breaker whose open period
+     * has elapsed is reported as HALF_OPEN.
+     */
+    public synchronized State getState() {
+        if ((state == State.OPEN) && (!clock.instant().isBefore(openedAt.plus(openDuration)))) {
+            state = State.HALF_OPEN;
+            trialInProgress = false;
+        }
+        return state;
+    }
+
+    /**
+     * Determines whether a call to the target may proceed. When HALF_OPEN, only one
+     * call is permitted until its outcome has been recorded.
+     *
+     * @return true if the call may proceed.
+     */
+    public synchronized boolean tryAcquire() {
+        return switch (getState()) {
+            case CLOSED -> true;
+            case OPEN -> false;
+            case HALF_OPEN -> {
+                if (trialInProgress) {
+                    yield false;
+                }
+                trialInProgress = true;
+                yield true;
+            }
+        };
+    }
+
+    /**
+     * Records a successful call, closing the breaker.
+     */
+    public synchronized void onSuccess() {
+        if (state != State.CLOSED) {
+            log.info("Circuit breaker closed [target: {}]", target);
+        }
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        openedAt = null;
+        trialInProgress = false;
+    }
+
+    /**
+     * Records a failed call. The breaker opens if the failure was the trial call of a
+     * HALF_OPEN breaker, or if the failure threshold has been reached.
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if ((state == State.HALF_OPEN) || (consecutiveFailures >= failureThreshold)) {
+            if (state != State.OPEN) {
+                log.warn("Circuit breaker opened [target: {}, consecutiveFailures: {}]", target, consecutiveFailures);
+            }
+            state = State.OPEN;
+            openedAt = clock.instant();
+            trialInProgress = false;
+        }
+    }
+}
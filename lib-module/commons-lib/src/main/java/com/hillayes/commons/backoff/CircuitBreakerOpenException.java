@@ -0,0 +1,21 @@
+package com.hillayes.commons.backoff;
+
+import lombok.Getter;
+
+/**
+ * Raised when a call is rejected because the circuit breaker of its target is open.
+ */
+@Getter
+public class CircuitBreakerOpenException extends RuntimeException {
+    private final String target;
+
+    public CircuitBreakerOpenException(String target) {
+        super("Circuit breaker is open [target: " + target + "]");
+        this.target = target;
+    }
+
+    public CircuitBreakerOpenException(String target, Throwable cause) {
+        super("Circuit breaker is open [target: " + target + "]", cause);
+        this.target = target;
+    }
+}
@@ -0,0 +1,82 @@
+package com.hillayes.commons.backoff;
+
+/**
+ * Limits the number of retries to a proportion of the calls made, so that a widespread
+ * failure does not multiply the load on a target by the number of permitted attempts.
+ *
+ * Each initial call deposits a fraction of a token (the retry ratio); each retry must
+ * withdraw a whole token. An initial balance ensures that retries are possible before
+ * sufficient calls have been made to earn them. The balance is capped at the initial
+ * balance plus the retries earned by {@link #CAPACITY_CALLS} calls, so that a long period
+ * of success cannot be saved up for a subsequent burst of retries.
+ */
+public class RetryBudget {
+    public static final int CAPACITY_CALLS = 100;
+
+    // balances are held in thousandths of a retry, to avoid rounding errors
+    private static final long SCALE = 1000;
+
+    private final long retryRatio;
+    private final long maxBalance;
+
+    private long balance;
+
+    /**
+     * @param retryRatio the number of retries permitted per initial call (e.g. 0.1 = 10%).
+     * @param minRetries the number of retries available before any calls are made.
+     */
+    public RetryBudget(double retryRatio, int minRetries) {
+        if (retryRatio < 0) {
+            throw new IllegalArgumentException("retryRatio must not be negative");
+        }
+        if (minRetries < 0) {
+            throw new IllegalArgumentException("minRetries must not be negative");
+        }
+        this.retryRatio = Math.round(retryRatio * SCALE);
+        this.maxBalance = (minRetries * SCALE) + (this.retryRatio * CAPACITY_CALLS);
+        this.balance = minRetries * SCALE;
+    }
+
+    /**
+     * A budget that places no limit on the number of retries.
+     */
+    public static RetryBudget unlimited() {
+        return new RetryBudget(0, 0) {
+            @Override
+            public void deposit() {
+            }
+
+            @Override
+            public boolean tryWithdraw() {
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Records an initial call, adding to the retries available.
+     */
+    public synchronized void deposit() {
+        balance = Math.min(maxBalance, balance + retryRatio);
+    }
+
+    /**
+     * Attempts to withdraw a retry from the budget.
+     *
+     * @return true if a retry may be made.
+     */
+    public synchronized boolean tryWithdraw() {
+        if (balance < SCALE) {
+            return false;
+        }
+        balance -= SCALE;
+        return true;
+    }
+
+    /**
+     * Returns the number of whole retries currently available.
+     */
+    public synchronized int getAvailable() {
+        return (int) (balance / SCALE);
+    }
+}
@@ -1,28 +1,108 @@
 package com.hillayes.commons.caching;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
 import java.time.Duration;
-import java.util.HashMap;
+import java.util.Comparator;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 
 /**
- * A simple cache to avoid making expensive calls for data that rarely changes.
- * We could use Quarkus @CacheResult, but we want it to have a time-to-live.
- *
- * The cache is not thread-safe. When multiple threads cache the same key
- * the result is uncertain. However, as the cache is intended for values
- * that are resolved from the same key, all threads should be attempting
- * to cache the same value.
+ * A cache to avoid making expensive calls for data that rarely changes. We could
+ * use Quarkus @CacheResult, but we want it to have a time-to-live.
+ * <p>
+ * The cache is thread-safe, and only one load of a given key will be in progress
+ * at any time; concurrent callers for the same key will wait for, and share, the
+ * result of that load. So, when a popular entry expires, the resolver is called
+ * once, rather than by every caller.
+ * <p>
+ * Created with the constructors, the cache is unbounded. Created with the
+ * {@link #builder(Duration)} the cache may also be given:
+ * <ul>
+ *     <li>a maximum size; beyond which the least-recently (or least-frequently) used
+ *     entries are evicted.</li>
+ *     <li>a refresh-ahead period; an entry read within this period of its expiry will
+ *     be reloaded in the background, whilst the caller is given the current value.</li>
+ *     <li>a name under which hit, miss, load-time and eviction metrics are recorded.</li>
+ * </ul>
+ * Eviction scans the cached entries, so the cache is intended for moderate sizes.
  */
+@Slf4j
 public class Cache<K,T> {
+    /**
+     * The policy by which entries are chosen for eviction, when the cache exceeds
+     * its maximum size.
+     */
+    public enum EvictionPolicy {
+        /**
+         * Evict the least-recently used entries.
+         */
+        LRU(Comparator.comparingLong(entry -> entry.lastAccess)),
+
+        /**
+         * Evict the least-frequently used entries; those used equally often are
+         * evicted in least-recently used order.
+         */
+        LFU(Comparator.<Entry<?,?>>comparingLong(entry -> entry.hits.get())
+            .thenComparingLong(entry -> entry.lastAccess));
+
+        private final Comparator<Entry<?,?>> order;
+
+        EvictionPolicy(Comparator<Entry<?,?>> order) {
+            this.order = order;
+        }
+    }
+
+    /**
+     * The executor on which entries are refreshed, when not given one. Resolvers are
+     * generally I/O bound, so virtual threads are used.
+     */
+    private static final ExecutorService DEFAULT_REFRESH_EXECUTOR =
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cache-refresh-", 1L).factory());
+
     /**
      * The lifespan for each cached entry - in milliseconds.
      */
     private final long timeToLive;
 
+    /**
+     * The maximum number of entries. Zero, or less, for an unbounded cache.
+     */
+    private final int maxSize;
+
+    private final EvictionPolicy evictionPolicy;
+
+    /**
+     * The period, before its expiry, in which an entry read will be reloaded in the
+     * background - in milliseconds. Zero, or less, to disable refresh-ahead.
+     */
+    private final long refreshAhead;
+
+    private final Executor refreshExecutor;
+
+    private final Clock clock;
+
+    private final CacheMetrics metrics;
+
     /**
      * The cache of entries.
      */
-    private final HashMap<K, Entry<T>> values = new HashMap<>();
+    private final ConcurrentMap<K, Entry<K,T>> values = new ConcurrentHashMap<>();
+
+    /**
+     * The loads in progress; allowing concurrent callers to share the result.
+     */
+    private final ConcurrentMap<K, CompletableFuture<T>> loads = new ConcurrentHashMap<>();
+
+    private final Object evictionLock = new Object();
+
+    /**
+     * The time at which expired entries are next to be purged.
+     */
+    private final AtomicLong nextPurge = new AtomicLong();
 
     /**
      * Creates a new cache whose entries will expire the given number of
@@ -31,7 +111,7 @@ public class Cache<K,T> {
      * @param timeToLive the milliseconds before cached items expire.
      */
     public Cache(long timeToLive) {
-        this.timeToLive = timeToLive;
+        this(builder(Duration.ofMillis(timeToLive)));
     }
 
     /**
@@ -41,7 +121,29 @@ public class Cache<K,T> {
      * @param timeToLive the duration after which cached items will expire.
      */
     public Cache(Duration timeToLive) {
-        this(timeToLive.toMillis());
+        this(builder(timeToLive));
+    }
+
+    private Cache(Builder builder) {
+        this.timeToLive = builder.timeToLive.toMillis();
+        this.maxSize = builder.maxSize;
+        this.evictionPolicy = builder.evictionPolicy;
+        this.refreshAhead = builder.refreshAhead.toMillis();
+        this.refreshExecutor = builder.refreshExecutor;
+        this.clock = builder.clock;
+        this.metrics = (builder.name == null)
+            ? CacheMetrics.NONE
+            : CacheMetrics.forCache(builder.name, builder.meterRegistry, values::size);
+    }
+
+    /**
+     * Returns a builder for a cache whose entries will expire after the given
+     * duration of being cached.
+     *
+     * @param timeToLive the duration after which cached items will expire.
+     */
+    public static Builder builder(Duration timeToLive) {
+        return new Builder(timeToLive);
     }
 
     /**
@@ -49,6 +151,9 @@ public class Cache<K,T> {
      * will be called, and it's value cached and returned.
      * If the supplier throws an exception, the cache will not be updated.
      * If the supplier returns null, the value will be not be cached.
+     * <p>
+     * If another caller is already loading the value for the same key, this call will
+     * wait for, and return, the result of that load.
      *
      * @param key the key of the cached value.
      * @param resolver the callback to call if the entry is not cached, or has expired.
@@ -56,19 +161,20 @@ public class Cache<K,T> {
      */
     public T getValueOrCall(K key, Function<K,T> resolver) {
         // if an entry exists and is not expired, return it
-        Entry<T> entry = values.get(key);
-        if ((entry != null) && (!entry.isExpired())) {
+        long now = clock.millis();
+        Entry<K,T> entry = values.get(key);
+        if ((entry != null) && (!entry.isExpired(now))) {
+            entry.accessed(now);
+            metrics.hit();
+
+            if ((refreshAhead > 0) && (entry.expires - now <= refreshAhead)) {
+                refresh(key, resolver);
+            }
             return entry.value;
         }
 
-        // otherwise, call the resolver to get the value
-        T value = resolver.apply(key);
-
-        // if the resolver returned a value, cache it
-        if (value != null) {
-            values.put(key, new Entry<>(value, timeToLive));
-        }
-        return value;
+        metrics.miss();
+        return load(key, resolver);
     }
 
     /**
@@ -79,25 +185,272 @@ public class Cache<K,T> {
      * @return the removed entry, or null.
      */
     public T remove(K key) {
-        Entry<T> entry = values.remove(key);
+        Entry<K,T> entry = values.remove(key);
         return entry == null ? null : entry.value;
     }
 
-    private static class Entry<T> {
-        private final long expires;
+    /**
+     * Removes all cached entries.
+     */
+    public void clear() {
+        values.clear();
+    }
+
+    /**
+     * Returns the number of cached entries; including any that have expired but are
+     * yet to be evicted.
+     */
+    public int size() {
+        return values.size();
+    }
+
+    /**
+     * Loads the value for the given key; or, if another caller is already loading
+     * that key, waits for the result of that load.
+     */
+    private T load(K key, Function<K,T> resolver) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> inFlight = loads.putIfAbsent(key, future);
+        if (inFlight != null) {
+            return await(inFlight);
+        }
+
+        try {
+            // another caller may have completed a load since we last looked
+            Entry<K,T> entry = values.get(key);
+            T value = ((entry != null) && (!entry.isExpired(clock.millis())))
+                ? entry.value
+                : resolve(key, resolver);
+            future.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(key, future);
+        }
+    }
+
+    /**
+     * Reloads the value for the given key in the background; unless a load of that
+     * key is already in progress. Should the reload fail, the current entry remains
+     * until its expiry.
+     */
+    private void refresh(K key, Function<K,T> resolver) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        if (loads.putIfAbsent(key, future) != null) {
+            return;
+        }
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    future.complete(resolve(key, resolver));
+                } catch (RuntimeException | Error e) {
+                    log.warn("Failed to refresh cache entry [key: {}]", key, e);
+                    future.completeExceptionally(e);
+                } finally {
+                    loads.remove(key, future);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            loads.remove(key, future);
+            future.cancel(false);
+        }
+    }
+
+    /**
+     * Calls the resolver for the given key and, if it returns a value, caches it.
+     */
+    private T resolve(K key, Function<K,T> resolver) {
+        long start = System.nanoTime();
+        T value = resolver.apply(key);
+        metrics.loaded(System.nanoTime() - start);
+
+        // if the resolver returned a value, cache it
+        if (value != null) {
+            Entry<K,T> entry = new Entry<>(key, value, clock.millis(), timeToLive);
+            values.put(key, entry);
+            if ((maxSize > 0) && (values.size() > maxSize)) {
+                evict(entry);
+            } else {
+                purgeExpired();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Waits for the given load to complete, and returns its result. Any exception
+     * raised by the load's resolver is re-thrown.
+     */
+    private T await(CompletableFuture<T> load) {
+        try {
+            return load.join();
+        } catch (CompletionException | CancellationException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Removes any expired entries; at most once in each time-to-live period. Without
+     * this, entries that are not read again would never be removed.
+     */
+    private void purgeExpired() {
+        long now = clock.millis();
+        long next = nextPurge.get();
+        if ((now >= next) && (nextPurge.compareAndSet(next, now + timeToLive))) {
+            values.values().removeIf(entry -> {
+                if (entry.isExpired(now)) {
+                    metrics.evicted();
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    /**
+     * Removes any expired entries and, if the cache still exceeds its maximum size,
+     * those entries chosen by the eviction policy. The entry just added is never
+     * chosen; otherwise, under LFU, it would always be the first evicted.
+     *
+     * @param added the entry just added to the cache.
+     */
+    private void evict(Entry<K,T> added) {
+        synchronized (evictionLock) {
+            int excess = values.size() - maxSize;
+            if (excess <= 0) {
+                return;
+            }
+
+            long now = clock.millis();
+            values.values().stream()
+                .filter(entry -> entry != added)
+                .sorted(Comparator.<Entry<K,T>, Boolean>comparing(entry -> !entry.isExpired(now))
+                    .thenComparing(evictionPolicy.order))
+                .limit(excess)
+                .toList()
+                .forEach(entry -> {
+                    if (values.remove(entry.key, entry)) {
+                        metrics.evicted();
+                    }
+                });
+        }
+    }
+
+    private static class Entry<K,T> {
+        private final K key;
         private final T value;
+        private final long expires;
+        private final AtomicLong hits = new AtomicLong();
+        private volatile long lastAccess;
 
-        Entry(T value, long timeToLive) {
-            expires = System.currentTimeMillis() + timeToLive;
+        Entry(K key, T value, long now, long timeToLive) {
+            this.key = key;
             this.value = value;
+            this.expires = now + timeToLive;
+            this.lastAccess = now;
         }
 
-        public boolean isExpired() {
-            return (expires <= System.currentTimeMillis());
+        public boolean isExpired(long now) {
+            return (expires <= now);
         }
 
-        public T getValue() {
-            return value;
+        public void accessed(long now) {
+            lastAccess = now;
+            hits.incrementAndGet();
+        }
+    }
+
+    /**
+     * A builder for caches with a maximum size, refresh-ahead and/or metrics.
+     */
+    public static class Builder {
+        private final Duration timeToLive;
+        private int maxSize = 0;
+        private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+        private Duration refreshAhead = Duration.ZERO;
+        private Executor refreshExecutor = DEFAULT_REFRESH_EXECUTOR;
+        private Clock clock = Clock.systemUTC();
+        private String name;
+        private MeterRegistry meterRegistry;
+
+        private Builder(Duration timeToLive) {
+            this.timeToLive = timeToLive;
+        }
+
+        /**
+         * The maximum number of entries to be cached. Zero, the default, for an
+         * unbounded cache.
+         */
+        public Builder maxSize(int maxSize) {
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * The policy by which entries are evicted when the cache exceeds its maximum
+         * size. The default is LRU.
+         */
+        public Builder evictionPolicy(EvictionPolicy evictionPolicy) {
+            this.evictionPolicy = evictionPolicy;
+            return this;
+        }
+
+        /**
+         * The period, before its expiry, in which an entry that is read will be
+         * reloaded in the background. Zero, the default, to disable refresh-ahead.
+         */
+        public Builder refreshAhead(Duration refreshAhead) {
+            this.refreshAhead = refreshAhead;
+            return this;
+        }
+
+        /**
+         * The executor on which entries are refreshed. The default uses virtual threads.
+         */
+        public Builder refreshExecutor(Executor refreshExecutor) {
+            this.refreshExecutor = refreshExecutor;
+            return this;
+        }
+
+        /**
+         * The clock by which entry expiry is determined.
+         */
+        public Builder clock(Clock clock) {
+            this.clock = clock;
+            return this;
+        }
+
+        /**
+         * The name by which the cache's metrics are tagged. The metrics are registered
+         * with the Micrometer global registry. If no name is given, no metrics are
+         * recorded.
+         */
+        public Builder metrics(String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * The name by which the cache's metrics are tagged, and the Micrometer
+         * MeterRegistry with which they are registered.
+         */
+        public Builder metrics(String name, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.meterRegistry = meterRegistry;
+            return this;
+        }
+
+        public <K,T> Cache<K,T> build() {
+            return new Cache<>(this);
         }
     }
 }
@@ -0,0 +1,80 @@
+package com.hillayes.commons.caching;
+
+import io.micrometer.core.instrument.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Records the hits, misses, load-times and evictions of a named {@link Cache}. All
+ * meters are tagged with the cache's name.
+ */
+class CacheMetrics {
+    /**
+     * Records nothing; used by caches that have no name.
+     */
+    static final CacheMetrics NONE = new CacheMetrics(null, null, null, null);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Timer loads;
+    private final Counter evictions;
+
+    private CacheMetrics(Counter hits, Counter misses, Timer loads, Counter evictions) {
+        this.hits = hits;
+        this.misses = misses;
+        this.loads = loads;
+        this.evictions = evictions;
+    }
+
+    /**
+     * Creates the metrics for the named cache.
+     *
+     * @param name the name by which the cache's meters are tagged.
+     * @param registry the registry with which the meters are registered. If null, the
+     *     global registry is used.
+     * @param size supplies the current number of cached entries.
+     */
+    static CacheMetrics forCache(String name, MeterRegistry registry, Supplier<Number> size) {
+        MeterRegistry meterRegistry = (registry == null) ? Metrics.globalRegistry : registry;
+        Gauge.builder("cache.size", size)
+            .tag("cache", name)
+            .description("The number of entries in the cache")
+            .register(meterRegistry);
+
+        return new CacheMetrics(
+            Counter.builder("cache.gets")
+                .tags("cache", name, "result", "hit")
+                .description("The number of times cache lookup methods have returned a cached value")
+                .register(meterRegistry),
+            Counter.builder("cache.gets")
+                .tags("cache", name, "result", "miss")
+                .description("The number of times cache lookup methods have not returned a cached value")
+                .register(meterRegistry),
+            Timer.builder("cache.loads")
+                .tag("cache", name)
+                .description("The time taken to load new values into the cache")
+                .register(meterRegistry),
+            Counter.builder("cache.evictions")
+                .tag("cache", name)
+                .description("The number of entries evicted from the cache")
+                .register(meterRegistry)
+        );
+    }
+
+    void hit() {
+        if (hits != null) hits.increment();
+    }
+
+    void miss() {
+        if (misses != null) misses.increment();
+    }
+
+    void loaded(long nanos) {
+        if (loads != null) loads.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void evicted() {
+        if (evictions != null) evictions.increment();
+    }
+}
@@ -4,6 +4,9 @@ import org.jboss.logmanager.MDC;
 
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
@@ -117,4 +120,45 @@ public class Correlation {
             setCorrelationId(prevId);
         }
     }
+
+    /**
+     * Captures the correlation ID, and other logging context, of the calling thread
+     * so that it may be applied to another thread.
+     */
+    public static CorrelationContext capture() {
+        return CorrelationContext.capture();
+    }
+
+    /**
+     * Wraps the given ExecutorService so that each task runs with the correlation ID,
+     * and other logging context, of the thread that submitted it. If the given service
+     * is a ScheduledExecutorService, so too is the result.
+     *
+     * @param aExecutorService the ExecutorService to be wrapped.
+     * @return the context propagating ExecutorService.
+     */
+    public static ExecutorService propagate(ExecutorService aExecutorService) {
+        if (aExecutorService instanceof ContextPropagatingExecutorService) {
+            return aExecutorService;
+        }
+        if (aExecutorService instanceof ScheduledExecutorService scheduled) {
+            return new ContextPropagatingExecutorService.Scheduled(scheduled);
+        }
+        return new ContextPropagatingExecutorService(aExecutorService);
+    }
+
+    /**
+     * Wraps the given Executor so that each task runs with the correlation ID, and
+     * other logging context, of the thread that submitted it. Intended for use with
+     * the async methods of CompletableFuture.
+     *
+     * @param aExecutor the Executor to be wrapped.
+     * @return the context propagating Executor.
+     */
+    public static Executor propagate(Executor aExecutor) {
+        if (aExecutor instanceof ExecutorService executorService) {
+            return propagate(executorService);
+        }
+        return command -> aExecutor.execute(capture().wrap(command));
+    }
 }
@@ -0,0 +1,125 @@
+package com.hillayes.commons.correlation;
+
+import org.jboss.logmanager.MDC;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * An immutable snapshot of the logging context (MDC), including the correlation ID,
+ * of the thread on which it was captured. The snapshot can be applied to other threads
+ * for the duration of a call, so that work handed across an async boundary (an executor,
+ * a CompletableFuture, a parallel stream) can be traced to the request that initiated it.
+ *
+ * Each call restores the thread's previous context when complete, so pooled threads do
+ * not carry the context of one task into the next.
+ */
+public final class CorrelationContext {
+    private static final CorrelationContext EMPTY = new CorrelationContext(Map.of());
+
+    private final Map<String, String> values;
+
+    private CorrelationContext(Map<String, String> values) {
+        this.values = values;
+    }
+
+    /**
+     * Captures the logging context of the calling thread.
+     */
+    public static CorrelationContext capture() {
+        return MDC.isEmpty() ? EMPTY : new CorrelationContext(Map.copyOf(MDC.copy()));
+    }
+
+    /**
+     * Returns the correlation ID held in this context. The result may be empty.
+     */
+    public Optional<String> getCorrelationId() {
+        return Optional.ofNullable(values.get(Correlation.CORRELATION_KEY));
+    }
+
+    public boolean isEmpty() {
+        return values.isEmpty();
+    }
+
+    /**
+     * Calls the given Runnable with this context applied to the calling thread.
+     *
+     * @param aRunnable the function to be called.
+     */
+    public void run(Runnable aRunnable) {
+        Map<String, String> previous = apply();
+        try {
+            aRunnable.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Calls the given Callable with this context applied to the calling thread.
+     *
+     * @param aCallable the function to be called.
+     * @param <T> the function's return type.
+     * @return the function's return value.
+     * @throws Exception if the function throws an exception.
+     */
+    public <T> T call(Callable<T> aCallable) throws Exception {
+        Map<String, String> previous = apply();
+        try {
+            return aCallable.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    /**
+     * Returns a Runnable that will call the given Runnable with this context applied.
+     */
+    public Runnable wrap(Runnable aRunnable) {
+        return () -> run(aRunnable);
+    }
+
+    /**
+     * Returns a Callable that will call the given Callable with this context applied.
+     */
+    public <T> Callable<T> wrap(Callable<T> aCallable) {
+        return () -> call(aCallable);
+    }
+
+    /**
+     * Returns a Function that will call the given Function with this context applied.
+     * Useful when mapping the elements of a parallel stream.
+     */
+    public <T, R> Function<T, R> wrap(Function<T, R> aFunction) {
+        return arg -> {
+            Map<String, String> previous = apply();
+            try {
+                return aFunction.apply(arg);
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    /**
+     * Applies this context to the calling thread, returning the thread's previous
+     * context; or null if the thread's context was empty.
+     */
+    private Map<String, String> apply() {
+        Map<String, String> previous = MDC.isEmpty() ? null : MDC.copy();
+        if (previous != null) {
+            MDC.clear();
+        }
+        values.forEach(MDC::put);
+        return previous;
+    }
+
+    private void restore(Map<String, String> previous) {
+        MDC.clear();
+        if (previous != null) {
+            previous.forEach(MDC::put);
+        }
+    }
+}
@@ -0,0 +1,405 @@
+package com.hillayes.commons.jdbc;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.util.PGobject;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.sql.*;
+import java.util.*;
+
+/**
+ * Writes collections of entities to a table in bulk, using the column mappings of a
+ * {@link SqlEntityMapper}. Two strategies are offered:
+ * <ul>
+ *     <li>{@link #insert(Connection, Collection)} - a multi-row INSERT statement per chunk.</li>
+ *     <li>{@link #copy(Connection, Collection)} - the PostgreSQL COPY protocol, which is
+ *     the fastest means of loading large volumes. When a conflict policy other than FAIL
+ *     is given, the rows are copied to a temporary staging table and then merged into
+ *     the target table.</li>
+ * </ul>
+ *
+ * The writer neither opens nor commits transactions; the caller determines whether
+ * each chunk is committed individually (auto-commit) or the whole as one.
+ *
+ * Instances are immutable and may be shared between threads, although each call
+ * must be given its own Connection.
+ *
+ * @param <T> the type of entity to be written.
+ */
+@Slf4j
+public class BulkWriter<T> {
+    /**
+     * Determines how rows that conflict with a unique constraint are treated.
+     */
+    public enum ConflictPolicy {
+        /**
+         * The write fails with a constraint violation.
+         */
+        FAIL,
+        /**
+         * The conflicting rows are skipped; leaving the existing rows unchanged.
+         */
+        IGNORE,
+        /**
+         * The existing rows are updated with the values of the conflicting rows.
+         * Requires the conflict columns to be given.
+         */
+        UPDATE
+    }
+
+    /**
+     * The max number of bind parameters permitted in a single PostgreSQL statement.
+     */
+    public static final int MAX_PARAMETERS = 65535;
+
+    private final String tableName;
+    private final SqlEntityMapper<T> mapper;
+    private final int chunkSize;
+    private final ConflictPolicy conflictPolicy;
+    private final List<String> conflictColumns;
+    private final List<String> updateColumns;
+
+    private BulkWriter(Builder<T> builder) {
+        this.tableName = builder.tableName;
+        this.mapper = builder.mapper;
+        this.conflictPolicy = builder.conflictPolicy;
+        this.conflictColumns = List.copyOf(builder.conflictColumns);
+
+        // a single statement cannot exceed the max number of bind parameters
+        this.chunkSize = Math.max(1, Math.min(builder.chunkSize, MAX_PARAMETERS / mapper.colMappings.size()));
+
+        // by default, update all columns other than those that identify the conflict
+        this.updateColumns = (builder.updateColumns != null)
+            ? List.copyOf(builder.updateColumns)
+            : mapper.colMappings.keySet().stream()
+                .filter(col -> !conflictColumns.contains(col))
+                .toList();
+
+        if ((conflictPolicy == ConflictPolicy.UPDATE) && (conflictColumns.isEmpty())) {
+            throw new IllegalArgumentException("Conflict columns are required for an UPDATE conflict policy");
+        }
+    }
+
+    /**
+     * Creates a builder to write to the named table, using the given column mappings.
+     *
+     * @param tableName the (schema qualified) name of the table to be written.
+     * @param mapper the mapper of entity properties to table columns.
+     */
+    public static <T> Builder<T> builder(String tableName, SqlEntityMapper<T> mapper) {
+        return new Builder<>(tableName, mapper);
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Writes the given entities using a multi-row INSERT statement for each chunk.
+     *
+     * When the conflict policy is UPDATE, the entities of a single chunk must not
+     * conflict with each other; PostgreSQL cannot update the same row twice in one
+     * statement.
+     *
+     * @param connection the connection on which the rows are to be written.
+     * @param entities the entities to be written.
+     * @return the number of rows inserted or updated.
+     */
+    public int insert(Connection connection, Collection<T> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+
+        int result = 0;
+        String sql = null;
+        int sqlRows = -1;
+        for (List<T> chunk : chunks(entities)) {
+            // the final chunk may require a shorter statement
+            if (chunk.size() != sqlRows) {
+                sqlRows = chunk.size();
+                sql = insertSql(sqlRows);
+            }
+
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                int index = 0;
+                for (T entity : chunk) {
+                    mapper.map(statement, index++, entity);
+                }
+                result += statement.executeUpdate();
+            } catch (SQLException e) {
+                throw new JdbcException("Bulk insert failed [table: " + tableName + "]", e);
+            }
+        }
+
+        log.debug("Bulk inserted rows [table: {}, size: {}, written: {}]", tableName, entities.size(), result);
+        return result;
+    }
+
+    /**
+     * Writes the given entities using the PostgreSQL COPY protocol. If the connection
+     * is not a PostgreSQL connection, the entities are written by {@link #insert(Connection,
+     * Collection)}.
+     *
+     * @param connection the connection on which the rows are to be written.
+     * @param entities the entities to be written.
+     * @return the number of rows inserted or updated.
+     */
+    public long copy(Connection connection, Collection<T> entities) {
+        if (entities.isEmpty()) {
+            return 0;
+        }
+
+        try {
+            if (!connection.isWrapperFor(PGConnection.class)) {
+                log.debug("COPY not supported - using INSERT [table: {}]", tableName);
+                return insert(connection, entities);
+            }
+
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            long result = (conflictPolicy == ConflictPolicy.FAIL)
+                ? copyIn(copyManager, tableName, entities)
+                : copyViaStage(connection, copyManager, entities);
+
+            log.debug("Bulk copied rows [table: {}, size: {}, written: {}]", tableName, entities.size(), result);
+            return result;
+        } catch (SQLException | IOException e) {
+            throw new JdbcException("Bulk copy failed [table: " + tableName + "]", e);
+        }
+    }
+
+    /**
+     * Copies the rows to a temporary table, from which they are merged into the
+     * target table in accordance with the conflict policy. Each call is given its
+     * own staging table, so that calls on the same connection (or in the same
+     * transaction) cannot collide.
+     */
+    private long copyViaStage(Connection connection, CopyManager copyManager,
+                              Collection<T> entities) throws SQLException, IOException {
+        String stageName = stageName();
+        boolean autoCommit = connection.getAutoCommit();
+        try (Statement statement = connection.createStatement()) {
+            // within a transaction, the stage is dropped on commit or rollback
+            statement.execute("CREATE TEMPORARY TABLE " + stageName
+                + " (LIKE " + tableName + " INCLUDING DEFAULTS)"
+                + (autoCommit ? "" : " ON COMMIT DROP"));
+            boolean merged = false;
+            try {
+                copyIn(copyManager, stageName, entities);
+                int result = statement.executeUpdate(mergeSql(stageName));
+                merged = true;
+                return result;
+            } finally {
+                // a failed transaction will accept no further statements
+                if ((merged) || (autoCommit)) {
+                    statement.execute("DROP TABLE IF EXISTS " + stageName);
+                }
+            }
+        }
+    }
+
+    private long copyIn(CopyManager copyManager, String table,
+                        Collection<T> entities) throws SQLException, IOException {
+        String sql = "COPY " + table + " " + mapper.colNames + " FROM STDIN WITH (FORMAT csv)";
+
+        long result = 0;
+        CsvRow row = new CsvRow(mapper.colMappings.size());
+        for (List<T> chunk : chunks(entities)) {
+            StringBuilder csv = new StringBuilder(chunk.size() * row.size() * 16);
+            for (T entity : chunk) {
+                row.append(csv, entity);
+            }
+            result += copyManager.copyIn(sql, new StringReader(csv.toString()));
+        }
+        return result;
+    }
+
+    /**
+     * Returns the multi-row INSERT statement for the given number of rows.
+     */
+    String insertSql(int rows) {
+        StringBuilder result = new StringBuilder("INSERT INTO ").append(tableName).append(' ')
+            .append(mapper.colNames)
+            .append(" VALUES ");
+
+        // add col place-holders for each row to be inserted
+        for (int i = 0; i < rows; i++) {
+            if (i > 0) result.append(',');
+            result.append(mapper.colPlaceholders);
+        }
+
+        return result.append(conflictClause()).toString();
+    }
+
+    /**
+     * Returns the statement to merge the rows of the given staging table into the
+     * target table.
+     */
+    String mergeSql(String stageName) {
+        String columns = mapper.colNames.substring(1, mapper.colNames.length() - 1);
+        return "INSERT INTO " + tableName + " " + mapper.colNames
+            + " SELECT " + columns + " FROM " + stageName
+            + conflictClause();
+    }
+
+    /**
+     * Returns the ON CONFLICT clause appropriate to the conflict policy.
+     */
+    String conflictClause() {
+        String target = conflictColumns.isEmpty() ? "" : " (" + String.join(",", conflictColumns) + ")";
+        return switch (conflictPolicy) {
+            case FAIL -> "";
+            case IGNORE -> " ON CONFLICT" + target + " DO NOTHING";
+            case UPDATE -> updateColumns.isEmpty()
+                ? " ON CONFLICT" + target + " DO NOTHING"
+                : " ON CONFLICT" + target + " DO UPDATE SET " + String.join(",", updateColumns.stream()
+                    .map(col -> col + " = EXCLUDED." + col)
+                    .toList());
+        };
+    }
+
+    /**
+     * Returns a unique name for a staging table. The table name is truncated so that
+     * the result remains within PostgreSQL's 63 character limit on identifiers.
+     */
+    private String stageName() {
+        int dot = tableName.lastIndexOf('.');
+        String table = tableName.substring(dot + 1);
+        return "bulk_" + table.substring(0, Math.min(table.length(), 24))
+            + "_" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    /**
+     * Splits the given collection into lists of no more than the chunk size.
+     */
+    private List<List<T>> chunks(Collection<T> entities) {
+        List<List<T>> result = new ArrayList<>((entities.size() / chunkSize) + 1);
+        List<T> chunk = new ArrayList<>(Math.min(chunkSize, entities.size()));
+        for (T entity : entities) {
+            chunk.add(entity);
+            if (chunk.size() == chunkSize) {
+                result.add(chunk);
+                chunk = new ArrayList<>(chunkSize);
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.add(chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Renders entities as CSV rows, for the COPY protocol. The column values are
+     * captured by passing a recording PreparedStatement to the entity mapper, so
+     * that the same column mappings serve both INSERT and COPY.
+     */
+    private class CsvRow {
+        private final Object[] values;
+        private final PreparedStatement recorder;
+
+        CsvRow(int size) {
+            this.values = new Object[size];
+            this.recorder = (PreparedStatement) Proxy.newProxyInstance(
+                PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{ PreparedStatement.class },
+                (proxy, method, args) -> {
+                    if ((method.getName().startsWith("set")) && (args != null) && (args.length >= 2)
+                        && (args[0] instanceof Integer index)) {
+                        values[index - 1] = method.getName().equals("setNull") ? null : args[1];
+                        return null;
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        }
+
+        int size() {
+            return values.length;
+        }
+
+        void append(StringBuilder csv, T entity) {
+            Arrays.fill(values, null);
+            mapper.map(recorder, 0, entity);
+
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) csv.append(',');
+
+                // an unquoted empty value denotes a NULL
+                String value = format(values[i]);
+                if (value != null) {
+                    csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+                }
+            }
+            csv.append('\n');
+        }
+
+        private String format(Object value) {
+            return switch (value) {
+                case null -> null;
+                case Timestamp t -> t.toInstant().toString();
+                case BigDecimal d -> d.toPlainString();
+                case PGobject o -> o.getValue();
+                default -> value.toString();
+            };
+        }
+    }
+
+    public static class Builder<T> {
+        private final String tableName;
+        private final SqlEntityMapper<T> mapper;
+        private int chunkSize = 500;
+        private ConflictPolicy conflictPolicy = ConflictPolicy.FAIL;
+        private List<String> conflictColumns = List.of();
+        private List<String> updateColumns = null;
+
+        private Builder(String tableName, SqlEntityMapper<T> mapper) {
+            this.tableName = tableName;
+            this.mapper = mapper;
+        }
+
+        /**
+         * The max number of rows written by each statement. Default 500. This will
+         * be reduced if the statement would exceed the max number of bind parameters.
+         */
+        public Builder<T> chunkSize(int value) {
+            if (value < 1) {
+                throw new IllegalArgumentException("chunkSize must be greater than zero");
+            }
+            this.chunkSize = value;
+            return this;
+        }
+
+        /**
+         * How rows that conflict with a unique constraint are treated. Default FAIL.
+         */
+        public Builder<T> conflictPolicy(ConflictPolicy value) {
+            this.conflictPolicy = value;
+            return this;
+        }
+
+        /**
+         * The columns of the unique constraint on which conflicts are detected.
+         * Optional for the IGNORE policy; required for UPDATE.
+         */
+        public Builder<T> conflictColumns(String... value) {
+            this.conflictColumns = List.of(value);
+            return this;
+        }
+
+        /**
+         * The columns to be updated under the UPDATE policy. Default all mapped
+         * columns other than the conflict columns.
+         */
+        public Builder<T> updateColumns(String... value) {
+            this.updateColumns = List.of(value);
+            return this;
+        }
+
+        public BulkWriter<T> build() {
+            return new BulkWriter<>(this);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.hillayes.commons.jdbc;
+
+/**
+ * An unchecked exception to wrap the SQLExceptions raised during native JDBC
+ * operations.
+ */
+public class JdbcException extends RuntimeException {
+    public JdbcException(Throwable cause) {
+        super(cause);
+    }
+
+    public JdbcException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
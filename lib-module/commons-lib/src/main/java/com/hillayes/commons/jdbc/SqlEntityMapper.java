@@ -1,6 +1,5 @@
-package com.hillayes.shares.repository;
+package com.hillayes.commons.jdbc;
 
-import com.hillayes.shares.errors.DatabaseException;
 import org.postgresql.util.PGobject;
 
 import java.math.BigDecimal;
@@ -13,6 +12,13 @@ import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Maps the properties of an entity to the columns of a native SQL statement. Used
+ * where entities are to be written in bulk, bypassing the overhead of the JPA
+ * entity manager. See {@link BulkWriter}.
+ *
+ * @param <T> the type of entity to be mapped.
+ */
 public abstract class SqlEntityMapper<T> {
     /**
      * Returns the ordered map of ColMappers keyed by the name of the column on
@@ -83,7 +89,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, java.sql.Types.VARCHAR);
             else statement.setString(index, value);
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -92,7 +98,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, Types.BIGINT);
             else statement.setLong(index, value);
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -101,7 +107,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, java.sql.Types.DECIMAL);
             else statement.setBigDecimal(index, value);
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -110,7 +116,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, java.sql.Types.OTHER);
             else statement.setObject(index, value);
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -119,7 +125,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, java.sql.Types.DATE);
             else statement.setDate(index, java.sql.Date.valueOf(value));
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -128,7 +134,7 @@ public abstract class SqlEntityMapper<T> {
             if (value == null) statement.setNull(index, java.sql.Types.TIMESTAMP_WITH_TIMEZONE);
             else statement.setTimestamp(index, java.sql.Timestamp.from(value));
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
@@ -139,7 +145,7 @@ public abstract class SqlEntityMapper<T> {
             jsonObject.setValue((value == null) ? "null" : value);
             statement.setObject(index, jsonObject);
         } catch (SQLException e) {
-            throw new DatabaseException(e);
+            throw new JdbcException(e);
         }
     }
 
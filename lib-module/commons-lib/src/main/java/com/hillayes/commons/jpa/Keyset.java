@@ -0,0 +1,224 @@
+package com.hillayes.commons.jpa;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Describes the ordered, unique sort key used to page through the results of a query
+ * by "seeking" past the last row of the previous page, rather than by an OFFSET. For
+ * example; a sort on (bookingDateTime, id) descending.
+ *
+ * The last column of the key must make the key unique (typically the entity's ID), and
+ * the columns should be covered by an index, so that each page costs the same regardless
+ * of how deep into the results it lies.
+ *
+ * The position of a page is passed between requests as an opaque cursor token, created
+ * from the key values of the first or last entity of that page. Key values must not be
+ * null and must be one of the types: String, UUID, Instant, LocalDate, Long, Integer or
+ * BigDecimal.
+ *
+ * @param <T> the type of entity whose key is described.
+ */
+public class Keyset<T> {
+    /**
+     * The cursor token that identifies the last page of results.
+     */
+    public static final String LAST_PAGE = "last";
+
+    private static final String PARAM_PREFIX = "keyset";
+    private static final byte FORWARD = 'N';
+    private static final byte BACKWARD = 'P';
+
+    private final List<Key<T>> keys = new ArrayList<>();
+
+    private Keyset() {
+    }
+
+    /**
+     * Creates a Keyset whose leading column is that given.
+     *
+     * @param column the name of the entity property on which to sort.
+     * @param direction the direction of the sort.
+     * @param extractor a function to retrieve the property's value from an entity.
+     */
+    public static <T> Keyset<T> by(String column, OrderBy.Direction direction,
+                                   Function<T, ?> extractor) {
+        return new Keyset<T>().then(column, direction, extractor);
+    }
+
+    /**
+     * Appends a column to the key. The final column must make the key unique.
+     *
+     * @param column the name of the entity property on which to sort.
+     * @param direction the direction of the sort.
+     * @param extractor a function to retrieve the property's value from an entity.
+     */
+    public Keyset<T> then(String column, OrderBy.Direction direction,
+                          Function<T, ?> extractor) {
+        keys.add(new Key<>(column, direction, extractor));
+        return this;
+    }
+
+    /**
+     * Returns the order in which the query must be sorted. When reading backwards,
+     * the directions are reversed.
+     *
+     * @param backward true if the rows preceding the cursor are to be read.
+     */
+    OrderBy toOrderBy(boolean backward) {
+        OrderBy result = null;
+        for (Key<T> key : keys) {
+            OrderBy.Direction direction = backward ? reverse(key.direction()) : key.direction();
+            result = (result == null)
+                ? OrderBy.by(key.column(), direction)
+                : result.and(key.column(), direction);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the predicate that selects the rows following (or, if backward, preceding)
+     * the key values given by {@link #toParameters(List)}. For a key (a DESC, b DESC),
+     * this takes the form "a < :keyset0 OR (a = :keyset0 AND b < :keyset1)".
+     *
+     * @param backward true if the rows preceding the cursor are to be read.
+     */
+    String toPredicate(boolean backward) {
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            StringBuilder term = new StringBuilder();
+            for (int j = 0; j < i; j++) {
+                term.append(keys.get(j).column()).append(" = :").append(PARAM_PREFIX).append(j).append(" AND ");
+            }
+
+            Key<T> key = keys.get(i);
+            boolean ascending = (key.direction() == OrderBy.Direction.Ascending) != backward;
+            term.append(key.column())
+                .append(ascending ? " > :" : " < :")
+                .append(PARAM_PREFIX).append(i);
+            terms.add("(" + term + ")");
+        }
+        return String.join(" OR ", terms);
+    }
+
+    /**
+     * Returns the named query parameters for the given key values.
+     */
+    Map<String, Object> toParameters(List<Object> values) {
+        Map<String, Object> result = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            result.put(PARAM_PREFIX + i, values.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Creates an opaque cursor token that identifies the position of the given entity
+     * within the results.
+     *
+     * @param backward true if the token is to read the rows preceding the entity.
+     * @param entity the entity whose key values are to be encoded.
+     * @return the encoded cursor token.
+     */
+    String encode(boolean backward, T entity) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(backward ? BACKWARD : FORWARD);
+                for (Key<T> key : keys) {
+                    writeValue(out, key.extractor().apply(entity));
+                }
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Decodes the given cursor token. A null or blank token identifies the first page;
+     * the token {@link #LAST_PAGE} identifies the last.
+     *
+     * @param token the token to be decoded.
+     * @return the decoded cursor position.
+     * @throws IllegalArgumentException if the token is not valid for this Keyset.
+     */
+    Cursor decode(String token) {
+        if ((token == null) || (token.isBlank())) {
+            return new Cursor(false, List.of());
+        }
+        if (LAST_PAGE.equals(token)) {
+            return new Cursor(true, List.of());
+        }
+
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Base64.getUrlDecoder().decode(token)))) {
+            byte direction = in.readByte();
+            if ((direction != FORWARD) && (direction != BACKWARD)) {
+                throw new IllegalArgumentException("Invalid cursor token");
+            }
+
+            List<Object> values = new ArrayList<>(keys.size());
+            for (int i = 0; i < keys.size(); i++) {
+                values.add(readValue(in));
+            }
+            if (in.available() > 0) {
+                throw new IllegalArgumentException("Invalid cursor token");
+            }
+            return new Cursor(direction == BACKWARD, values);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor token", e);
+        }
+    }
+
+    private void writeValue(DataOutputStream out, Object value) throws IOException {
+        switch (value) {
+            case String s -> { out.writeByte('S'); out.writeUTF(s); }
+            case UUID u -> { out.writeByte('U'); out.writeLong(u.getMostSignificantBits()); out.writeLong(u.getLeastSignificantBits()); }
+            case Instant i -> { out.writeByte('I'); out.writeLong(i.getEpochSecond()); out.writeInt(i.getNano()); }
+            case LocalDate d -> { out.writeByte('D'); out.writeLong(d.toEpochDay()); }
+            case Long l -> { out.writeByte('L'); out.writeLong(l); }
+            case Integer i -> { out.writeByte('N'); out.writeInt(i); }
+            case BigDecimal b -> { out.writeByte('B'); out.writeUTF(b.toString()); }
+            case null -> throw new IllegalArgumentException("Keyset values must not be null");
+            default -> throw new IllegalArgumentException("Unsupported keyset value type: " + value.getClass().getName());
+        }
+    }
+
+    private Object readValue(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        return switch (type) {
+            case 'S' -> in.readUTF();
+            case 'U' -> new UUID(in.readLong(), in.readLong());
+            case 'I' -> Instant.ofEpochSecond(in.readLong(), in.readInt());
+            case 'D' -> LocalDate.ofEpochDay(in.readLong());
+            case 'L' -> in.readLong();
+            case 'N' -> in.readInt();
+            case 'B' -> new BigDecimal(in.readUTF());
+            default -> throw new IllegalArgumentException("Invalid cursor token");
+        };
+    }
+
+    private static OrderBy.Direction reverse(OrderBy.Direction direction) {
+        return (direction == OrderBy.Direction.Ascending)
+            ? OrderBy.Direction.Descending
+            : OrderBy.Direction.Ascending;
+    }
+
+    private record Key<T>(String column, OrderBy.Direction direction, Function<T, ?> extractor) {}
+
+    /**
+     * A decoded cursor token.
+     *
+     * @param backward true if the rows preceding the key values are to be read.
+     * @param values the key values; empty if the first, or last, page is to be read.
+     */
+    record Cursor(boolean backward, List<Object> values) {
+        boolean isEdge() {
+            return values.isEmpty();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.hillayes.commons.jpa;
+
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * A page of results read by seeking on a {@link Keyset}, rather than by page index.
+ * The adjacent pages are identified by opaque cursor tokens, which are to be passed
+ * back to the repository to retrieve those pages.
+ *
+ * Unlike {@link Page}, the total number of elements is only known if it was requested.
+ *
+ * @param <T> the type of element contained within the Page.
+ */
+public class KeysetPage<T> {
+    private final List<T> content;
+    private final int pageSize;
+    private final String previousCursor;
+    private final String nextCursor;
+    private final Long totalCount;
+
+    /**
+     * Constructs a new KeysetPage.
+     * @param content the page content (a sub-set of the total items).
+     * @param pageSize the max number of elements per page.
+     * @param previousCursor the token to retrieve the previous page, or null if this is the first.
+     * @param nextCursor the token to retrieve the next page, or null if this is the last.
+     * @param totalCount the total number of items in the collection, or null if not known.
+     */
+    public KeysetPage(List<T> content, int pageSize,
+                      String previousCursor, String nextCursor, Long totalCount) {
+        this.content = content == null ? List.of() : content;
+        this.pageSize = pageSize;
+        this.previousCursor = previousCursor;
+        this.nextCursor = nextCursor;
+        this.totalCount = totalCount;
+    }
+
+    /**
+     * Returns the page content as {@link List}.
+     */
+    public List<T> getContent() {
+        return content;
+    }
+
+    /**
+     * Returns the page size of elements in the original request. This may
+     * be greater than the size of the page content.
+     */
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * The number of elements within this page.
+     */
+    public int getContentSize() {
+        return content.size();
+    }
+
+    /**
+     * Determines whether the page contains any elements.
+     */
+    public boolean isEmpty() {
+        return content.isEmpty();
+    }
+
+    /**
+     * Returns the cursor token with which to retrieve the previous page; or null
+     * if this is the first page.
+     */
+    public String getPreviousCursor() {
+        return previousCursor;
+    }
+
+    /**
+     * Returns the cursor token with which to retrieve the next page; or null if
+     * this is the last page.
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasPrevious() {
+        return previousCursor != null;
+    }
+
+    public boolean hasNext() {
+        return nextCursor != null;
+    }
+
+    /**
+     * Returns the number of elements in the collection as a whole, if it was
+     * requested.
+     */
+    public OptionalLong getTotalCount() {
+        return totalCount == null ? OptionalLong.empty() : OptionalLong.of(totalCount);
+    }
+
+    /**
+     * Returns the page's content as a stream.
+     */
+    public Stream<T> stream() {
+        return content.stream();
+    }
+
+    /**
+     * Applies the given action on each element of the page's content.
+     */
+    public void forEach(Consumer<? super T> action) {
+        content.forEach(action);
+    }
+
+    /**
+     * A factory method to create an empty Page.
+     */
+    public static <T> KeysetPage<T> empty(int pageSize) {
+        return new KeysetPage<>(null, pageSize, null, null, 0L);
+    }
+}
@@ -1,13 +1,15 @@
 package com.hillayes.commons.jpa;
 
+import com.hillayes.commons.caching.Cache;
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepositoryBase;
 import io.quarkus.panache.common.Sort;
+import jakarta.persistence.EntityManager;
 import jakarta.persistence.LockModeType;
 
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
+import java.time.Duration;
+import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * Acts as a facade over the Panache Repository implementation to reflect a similar
@@ -17,6 +19,37 @@ import java.util.Optional;
  * @param <Id> the type of the entity's identifier.
  */
 public abstract class RepositoryBase<Entity, Id> implements PanacheRepositoryBase<Entity, Id> {
+    /**
+     * The JPA lock-timeout hint, and the value Hibernate recognises as a request to
+     * skip rows already locked by another transaction (i.e. "FOR UPDATE SKIP LOCKED").
+     */
+    private static final String LOCK_TIMEOUT_HINT = "jakarta.persistence.lock.timeout";
+    private static final int SKIP_LOCKED = -2;
+
+    /**
+     * The Hibernate hints to set the JDBC fetch size of a query, and to load its entities
+     * without the snapshot required for dirty-checking.
+     */
+    private static final String FETCH_SIZE_HINT = "org.hibernate.fetchSize";
+    private static final String READ_ONLY_HINT = "org.hibernate.readOnly";
+
+    /**
+     * The default number of rows fetched from the DB cursor on each round-trip when
+     * streaming query results.
+     */
+    public static final int DEFAULT_FETCH_SIZE = 500;
+
+    /**
+     * The time for which the total count of a keyset paged query is cached, and the
+     * max number of distinct queries for which it is cached.
+     */
+    private static final Duration COUNT_CACHE_TTL = Duration.ofMinutes(1);
+    private static final int COUNT_CACHE_SIZE = 500;
+
+    private final Cache<String, Long> countCache = Cache.builder(COUNT_CACHE_TTL)
+        .maxSize(COUNT_CACHE_SIZE)
+        .build();
+
     public void clearCache() {
         getEntityManager().clear();
     }
@@ -47,6 +80,24 @@ public abstract class RepositoryBase<Entity, Id> implements PanacheRepositoryBas
             .list();
     }
 
+    /**
+     * Locks, and returns, the first records of the given query. Unlike {@link #lock(String, int)},
+     * any records already locked by another transaction will be skipped, rather than waiting
+     * for their release. This allows concurrent callers to claim disjoint sets of records.
+     *
+     * @param query the query to select the records to be locked.
+     * @param count the max number of records to be locked.
+     * @param parameters the query's positional parameters.
+     * @return the locked records.
+     */
+    public List<Entity> lockSkipLocked(String query, int count, Object... parameters) {
+        return find(query, parameters)
+            .withLock(LockModeType.PESSIMISTIC_WRITE)
+            .withHint(LOCK_TIMEOUT_HINT, SKIP_LOCKED)
+            .page(0, count)
+            .list();
+    }
+
     public Entity save(Entity entity) {
         persist(entity);
         return entity;
@@ -88,6 +139,56 @@ public abstract class RepositoryBase<Entity, Id> implements PanacheRepositoryBas
             .list();
     }
 
+    /**
+     * Streams the results of the given query from a DB cursor, rather than loading them
+     * all into a List. The rows are fetched in batches of the given size, and each entity
+     * is detached from the persistence context as it is passed down the stream; so the
+     * full results can be walked in constant memory. As the entities are detached, any
+     * changes made to them will not be persisted, and lazy associations cannot be loaded.
+     *
+     * The stream holds an open DB cursor, and must be closed (e.g. try-with-resources)
+     * within the transaction in which it was opened.
+     *
+     * @param query the query to select the entities to be streamed.
+     * @param orderBy the order in which the entities are to be streamed.
+     * @param fetchSize the number of rows to be fetched on each round-trip.
+     * @param parameters the query's named parameters.
+     * @return the stream of detached entities.
+     */
+    public Stream<Entity> streamDetached(String query, OrderBy orderBy, int fetchSize,
+                                         Map<String, Object> parameters) {
+        return streamDetached(find(query, toSort(orderBy), parameters), fetchSize);
+    }
+
+    /**
+     * Streams the results of the given query from a DB cursor, with the default fetch
+     * size. See {@link #streamDetached(String, OrderBy, int, Map)}.
+     *
+     * @param query the query to select the entities to be streamed.
+     * @param parameters the query's positional parameters.
+     * @return the stream of detached entities.
+     */
+    public Stream<Entity> streamDetached(String query, Object... parameters) {
+        return streamDetached(find(query, parameters), DEFAULT_FETCH_SIZE);
+    }
+
+    /**
+     * Streams the results of the given query from a DB cursor, detaching each entity
+     * as it is passed down the stream.
+     *
+     * @param query the query whose results are to be streamed.
+     * @param fetchSize the number of rows to be fetched on each round-trip.
+     * @return the stream of detached entities.
+     */
+    protected Stream<Entity> streamDetached(PanacheQuery<Entity> query, int fetchSize) {
+        EntityManager entityManager = getEntityManager();
+        return query
+            .withHint(FETCH_SIZE_HINT, fetchSize)
+            .withHint(READ_ONLY_HINT, true)
+            .stream()
+            .peek(entityManager::detach);
+    }
+
     public Page<Entity> pageAll(OrderBy orderBy, int pageIndex, int pageSize) {
         return findByPage(findAll(toSort(orderBy)), pageIndex, pageSize);
     }
@@ -124,6 +225,78 @@ public abstract class RepositoryBase<Entity, Id> implements PanacheRepositoryBas
         return new Page<>(list, count, pageIndex, pageSize);
     }
 
+    /**
+     * Returns the page of results, from the given query, identified by the given cursor
+     * token. Rather than skipping the rows of the preceding pages (as with OFFSET), the
+     * query seeks directly to the cursor position on the given keyset; so each page costs
+     * the same regardless of its position within the results.
+     *
+     * The query must be a "where" clause (not a full JPQL statement) with named parameters.
+     * The order of the results is that of the keyset.
+     *
+     * @param query the "where" clause of the query to retrieve the full results.
+     * @param keyset the unique, ordered key on which the results are to be paged.
+     * @param cursor the token identifying the requested page; null for the first page.
+     * @param pageSize the max number of elements to be returned.
+     * @param withCount true if the total number of results is to be included. The
+     *     count is cached for a short time, so it can be requested on every page.
+     * @param parameters the query's named parameters.
+     * @return the requested page of results.
+     * @throws IllegalArgumentException if the cursor token is not valid.
+     */
+    public KeysetPage<Entity> pageByKeyset(String query, Keyset<Entity> keyset,
+                                           String cursor, int pageSize, boolean withCount,
+                                           Map<String, Object> parameters) {
+        Keyset.Cursor position = keyset.decode(cursor);
+
+        String where = query;
+        Map<String, Object> params = new HashMap<>(parameters);
+        if (!position.isEdge()) {
+            String predicate = keyset.toPredicate(position.backward());
+            where = ((query == null) || (query.isBlank()))
+                ? predicate
+                : "(" + query + ") AND (" + predicate + ")";
+            params.putAll(keyset.toParameters(position.values()));
+        }
+
+        // read one more row than required to determine whether there are more
+        List<Entity> list = find(where, toSort(keyset.toOrderBy(position.backward())), params)
+            .page(0, pageSize + 1)
+            .list();
+
+        boolean more = list.size() > pageSize;
+        List<Entity> content = new ArrayList<>(more ? list.subList(0, pageSize) : list);
+        if (position.backward()) {
+            Collections.reverse(content);
+        }
+
+        String previousCursor = null;
+        String nextCursor = null;
+        if (!content.isEmpty()) {
+            boolean hasPrevious = position.backward() ? more : !position.isEdge();
+            boolean hasNext = position.backward() ? !position.isEdge() : more;
+            if (hasPrevious) {
+                previousCursor = keyset.encode(true, content.getFirst());
+            }
+            if (hasNext) {
+                nextCursor = keyset.encode(false, content.getLast());
+            }
+        }
+
+        Long totalCount = withCount ? countAll(query, parameters) : null;
+        return new KeysetPage<>(content, pageSize, previousCursor, nextCursor, totalCount);
+    }
+
+    /**
+     * Returns the number of rows selected by the given query; caching the result for
+     * a short time.
+     */
+    private long countAll(String query, Map<String, Object> parameters) {
+        String key = query + new TreeMap<>(parameters);
+        return countCache.getValueOrCall(key, k ->
+            ((query == null) || (query.isBlank())) ? count() : count(query, parameters));
+    }
+
     /**
      * Translates the OrderBy to the panache Sort class.
      */
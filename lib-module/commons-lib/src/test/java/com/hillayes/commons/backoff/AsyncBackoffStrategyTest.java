@@ -0,0 +1,299 @@
+package com.hillayes.commons.backoff;
+
+import com.hillayes.commons.correlation.Correlation;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AsyncBackoffStrategyTest {
+    @Test
+    public void testSuccessAfterRetry() throws Exception {
+        // given: a strategy that permits 3 attempts
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(3)
+            .build();
+
+        // and: a task that fails on its first attempt
+        AtomicInteger counter = new AtomicInteger(0);
+
+        // when: the task is executed
+        String result = fixture.execute("test-target", () -> (counter.incrementAndGet() < 2)
+            ? CompletableFuture.<String>failedFuture(new RuntimeException("Mock exception"))
+            : CompletableFuture.completedFuture("success")
+        ).get(5, TimeUnit.SECONDS);
+
+        // then: the result of the retry is returned
+        assertEquals("success", result);
+        assertEquals(2, counter.get());
+
+        // and: the circuit breaker remains closed
+        assertEquals(CircuitBreaker.State.CLOSED, fixture.getCircuitBreaker("test-target").getState());
+    }
+
+    @Test
+    public void testRetryPropagatesCorrelation() throws Exception {
+        // given: a strategy that permits 3 attempts
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(3)
+            .build();
+
+        // and: the caller has a correlation ID
+        Correlation.setCorrelationId("retry-id");
+        try {
+            // when: a blocking task, that fails on its first attempt, is executed
+            AtomicInteger counter = new AtomicInteger(0);
+            List<String> correlationIds = new CopyOnWriteArrayList<>();
+            fixture.supplyAsync("test-target", () -> {
+                correlationIds.add(Correlation.getCorrelationId().orElse("none"));
+                if (counter.incrementAndGet() < 2) {
+                    throw new RuntimeException("Mock exception");
+                }
+                return "success";
+            }).get(5, TimeUnit.SECONDS);
+
+            // then: every attempt ran with the caller's correlation ID
+            assertEquals(List.of("retry-id", "retry-id"), correlationIds);
+        } finally {
+            Correlation.setCorrelationId(null);
+        }
+    }
+
+    @Test
+    public void testDefaultExecutorIsVirtual() throws Exception {
+        // given: a strategy with the default executor
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(3)
+            .build();
+
+        // when: a blocking task, that fails on its first attempt, is executed
+        AtomicInteger counter = new AtomicInteger(0);
+        List<Boolean> virtual = new CopyOnWriteArrayList<>();
+        fixture.supplyAsync("test-target", () -> {
+            virtual.add(Thread.currentThread().isVirtual());
+            if (counter.incrementAndGet() < 2) {
+                throw new RuntimeException("Mock exception");
+            }
+            return "success";
+        }).get(5, TimeUnit.SECONDS);
+
+        // then: every attempt ran on a virtual thread - not in the common ForkJoinPool
+        assertEquals(List.of(true, true), virtual);
+    }
+
+    @Test
+    public void testMaxAttemptsExceeded() {
+        // given: a strategy that permits 3 attempts
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(3)
+            .build();
+
+        // when: a task that always fails is executed
+        AtomicInteger counter = new AtomicInteger(0);
+        CompletableFuture<Object> result = fixture.supplyAsync("test-target", () -> {
+            counter.incrementAndGet();
+            throw new IllegalStateException("Mock exception");
+        });
+
+        // then: the final exception is returned
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+
+        // and: the task was attempted the max number of times
+        assertEquals(3, counter.get());
+    }
+
+    @Test
+    public void testNonRetryableError() {
+        // given: a strategy that only retries IllegalStateException
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(3)
+            .retryOn(e -> e instanceof IllegalStateException)
+            .build();
+
+        // when: a task that fails with another exception is executed
+        AtomicInteger counter = new AtomicInteger(0);
+        CompletableFuture<Object> result = fixture.execute("test-target", () -> {
+            counter.incrementAndGet();
+            throw new IllegalArgumentException("Mock exception");
+        });
+
+        // then: the exception is returned
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+
+        // and: the task was not retried
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testRetryBudgetExhausted() {
+        // given: a strategy with a budget of only one retry
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(5)
+            .retryBudget(new RetryBudget(0, 1))
+            .build();
+
+        // when: a task that always fails is executed
+        AtomicInteger counter = new AtomicInteger(0);
+        CompletableFuture<Object> result = fixture.execute("test-target", () -> {
+            counter.incrementAndGet();
+            return CompletableFuture.failedFuture(new RuntimeException("Mock exception"));
+        });
+
+        // then: the exception is returned
+        assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+
+        // and: the task was retried only once
+        assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testCircuitBreakerOpens() {
+        // given: a strategy whose circuit breakers open after 2 failures
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(10))
+            .maxAttempts(5)
+            .failureThreshold(2)
+            .openDuration(Duration.ofMinutes(5))
+            .build();
+
+        // when: a task that always fails is executed
+        AtomicInteger counter = new AtomicInteger(0);
+        CompletableFuture<Object> result = fixture.execute("failing-target", () -> {
+            counter.incrementAndGet();
+            return CompletableFuture.failedFuture(new RuntimeException("Mock exception"));
+        });
+
+        // then: the retries stop when the breaker opens
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CircuitBreakerOpenException.class, exception.getCause());
+        assertEquals(2, counter.get());
+        assertEquals(CircuitBreaker.State.OPEN, fixture.getCircuitBreaker("failing-target").getState());
+
+        // when: the same target is called again
+        CompletableFuture<Object> rejected = fixture.execute("failing-target", () -> {
+            counter.incrementAndGet();
+            return CompletableFuture.completedFuture("success");
+        });
+
+        // then: the call is rejected without being attempted
+        exception = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CircuitBreakerOpenException.class, exception.getCause());
+        assertEquals(2, counter.get());
+
+        // and: other targets are unaffected
+        assertEquals(CircuitBreaker.State.CLOSED, fixture.getCircuitBreaker("other-target").getState());
+    }
+
+    @Test
+    public void testCancel() throws Exception {
+        // given: a strategy with a long retry interval
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(200))
+            .jitter(0)
+            .maxAttempts(3)
+            .build();
+
+        // and: a task that always fails
+        AtomicInteger counter = new AtomicInteger(0);
+        CompletableFuture<Object> result = fixture.execute("test-target", () -> {
+            counter.incrementAndGet();
+            return CompletableFuture.failedFuture(new RuntimeException("Mock exception"));
+        });
+
+        // when: the caller cancels whilst the retry is pending
+        result.cancel(false);
+        TimeUnit.MILLISECONDS.sleep(400);
+
+        // then: no retry is attempted
+        assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testDelayHoldsNoThread() throws Exception {
+        // given: a single thread on which to run retries
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+                .retryInterval(Duration.ofMillis(200))
+                .jitter(0)
+                .maxAttempts(2)
+                .failureThreshold(Integer.MAX_VALUE)
+                .executor(executor)
+                .build();
+
+            // when: many tasks, that each fail on their first attempt, are executed
+            int taskCount = 500;
+            long start = System.nanoTime();
+            List<CompletableFuture<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < taskCount; i++) {
+                int index = i;
+                AtomicInteger counter = new AtomicInteger(0);
+                results.add(fixture.execute("test-target", () -> (counter.incrementAndGet() < 2)
+                    ? CompletableFuture.failedFuture(new RuntimeException("Mock exception"))
+                    : CompletableFuture.completedFuture(index)));
+            }
+            CompletableFuture.allOf(results.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            // then: the delays were observed concurrently, not one after another
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            assertTrue(elapsed < 2000, "Elapsed " + elapsed + "ms");
+
+            // and: all tasks completed
+            for (int i = 0; i < taskCount; i++) {
+                assertEquals(i, results.get(i).get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testRetryInterval() {
+        // given: a strategy with no jitter
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(100))
+            .retryExponent(2.0)
+            .maxInterval(Duration.ofMillis(500))
+            .jitter(0)
+            .build();
+
+        // then: the interval grows exponentially up to the max
+        assertEquals(100, fixture.getRetryInterval(1));
+        assertEquals(200, fixture.getRetryInterval(2));
+        assertEquals(400, fixture.getRetryInterval(3));
+        assertEquals(500, fixture.getRetryInterval(4));
+    }
+
+    @Test
+    public void testRetryIntervalJitter() {
+        // given: a strategy with jitter
+        AsyncBackoffStrategy fixture = AsyncBackoffStrategy.builder()
+            .retryInterval(Duration.ofMillis(1000))
+            .jitter(0.5)
+            .build();
+
+        // then: the interval is reduced by no more than the jitter
+        for (int i = 0; i < 100; i++) {
+            long interval = fixture.getRetryInterval(1);
+            assertTrue(interval >= 500 && interval <= 1000, "Interval " + interval);
+        }
+    }
+}
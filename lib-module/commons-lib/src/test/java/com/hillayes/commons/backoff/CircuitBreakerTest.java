@@ -0,0 +1,120 @@
+package com.hillayes.commons.backoff;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    @Test
+    public void testOpensAtThreshold() {
+        // given: a breaker that opens after 3 failures
+        CircuitBreaker fixture = new CircuitBreaker("test-target", 3, Duration.ofSeconds(30), clock);
+
+        // when: fewer than 3 failures are recorded
+        fixture.onFailure();
+        fixture.onFailure();
+
+        // then: the breaker remains closed
+        assertEquals(CircuitBreaker.State.CLOSED, fixture.getState());
+        assertTrue(fixture.tryAcquire());
+
+        // when: the threshold is reached
+        fixture.onFailure();
+
+        // then: the breaker opens
+        assertEquals(CircuitBreaker.State.OPEN, fixture.getState());
+        assertFalse(fixture.tryAcquire());
+    }
+
+    @Test
+    public void testSuccessResetsFailures() {
+        // given: a breaker that opens after 2 failures
+        CircuitBreaker fixture = new CircuitBreaker("test-target", 2, Duration.ofSeconds(30), clock);
+
+        // when: the failures are not consecutive
+        fixture.onFailure();
+        fixture.onSuccess();
+        fixture.onFailure();
+
+        // then: the breaker remains closed
+        assertEquals(CircuitBreaker.State.CLOSED, fixture.getState());
+    }
+
+    @Test
+    public void testHalfOpenTrial() {
+        // given: an open breaker
+        CircuitBreaker fixture = new CircuitBreaker("test-target", 1, Duration.ofSeconds(30), clock);
+        fixture.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, fixture.getState());
+
+        // when: the open period elapses
+        clock.advance(Duration.ofSeconds(30));
+
+        // then: the breaker is half-open
+        assertEquals(CircuitBreaker.State.HALF_OPEN, fixture.getState());
+
+        // and: only a single trial call is permitted
+        assertTrue(fixture.tryAcquire());
+        assertFalse(fixture.tryAcquire());
+
+        // when: the trial call succeeds
+        fixture.onSuccess();
+
+        // then: the breaker closes
+        assertEquals(CircuitBreaker.State.CLOSED, fixture.getState());
+        assertTrue(fixture.tryAcquire());
+    }
+
+    @Test
+    public void testHalfOpenTrialFails() {
+        // given: a half-open breaker
+        CircuitBreaker fixture = new CircuitBreaker("test-target", 3, Duration.ofSeconds(30), clock);
+        fixture.onFailure();
+        fixture.onFailure();
+        fixture.onFailure();
+        clock.advance(Duration.ofSeconds(31));
+        assertTrue(fixture.tryAcquire());
+
+        // when: the trial call fails
+        fixture.onFailure();
+
+        // then: the breaker opens again
+        assertEquals(CircuitBreaker.State.OPEN, fixture.getState());
+        assertFalse(fixture.tryAcquire());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
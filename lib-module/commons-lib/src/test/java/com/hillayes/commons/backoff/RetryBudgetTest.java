@@ -0,0 +1,57 @@
+package com.hillayes.commons.backoff;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryBudgetTest {
+    @Test
+    public void testInitialBalance() {
+        // given: a budget with 2 initial retries
+        RetryBudget fixture = new RetryBudget(0.1, 2);
+
+        // then: only 2 retries may be withdrawn
+        assertTrue(fixture.tryWithdraw());
+        assertTrue(fixture.tryWithdraw());
+        assertFalse(fixture.tryWithdraw());
+    }
+
+    @Test
+    public void testDepositsEarnRetries() {
+        // given: a budget that permits 1 retry per 10 calls
+        RetryBudget fixture = new RetryBudget(0.1, 0);
+        assertFalse(fixture.tryWithdraw());
+
+        // when: 10 calls are recorded
+        for (int i = 0; i < 10; i++) {
+            fixture.deposit();
+        }
+
+        // then: a single retry may be withdrawn
+        assertEquals(1, fixture.getAvailable());
+        assertTrue(fixture.tryWithdraw());
+        assertFalse(fixture.tryWithdraw());
+    }
+
+    @Test
+    public void testBalanceIsCapped() {
+        // given: a budget that permits 1 retry per 10 calls
+        RetryBudget fixture = new RetryBudget(0.1, 1);
+
+        // when: many calls are recorded
+        for (int i = 0; i < 10_000; i++) {
+            fixture.deposit();
+        }
+
+        // then: the balance is capped
+        assertEquals(1 + (int) (0.1 * RetryBudget.CAPACITY_CALLS), fixture.getAvailable());
+    }
+
+    @Test
+    public void testUnlimited() {
+        RetryBudget fixture = RetryBudget.unlimited();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(fixture.tryWithdraw());
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package com.hillayes.commons.caching;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Test;
 
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -55,6 +65,252 @@ public class CacheTest {
         verify(supplier).apply(1);
     }
 
+    @Test
+    public void testConcurrentMiss() throws Exception {
+        // given: a resolver that blocks until released
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        Function<Integer, String> resolver = key -> {
+            calls.incrementAndGet();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return "value " + key;
+        };
+
+        // and: many callers request the same uncached key
+        Cache<Integer, String> fixture = new Cache<>(Duration.ofMinutes(10));
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<String>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(executor.submit(() -> fixture.getValueOrCall(1, resolver)));
+        }
+
+        // when: the first load is complete
+        Awaitility.await().until(() -> calls.get() == 1);
+        release.countDown();
+
+        // then: all callers receive the same value
+        for (Future<String> result : results) {
+            assertEquals("value 1", result.get(5, TimeUnit.SECONDS));
+        }
+
+        // and: the resolver was called only once
+        assertEquals(1, calls.get());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testResolverError() {
+        Cache<Integer, String> fixture = new Cache<>(Duration.ofMinutes(10));
+
+        // when: the resolver fails
+        // then: the error is passed to the caller
+        assertThrows(IllegalStateException.class, () -> fixture.getValueOrCall(1, key -> {
+            throw new IllegalStateException("test");
+        }));
+
+        // and: nothing is cached
+        assertEquals(0, fixture.size());
+        assertEquals("value 1", fixture.getValueOrCall(1, key -> "value 1"));
+    }
+
+    @Test
+    public void testNullNotCached() {
+        Cache<Integer, String> fixture = new Cache<>(Duration.ofMinutes(10));
+
+        assertNull(fixture.getValueOrCall(1, key -> null));
+        assertEquals(0, fixture.size());
+    }
+
+    @Test
+    public void testMaxSize_LRU() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofMinutes(10))
+            .maxSize(3)
+            .evictionPolicy(Cache.EvictionPolicy.LRU)
+            .clock(clock)
+            .build();
+
+        // given: a full cache
+        for (int key = 1; key <= 3; key++) {
+            fixture.getValueOrCall(key, k -> "value " + k);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        // and: the first entry is read again
+        fixture.getValueOrCall(1, k -> "value " + k);
+        clock.advance(Duration.ofSeconds(1));
+
+        // when: another entry is cached
+        fixture.getValueOrCall(4, k -> "value " + k);
+
+        // then: the least recently used entry is evicted
+        assertEquals(3, fixture.size());
+        assertNull(fixture.remove(2));
+        assertEquals("value 1", fixture.remove(1));
+        assertEquals("value 3", fixture.remove(3));
+        assertEquals("value 4", fixture.remove(4));
+    }
+
+    @Test
+    public void testMaxSize_LFU() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofMinutes(10))
+            .maxSize(3)
+            .evictionPolicy(Cache.EvictionPolicy.LFU)
+            .clock(clock)
+            .build();
+
+        // given: a full cache
+        for (int key = 1; key <= 3; key++) {
+            fixture.getValueOrCall(key, k -> "value " + k);
+            clock.advance(Duration.ofSeconds(1));
+        }
+
+        // and: the entries are read with different frequencies - the last the least
+        for (int i = 0; i < 3; i++) {
+            fixture.getValueOrCall(1, k -> "value " + k);
+            fixture.getValueOrCall(2, k -> "value " + k);
+        }
+        clock.advance(Duration.ofSeconds(1));
+        fixture.getValueOrCall(3, k -> "value " + k);
+
+        // when: another entry is cached
+        fixture.getValueOrCall(4, k -> "value " + k);
+
+        // then: the least frequently used entry is evicted - even though most recently used
+        assertEquals(3, fixture.size());
+        assertNull(fixture.remove(3));
+    }
+
+    @Test
+    public void testMaxSize_ExpiredFirst() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofSeconds(10))
+            .maxSize(2)
+            .clock(clock)
+            .build();
+
+        // given: a full cache - in which the most recently used entry has expired
+        fixture.getValueOrCall(1, k -> "value " + k);
+        clock.advance(Duration.ofSeconds(6));
+        fixture.getValueOrCall(2, k -> "value " + k);
+        clock.advance(Duration.ofSeconds(5));
+        fixture.getValueOrCall(2, k -> "value " + k);
+
+        // when: another entry is cached
+        fixture.getValueOrCall(3, k -> "value " + k);
+
+        // then: the expired entry is evicted
+        assertNull(fixture.remove(1));
+        assertEquals("value 2", fixture.remove(2));
+    }
+
+    @Test
+    public void testPurgeExpired() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofSeconds(10))
+            .clock(clock)
+            .build();
+
+        // given: an unbounded cache with entries
+        fixture.getValueOrCall(1, k -> "value " + k);
+        fixture.getValueOrCall(2, k -> "value " + k);
+
+        // and: the entries have expired
+        clock.advance(Duration.ofSeconds(11));
+
+        // when: another entry is cached
+        fixture.getValueOrCall(3, k -> "value " + k);
+
+        // then: the expired entries are removed
+        assertEquals(1, fixture.size());
+    }
+
+    @Test
+    public void testRefreshAhead() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofSeconds(10))
+            .refreshAhead(Duration.ofSeconds(2))
+            .refreshExecutor(Runnable::run)
+            .clock(clock)
+            .build();
+
+        // given: a cached entry
+        AtomicInteger version = new AtomicInteger();
+        Function<Integer, String> resolver = key -> "value " + version.incrementAndGet();
+        assertEquals("value 1", fixture.getValueOrCall(1, resolver));
+
+        // when: the entry is read outside the refresh-ahead period
+        clock.advance(Duration.ofSeconds(7));
+
+        // then: the entry is not refreshed
+        assertEquals("value 1", fixture.getValueOrCall(1, resolver));
+        assertEquals(1, version.get());
+
+        // when: the entry is read within the refresh-ahead period
+        clock.advance(Duration.ofSeconds(2));
+
+        // then: the current value is returned
+        assertEquals("value 1", fixture.getValueOrCall(1, resolver));
+
+        // and: the entry is refreshed
+        assertEquals(2, version.get());
+        assertEquals("value 2", fixture.getValueOrCall(1, resolver));
+
+        // and: the refreshed entry has a new expiry
+        clock.advance(Duration.ofSeconds(5));
+        assertEquals("value 2", fixture.getValueOrCall(1, resolver));
+        assertEquals(2, version.get());
+    }
+
+    @Test
+    public void testRefreshAhead_Fails() {
+        MutableClock clock = new MutableClock();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofSeconds(10))
+            .refreshAhead(Duration.ofSeconds(2))
+            .refreshExecutor(Runnable::run)
+            .clock(clock)
+            .build();
+
+        // given: a cached entry
+        assertEquals("value 1", fixture.getValueOrCall(1, key -> "value 1"));
+
+        // when: the entry is read within the refresh-ahead period - and the refresh fails
+        clock.advance(Duration.ofSeconds(9));
+        assertEquals("value 1", fixture.getValueOrCall(1, key -> {
+            throw new IllegalStateException("test");
+        }));
+
+        // then: the current entry remains
+        assertEquals("value 1", fixture.getValueOrCall(1, key -> "value 2"));
+    }
+
+    @Test
+    public void testMetrics() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        Cache<Integer, String> fixture = Cache.builder(Duration.ofMinutes(10))
+            .maxSize(1)
+            .metrics("test-cache", registry)
+            .build();
+
+        // when: the cache is used
+        fixture.getValueOrCall(1, k -> "value " + k);
+        fixture.getValueOrCall(1, k -> "value " + k);
+        fixture.getValueOrCall(1, k -> "value " + k);
+        fixture.getValueOrCall(2, k -> "value " + k);
+
+        // then: the hits, misses, loads and evictions are recorded
+        assertEquals(2.0, registry.get("cache.gets").tags("cache", "test-cache", "result", "hit").counter().count());
+        assertEquals(2.0, registry.get("cache.gets").tags("cache", "test-cache", "result", "miss").counter().count());
+        assertEquals(2, registry.get("cache.loads").tag("cache", "test-cache").timer().count());
+        assertEquals(1.0, registry.get("cache.evictions").tag("cache", "test-cache").counter().count());
+        assertEquals(1.0, registry.get("cache.size").tag("cache", "test-cache").gauge().value());
+    }
+
     private Function<Integer, String> mockFunction(String value) {
         return new Function<Integer, String>() {
             public String apply(Integer key) {
@@ -73,4 +329,27 @@ public class CacheTest {
             }
         }
     }
+
+    /**
+     * A clock whose time is advanced by the test.
+     */
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.now();
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        public Instant instant() {
+            return now;
+        }
+    }
 }
@@ -0,0 +1,180 @@
+package com.hillayes.commons.correlation;
+
+import org.jboss.logmanager.MDC;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CorrelationContextTest {
+    @AfterEach
+    public void clearMdc() {
+        MDC.clear();
+    }
+
+    @Test
+    public void testCaptureEmpty() {
+        // given: the thread has no context
+        MDC.clear();
+
+        // when: the context is captured
+        CorrelationContext context = Correlation.capture();
+
+        // then: the context is empty
+        assertTrue(context.isEmpty());
+        assertTrue(context.getCorrelationId().isEmpty());
+    }
+
+    @Test
+    public void testRunRestoresContext() {
+        // given: a context is captured
+        Correlation.setCorrelationId("captured-id");
+        MDC.put("userId", "captured-user");
+        CorrelationContext context = Correlation.capture();
+
+        // and: the thread's context is then changed
+        MDC.clear();
+        Correlation.setCorrelationId("current-id");
+
+        // when: a function is run with the captured context
+        context.run(() -> {
+            // then: the captured context is applied
+            assertEquals("captured-id", Correlation.getCorrelationId().orElse(null));
+            assertEquals("captured-user", MDC.get("userId"));
+        });
+
+        // and: the previous context is restored
+        assertEquals("current-id", Correlation.getCorrelationId().orElse(null));
+        assertNull(MDC.get("userId"));
+    }
+
+    @Test
+    public void testEmptyContextClearsThread() throws Exception {
+        // given: an empty context is captured
+        MDC.clear();
+        CorrelationContext context = Correlation.capture();
+
+        // and: the thread's context is then set
+        Correlation.setCorrelationId("current-id");
+
+        // when: a function is called with the captured context
+        Optional<String> result = context.call(Correlation::getCorrelationId);
+
+        // then: the thread's context is not visible to the function
+        assertTrue(result.isEmpty());
+
+        // and: the previous context is restored
+        assertEquals("current-id", Correlation.getCorrelationId().orElse(null));
+    }
+
+    @Test
+    public void testWrapFunction() {
+        // given: a context is captured
+        Correlation.setCorrelationId("captured-id");
+        CorrelationContext context = Correlation.capture();
+
+        // when: a parallel stream is mapped with the wrapped function
+        Function<Integer, String> function = context.wrap(i -> Correlation.getCorrelationId().orElse(null));
+        List<String> result = java.util.stream.IntStream.range(0, 100).boxed()
+            .parallel()
+            .map(function)
+            .toList();
+
+        // then: every element was mapped with the captured context
+        assertTrue(result.stream().allMatch("captured-id"::equals));
+    }
+
+    @Test
+    public void testPropagateExecutorService() throws Exception {
+        // given: a context propagating executor
+        ExecutorService executor = Correlation.propagate(Executors.newSingleThreadExecutor());
+        try {
+            // when: tasks are submitted under different correlation IDs
+            Correlation.setCorrelationId("first-id");
+            Future<Optional<String>> first = executor.submit(Correlation::getCorrelationId);
+
+            Correlation.setCorrelationId("second-id");
+            Future<Optional<String>> second = executor.submit(Correlation::getCorrelationId);
+
+            Correlation.setCorrelationId(null);
+            Future<Optional<String>> third = executor.submit(Correlation::getCorrelationId);
+
+            // then: each task runs with its submitter's correlation ID
+            assertEquals("first-id", first.get(5, TimeUnit.SECONDS).orElse(null));
+            assertEquals("second-id", second.get(5, TimeUnit.SECONDS).orElse(null));
+
+            // and: the pooled thread does not retain the ID of a previous task
+            assertTrue(third.get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPropagateInvokeAll() throws Exception {
+        // given: a context propagating executor
+        ExecutorService executor = Correlation.propagate(Executors.newFixedThreadPool(2));
+        try {
+            // when: a collection of tasks is invoked
+            Correlation.setCorrelationId("invoke-id");
+            List<Future<Optional<String>>> results = executor.invokeAll(List.of(
+                Correlation::getCorrelationId,
+                Correlation::getCorrelationId,
+                Correlation::getCorrelationId));
+
+            // then: all tasks run with the submitter's correlation ID
+            for (Future<Optional<String>> result : results) {
+                assertEquals("invoke-id", result.get().orElse(null));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPropagateScheduledExecutorService() throws Exception {
+        // when: a scheduled executor is wrapped
+        ExecutorService executor = Correlation.propagate(Executors.newSingleThreadScheduledExecutor());
+        try {
+            // then: the result is still a scheduled executor
+            ScheduledExecutorService scheduled = assertInstanceOf(ScheduledExecutorService.class, executor);
+
+            // and: scheduled tasks run with the submitter's correlation ID
+            Correlation.setCorrelationId("scheduled-id");
+            ScheduledFuture<Optional<String>> result =
+                scheduled.schedule(Correlation::getCorrelationId, 10, TimeUnit.MILLISECONDS);
+            assertEquals("scheduled-id", result.get(5, TimeUnit.SECONDS).orElse(null));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPropagateIsIdempotent() {
+        ExecutorService executor = Correlation.propagate(Executors.newSingleThreadExecutor());
+        try {
+            assertSame(executor, Correlation.propagate(executor));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPropagateExecutor() throws Exception {
+        // given: a context propagating executor for use with CompletableFuture
+        Executor executor = Correlation.propagate((Executor) command -> new Thread(command).start());
+
+        // when: an async task is started
+        Correlation.setCorrelationId("async-id");
+        CompletableFuture<Optional<String>> result =
+            CompletableFuture.supplyAsync(Correlation::getCorrelationId, executor);
+
+        // then: the task runs with the submitter's correlation ID
+        assertEquals("async-id", result.get(5, TimeUnit.SECONDS).orElse(null));
+    }
+}
@@ -0,0 +1,390 @@
+package com.hillayes.commons.jdbc;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+
+import java.io.Reader;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class BulkWriterTest {
+    private final TestEntityMapper mapper = new TestEntityMapper();
+
+    @Test
+    public void testInsertSql() {
+        // given: a writer that fails on conflict
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test.test_entity", mapper).build();
+
+        // when: the SQL for two rows is requested
+        String sql = fixture.insertSql(2);
+
+        // then: the SQL has placeholders for each row, and no conflict clause
+        assertEquals("INSERT INTO test.test_entity (id,name,amount,date,created) " +
+            "VALUES (?,?,?,?,?),(?,?,?,?,?)", sql);
+    }
+
+    @Test
+    public void testConflictClause() {
+        assertEquals(" ON CONFLICT DO NOTHING", BulkWriter.builder("test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build().conflictClause());
+
+        assertEquals(" ON CONFLICT (id) DO NOTHING", BulkWriter.builder("test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .conflictColumns("id")
+            .build().conflictClause());
+
+        assertEquals(" ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name,amount = EXCLUDED.amount," +
+            "date = EXCLUDED.date,created = EXCLUDED.created", BulkWriter.builder("test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.UPDATE)
+            .conflictColumns("id")
+            .build().conflictClause());
+
+        assertEquals(" ON CONFLICT (id,date) DO UPDATE SET amount = EXCLUDED.amount", BulkWriter.builder("test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.UPDATE)
+            .conflictColumns("id", "date")
+            .updateColumns("amount")
+            .build().conflictClause());
+    }
+
+    @Test
+    public void testUpdateRequiresConflictColumns() {
+        assertThrows(IllegalArgumentException.class, () -> BulkWriter.builder("test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.UPDATE)
+            .build());
+    }
+
+    @Test
+    public void testChunkSizeLimitedByParameters() {
+        // when: a writer is created with a chunk size exceeding the parameter limit
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper)
+            .chunkSize(100_000)
+            .build();
+
+        // then: the chunk size is reduced
+        assertEquals(BulkWriter.MAX_PARAMETERS / 5, fixture.getChunkSize());
+    }
+
+    @Test
+    public void testInsertInChunks() throws Exception {
+        // given: a writer with a chunk size of 10
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper)
+            .chunkSize(10)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        // and: a connection
+        Connection connection = mock();
+        PreparedStatement statement = mock();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(10, 10, 5);
+
+        // when: 25 entities are written
+        List<TestEntity> entities = mockEntities(25);
+        int result = fixture.insert(connection, entities);
+
+        // then: the entities are written in 3 chunks
+        assertEquals(25, result);
+        verify(statement, times(3)).executeUpdate();
+
+        // and: the last chunk is written with a shorter statement
+        verify(connection, times(2)).prepareStatement(fixture.insertSql(10));
+        verify(connection).prepareStatement(fixture.insertSql(5));
+
+        // and: each entity is mapped
+        verify(statement, times(25)).setString(anyInt(), anyString());
+    }
+
+    @Test
+    public void testInsertEmpty() {
+        // given: a writer
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper).build();
+
+        // and: a connection
+        Connection connection = mock();
+
+        // when: no entities are written
+        int result = fixture.insert(connection, List.of());
+
+        // then: no rows are written
+        assertEquals(0, result);
+        verifyNoInteractions(connection);
+    }
+
+    @Test
+    public void testCopy() throws Exception {
+        // given: a writer that fails on conflict
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper)
+            .chunkSize(10)
+            .build();
+
+        // and: a postgres connection
+        Connection connection = mock();
+        PGConnection pgConnection = mock();
+        CopyManager copyManager = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+
+        List<String> csv = new ArrayList<>();
+        when(copyManager.copyIn(anyString(), any(Reader.class))).then(invocation -> {
+            StringWriter content = new StringWriter();
+            invocation.getArgument(1, Reader.class).transferTo(content);
+            csv.add(content.toString());
+            return (long) content.toString().lines().count();
+        });
+
+        // and: entities with values that require escaping
+        Instant created = Instant.parse("2024-05-01T10:15:30Z");
+        TestEntity entity1 = new TestEntity(UUID.randomUUID(), "a \"quoted\", name", BigDecimal.valueOf(1050, 2), LocalDate.of(2024, 5, 1), created);
+        TestEntity entity2 = new TestEntity(UUID.randomUUID(), null, null, null, null);
+
+        // when: the entities are copied
+        long result = fixture.copy(connection, List.of(entity1, entity2));
+
+        // then: the rows are written directly to the table
+        assertEquals(2, result);
+        verify(copyManager).copyIn(eq("COPY test_entity (id,name,amount,date,created) FROM STDIN WITH (FORMAT csv)"), any(Reader.class));
+
+        // and: values are quoted and nulls are empty
+        assertEquals(1, csv.size());
+        assertEquals(
+            "\"" + entity1.id() + "\",\"a \"\"quoted\"\", name\",\"10.50\",\"2024-05-01\",\"2024-05-01T10:15:30Z\"\n" +
+            "\"" + entity2.id() + "\",,,,\n",
+            csv.getFirst());
+
+        // and: no staging table is used
+        verify(connection, never()).createStatement();
+    }
+
+    @Test
+    public void testCopyViaStage() throws Exception {
+        // given: a writer that ignores conflicts
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test.test_entity", mapper)
+            .chunkSize(10)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        // and: a postgres connection
+        Connection connection = mock();
+        PGConnection pgConnection = mock();
+        CopyManager copyManager = mock();
+        Statement statement = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(anyString(), any(Reader.class))).thenReturn(10L, 10L, 5L);
+        when(statement.executeUpdate(anyString())).thenReturn(20);
+
+        // when: 25 entities are copied
+        long result = fixture.copy(connection, mockEntities(25));
+
+        // then: the result is that of the merge
+        assertEquals(20, result);
+
+        // and: the rows are copied in chunks to a staging table
+        String stageName = verifyStageCreated(statement, "");
+        verify(copyManager, times(3)).copyIn(eq("COPY " + stageName + " (id,name,amount,date,created) FROM STDIN WITH (FORMAT csv)"), any(Reader.class));
+
+        // and: merged into the table
+        verify(statement).executeUpdate("INSERT INTO test.test_entity (id,name,amount,date,created)" +
+            " SELECT id,name,amount,date,created FROM " + stageName + " ON CONFLICT DO NOTHING");
+
+        // and: the staging table is dropped
+        verify(statement).execute("DROP TABLE IF EXISTS " + stageName);
+    }
+
+    @Test
+    public void testCopyViaStage_InTransaction() throws Exception {
+        // given: a writer that ignores conflicts
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test.test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        // and: a postgres connection within a transaction
+        Connection connection = mock();
+        PGConnection pgConnection = mock();
+        CopyManager copyManager = mock();
+        Statement statement = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+
+        // and: the merge fails
+        when(statement.executeUpdate(anyString())).thenThrow(new SQLException("mock merge failure"));
+
+        // when: entities are copied
+        assertThrows(JdbcException.class, () -> fixture.copy(connection, mockEntities(5)));
+
+        // then: the staging table is dropped when the transaction ends
+        String stageName = verifyStageCreated(statement, " ON COMMIT DROP");
+
+        // and: no further statement is issued within the failed transaction
+        verify(statement, never()).execute("DROP TABLE IF EXISTS " + stageName);
+    }
+
+    @Test
+    public void testCopyViaStage_UniqueStage() throws Exception {
+        // given: a writer that ignores conflicts
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test.test_entity", mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        // and: a postgres connection
+        Connection connection = mock();
+        PGConnection pgConnection = mock();
+        CopyManager copyManager = mock();
+        Statement statement = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(false);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+
+        // when: entities are copied twice on the same connection
+        fixture.copy(connection, mockEntities(5));
+        fixture.copy(connection, mockEntities(5));
+
+        // then: each copy creates its own staging table
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement, atLeast(2)).execute(sql.capture());
+        List<String> creates = sql.getAllValues().stream()
+            .filter(s -> s.startsWith("CREATE TEMPORARY TABLE "))
+            .toList();
+        assertEquals(2, creates.size());
+        assertNotEquals(creates.get(0), creates.get(1));
+    }
+
+    @Test
+    public void testCopyViaStage_LongTableName() throws Exception {
+        // given: a writer for a table with a long name
+        String tableName = "test.a_table_whose_name_is_close_to_the_postgres_identifier_limit";
+        BulkWriter<TestEntity> fixture = BulkWriter.builder(tableName, mapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .build();
+
+        // and: a postgres connection
+        Connection connection = mock();
+        PGConnection pgConnection = mock();
+        Statement statement = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(pgConnection.getCopyAPI()).thenReturn(mock());
+
+        // when: entities are copied
+        fixture.copy(connection, mockEntities(5));
+
+        // then: the staging table name is within the identifier limit
+        String stageName = verifyStageCreated(statement, "");
+        assertTrue(stageName.length() <= 63, stageName);
+    }
+
+    /**
+     * Verifies that a staging table was created, with the given suffix, and returns
+     * the name given to it.
+     */
+    private String verifyStageCreated(Statement statement, String suffix) throws SQLException {
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(statement, atLeastOnce()).execute(sql.capture());
+        String create = sql.getAllValues().stream()
+            .filter(s -> s.startsWith("CREATE TEMPORARY TABLE "))
+            .findFirst()
+            .orElseThrow();
+
+        Matcher matcher = Pattern
+            .compile("CREATE TEMPORARY TABLE (bulk_\\w+) \\(LIKE \\S+ INCLUDING DEFAULTS\\)" + Pattern.quote(suffix))
+            .matcher(create);
+        assertTrue(matcher.matches(), create);
+        return matcher.group(1);
+    }
+
+    @Test
+    public void testCopyFallsBackToInsert() throws Exception {
+        // given: a writer
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper).build();
+
+        // and: a connection that doesn't support COPY
+        Connection connection = mock();
+        PreparedStatement statement = mock();
+        when(connection.isWrapperFor(PGConnection.class)).thenReturn(false);
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeUpdate()).thenReturn(3);
+
+        // when: the entities are copied
+        long result = fixture.copy(connection, mockEntities(3));
+
+        // then: the entities are inserted
+        assertEquals(3, result);
+        verify(connection).prepareStatement(fixture.insertSql(3));
+        verify(connection, never()).unwrap(any());
+    }
+
+    @Test
+    public void testNullMapping() throws Exception {
+        // given: a writer
+        BulkWriter<TestEntity> fixture = BulkWriter.builder("test_entity", mapper).build();
+
+        // and: a connection
+        Connection connection = mock();
+        PreparedStatement statement = mock();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+
+        // when: an entity with null values is inserted
+        fixture.insert(connection, List.of(new TestEntity(UUID.randomUUID(), null, null, null, null)));
+
+        // then: nulls are set
+        verify(statement).setNull(2, Types.VARCHAR);
+        verify(statement).setNull(3, Types.DECIMAL);
+        verify(statement).setNull(4, Types.DATE);
+        verify(statement).setNull(5, Types.TIMESTAMP_WITH_TIMEZONE);
+    }
+
+    private List<TestEntity> mockEntities(int count) {
+        return IntStream.range(0, count)
+            .mapToObj(i -> new TestEntity(UUID.randomUUID(), "name-" + i,
+                BigDecimal.valueOf(i), LocalDate.now().minusDays(i), Instant.now()))
+            .toList();
+    }
+
+    private record TestEntity(UUID id, String name, BigDecimal amount, LocalDate date, Instant created) {}
+
+    private static class TestEntityMapper extends SqlEntityMapper<TestEntity> {
+        @Override
+        public Map<String, ColMapper<TestEntity>> initColMappings() {
+            LinkedHashMap<String, ColMapper<TestEntity>> result = LinkedHashMap.newLinkedHashMap(5);
+            result.put("id", (s, offset, entity) -> setUuid(s, offset, entity.id()));
+            result.put("name", (s, offset, entity) -> setString(s, offset, entity.name()));
+            result.put("amount", (s, offset, entity) -> setDecimal(s, offset, entity.amount()));
+            result.put("date", (s, offset, entity) -> setDate(s, offset, entity.date()));
+            result.put("created", (s, offset, entity) -> setTimestamp(s, offset, entity.created()));
+            return result;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.hillayes.commons.jpa;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class KeysetTest {
+    private record Row(Instant date, UUID id) {}
+
+    private final Keyset<Row> fixture = Keyset
+        .by("bookingDateTime", OrderBy.Direction.Descending, Row::date)
+        .then("id", OrderBy.Direction.Descending, Row::id);
+
+    @Test
+    public void testPredicate() {
+        assertEquals("(bookingDateTime < :keyset0) OR (bookingDateTime = :keyset0 AND id < :keyset1)",
+            fixture.toPredicate(false));
+
+        // backward reverses the comparisons
+        assertEquals("(bookingDateTime > :keyset0) OR (bookingDateTime = :keyset0 AND id > :keyset1)",
+            fixture.toPredicate(true));
+    }
+
+    @Test
+    public void testOrderBy() {
+        OrderBy forward = fixture.toOrderBy(false);
+        assertEquals(2, forward.getColumns().size());
+        forward.getColumns().forEach(col ->
+            assertEquals(OrderBy.Direction.Descending, col.getDirection()));
+
+        OrderBy backward = fixture.toOrderBy(true);
+        assertEquals(2, backward.getColumns().size());
+        backward.getColumns().forEach(col ->
+            assertEquals(OrderBy.Direction.Ascending, col.getDirection()));
+    }
+
+    @Test
+    public void testEncodeDecode() {
+        // given: an entity
+        Row row = new Row(Instant.parse("2024-03-01T10:15:30.123456789Z"), UUID.randomUUID());
+
+        // when: the entity's position is encoded
+        String token = fixture.encode(true, row);
+
+        // then: the token is url-safe
+        assertTrue(token.matches("[A-Za-z0-9_-]+"));
+
+        // and: the token can be decoded
+        Keyset.Cursor cursor = fixture.decode(token);
+        assertTrue(cursor.backward());
+        assertFalse(cursor.isEdge());
+        assertEquals(List.of(row.date(), row.id()), cursor.values());
+
+        // and: the values are mapped to query parameters
+        Map<String, Object> params = fixture.toParameters(cursor.values());
+        assertEquals(row.date(), params.get("keyset0"));
+        assertEquals(row.id(), params.get("keyset1"));
+    }
+
+    @Test
+    public void testValueTypes() {
+        // given: a keyset of each supported type
+        record Values(String s, LocalDate d, Long l, Integer i, BigDecimal b) {}
+        Keyset<Values> keyset = Keyset
+            .by("s", OrderBy.Direction.Ascending, Values::s)
+            .then("d", OrderBy.Direction.Ascending, Values::d)
+            .then("l", OrderBy.Direction.Ascending, Values::l)
+            .then("i", OrderBy.Direction.Ascending, Values::i)
+            .then("b", OrderBy.Direction.Ascending, Values::b);
+        Values values = new Values("abc", LocalDate.of(2024, 2, 29), 123L, 45, new BigDecimal("12.340"));
+
+        // when: the values are encoded and decoded
+        Keyset.Cursor cursor = keyset.decode(keyset.encode(false, values));
+
+        // then: the values are preserved
+        assertFalse(cursor.backward());
+        assertEquals(List.of(values.s(), values.d(), values.l(), values.i(), values.b()), cursor.values());
+    }
+
+    @Test
+    public void testEdgeTokens() {
+        Keyset.Cursor first = fixture.decode(null);
+        assertTrue(first.isEdge());
+        assertFalse(first.backward());
+
+        assertTrue(fixture.decode(" ").isEdge());
+
+        Keyset.Cursor last = fixture.decode(Keyset.LAST_PAGE);
+        assertTrue(last.isEdge());
+        assertTrue(last.backward());
+    }
+
+    @Test
+    public void testInvalidToken() {
+        assertThrows(IllegalArgumentException.class, () -> fixture.decode("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> fixture.decode("QUJD"));
+
+        // a token from a different keyset
+        Keyset<Row> other = Keyset.by("bookingDateTime", OrderBy.Direction.Descending, Row::date);
+        String token = other.encode(false, new Row(Instant.now(), UUID.randomUUID()));
+        assertThrows(IllegalArgumentException.class, () -> fixture.decode(token));
+    }
+
+    @Test
+    public void testNullValue() {
+        assertThrows(IllegalArgumentException.class, () ->
+            fixture.encode(false, new Row(null, UUID.randomUUID())));
+    }
+}
@@ -1,13 +1,20 @@
 package com.hillayes.commons.jpa;
 
 import io.quarkus.hibernate.orm.panache.PanacheQuery;
+import io.quarkus.panache.common.Sort;
+import jakarta.persistence.EntityManager;
 import org.junit.jupiter.api.Test;
 
-import java.util.Arrays;
-import java.util.List;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 public class RepositoryBaseTest {
@@ -103,6 +110,223 @@ public class RepositoryBaseTest {
         verify(query).count();
     }
 
+    @Test
+    public void testKeysetPaging() {
+        // given: a table of 25 rows - some sharing the same date
+        KeysetRepository repository = new KeysetRepository(25);
+
+        // when: the first page is requested
+        KeysetPage<Row> page = repository.pageByKeyset("userId = :userId", KEYSET, null, 10, false, Map.of("userId", "a"));
+
+        // then: the first page is returned in keyset order
+        assertEquals(repository.expected(0, 10), page.getContent());
+        assertFalse(page.hasPrevious());
+        assertTrue(page.hasNext());
+        assertTrue(page.getTotalCount().isEmpty());
+
+        // and: the query does not seek
+        assertEquals("userId = :userId", repository.lastQuery);
+
+        // when: the next page is requested
+        page = repository.pageByKeyset("userId = :userId", KEYSET, page.getNextCursor(), 10, false, Map.of("userId", "a"));
+
+        // then: the second page is returned
+        assertEquals(repository.expected(10, 20), page.getContent());
+        assertTrue(page.hasPrevious());
+        assertTrue(page.hasNext());
+
+        // and: the query seeks past the previous page
+        assertTrue(repository.lastQuery.startsWith("(userId = :userId) AND ("));
+
+        // when: the last page is requested
+        String previous = page.getPreviousCursor();
+        page = repository.pageByKeyset("userId = :userId", KEYSET, page.getNextCursor(), 10, false, Map.of("userId", "a"));
+
+        // then: the partial last page is returned
+        assertEquals(repository.expected(20, 25), page.getContent());
+        assertTrue(page.hasPrevious());
+        assertFalse(page.hasNext());
+
+        // when: the previous page is requested
+        page = repository.pageByKeyset("userId = :userId", KEYSET, page.getPreviousCursor(), 10, false, Map.of("userId", "a"));
+
+        // then: the second page is returned again
+        assertEquals(repository.expected(10, 20), page.getContent());
+        assertTrue(page.hasPrevious());
+        assertTrue(page.hasNext());
+
+        // when: the page before that is requested
+        page = repository.pageByKeyset("userId = :userId", KEYSET, previous, 10, false, Map.of("userId", "a"));
+
+        // then: the first page is returned
+        assertEquals(repository.expected(0, 10), page.getContent());
+        assertFalse(page.hasPrevious());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    public void testKeysetLastPage() {
+        // given: a table of 25 rows
+        KeysetRepository repository = new KeysetRepository(25);
+
+        // when: the last page is requested
+        KeysetPage<Row> page = repository.pageByKeyset(null, KEYSET, Keyset.LAST_PAGE, 10, false, Map.of());
+
+        // then: the last full page of rows is returned
+        assertEquals(repository.expected(15, 25), page.getContent());
+        assertTrue(page.hasPrevious());
+        assertFalse(page.hasNext());
+
+        // when: the previous page is requested
+        page = repository.pageByKeyset(null, KEYSET, page.getPreviousCursor(), 10, false, Map.of());
+
+        // then: the preceding rows are returned
+        assertEquals(repository.expected(5, 15), page.getContent());
+        assertTrue(page.hasPrevious());
+        assertTrue(page.hasNext());
+    }
+
+    @Test
+    public void testKeysetNoRows() {
+        KeysetRepository repository = new KeysetRepository(0);
+
+        KeysetPage<Row> page = repository.pageByKeyset(null, KEYSET, null, 10, true, Map.of());
+        assertTrue(page.isEmpty());
+        assertFalse(page.hasPrevious());
+        assertFalse(page.hasNext());
+        assertEquals(0, page.getTotalCount().orElseThrow());
+    }
+
+    @Test
+    public void testKeysetCountIsCached() {
+        // given: a table of 25 rows
+        KeysetRepository repository = new KeysetRepository(25);
+
+        // when: several pages are requested with a count
+        KeysetPage<Row> page = repository.pageByKeyset("userId = :userId", KEYSET, null, 10, true, Map.of("userId", "a"));
+        assertEquals(25, page.getTotalCount().orElseThrow());
+        page = repository.pageByKeyset("userId = :userId", KEYSET, page.getNextCursor(), 10, true, Map.of("userId", "a"));
+        assertEquals(25, page.getTotalCount().orElseThrow());
+
+        // then: the count was only queried once
+        assertEquals(1, repository.countCalls.get());
+
+        // when: a query with different parameters is requested
+        repository.pageByKeyset("userId = :userId", KEYSET, null, 10, true, Map.of("userId", "b"));
+
+        // then: the count is queried again
+        assertEquals(2, repository.countCalls.get());
+    }
+
+    @Test
+    public void testKeysetInvalidCursor() {
+        KeysetRepository repository = new KeysetRepository(5);
+
+        assertThrows(IllegalArgumentException.class, () ->
+            repository.pageByKeyset(null, KEYSET, "rubbish", 10, false, Map.of()));
+    }
+
+    @Test
+    public void testStreamDetached() {
+        // given: an entity manager
+        EntityManager entityManager = mock();
+        RepositoryBase<Object, Object> repository = new RepositoryBase<>() {
+            @Override
+            public EntityManager getEntityManager() {
+                return entityManager;
+            }
+        };
+
+        // and: a query with some results
+        List<Object> entities = IntStream.range(0, 10).mapToObj(i -> new Object()).toList();
+        PanacheQuery<Object> query = mock();
+        when(query.withHint(anyString(), any())).thenReturn(query);
+        when(query.stream()).then(invocation -> entities.stream());
+
+        // when: the query results are streamed
+        List<Object> result;
+        try (Stream<Object> stream = repository.streamDetached(query, 100)) {
+            result = stream.toList();
+        }
+
+        // then: all entities are returned
+        assertEquals(entities, result);
+
+        // and: the fetch size and read-only hints are applied
+        verify(query).withHint("org.hibernate.fetchSize", 100);
+        verify(query).withHint("org.hibernate.readOnly", true);
+
+        // and: each entity is detached
+        entities.forEach(entity -> verify(entityManager).detach(entity));
+    }
+
+    private record Row(Instant date, UUID id) {}
+
+    private static final Comparator<Row> ROW_ORDER = Comparator
+        .comparing(Row::date)
+        .thenComparing(Row::id)
+        .reversed();
+
+    private static final Keyset<Row> KEYSET = Keyset
+        .by("date", OrderBy.Direction.Descending, Row::date)
+        .then("id", OrderBy.Direction.Descending, Row::id);
+
+    /**
+     * A repository that evaluates the keyset queries against an in-memory table.
+     */
+    private static class KeysetRepository extends RepositoryBase<Row, UUID> {
+        private final List<Row> table;
+        private final AtomicInteger countCalls = new AtomicInteger();
+        private String lastQuery;
+
+        KeysetRepository(int size) {
+            Instant now = Instant.now().truncatedTo(ChronoUnit.DAYS);
+            table = IntStream.range(0, size)
+                .mapToObj(i -> new Row(now.minus(i / 3, ChronoUnit.DAYS), UUID.randomUUID()))
+                .toList();
+        }
+
+        List<Row> expected(int from, int to) {
+            return table.stream().sorted(ROW_ORDER).toList().subList(from, to);
+        }
+
+        @Override
+        public long count(String query, Map<String, Object> params) {
+            countCalls.incrementAndGet();
+            return table.size();
+        }
+
+        @Override
+        public long count() {
+            countCalls.incrementAndGet();
+            return table.size();
+        }
+
+        @Override
+        public PanacheQuery<Row> find(String query, Sort sort, Map<String, Object> params) {
+            lastQuery = query;
+            boolean descending = sort.getColumns().getFirst().getDirection() == Sort.Direction.Descending;
+            Comparator<Row> order = descending ? ROW_ORDER : ROW_ORDER.reversed();
+
+            Row key = params.containsKey("keyset0")
+                ? new Row((Instant) params.get("keyset0"), (UUID) params.get("keyset1"))
+                : null;
+
+            AtomicInteger limit = new AtomicInteger();
+            PanacheQuery<Row> result = mock(PanacheQuery.class);
+            when(result.page(eq(0), anyInt())).then(invocation -> {
+                limit.set(invocation.getArgument(1));
+                return result;
+            });
+            when(result.list()).then(invocation -> table.stream()
+                .filter(row -> key == null || order.compare(row, key) > 0)
+                .sorted(order)
+                .limit(limit.get())
+                .toList());
+            return result;
+        }
+    }
+
     private PanacheQuery<Object> mockQuery(int size, long count) {
         PanacheQuery<Object> query = mock(PanacheQuery.class);
         when(query.page(anyInt(), anyInt())).thenReturn(query);
@@ -0,0 +1,19 @@
+package com.hillayes.executors.concurrent;
+
+import lombok.Getter;
+
+import java.time.Duration;
+
+/**
+ * Raised when the result of a call is not obtained within the timeout of its
+ * group of {@link ConcurrentCalls}.
+ */
+@Getter
+public class CallTimeoutException extends RuntimeException {
+    private final Duration timeout;
+
+    public CallTimeoutException(Duration timeout) {
+        super("Call timed out [timeout: " + timeout + "]");
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,137 @@
+package com.hillayes.executors.concurrent;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Issues a group of independent, blocking calls (typically to a remote service)
+ * concurrently, so that the time taken is that of the slowest call rather than the
+ * sum of them all. The calls are run on the given ExecutorService; a BOUNDED_VIRTUAL
+ * executor shared by all callers of the same service will limit the number of calls
+ * in progress at any one time.
+ * <p>
+ * The group shares one timeout, which starts when the group begins. The result of
+ * each call is obtained by either:
+ * <ul>
+ *     <li>{@link #join(Future)} - where the call is required; its failure, or timeout,
+ *     is raised to the caller.</li>
+ *     <li>{@link #joinOrElse(Future, Supplier)} - where the call is optional; its
+ *     failure, or timeout, is logged and the given fallback value is returned.</li>
+ * </ul>
+ * On closing the group, any calls still in progress are cancelled.
+ * <pre>
+ *   try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, timeout)) {
+ *       Future&lt;Account&gt; account = calls.fork(() -&gt; accountApi.get(id));
+ *       Future&lt;Balance&gt; balance = calls.fork(() -&gt; accountApi.balance(id));
+ *       return new Summary(calls.join(account), calls.joinOrElse(balance, () -&gt; Balance.ZERO));
+ *   }
+ * </pre>
+ */
+@Slf4j
+public class ConcurrentCalls implements AutoCloseable {
+    private final ExecutorService executor;
+    private final Duration timeout;
+    private final long deadline;
+    private final List<Future<?>> calls = new ArrayList<>();
+
+    private ConcurrentCalls(ExecutorService executor, Duration timeout) {
+        this.executor = executor;
+        this.timeout = timeout;
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    /**
+     * Begins a group of concurrent calls, whose results must all be obtained within
+     * the given timeout.
+     *
+     * @param executor the executor on which the calls are to be run.
+     * @param timeout the time within which the results of all calls must be obtained.
+     * @return the new group of calls.
+     */
+    public static ConcurrentCalls begin(ExecutorService executor, Duration timeout) {
+        return new ConcurrentCalls(executor, timeout);
+    }
+
+    /**
+     * Submits the given call to run concurrently with the others of this group.
+     *
+     * @param call the call to be made.
+     * @return the Future from which the call's result may be joined.
+     */
+    public <T> Future<T> fork(Callable<T> call) {
+        Future<T> result = executor.submit(call);
+        calls.add(result);
+        return result;
+    }
+
+    /**
+     * Waits, until the group's timeout expires, for the result of the given required
+     * call. If the call fails, its exception is re-thrown; unchecked exceptions as they
+     * are, and checked exceptions wrapped in a CompletionException.
+     *
+     * @param call the Future returned when the call was forked.
+     * @return the call's result.
+     * @throws CallTimeoutException if the group's timeout expires first.
+     */
+    public <T> T join(Future<T> call) {
+        try {
+            return call.get(remaining(), TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw new CompletionException(cause);
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            throw new CallTimeoutException(timeout);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Waits, until the group's timeout expires, for the result of the given optional
+     * call. If the call fails, or the timeout expires first, the failure is logged
+     * and the given fallback is returned.
+     *
+     * @param call the Future returned when the call was forked.
+     * @param fallback supplies the value to be returned if the call fails.
+     * @return the call's result, or the fallback value.
+     */
+    public <T> T joinOrElse(Future<T> call, Supplier<T> fallback) {
+        try {
+            return join(call);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof InterruptedException) {
+                throw e;
+            }
+            log.warn("Optional call failed - using fallback", e.getCause());
+            return fallback.get();
+        } catch (RuntimeException e) {
+            log.warn("Optional call failed - using fallback [reason: {}]", e.getMessage());
+            return fallback.get();
+        }
+    }
+
+    /**
+     * Cancels any calls of the group that are still in progress.
+     */
+    @Override
+    public void close() {
+        calls.forEach(call -> call.cancel(true));
+    }
+
+    private long remaining() {
+        return Math.max(0, deadline - System.nanoTime());
+    }
+}
@@ -12,9 +12,11 @@ import lombok.Data;
  *       executor-type: fixed
  *       number-of-threads: 12
  *     executor-name-2:
- *       executor-type: fixed
+ *       executor-type: bounded_virtual
  *       number-of-threads: 6
  * </pre>
+ * For BOUNDED_VIRTUAL executors, the number of threads is the max number of tasks that
+ * may run concurrently. It is ignored for VIRTUAL and CACHED executors.
  */
 @Data
 @Builder
@@ -26,4 +28,18 @@ public class ExecutorConfiguration {
 
     @Builder.Default
     private int numberOfThreads = 1;
+
+    /**
+     * Whether the pinning of virtual threads to their carrier threads is to be
+     * reported. Only applies to VIRTUAL and BOUNDED_VIRTUAL executors.
+     */
+    @Builder.Default
+    private boolean detectPinning = true;
+
+    /**
+     * Whether tasks are to run with the correlation ID, and logging context, of the
+     * thread that submitted them.
+     */
+    @Builder.Default
+    private boolean propagateContext = true;
 }
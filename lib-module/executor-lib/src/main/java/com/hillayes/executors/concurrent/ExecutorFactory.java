@@ -1,7 +1,12 @@
 package com.hillayes.executors.concurrent;
 
+import com.hillayes.commons.correlation.Correlation;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
@@ -10,17 +15,52 @@ import java.util.concurrent.atomic.AtomicInteger;
 @Slf4j
 public class ExecutorFactory {
     public static ExecutorService newExecutor(ExecutorConfiguration aConfig) {
+        return newExecutor(aConfig, Metrics.globalRegistry);
+    }
+
+    /**
+     * Creates an ExecutorService of the given configuration, and registers its active,
+     * queued and completed task metrics (tagged with the executor's name) with the
+     * given registry.
+     *
+     * Unless disabled by the configuration, the tasks submitted to the service will
+     * run with the correlation ID (and logging context) of the submitting thread. A
+     * SCHEDULED service can still be cast to a ScheduledExecutorService.
+     */
+    public static ExecutorService newExecutor(ExecutorConfiguration aConfig, MeterRegistry meterRegistry) {
         log.debug("Creating executorService: {}", aConfig);
 
         ThreadFactory threadFactory = new DefaultThreadFactory(aConfig.getName());
         int numberOfThreads = aConfig.getNumberOfThreads();
 
-        return switch (aConfig.getExecutorType()) {
+        ExecutorService result = switch (aConfig.getExecutorType()) {
             case CACHED -> Executors.newCachedThreadPool(threadFactory);
             case SCHEDULED -> Executors.newScheduledThreadPool(numberOfThreads, threadFactory);
             case WORK_STEALING -> Executors.newWorkStealingPool(numberOfThreads);
+            case VIRTUAL -> new VirtualThreadExecutor(aConfig.getName(), 0, aConfig.isPropagateContext());
+            case BOUNDED_VIRTUAL -> new VirtualThreadExecutor(aConfig.getName(), Math.max(1, numberOfThreads),
+                aConfig.isPropagateContext());
             default -> Executors.newFixedThreadPool(numberOfThreads, threadFactory);
         };
+
+        if ((result instanceof VirtualThreadExecutor) && (aConfig.isDetectPinning())) {
+            PinnedThreadMonitor.start();
+        }
+
+        if ((aConfig.getName() != null) && (meterRegistry != null)) {
+            if (result instanceof VirtualThreadExecutor virtualThreadExecutor) {
+                virtualThreadExecutor.bindTo(meterRegistry);
+            } else {
+                new ExecutorServiceMetrics(result, aConfig.getName(), List.of()).bindTo(meterRegistry);
+            }
+        }
+
+        // virtual thread executors propagate the context themselves
+        if ((aConfig.isPropagateContext()) && (!(result instanceof VirtualThreadExecutor))) {
+            result = Correlation.propagate(result);
+        }
+
+        return result;
     }
 
     /**
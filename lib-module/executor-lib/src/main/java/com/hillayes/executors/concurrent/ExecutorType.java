@@ -8,5 +8,16 @@ public enum ExecutorType {
     CACHED,
     SCHEDULED,
     WORK_STEALING,
-    FIXED;
+    FIXED,
+    /**
+     * Starts a new virtual thread for each task. Suited to tasks that spend most of
+     * their time blocked on I/O (e.g. HTTP calls or Kafka polls).
+     */
+    VIRTUAL,
+    /**
+     * Starts a new virtual thread for each task, but limits the number of tasks that
+     * may run concurrently to the configured number of threads. Tasks submitted above
+     * that limit wait (without occupying an OS thread) until a running task completes.
+     */
+    BOUNDED_VIRTUAL;
 }
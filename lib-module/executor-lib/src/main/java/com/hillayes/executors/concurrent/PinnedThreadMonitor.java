@@ -0,0 +1,94 @@
+package com.hillayes.executors.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread (e.g. within
+ * a synchronized block, or a native call). A pinned virtual thread holds its OS thread
+ * for the duration of the block, negating the benefit of virtual threads and, if
+ * widespread, starving the carrier pool.
+ *
+ * The JDK's VirtualThreadPinned flight-recorder events are streamed in-process; each
+ * is logged, with the top of its stack, and counted in the "executor.pinned" metric,
+ * tagged with the name of the executor that started the thread.
+ */
+@Slf4j
+final class PinnedThreadMonitor {
+    /**
+     * Pinning for less than this duration is not reported.
+     */
+    static final Duration THRESHOLD = Duration.ofMillis(20);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int STACK_DEPTH = 5;
+
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private PinnedThreadMonitor() {
+    }
+
+    /**
+     * Starts the monitor, if not already started.
+     */
+    static void start() {
+        if (!started.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            RecordingStream stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(THRESHOLD).withStackTrace();
+            stream.onEvent(PINNED_EVENT, PinnedThreadMonitor::onPinned);
+            stream.startAsync();
+            log.debug("Virtual thread pinning monitor started [threshold: {}]", THRESHOLD);
+        } catch (RuntimeException | Error e) {
+            // flight-recorder may not be available (e.g. in a native image)
+            log.warn("Unable to monitor virtual thread pinning [reason: {}]", e.getMessage());
+        }
+    }
+
+    private static void onPinned(RecordedEvent event) {
+        RecordedThread thread = event.getThread();
+        String threadName = (thread == null) ? null : thread.getJavaName();
+        String executor = executorName(threadName);
+
+        Counter.builder("executor.pinned")
+            .tag("name", executor)
+            .description("The number of times a virtual thread blocked while pinned to its carrier")
+            .register(Metrics.globalRegistry)
+            .increment();
+
+        String stack = (event.getStackTrace() == null) ? "" : event.getStackTrace().getFrames().stream()
+            .limit(STACK_DEPTH)
+            .map(PinnedThreadMonitor::toString)
+            .collect(Collectors.joining(" <- "));
+        log.warn("Virtual thread pinned [thread: {}, duration: {}, stack: {}]",
+            threadName, event.getDuration(), stack);
+    }
+
+    /**
+     * Derives the executor name from the thread name, which is the executor name
+     * followed by a sequence number (e.g. "topic-consumer-worker-12").
+     */
+    static String executorName(String threadName) {
+        if ((threadName == null) || (threadName.isBlank())) {
+            return "unknown";
+        }
+        return threadName.replaceFirst("-\\d+$", "");
+    }
+
+    private static String toString(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+            + ":" + frame.getLineNumber();
+    }
+}
@@ -0,0 +1,175 @@
+package com.hillayes.executors.concurrent;
+
+import com.hillayes.commons.correlation.CorrelationContext;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An ExecutorService that starts a new virtual thread for each task. If a max
+ * concurrency is given, a semaphore limits the number of tasks that may run at
+ * the same time; the remaining tasks wait on their own (unmounted) virtual thread
+ * until a permit is released.
+ *
+ * The executor records the number of tasks that are active, queued (waiting for a
+ * permit) and completed; which may be bound to a MeterRegistry.
+ *
+ * If requested, each task runs with the correlation context of the thread that
+ * submitted it.
+ */
+@Slf4j
+class VirtualThreadExecutor extends AbstractExecutorService {
+    private final String name;
+    private final ExecutorService delegate;
+    private final Semaphore permits;
+    private final boolean propagateContext;
+
+    // set when shutdownNow() is called; tasks that have yet to start are then cancelled
+    private volatile boolean terminating = false;
+
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicInteger queuedCount = new AtomicInteger();
+    private final AtomicLong completedCount = new AtomicLong();
+
+    /**
+     * @param name the name of the executor, used as the prefix of its thread names.
+     * @param maxConcurrency the max number of tasks that may run concurrently, or
+     *     zero if unbounded.
+     * @param propagateContext true if the submitter's correlation context is to be
+     *     applied to each task.
+     */
+    VirtualThreadExecutor(String name, int maxConcurrency, boolean propagateContext) {
+        this.name = name;
+        this.delegate = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + '-', 1L).factory());
+        this.permits = (maxConcurrency > 0) ? new Semaphore(maxConcurrency, true) : null;
+        this.propagateContext = propagateContext;
+    }
+
+    /**
+     * Registers the executor's active, queued and completed task metrics, tagged
+     * with the executor's name.
+     */
+    VirtualThreadExecutor bindTo(MeterRegistry registry) {
+        Gauge.builder("executor.active", activeCount, AtomicInteger::get)
+            .tag("name", name)
+            .description("The number of tasks currently running")
+            .baseUnit("tasks")
+            .register(registry);
+        Gauge.builder("executor.queued", queuedCount, AtomicInteger::get)
+            .tag("name", name)
+            .description("The number of tasks waiting to run")
+            .baseUnit("tasks")
+            .register(registry);
+        FunctionCounter.builder("executor.completed", completedCount, AtomicLong::get)
+            .tag("name", name)
+            .description("The number of tasks that have completed")
+            .baseUnit("tasks")
+            .register(registry);
+        return this;
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int getQueuedCount() {
+        return queuedCount.get();
+    }
+
+    public long getCompletedCount() {
+        return completedCount.get();
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        CorrelationContext context = propagateContext ? CorrelationContext.capture() : null;
+        queuedCount.incrementAndGet();
+        try {
+            delegate.execute(() -> run(task, context));
+        } catch (RuntimeException e) {
+            queuedCount.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private void run(Runnable task, CorrelationContext context) {
+        if (permits != null) {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                // the executor was shut down while the task was waiting
+                cancel(task);
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            // the permit may have been passed on by a task interrupted by shutdownNow()
+            if (terminating) {
+                permits.release();
+                cancel(task);
+                return;
+            }
+        }
+
+        queuedCount.decrementAndGet();
+        activeCount.incrementAndGet();
+        try {
+            if (context != null) {
+                context.run(task);
+            } else {
+                task.run();
+            }
+        } finally {
+            activeCount.decrementAndGet();
+            completedCount.incrementAndGet();
+            if (permits != null) {
+                permits.release();
+            }
+        }
+    }
+
+    private void cancel(Runnable task) {
+        queuedCount.decrementAndGet();
+        if (task instanceof Future<?> future) {
+            future.cancel(false);
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        terminating = true;
+        return delegate.shutdownNow();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+
+    @Override
+    public String toString() {
+        return "VirtualThreadExecutor[name: " + name + ", active: " + activeCount.get()
+            + ", queued: " + queuedCount.get() + ", completed: " + completedCount.get() + "]";
+    }
+}
@@ -0,0 +1,28 @@
+package com.hillayes.executors.scheduler;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A summary of a task execution held in the scheduler's queue; either waiting to be
+ * picked-up or currently running.
+ *
+ * @param taskName the name of the task.
+ * @param taskInstance the identifier of the task instance.
+ * @param executionTime the date-time at which the execution was due.
+ * @param picked true if the execution has been picked-up by a scheduler node.
+ * @param pickedBy the name of the scheduler node that picked-up the execution.
+ * @param lastHeartbeat the date-time of the last heartbeat from the node running the execution.
+ * @param consecutiveFailures the number of times the execution has failed in a row.
+ * @param lag the time since the execution was due.
+ */
+public record ExecutionSummary(
+    String taskName,
+    String taskInstance,
+    Instant executionTime,
+    boolean picked,
+    String pickedBy,
+    Instant lastHeartbeat,
+    int consecutiveFailures,
+    Duration lag
+) {}
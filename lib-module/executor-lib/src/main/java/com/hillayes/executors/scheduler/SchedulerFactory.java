@@ -15,11 +15,12 @@ import com.hillayes.executors.scheduler.tasks.NamedAdhocTask;
 import com.hillayes.executors.scheduler.tasks.NamedScheduledTask;
 import com.hillayes.executors.scheduler.tasks.NamedTask;
 import com.hillayes.executors.scheduler.tasks.TaskConclusion;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Metrics;
-import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.sql.DataSource;
+import java.time.Clock;
 import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalTime;
@@ -45,13 +46,26 @@ import static java.lang.Math.round;
 public class SchedulerFactory {
     private final DataSource dataSource;
 
+    private final SchedulerConfig configuration;
+
     private final Scheduler scheduler;
 
     private final Map<String, Task<AdhocTaskData>> adhocTasks;
 
+    private final SchedulerMetrics metrics;
+
+    private final SchedulerTable schedulerTable;
+
     public SchedulerFactory(DataSource dataSource,
                             SchedulerConfig configuration,
                             Iterable<NamedTask> namedTasks) {
+        this(dataSource, configuration, namedTasks, Metrics.globalRegistry);
+    }
+
+    public SchedulerFactory(DataSource dataSource,
+                            SchedulerConfig configuration,
+                            Iterable<NamedTask> namedTasks,
+                            MeterRegistry meterRegistry) {
         log.info("Initialising SchedulerFactory");
         Set<String> names = new HashSet<>();
         namedTasks.forEach(task -> {
@@ -62,12 +76,21 @@ public class SchedulerFactory {
         });
 
         this.dataSource = dataSource;
+        this.configuration = configuration;
+        this.metrics = new SchedulerMetrics(meterRegistry);
+
+        String tableName = configuration.schema()
+            .map(schema -> schema + "." + "scheduled_tasks")
+            .orElse("scheduled_tasks");
+        this.schedulerTable = new SchedulerTable(dataSource, tableName, Clock.systemUTC());
 
         adhocTasks = createAdhocTasks(namedTasks, configuration);
         List<RecurringTask<?>> recurringTasks = createScheduledTasks(namedTasks, configuration);
 
-        scheduler = scheduleTasks(configuration, adhocTasks.values(), recurringTasks);
+        scheduler = scheduleTasks(configuration, tableName, adhocTasks.values(), recurringTasks);
         if (scheduler != null) {
+            metrics.bindQueue(schedulerTable);
+
             // inform all tasks that they have been started
             namedTasks.forEach(task -> task.taskInitialised(this));
         }
@@ -83,6 +106,29 @@ public class SchedulerFactory {
         }
     }
 
+    /**
+     * Lists the executions that are overdue; those that have not been picked-up within
+     * the given threshold of their execution time. A growing list suggests that the
+     * scheduler's thread count, or polling interval, cannot keep up with the load.
+     *
+     * @param threshold the period after which an execution is considered overdue.
+     * @param limit the max number of executions to be returned.
+     * @return the overdue executions; the oldest first.
+     */
+    public List<ExecutionSummary> listOverdueExecutions(Duration threshold, int limit) {
+        return schedulerTable.listOverdue(threshold, limit);
+    }
+
+    /**
+     * Lists the executions currently running, on any scheduler node.
+     *
+     * @param limit the max number of executions to be returned.
+     * @return the running executions; the oldest first.
+     */
+    public List<ExecutionSummary> listRunningExecutions(int limit) {
+        return schedulerTable.listRunning(limit);
+    }
+
     /**
      * Schedules an instance of the named Adhoc task, to process the given payload.
      *
@@ -132,6 +178,105 @@ public class SchedulerFactory {
         return addTask(adhocTask, payload, Instant.now());
     }
 
+    /**
+     * Schedules an instance of the named Adhoc task for each of the given payloads. The
+     * instances are inserted using JDBC batches, rather than a round-trip per instance;
+     * if called within a transaction, all instances are inserted within that transaction.
+     *
+     * The execution times of the instances are spread evenly over the given period,
+     * starting at the given Instant.
+     *
+     * @param adhocTaskName the name of the Adhoc task to pass the payloads to for processing.
+     * @param payloads the payloads to be processed; one task instance for each.
+     * @param when the date-time at which the first task instance is to be run.
+     * @param spread the period over which the task instances are to be spread.
+     * @return the unique identifiers of the queued task instances; in the order of the payloads.
+     */
+    protected List<String> addTasks(String adhocTaskName, Collection<?> payloads,
+                                    Instant when, Duration spread) {
+        Task<AdhocTaskData> task = adhocTasks.get(adhocTaskName);
+        if (task == null) {
+            throw new IllegalArgumentException("No Adhoc Task found named \"" + adhocTaskName + "\"");
+        }
+
+        if (payloads.isEmpty()) {
+            return List.of();
+        }
+
+        log.debug("Scheduling task batch [name: {}, size: {}, when: {}, spread: {}]",
+            task.getName(), payloads.size(), when, spread);
+
+        // schedule the tasks' payloads - with the caller's correlation ID
+        Optional<String> correlationId = Correlation.getCorrelationId();
+        List<Instant> times = spreadTimes(when, spread, payloads.size());
+        List<String> result = new ArrayList<>(payloads.size());
+        List<SchedulableInstance<?>> instances = new ArrayList<>(payloads.size());
+        Iterator<Instant> nextTime = times.iterator();
+        for (Object payload : payloads) {
+            String id = UUID.randomUUID().toString();
+            AdhocTaskData data = new AdhocTaskData(correlationId.orElse(id), payload);
+            instances.add(SchedulableInstance.of(task.instance(id, data), nextTime.next()));
+            result.add(id);
+        }
+
+        scheduler.scheduleBatch(instances);
+        return result;
+    }
+
+    /**
+     * Schedules an instance of the given Adhoc task for each of the given payloads.
+     * The instances are inserted in JDBC batches and, if called within a transaction,
+     * within that transaction. Their execution times are spread evenly over the given
+     * period, starting at the given Instant.
+     *
+     * @param adhocTask the Adhoc task to pass the payloads to for processing.
+     * @param payloads the payloads to be processed; one task instance for each.
+     * @param when the date-time at which the first task instance is to be run.
+     * @param spread the period over which the task instances are to be spread.
+     * @return the unique identifiers of the queued task instances; in the order of the payloads.
+     */
+    public List<String> addTasks(NamedAdhocTask<?> adhocTask, Collection<?> payloads,
+                                 Instant when, Duration spread) {
+        return addTasks(adhocTask.getName(), payloads, when, spread);
+    }
+
+    /**
+     * Schedules an instance of the given Adhoc task for each of the given payloads.
+     * The instances are inserted in JDBC batches and, if called within a transaction,
+     * within that transaction. Their execution times are spread over the task's
+     * configured batch-spread period, starting at the earliest opportunity.
+     *
+     * @param adhocTask the Adhoc task to pass the payloads to for processing.
+     * @param payloads the payloads to be processed; one task instance for each.
+     * @return the unique identifiers of the queued task instances; in the order of the payloads.
+     */
+    public List<String> addTasks(NamedAdhocTask<?> adhocTask, Collection<?> payloads) {
+        Duration spread = Optional.ofNullable(configuration.tasks().get(adhocTask.getName()))
+            .flatMap(NamedTaskConfig::batchSpread)
+            .orElse(Duration.ZERO);
+        return addTasks(adhocTask, payloads, Instant.now(), spread);
+    }
+
+    /**
+     * Calculates the execution times of a batch of task instances, spread evenly over
+     * the given period.
+     *
+     * @param when the execution time of the first instance.
+     * @param spread the period over which the instances are spread. The last instance
+     *     will be due before the end of this period.
+     * @param count the number of instances in the batch.
+     * @return the execution time of each instance, in ascending order.
+     */
+    static List<Instant> spreadTimes(Instant when, Duration spread, int count) {
+        List<Instant> result = new ArrayList<>(count);
+        long intervalNanos = ((spread == null) || (spread.isNegative()) || (count == 0))
+            ? 0 : spread.toNanos() / count;
+        for (int i = 0; i < count; i++) {
+            result.add(when.plusNanos(intervalNanos * i));
+        }
+        return result;
+    }
+
     /**
      * Configures the recurring tasks from the given collection of NamedTasks. Only
      * those tasks for which a configuration is given will be created.
@@ -164,11 +309,21 @@ public class SchedulerFactory {
                     handler.ifPresent(builder::onFailure);
 
                     // add task - with call-back to execute
-                    Timer timeMetric = Metrics.timer("scheduler.tasks.scheduled", "task", task.getName());
-                    result.add(builder.execute((inst, ctx) ->
+                    result.add(builder.execute((inst, ctx) -> {
+                        metrics.recordLag(SchedulerMetrics.SCHEDULED, task.getName(),
+                            ctx.getExecution().executionTime, Instant.now());
+
                         // call the task - use the task name as a correlation ID
-                        timeMetric.record(() -> Correlation.run(inst.getTaskAndInstance(), (Runnable) task))
-                    ));
+                        long start = System.nanoTime();
+                        try {
+                            Correlation.run(inst.getTaskAndInstance(), (Runnable) task);
+                        } catch (RuntimeException e) {
+                            metrics.recordExecution(SchedulerMetrics.SCHEDULED, task.getName(), "failed", System.nanoTime() - start);
+                            metrics.recordFailure(SchedulerMetrics.SCHEDULED, task.getName());
+                            throw e;
+                        }
+                        metrics.recordExecution(SchedulerMetrics.SCHEDULED, task.getName(), "complete", System.nanoTime() - start);
+                    }));
                 }
             }
         });
@@ -218,12 +373,22 @@ public class SchedulerFactory {
                         ctx.getExecution().consecutiveFailures,
                         inst.getData().repeatCount);
 
+                    metrics.recordLag(SchedulerMetrics.ADHOC, task.getName(),
+                        ctx.getExecution().executionTime, Instant.now());
+
                     // call the task using the correlation ID used when task was queued
                     final NamedAdhocTask<Object> function = (NamedAdhocTask<Object>) task;
-                    Timer timeMetric = Metrics.timer("scheduler.tasks.adhoc", "task", task.getName());
-                    TaskConclusion conclusion = timeMetric.record(() ->
-                        Correlation.call(inst.getData().correlationId, function, taskContext)
-                    );
+                    long start = System.nanoTime();
+                    TaskConclusion conclusion;
+                    try {
+                        conclusion = Correlation.call(inst.getData().correlationId, function, taskContext);
+                    } catch (RuntimeException e) {
+                        metrics.recordExecution(SchedulerMetrics.ADHOC, task.getName(), "failed", System.nanoTime() - start);
+                        metrics.recordFailure(SchedulerMetrics.ADHOC, task.getName());
+                        throw e;
+                    }
+                    metrics.recordExecution(SchedulerMetrics.ADHOC, task.getName(),
+                        conclusion.name().toLowerCase(), System.nanoTime() - start);
 
                     // if task has completed
                     if (conclusion == TaskConclusion.COMPLETE) {
@@ -241,6 +406,7 @@ public class SchedulerFactory {
                     // determine when, and if, the incomplete task should be repeated
                     Optional<Duration> repeatInterval = calcRepeatInterval(taskConfig, inst.getData().repeatCount);
                     if (repeatInterval.isPresent()) {
+                        metrics.recordRepeat(task.getName());
                         log.debug("Task not complete, rescheduling [instance: {}, repeatCount: {}, interval: {}]",
                             inst.getTaskAndInstance(), taskContext.getRepeatCount(), repeatInterval.get());
                         return new CompletionHandler.OnCompleteReschedule<>(
@@ -248,6 +414,7 @@ public class SchedulerFactory {
                     }
 
                     // max-repeats reached - fail the task
+                    metrics.recordAbort(task.getName(), "max-repeats");
                     log.error("{} has not completed after {} runs. Cancelling execution.",
                         ctx.getExecution().taskInstance, inst.getData().repeatCount);
 
@@ -280,11 +447,13 @@ public class SchedulerFactory {
      * adhoc and recurring tasks are started.
      *
      * @param configuration the scheduler configuration.
+     * @param tableName the name of the scheduler's DB table; including any schema.
      * @param adhocTasks the collection of Adhoc tasks to be started.
      * @param recurringTasks the collection of recurring tasks to be started.
      * @return the new scheduler. Will be null if no tasks are given.
      */
     private Scheduler scheduleTasks(SchedulerConfig configuration,
+                                    String tableName,
                                     Collection<Task<AdhocTaskData>> adhocTasks,
                                     Collection<RecurringTask<?>> recurringTasks) {
         if ((adhocTasks.isEmpty()) && (recurringTasks.isEmpty())) {
@@ -292,10 +461,6 @@ public class SchedulerFactory {
             return null;
         }
 
-        String tableName = configuration.schema()
-            .map(schema -> schema + "." + "scheduled_tasks")
-            .orElse("scheduled_tasks");
-
         log.info("Scheduling named scheduled tasks [tableName: {}, adhocSize: {}, recurringSize: {}]",
             tableName, adhocTasks.size(), recurringTasks.size());
 
@@ -439,6 +604,7 @@ public class SchedulerFactory {
             if (totalNumberOfFailures > this.maxRetries) {
                 log.error("Execution has failed {} times for task instance {}. Cancelling execution.", totalNumberOfFailures, executionComplete.getExecution().taskInstance);
                 executionOperations.stop();
+                metrics.recordAbort(executionComplete.getExecution().getTaskName(), "max-retries");
 
                 // schedule the abort task
                 if (onMaxRetryTaskName != null) {
@@ -0,0 +1,135 @@
+package com.hillayes.executors.scheduler;
+
+import com.hillayes.commons.caching.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+
+/**
+ * Records the telemetry of the scheduler's task executions; from which its thread
+ * count and polling interval can be sized. All meters are tagged with the task name.
+ * <ul>
+ *     <li>scheduler.tasks.adhoc / scheduler.tasks.scheduled: a histogram of the
+ *     execution times of each task, tagged with its outcome.</li>
+ *     <li>scheduler.tasks.lag: a histogram of the time between an execution being
+ *     due and it being picked-up.</li>
+ *     <li>scheduler.tasks.failures: a count of executions that failed with an exception.</li>
+ *     <li>scheduler.tasks.repeats: a count of adhoc executions that were INCOMPLETE and
+ *     rescheduled.</li>
+ *     <li>scheduler.tasks.aborts: a count of executions abandoned after their max-retry
+ *     (cause: max-retries) or max-repeats (cause: max-repeats).</li>
+ *     <li>scheduler.queue.due / scheduler.queue.running: the number of executions due
+ *     but not yet picked-up, and those running, across all nodes.</li>
+ * </ul>
+ */
+@Slf4j
+class SchedulerMetrics {
+    static final String ADHOC = "adhoc";
+    static final String SCHEDULED = "scheduled";
+
+    /**
+     * The queue depths are read from the DB, and cached for this duration to limit
+     * the load placed on the DB by the metrics scrape.
+     */
+    private static final Duration QUEUE_CACHE_TTL = Duration.ofSeconds(15);
+
+    private final MeterRegistry registry;
+
+    SchedulerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Registers the gauges that report the depth of the scheduler's queue.
+     */
+    void bindQueue(SchedulerTable table) {
+        Cache<String, Long> counts = new Cache<>(QUEUE_CACHE_TTL);
+        queueGauge("scheduler.queue.due", "The number of executions due but not picked-up",
+            counts, t -> table.countDue());
+        queueGauge("scheduler.queue.running", "The number of executions currently running",
+            counts, t -> table.countRunning());
+    }
+
+    private void queueGauge(String name, String description,
+                            Cache<String, Long> counts, ToLongFunction<String> query) {
+        Gauge.builder(name, counts, c -> {
+                try {
+                    return c.getValueOrCall(name, query::applyAsLong);
+                } catch (RuntimeException e) {
+                    log.debug("Failed to read scheduler queue depth [metric: {}]", name, e);
+                    return Double.NaN;
+                }
+            })
+            .description(description)
+            .register(registry);
+    }
+
+    /**
+     * Records the time between an execution being due and its being picked-up.
+     */
+    void recordLag(String type, String taskName, Instant due, Instant pickedUp) {
+        if ((due == null) || (pickedUp == null)) {
+            return;
+        }
+
+        Duration lag = Duration.between(due, pickedUp);
+        Timer.builder("scheduler.tasks.lag")
+            .tag("type", type)
+            .tag("task", taskName)
+            .description("The time between an execution being due and it being picked-up")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    /**
+     * Records the duration, and outcome, of an execution.
+     *
+     * @param outcome the outcome of the execution; e.g. complete, incomplete or failed.
+     */
+    void recordExecution(String type, String taskName, String outcome, long durationNanos) {
+        Timer.builder("scheduler.tasks." + type)
+            .tag("task", taskName)
+            .tag("outcome", outcome)
+            .description("The execution time of the task")
+            .publishPercentileHistogram()
+            .register(registry)
+            .record(durationNanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordFailure(String type, String taskName) {
+        Counter.builder("scheduler.tasks.failures")
+            .tag("type", type)
+            .tag("task", taskName)
+            .description("The number of executions that failed with an exception")
+            .register(registry)
+            .increment();
+    }
+
+    void recordRepeat(String taskName) {
+        Counter.builder("scheduler.tasks.repeats")
+            .tag("task", taskName)
+            .description("The number of executions that were incomplete and rescheduled")
+            .register(registry)
+            .increment();
+    }
+
+    /**
+     * @param cause the reason the execution was abandoned; max-retries or max-repeats.
+     */
+    void recordAbort(String taskName, String cause) {
+        Counter.builder("scheduler.tasks.aborts")
+            .tag("task", taskName)
+            .tag("cause", cause)
+            .description("The number of executions abandoned after their max retries or repeats")
+            .register(registry)
+            .increment();
+    }
+}
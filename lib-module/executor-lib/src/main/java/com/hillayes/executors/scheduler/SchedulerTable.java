@@ -0,0 +1,125 @@
+package com.hillayes.executors.scheduler;
+
+import javax.sql.DataSource;
+import java.sql.*;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Provides read-only queries over the db-scheduler table, to report on the depth of
+ * its queue. The timestamps are read, and written, in UTC; matching the scheduler's
+ * configuration.
+ */
+class SchedulerTable {
+    private static final String SELECT_COLUMNS =
+        "SELECT task_name, task_instance, execution_time, picked, picked_by, last_heartbeat, consecutive_failures ";
+
+    private final DataSource dataSource;
+    private final String tableName;
+    private final Clock clock;
+
+    SchedulerTable(DataSource dataSource, String tableName, Clock clock) {
+        this.dataSource = dataSource;
+        this.tableName = tableName;
+        this.clock = clock;
+    }
+
+    /**
+     * Lists the executions that have not been picked-up, and whose execution time is
+     * older than the given threshold. Ordered by execution time; oldest first.
+     */
+    List<ExecutionSummary> listOverdue(Duration threshold, int limit) {
+        String sql = SELECT_COLUMNS + "FROM " + tableName +
+            " WHERE picked = ? AND execution_time < ? ORDER BY execution_time";
+        return list(sql, limit, statement -> {
+            statement.setBoolean(1, false);
+            statement.setTimestamp(2, Timestamp.from(clock.instant().minus(threshold)), utc());
+        });
+    }
+
+    /**
+     * Lists the executions that have been picked-up, and are running. Ordered by
+     * execution time; oldest first.
+     */
+    List<ExecutionSummary> listRunning(int limit) {
+        String sql = SELECT_COLUMNS + "FROM " + tableName +
+            " WHERE picked = ? ORDER BY execution_time";
+        return list(sql, limit, statement -> statement.setBoolean(1, true));
+    }
+
+    /**
+     * Counts the executions that are due, but have not been picked-up.
+     */
+    long countDue() {
+        return count("SELECT COUNT(*) FROM " + tableName + " WHERE picked = ? AND execution_time <= ?", statement -> {
+            statement.setBoolean(1, false);
+            statement.setTimestamp(2, Timestamp.from(clock.instant()), utc());
+        });
+    }
+
+    /**
+     * Counts the executions that have been picked-up, and are running.
+     */
+    long countRunning() {
+        return count("SELECT COUNT(*) FROM " + tableName + " WHERE picked = ?", statement ->
+            statement.setBoolean(1, true));
+    }
+
+    private List<ExecutionSummary> list(String sql, int limit, Parameters parameters) {
+        Instant now = clock.instant();
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            parameters.set(statement);
+            statement.setMaxRows(limit);
+
+            List<ExecutionSummary> result = new ArrayList<>();
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    Instant executionTime = toInstant(rs.getTimestamp("execution_time", utc()));
+                    result.add(new ExecutionSummary(
+                        rs.getString("task_name"),
+                        rs.getString("task_instance"),
+                        executionTime,
+                        rs.getBoolean("picked"),
+                        rs.getString("picked_by"),
+                        toInstant(rs.getTimestamp("last_heartbeat", utc())),
+                        rs.getInt("consecutive_failures"),
+                        (executionTime == null) ? Duration.ZERO : Duration.between(executionTime, now)
+                    ));
+                }
+            }
+            return result;
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query scheduler table [table: " + tableName + "]", e);
+        }
+    }
+
+    private long count(String sql, Parameters parameters) {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            parameters.set(statement);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to query scheduler table [table: " + tableName + "]", e);
+        }
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return (timestamp == null) ? null : timestamp.toInstant();
+    }
+
+    private static Calendar utc() {
+        return Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+    }
+
+    private interface Parameters {
+        void set(PreparedStatement statement) throws SQLException;
+    }
+}
@@ -1,5 +1,6 @@
 package com.hillayes.executors.scheduler.config;
 
+import java.time.Duration;
 import java.util.Optional;
 
 /**
@@ -22,4 +23,11 @@ public interface NamedTaskConfig {
      * Determines how a task is to be retried should it return an INCOMPLETE conclusion.
      */
     Optional<RetryConfig> onIncomplete();
+
+    /**
+     * The period over which the execution times of a batch of NamedAdhocTask instances,
+     * queued together, are spread; to smooth the load that would otherwise arise from
+     * all instances being due at once. Not used by NamedScheduledTasks.
+     */
+    Optional<Duration> batchSpread();
 }
@@ -2,7 +2,10 @@ package com.hillayes.executors.scheduler.tasks;
 
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
 
 @Slf4j
 public abstract class AbstractNamedAdhocTask<T>
@@ -31,4 +34,23 @@ public abstract class AbstractNamedAdhocTask<T>
         log.info("Queuing {} task [payload: {}, when: {}]", getName(), payload, when.toString());
         return scheduler.addTask(this, payload, when);
     }
+
+    /**
+     * Queues an instance of this task for each of the given payloads, in a single
+     * batch. The execution times of the instances are spread over the task's
+     * configured batch-spread period.
+     *
+     * @param payloads the data to be processed; one task instance for each.
+     * @return the identifiers of the queued task instances.
+     */
+    @Override
+    public List<String> queueTasks(Collection<T> payloads) {
+        log.info("Queuing {} tasks [size: {}]", getName(), payloads.size());
+        return scheduler.addTasks(this, payloads);
+    }
+
+    public List<String> queueTasks(Collection<T> payloads, Instant when, Duration spread) {
+        log.info("Queuing {} tasks [size: {}, when: {}, spread: {}]", getName(), payloads.size(), when, spread);
+        return scheduler.addTasks(this, payloads, when, spread);
+    }
 }
@@ -2,6 +2,8 @@ package com.hillayes.executors.scheduler.tasks;
 
 import com.hillayes.executors.scheduler.TaskContext;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.function.Function;
 
 public interface NamedAdhocTask<T>
@@ -14,4 +16,14 @@ public interface NamedAdhocTask<T>
      * @return the identifier of the queued task instance.
      */
     public String queueTask(T payload);
+
+    /**
+     * Queues an instance of this task for each of the given payloads, in a single
+     * batch. The execution times of the instances are spread over the task's
+     * configured batch-spread period.
+     *
+     * @param payloads the data to be processed; one task instance for each.
+     * @return the identifiers of the queued task instances.
+     */
+    public List<String> queueTasks(Collection<T> payloads);
 }
@@ -0,0 +1,169 @@
+package com.hillayes.executors.concurrent;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentCallsTest {
+    private final ExecutorService executor = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+        .name("test-calls")
+        .executorType(ExecutorType.BOUNDED_VIRTUAL)
+        .numberOfThreads(4)
+        .build());
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testCallsRunConcurrently() {
+        // given: three calls that each take 200 millis
+        Callable<String> call = () -> {
+            Thread.sleep(200);
+            return Thread.currentThread().getName();
+        };
+
+        // when: the calls are forked and joined
+        long start = System.nanoTime();
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofSeconds(5))) {
+            Future<String> a = calls.fork(call);
+            Future<String> b = calls.fork(call);
+            Future<String> c = calls.fork(call);
+
+            // then: each result is returned
+            assertNotNull(calls.join(a));
+            assertNotNull(calls.join(b));
+            assertNotNull(calls.join(c));
+        }
+
+        // and: the calls ran concurrently - taking less than their sum
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        assertTrue(elapsed.toMillis() < 550, "Elapsed: " + elapsed);
+    }
+
+    @Test
+    public void testConcurrencyIsLimited() {
+        // given: an executor that allows only one call at a time
+        ExecutorService serial = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name("test-serial")
+            .executorType(ExecutorType.BOUNDED_VIRTUAL)
+            .numberOfThreads(1)
+            .build());
+
+        // when: two calls, each taking 200 millis, are forked and joined
+        long start = System.nanoTime();
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(serial, Duration.ofSeconds(5))) {
+            Future<Integer> a = calls.fork(() -> { Thread.sleep(200); return 1; });
+            Future<Integer> b = calls.fork(() -> { Thread.sleep(200); return 2; });
+            assertEquals(1, calls.join(a));
+            assertEquals(2, calls.join(b));
+        } finally {
+            serial.shutdownNow();
+        }
+
+        // then: the calls ran one after the other
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        assertTrue(elapsed.toMillis() >= 400, "Elapsed: " + elapsed);
+    }
+
+    @Test
+    public void testJoin_UncheckedFailure() {
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofSeconds(5))) {
+            // given: a required call that fails with an unchecked exception
+            Future<String> call = calls.fork(() -> { throw new IllegalStateException("failed"); });
+
+            // when: the call is joined
+            // then: the exception is re-thrown
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> calls.join(call));
+            assertEquals("failed", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void testJoin_CheckedFailure() {
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofSeconds(5))) {
+            // given: a required call that fails with a checked exception
+            Future<String> call = calls.fork(() -> { throw new IOException("failed"); });
+
+            // when: the call is joined
+            // then: the exception is re-thrown as the cause of a CompletionException
+            CompletionException exception = assertThrows(CompletionException.class, () -> calls.join(call));
+            assertInstanceOf(IOException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    public void testJoin_Timeout() {
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofMillis(100))) {
+            // given: a required call that takes longer than the timeout
+            Future<String> call = calls.fork(() -> { Thread.sleep(5000); return "late"; });
+
+            // when: the call is joined
+            // then: a timeout exception is raised
+            CallTimeoutException exception = assertThrows(CallTimeoutException.class, () -> calls.join(call));
+            assertEquals(Duration.ofMillis(100), exception.getTimeout());
+
+            // and: the call is cancelled
+            assertTrue(call.isCancelled());
+        }
+    }
+
+    @Test
+    public void testTimeoutIsShared() {
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofMillis(300))) {
+            // given: two calls; each completing within the timeout, but not in sum
+            Future<String> a = calls.fork(() -> { Thread.sleep(200); return "a"; });
+            Future<String> b = calls.fork(() -> { Thread.sleep(2000); return "b"; });
+
+            // when: the calls are joined
+            // then: the first is returned
+            assertEquals("a", calls.join(a));
+
+            // and: the second is timed-out by the remaining time
+            long start = System.nanoTime();
+            assertThrows(CallTimeoutException.class, () -> calls.join(b));
+            assertTrue(Duration.ofNanos(System.nanoTime() - start).toMillis() < 300);
+        }
+    }
+
+    @Test
+    public void testJoinOrElse() {
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofMillis(200))) {
+            // given: a call that succeeds
+            Future<String> success = calls.fork(() -> "success");
+
+            // and: a call that fails
+            Future<String> failure = calls.fork(() -> { throw new IllegalStateException("failed"); });
+
+            // and: a call that times out
+            Future<String> late = calls.fork(() -> { Thread.sleep(5000); return "late"; });
+
+            // when: the calls are joined with a fallback
+            // then: the successful call's result is returned
+            assertEquals("success", calls.joinOrElse(success, () -> "fallback"));
+
+            // and: the fallback is returned for the failed calls
+            assertEquals("fallback", calls.joinOrElse(failure, () -> "fallback"));
+            assertEquals("fallback", calls.joinOrElse(late, () -> "fallback"));
+        }
+    }
+
+    @Test
+    public void testCloseCancelsCalls() {
+        // given: a call that is in progress
+        Future<String> call;
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(executor, Duration.ofSeconds(5))) {
+            call = calls.fork(() -> { Thread.sleep(5000); return "late"; });
+        }
+
+        // when: the group is closed
+        // then: the call is cancelled
+        assertTrue(call.isCancelled());
+    }
+}
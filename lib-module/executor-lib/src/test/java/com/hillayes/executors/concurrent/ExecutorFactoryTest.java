@@ -0,0 +1,249 @@
+package com.hillayes.executors.concurrent;
+
+import com.hillayes.commons.correlation.Correlation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorFactoryTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    @AfterEach
+    public void shutdown() {
+        executors.forEach(ExecutorService::shutdownNow);
+    }
+
+    @Test
+    public void testVirtual() throws Exception {
+        // given: a virtual thread executor
+        ExecutorService executor = newExecutor(ExecutorType.VIRTUAL, "test-virtual", 1);
+
+        // when: a task is submitted
+        Future<Thread> result = executor.submit(Thread::currentThread);
+
+        // then: the task runs on a named virtual thread
+        Thread thread = result.get(5, TimeUnit.SECONDS);
+        assertTrue(thread.isVirtual());
+        assertTrue(thread.getName().startsWith("test-virtual-"));
+    }
+
+    @Test
+    public void testVirtualIsUnbounded() throws Exception {
+        // given: a virtual thread executor
+        ExecutorService executor = newExecutor(ExecutorType.VIRTUAL, "test-unbounded", 1);
+
+        // when: more tasks are submitted than there are CPUs - each blocking until all have started
+        int taskCount = Runtime.getRuntime().availableProcessors() * 10;
+        CountDownLatch started = new CountDownLatch(taskCount);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < taskCount; i++) {
+            results.add(executor.submit(() -> {
+                started.countDown();
+                return started.await(5, TimeUnit.SECONDS);
+            }));
+        }
+
+        // then: all tasks run concurrently
+        for (Future<?> result : results) {
+            assertEquals(Boolean.TRUE, result.get(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    public void testBoundedVirtual() throws Exception {
+        // given: a bounded virtual thread executor
+        int maxConcurrency = 3;
+        VirtualThreadExecutor executor = (VirtualThreadExecutor)
+            newExecutor(ExecutorType.BOUNDED_VIRTUAL, "test-bounded", maxConcurrency);
+
+        // when: more tasks are submitted than may run concurrently
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            results.add(executor.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await();
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+
+        // then: only the max number of tasks are active - the rest are queued
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.getActiveCount() == maxConcurrency);
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.getQueuedCount() == 7);
+        assertEquals(maxConcurrency, meterRegistry.get("executor.active").tag("name", "test-bounded").gauge().value());
+        assertEquals(7, meterRegistry.get("executor.queued").tag("name", "test-bounded").gauge().value());
+
+        // when: the tasks are released
+        release.countDown();
+        for (Future<?> result : results) {
+            result.get(5, TimeUnit.SECONDS);
+        }
+
+        // then: the concurrency was never exceeded
+        assertEquals(maxConcurrency, maxRunning.get());
+
+        // and: all tasks are recorded as completed
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.getCompletedCount() == 10);
+        assertEquals(0, executor.getActiveCount());
+        assertEquals(0, executor.getQueuedCount());
+        assertEquals(10, meterRegistry.get("executor.completed").tag("name", "test-bounded").functionCounter().count());
+    }
+
+    @Test
+    public void testBoundedVirtual_Shutdown() throws Exception {
+        // given: a bounded virtual thread executor with a running task
+        VirtualThreadExecutor executor = (VirtualThreadExecutor)
+            newExecutor(ExecutorType.BOUNDED_VIRTUAL, "test-bounded-shutdown", 1);
+        CountDownLatch release = new CountDownLatch(1);
+        executor.submit(() -> { release.await(); return null; });
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.getActiveCount() == 1);
+
+        // and: a task waiting to run
+        Future<?> waiting = executor.submit(() -> null);
+        await().atMost(Duration.ofSeconds(5)).until(() -> executor.getQueuedCount() == 1);
+
+        // when: the executor is shutdown
+        executor.shutdownNow();
+
+        // then: the waiting task is cancelled
+        await().atMost(Duration.ofSeconds(5)).until(waiting::isDone);
+        assertTrue(waiting.isCancelled());
+        assertEquals(0, executor.getQueuedCount());
+    }
+
+    @Test
+    public void testPlatformExecutorMetrics() throws Exception {
+        // given: a fixed thread pool executor
+        ExecutorService executor = newExecutor(ExecutorType.FIXED, "test-fixed", 2);
+
+        // when: some tasks are run
+        for (int i = 0; i < 5; i++) {
+            executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+        }
+
+        // then: the executor's metrics are recorded
+        await().atMost(Duration.ofSeconds(5)).until(() ->
+            meterRegistry.get("executor.completed").tag("name", "test-fixed").functionCounter().count() == 5);
+        assertNotNull(meterRegistry.get("executor.active").tag("name", "test-fixed").gauge());
+        assertNotNull(meterRegistry.get("executor.queued").tag("name", "test-fixed").gauge());
+    }
+
+    @Test
+    public void testScheduledType() {
+        // the scheduled executor may still be cast, although wrapped to propagate context
+        ExecutorService executor = newExecutor(ExecutorType.SCHEDULED, "test-scheduled", 1);
+        assertInstanceOf(ScheduledExecutorService.class, executor);
+    }
+
+    @Test
+    public void testContextPropagation() throws Exception {
+        for (ExecutorType type : ExecutorType.values()) {
+            // given: an executor of each type
+            ExecutorService executor = newExecutor(type, "test-context-" + type.name().toLowerCase(), 1);
+
+            try {
+                // when: a task is submitted with a correlation ID
+                Correlation.setCorrelationId("correlation-" + type);
+                Future<Optional<String>> result = executor.submit(Correlation::getCorrelationId);
+
+                // and: another is submitted without
+                Correlation.setCorrelationId(null);
+                Future<Optional<String>> noContext = executor.submit(Correlation::getCorrelationId);
+
+                // then: each task runs with the submitter's correlation ID
+                assertEquals("correlation-" + type, result.get(5, TimeUnit.SECONDS).orElse(null), type.name());
+                assertTrue(noContext.get(5, TimeUnit.SECONDS).isEmpty(), type.name());
+            } finally {
+                Correlation.setCorrelationId(null);
+            }
+        }
+    }
+
+    @Test
+    public void testContextPropagationDisabled() throws Exception {
+        // given: an executor that does not propagate context
+        ExecutorService executor = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name("test-no-context")
+            .executorType(ExecutorType.FIXED)
+            .propagateContext(false)
+            .build(), meterRegistry);
+        executors.add(executor);
+
+        // and: its thread was started without a correlation ID (new threads inherit the MDC)
+        Correlation.setCorrelationId(null);
+        executor.submit(() -> null).get(5, TimeUnit.SECONDS);
+
+        try {
+            // when: a task is submitted with a correlation ID
+            Correlation.setCorrelationId("not-propagated");
+            Future<Optional<String>> result = executor.submit(Correlation::getCorrelationId);
+
+            // then: the task runs without the correlation ID
+            assertTrue(result.get(5, TimeUnit.SECONDS).isEmpty());
+        } finally {
+            Correlation.setCorrelationId(null);
+        }
+    }
+
+    @Test
+    public void testPinningDetection() throws Exception {
+        // given: the pinned events are recorded in the global registry
+        SimpleMeterRegistry globalRegistry = new SimpleMeterRegistry();
+        Metrics.globalRegistry.add(globalRegistry);
+        try {
+            // and: a virtual thread executor
+            ExecutorService executor = newExecutor(ExecutorType.VIRTUAL, "test-pinned", 1);
+
+            // when: a task blocks within a synchronized block - pinning its carrier thread
+            Object lock = new Object();
+            executor.submit(() -> {
+                synchronized (lock) {
+                    Thread.sleep(PinnedThreadMonitor.THRESHOLD.multipliedBy(5).toMillis());
+                }
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+
+            // then: the pinning is reported against the executor
+            await().atMost(Duration.ofSeconds(10)).until(() -> {
+                Counter counter = globalRegistry.find("executor.pinned").tag("name", "test-pinned").counter();
+                return (counter != null) && (counter.count() > 0);
+            });
+        } finally {
+            Metrics.globalRegistry.remove(globalRegistry);
+        }
+    }
+
+    @Test
+    public void testExecutorName() {
+        assertEquals("topic-consumer-worker", PinnedThreadMonitor.executorName("topic-consumer-worker-12"));
+        assertEquals("worker", PinnedThreadMonitor.executorName("worker"));
+        assertEquals("unknown", PinnedThreadMonitor.executorName(""));
+        assertEquals("unknown", PinnedThreadMonitor.executorName(null));
+    }
+
+    private ExecutorService newExecutor(ExecutorType type, String name, int numberOfThreads) {
+        ExecutorService result = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name(name)
+            .executorType(type)
+            .numberOfThreads(numberOfThreads)
+            .build(), meterRegistry);
+        executors.add(result);
+        return result;
+    }
+}
@@ -13,15 +13,15 @@ import org.awaitility.Awaitility;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.UUID;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @Slf4j
 public class AdhocTaskTest extends TestBase {
@@ -553,6 +553,85 @@ public class AdhocTaskTest extends TestBase {
         fixture.stop();
     }
 
+    @Test
+    public void testTaskBatch() {
+        final Map<String, Instant> runs = new ConcurrentHashMap<>();
+
+        NamedAdhocTask<String> task = new TestAdhocTask<>() {
+            public TaskConclusion apply(TaskContext<String> context) {
+                log.info("Task {} is running", context.getPayload());
+                runs.put(context.getPayload(), Instant.now());
+                return TaskConclusion.COMPLETE;
+            }
+        };
+
+        SchedulerFactory fixture = new SchedulerFactory(getDatasource(),
+            SchedulerConfigImpl.builder()
+                .pollingInterval(Duration.ofSeconds(1))
+                .tasks(Map.of(
+                    task.getName(), NamedTaskConfigImpl.builder()
+                        .batchSpread(Duration.ofSeconds(4))
+                        .build()
+                ))
+                .build(), List.of(task));
+
+        // queue a batch of tasks - spread over 4 seconds
+        List<String> payloads = List.of("one", "two", "three", "four");
+        Instant start = Instant.now();
+        List<String> ids = task.queueTasks(payloads);
+
+        // an ID is returned for each payload
+        assertEquals(payloads.size(), ids.size());
+        assertEquals(payloads.size(), Set.copyOf(ids).size());
+
+        // wait for tasks to complete
+        Awaitility.await()
+            .pollInterval(Duration.ofSeconds(1))
+            .atMost(Duration.ofSeconds(20))
+            .until(() -> runs.size() == payloads.size());
+
+        // the last task was not run until its spread execution time
+        assertTrue(runs.get("four").isAfter(start.plusSeconds(3)));
+
+        fixture.stop();
+    }
+
+    @Test
+    public void testTaskBatchEmpty() {
+        NamedAdhocTask<String> task = new TestAdhocTask<>() {
+            public TaskConclusion apply(TaskContext<String> context) {
+                return TaskConclusion.COMPLETE;
+            }
+        };
+
+        SchedulerFactory fixture = new SchedulerFactory(getDatasource(),
+            SchedulerConfigImpl.builder()
+                .tasks(Collections.emptyMap())
+                .build(), List.of(task));
+
+        assertTrue(task.queueTasks(List.of()).isEmpty());
+
+        fixture.stop();
+    }
+
+    @Test
+    public void testSpreadTimes() {
+        Instant when = Instant.now();
+
+        // times are spread evenly over the period - the last before the period ends
+        List<Instant> times = SchedulerFactory.spreadTimes(when, Duration.ofSeconds(10), 4);
+        assertEquals(List.of(when, when.plusMillis(2500), when.plusSeconds(5), when.plusMillis(7500)), times);
+
+        // no spread - all are due at once
+        times = SchedulerFactory.spreadTimes(when, Duration.ZERO, 3);
+        assertEquals(List.of(when, when, when), times);
+
+        times = SchedulerFactory.spreadTimes(when, null, 2);
+        assertEquals(List.of(when, when), times);
+
+        assertTrue(SchedulerFactory.spreadTimes(when, Duration.ofSeconds(10), 0).isEmpty());
+    }
+
     private static abstract class TestAdhocTask<T> extends AbstractNamedAdhocTask<T> {
         TestAdhocTask() {
             this("test-tasks");
@@ -0,0 +1,105 @@
+package com.hillayes.executors.scheduler;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+public class SchedulerMetricsTest {
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final SchedulerMetrics fixture = new SchedulerMetrics(registry);
+
+    @Test
+    public void testRecordExecution() {
+        // when: executions are recorded
+        fixture.recordExecution(SchedulerMetrics.ADHOC, "task-a", "complete", Duration.ofMillis(200).toNanos());
+        fixture.recordExecution(SchedulerMetrics.ADHOC, "task-a", "complete", Duration.ofMillis(400).toNanos());
+        fixture.recordExecution(SchedulerMetrics.ADHOC, "task-a", "incomplete", Duration.ofMillis(100).toNanos());
+        fixture.recordExecution(SchedulerMetrics.SCHEDULED, "task-b", "failed", Duration.ofMillis(50).toNanos());
+
+        // then: the executions are recorded by task and outcome
+        assertEquals(2, registry.get("scheduler.tasks.adhoc").tag("task", "task-a").tag("outcome", "complete").timer().count());
+        assertEquals(600, registry.get("scheduler.tasks.adhoc").tag("task", "task-a").tag("outcome", "complete").timer()
+            .totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(1, registry.get("scheduler.tasks.adhoc").tag("task", "task-a").tag("outcome", "incomplete").timer().count());
+        assertEquals(1, registry.get("scheduler.tasks.scheduled").tag("task", "task-b").tag("outcome", "failed").timer().count());
+    }
+
+    @Test
+    public void testRecordLag() {
+        Instant due = Instant.now();
+
+        // when: the lag of executions is recorded
+        fixture.recordLag(SchedulerMetrics.ADHOC, "task-a", due, due.plusSeconds(3));
+        fixture.recordLag(SchedulerMetrics.ADHOC, "task-a", due, due.plusSeconds(1));
+
+        // and: an execution picked-up before it was due (clock skew between nodes)
+        fixture.recordLag(SchedulerMetrics.ADHOC, "task-a", due, due.minusSeconds(1));
+
+        // and: an execution with no due time
+        fixture.recordLag(SchedulerMetrics.ADHOC, "task-a", null, due);
+
+        // then: the lag is recorded - negative lags as zero
+        var timer = registry.get("scheduler.tasks.lag").tag("task", "task-a").tag("type", "adhoc").timer();
+        assertEquals(3, timer.count());
+        assertEquals(4000, timer.totalTime(TimeUnit.MILLISECONDS), 0.001);
+        assertEquals(3000, timer.max(TimeUnit.MILLISECONDS), 0.001);
+    }
+
+    @Test
+    public void testCounters() {
+        // when: failures, repeats and aborts are recorded
+        fixture.recordFailure(SchedulerMetrics.ADHOC, "task-a");
+        fixture.recordFailure(SchedulerMetrics.ADHOC, "task-a");
+        fixture.recordRepeat("task-a");
+        fixture.recordAbort("task-a", "max-retries");
+        fixture.recordAbort("task-a", "max-repeats");
+        fixture.recordAbort("task-a", "max-repeats");
+
+        // then: the counts are recorded by task
+        assertEquals(2, registry.get("scheduler.tasks.failures").tag("task", "task-a").counter().count());
+        assertEquals(1, registry.get("scheduler.tasks.repeats").tag("task", "task-a").counter().count());
+        assertEquals(1, registry.get("scheduler.tasks.aborts").tag("task", "task-a").tag("cause", "max-retries").counter().count());
+        assertEquals(2, registry.get("scheduler.tasks.aborts").tag("task", "task-a").tag("cause", "max-repeats").counter().count());
+    }
+
+    @Test
+    public void testQueueGauges() {
+        // given: a scheduler table with executions
+        SchedulerTable table = mock();
+        when(table.countDue()).thenReturn(12L);
+        when(table.countRunning()).thenReturn(3L);
+
+        // when: the queue gauges are bound
+        fixture.bindQueue(table);
+
+        // then: the gauges report the queue depth
+        assertEquals(12, registry.get("scheduler.queue.due").gauge().value());
+        assertEquals(3, registry.get("scheduler.queue.running").gauge().value());
+
+        // and: the depth is cached between reads
+        registry.get("scheduler.queue.due").gauge().value();
+        registry.get("scheduler.queue.running").gauge().value();
+        verify(table, times(1)).countDue();
+        verify(table, times(1)).countRunning();
+    }
+
+    @Test
+    public void testQueueGauges_QueryFails() {
+        // given: a scheduler table that cannot be read
+        SchedulerTable table = mock();
+        when(table.countDue()).thenThrow(new IllegalStateException("db down"));
+
+        // when: the queue gauges are bound
+        fixture.bindQueue(table);
+
+        // then: the gauge reports no value
+        assertTrue(Double.isNaN(registry.get("scheduler.queue.due").gauge().value()));
+    }
+}
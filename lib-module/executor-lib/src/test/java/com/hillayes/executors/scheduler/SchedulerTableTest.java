@@ -0,0 +1,101 @@
+package com.hillayes.executors.scheduler;
+
+import com.hillayes.executors.scheduler.helpers.TestBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SchedulerTableTest extends TestBase {
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+    private final SchedulerTable fixture =
+        new SchedulerTable(getDatasource(), "scheduled_tasks", Clock.fixed(now, ZoneOffset.UTC));
+
+    @AfterEach
+    public void cleanUp() throws SQLException {
+        try (Connection connection = getDatasource().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM scheduled_tasks WHERE task_name LIKE 'table-test-%'");
+        }
+    }
+
+    @Test
+    public void testListOverdue() throws SQLException {
+        // given: executions due at various times
+        insert("table-test-a", "1", now.minus(Duration.ofMinutes(10)), false, null);
+        insert("table-test-a", "2", now.minus(Duration.ofMinutes(5)), false, null);
+        insert("table-test-a", "3", now.minus(Duration.ofSeconds(10)), false, null);
+        insert("table-test-a", "4", now.plus(Duration.ofMinutes(5)), false, null);
+
+        // and: a running execution that is long overdue
+        insert("table-test-b", "1", now.minus(Duration.ofMinutes(20)), true, "node-1");
+
+        // when: the executions overdue by more than a minute are listed
+        List<ExecutionSummary> result = fixture.listOverdue(Duration.ofMinutes(1), 10);
+
+        // then: only those not picked-up, and due over a minute ago, are returned - oldest first
+        assertEquals(2, result.size());
+        assertEquals("1", result.get(0).taskInstance());
+        assertEquals(now.minus(Duration.ofMinutes(10)), result.get(0).executionTime());
+        assertEquals(Duration.ofMinutes(10), result.get(0).lag());
+        assertFalse(result.get(0).picked());
+        assertEquals("2", result.get(1).taskInstance());
+
+        // and: the count of due executions includes all that are due
+        assertEquals(3, fixture.countDue());
+
+        // and: the limit is applied
+        assertEquals(1, fixture.listOverdue(Duration.ofMinutes(1), 1).size());
+    }
+
+    @Test
+    public void testListRunning() throws SQLException {
+        // given: executions that are running, and waiting
+        insert("table-test-a", "1", now.minus(Duration.ofMinutes(2)), true, "node-1");
+        insert("table-test-a", "2", now.minus(Duration.ofMinutes(1)), true, "node-2");
+        insert("table-test-a", "3", now.minus(Duration.ofMinutes(3)), false, null);
+
+        // when: the running executions are listed
+        List<ExecutionSummary> result = fixture.listRunning(10);
+
+        // then: only the picked executions are returned - oldest first
+        assertEquals(2, result.size());
+        assertEquals("node-1", result.get(0).pickedBy());
+        assertTrue(result.get(0).picked());
+        assertEquals("node-2", result.get(1).pickedBy());
+
+        // and: the count of running executions matches
+        assertEquals(2, fixture.countRunning());
+    }
+
+    private void insert(String taskName, String instance, Instant executionTime,
+                        boolean picked, String pickedBy) throws SQLException {
+        Calendar utc = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        try (Connection connection = getDatasource().getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                 "INSERT INTO scheduled_tasks (task_name, task_instance, execution_time, picked, picked_by, " +
+                     "last_heartbeat, consecutive_failures, version) VALUES (?, ?, ?, ?, ?, ?, 0, 1)")) {
+            statement.setString(1, taskName);
+            statement.setString(2, instance);
+            statement.setTimestamp(3, Timestamp.from(executionTime), utc);
+            statement.setBoolean(4, picked);
+            statement.setString(5, pickedBy);
+            statement.setTimestamp(6, picked ? Timestamp.from(now) : null, utc);
+            statement.executeUpdate();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import com.hillayes.executors.scheduler.config.NamedTaskConfig;
 import com.hillayes.executors.scheduler.config.RetryConfig;
 import lombok.Builder;
 
+import java.time.Duration;
 import java.util.Optional;
 
 @Builder
@@ -12,6 +13,7 @@ public class NamedTaskConfigImpl implements NamedTaskConfig {
     private FrequencyConfig frequency;
     private RetryConfig onFailure;
     private RetryConfig onIncomplete;
+    private Duration batchSpread;
 
     @Override
     public Optional<FrequencyConfig> frequency() {
@@ -27,4 +29,9 @@ public class NamedTaskConfigImpl implements NamedTaskConfig {
     public Optional<RetryConfig> onIncomplete() {
         return Optional.ofNullable(onIncomplete);
     }
+
+    @Override
+    public Optional<Duration> batchSpread() {
+        return Optional.ofNullable(batchSpread);
+    }
 }
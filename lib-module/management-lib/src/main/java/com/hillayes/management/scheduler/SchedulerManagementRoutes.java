@@ -0,0 +1,124 @@
+package com.hillayes.management.scheduler;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.hillayes.commons.json.MapperFactory;
+import com.hillayes.executors.scheduler.ExecutionSummary;
+import com.hillayes.executors.scheduler.SchedulerFactory;
+import io.quarkus.vertx.http.ManagementInterface;
+import io.vertx.ext.web.RoutingContext;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.inject.Instance;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Adds an endpoint to the management interface (not the public API) that lists the
+ * scheduler's overdue and running task executions:
+ * <pre>
+ *   GET /management/scheduler/executions?overdue-threshold=PT1M&limit=100
+ * </pre>
+ * Used alongside the scheduler.* metrics to size the scheduler's thread-count and
+ * polling-interval. If the service has no scheduler, the endpoint responds 404.
+ */
+@ApplicationScoped
+@Slf4j
+public class SchedulerManagementRoutes {
+    private static final Duration DEFAULT_OVERDUE_THRESHOLD = Duration.ofMinutes(1);
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private final Instance<SchedulerFactory> schedulerFactory;
+    private final String rootPath;
+
+    public SchedulerManagementRoutes(Instance<SchedulerFactory> schedulerFactory,
+                                     @ConfigProperty(name = "quarkus.management.root-path", defaultValue = "q")
+                                     String rootPath) {
+        this.schedulerFactory = schedulerFactory;
+        this.rootPath = rootPath;
+    }
+
+    public void registerRoutes(@Observes ManagementInterface managementInterface) {
+        String path = "/" + rootPath + "/scheduler/executions";
+        log.debug("Registering scheduler management route [path: {}]", path);
+        managementInterface.router().get(path).blockingHandler(this::listExecutions);
+    }
+
+    private void listExecutions(RoutingContext context) {
+        if (!schedulerFactory.isResolvable()) {
+            context.response().setStatusCode(404).end();
+            return;
+        }
+
+        Duration threshold;
+        int limit;
+        try {
+            threshold = parseDuration(context.queryParams().get("overdue-threshold"));
+            limit = parseLimit(context.queryParams().get("limit"));
+        } catch (IllegalArgumentException e) {
+            context.response().setStatusCode(400).end(e.getMessage());
+            return;
+        }
+
+        SchedulerFactory scheduler = schedulerFactory.get();
+        ExecutionsResponse response = new ExecutionsResponse(
+            threshold,
+            scheduler.listOverdueExecutions(threshold, limit),
+            scheduler.listRunningExecutions(limit)
+        );
+
+        try {
+            context.response()
+                .putHeader("Content-Type", "application/json")
+                .end(MapperFactory.defaultMapper().writeValueAsString(response));
+        } catch (JsonProcessingException e) {
+            log.error("Failed to serialise scheduler executions", e);
+            context.response().setStatusCode(500).end();
+        }
+    }
+
+    static Duration parseDuration(String value) {
+        if ((value == null) || (value.isBlank())) {
+            return DEFAULT_OVERDUE_THRESHOLD;
+        }
+        try {
+            Duration result = Duration.parse(value);
+            if (result.isNegative()) {
+                throw new IllegalArgumentException("overdue-threshold must not be negative");
+            }
+            return result;
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("overdue-threshold must be an ISO-8601 duration (e.g. PT1M)");
+        }
+    }
+
+    static int parseLimit(String value) {
+        if ((value == null) || (value.isBlank())) {
+            return DEFAULT_LIMIT;
+        }
+        try {
+            int result = Integer.parseInt(value);
+            if ((result < 1) || (result > MAX_LIMIT)) {
+                throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+            }
+            return result;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("limit must be a number");
+        }
+    }
+
+    /**
+     * @param overdueThreshold the period after which an execution is considered overdue.
+     * @param overdue the executions not picked-up within the threshold of their due time.
+     * @param running the executions currently running.
+     */
+    public record ExecutionsResponse(
+        Duration overdueThreshold,
+        List<ExecutionSummary> overdue,
+        List<ExecutionSummary> running
+    ) {}
+}
@@ -1,5 +1,7 @@
 package com.hillayes.onestop.api;
 
+import com.hillayes.commons.jpa.Keyset;
+import com.hillayes.commons.jpa.KeysetPage;
 import com.hillayes.commons.jpa.Page;
 
 import jakarta.ws.rs.core.UriBuilder;
@@ -8,6 +10,11 @@ import jakarta.ws.rs.core.UriInfo;
 import java.util.function.Function;
 
 public class PaginationUtils {
+    /**
+     * The query parameter that carries the cursor token of a keyset paged request.
+     */
+    public static final String CURSOR_PARAM = "cursor";
+
     /**
      * Builds page links for the given page, using the given uriInfo.
      *
@@ -82,4 +89,50 @@ public class PaginationUtils {
 
         return result;
     }
+
+    /**
+     * Builds page links for the given keyset page, using the given uriInfo.
+     *
+     * @param uriInfo the UriInfo for the request, used to obtain the base URI.
+     * @param page the keyset page of DB query results.
+     * @return a PageLinks object containing the links for the given page.
+     */
+    public static PageLinks buildPageLinks(UriInfo uriInfo, KeysetPage<?> page) {
+        return buildPageLinks(uriInfo, page, Function.identity());
+    }
+
+    /**
+     * Builds page links for the given keyset page, using the given uriInfo and
+     * uriDecorator. The links carry the page's cursor tokens in the "cursor" query
+     * parameter, rather than a page index.
+     * The decorator is used to add any additional query parameters to the links.
+     *
+     * @param uriInfo the UriInfo for the request, used to obtain the base URI.
+     * @param page the keyset page of DB query results.
+     * @param uriDecorator a function that adds additional data to the given UriBuilder,
+     *     and returns a UriBuilder (possibly the same as given).
+     * @return a PageLinks object containing the links for the given page.
+     */
+    public static PageLinks buildPageLinks(UriInfo uriInfo, KeysetPage<?> page,
+                                           Function<UriBuilder, UriBuilder> uriDecorator) {
+        // construct UriBuilder and pass it to the decorator for any additional query params
+        UriBuilder uriBuilder = uriDecorator.apply(uriInfo.getAbsolutePathBuilder());
+
+        // add all parameters from the original request
+        uriInfo.getQueryParameters().forEach((key, value) ->
+            uriBuilder.queryParam(key, value.toArray()));
+
+        PageLinks result = new PageLinks()
+            .first(uriBuilder.replaceQueryParam(CURSOR_PARAM).build())
+            .last(uriBuilder.replaceQueryParam(CURSOR_PARAM, Keyset.LAST_PAGE).build());
+
+        if (page.hasPrevious()) {
+            result.previous(uriBuilder.replaceQueryParam(CURSOR_PARAM, page.getPreviousCursor()).build());
+        }
+        if (page.hasNext()) {
+            result.next(uriBuilder.replaceQueryParam(CURSOR_PARAM, page.getNextCursor()).build());
+        }
+
+        return result;
+    }
 }
@@ -2,6 +2,10 @@ package com.hillayes.nordigen;
 
 import com.hillayes.commons.MonetaryAmount;
 import com.hillayes.commons.Strings;
+import com.hillayes.executors.concurrent.ConcurrentCalls;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
 import com.hillayes.nordigen.model.*;
 import com.hillayes.nordigen.service.AccountService;
 import com.hillayes.nordigen.service.AgreementService;
@@ -9,19 +13,22 @@ import com.hillayes.nordigen.service.InstitutionService;
 import com.hillayes.nordigen.service.RequisitionService;
 import com.hillayes.rail.api.RailProviderApi;
 import com.hillayes.rail.api.domain.*;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.core.MultivaluedMap;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 
 import java.net.URI;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 @ApplicationScoped
-@RequiredArgsConstructor
 @Slf4j
 public class NordigenRailProvider implements RailProviderApi {
     // The number of days for which account access will be agreed
@@ -34,6 +41,38 @@ public class NordigenRailProvider implements RailProviderApi {
     private final AgreementService agreementService;
     private final InstitutionService institutionService;
 
+    // runs independent calls to the rail concurrently - limited to a max number at any one time
+    private final ExecutorService callExecutor;
+
+    // the time within which the results of a group of concurrent calls must be obtained
+    private final Duration callTimeout;
+
+    public NordigenRailProvider(AccountService accountService,
+                                RequisitionService requisitionService,
+                                AgreementService agreementService,
+                                InstitutionService institutionService,
+                                @ConfigProperty(name = "one-stop.nordigen.max-concurrent-calls", defaultValue = "8")
+                                int maxConcurrentCalls,
+                                @ConfigProperty(name = "one-stop.nordigen.call-timeout", defaultValue = "PT30S")
+                                Duration callTimeout) {
+        this.accountService = accountService;
+        this.requisitionService = requisitionService;
+        this.agreementService = agreementService;
+        this.institutionService = institutionService;
+        this.callTimeout = callTimeout;
+        this.callExecutor = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name("nordigen-calls")
+            .executorType(ExecutorType.BOUNDED_VIRTUAL)
+            .numberOfThreads(maxConcurrentCalls)
+            .build());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        log.debug("Shutting down Nordigen call executor");
+        callExecutor.shutdown();
+    }
+
     @Override
     public RailProvider getProviderId() {
         return RailProvider.NORDIGEN;
@@ -170,32 +209,41 @@ public class NordigenRailProvider implements RailProviderApi {
             return Optional.empty();
         }
 
-        return accountService.get(id)
-            .map(account -> RailAccount.builder()
-                .id(account.id)
-                .iban(Strings.getOrDefault(account.bban, account.iban))
-                .institutionId(account.institutionId)
-                .name(account.ownerName)
-                .ownerName(account.ownerName)
-                .status(RailAccountStatus.valueOf(account.status.name()))
-                .balance(getBalance(id).orElseGet(() -> RailBalance.builder()
-                        .type("")
-                        .dateTime(Instant.now())
-                        .amount(MonetaryAmount.ZERO)
-                        .build()))
-                .build()
-            )
-            .map(account -> accountService.details(id)
-                .map(details -> (Map<String, String>) details.get("account"))
-                .map(accountProperties -> account.toBuilder()
-                    .name(accountProperties.getOrDefault("name", accountProperties.getOrDefault("details", account.getName())))
-                    .iban(accountProperties.getOrDefault("maskedPan", account.getIban()))
-                    .accountType(accountProperties.get("cashAccountType"))
-                    .currency(currency(accountProperties.get("currency")))
+        // the account summary, balances and details are independent - so retrieve them concurrently
+        try (ConcurrentCalls calls = ConcurrentCalls.begin(callExecutor, callTimeout)) {
+            Future<Optional<AccountSummary>> summary = calls.fork(() -> accountService.get(id));
+            Future<Optional<RailBalance>> balance = calls.fork(() -> getBalance(id));
+            Future<Optional<Map<String, Object>>> details = calls.fork(() -> accountService.details(id));
+
+            // the summary and balance are required - but the account can be returned without its details.
+            // a failed balance must not be reported as zero; it would be recorded as the latest balance
+            return calls.join(summary)
+                .map(account -> RailAccount.builder()
+                    .id(account.id)
+                    .iban(Strings.getOrDefault(account.bban, account.iban))
+                    .institutionId(account.institutionId)
+                    .name(account.ownerName)
+                    .ownerName(account.ownerName)
+                    .status(RailAccountStatus.valueOf(account.status.name()))
+                    .balance(calls.join(balance).orElseGet(() -> RailBalance.builder()
+                            .type("")
+                            .dateTime(Instant.now())
+                            .amount(MonetaryAmount.ZERO)
+                            .build()))
                     .build()
                 )
-                .orElse(account)
-            );
+                .map(account -> calls.joinOrElse(details, Optional::empty)
+                    .map(detail -> (Map<String, String>) detail.get("account"))
+                    .map(accountProperties -> account.toBuilder()
+                        .name(accountProperties.getOrDefault("name", accountProperties.getOrDefault("details", account.getName())))
+                        .iban(accountProperties.getOrDefault("maskedPan", account.getIban()))
+                        .accountType(accountProperties.get("cashAccountType"))
+                        .currency(currency(accountProperties.get("currency")))
+                        .build()
+                    )
+                    .orElse(account)
+                );
+        }
     }
 
     @Override
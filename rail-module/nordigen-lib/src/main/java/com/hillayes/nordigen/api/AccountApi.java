@@ -7,6 +7,7 @@ import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
 import org.eclipse.microprofile.rest.client.annotation.RegisterClientHeaders;
+import org.eclipse.microprofile.rest.client.annotation.RegisterProvider;
 import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 
 import java.time.LocalDate;
@@ -15,6 +16,7 @@ import java.util.Map;
 @ApplicationScoped
 @RegisterRestClient(configKey = "nordigen-api")
 @RegisterClientHeaders(BearerHeaderFactory.class)
+@RegisterProvider(RateLimitFilter.class)
 @Path("/api/v2/accounts/")
 @Consumes(MediaType.APPLICATION_JSON)
 @Produces(MediaType.APPLICATION_JSON)
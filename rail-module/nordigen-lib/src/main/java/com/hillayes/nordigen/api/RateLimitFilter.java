@@ -0,0 +1,89 @@
+package com.hillayes.nordigen.api;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.api.governor.RateLimitHeaders;
+import com.hillayes.rail.api.governor.RateLimitObserver;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the rate-limit headers returned by the Nordigen rail, and reports them to
+ * any RateLimitObservers. Nordigen reports two limits:
+ * <ul>
+ *     <li>a limit on all calls made with our secret credentials.</li>
+ *     <li>a daily limit on the calls made to each endpoint of each account.</li>
+ * </ul>
+ */
+@Singleton
+public class RateLimitFilter implements ClientResponseFilter {
+    static final String REMAINING = "HTTP_X_RATELIMIT_REMAINING";
+    static final String RESET = "HTTP_X_RATELIMIT_RESET";
+    static final String ACCOUNT_REMAINING = "HTTP_X_RATELIMIT_ACCOUNT_SUCCESS_REMAINING";
+    static final String ACCOUNT_RESET = "HTTP_X_RATELIMIT_ACCOUNT_SUCCESS_RESET";
+
+    // the retry-after period to be assumed if the rail gives none
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofMinutes(1);
+
+    // extracts the account ID from the path of the account endpoints
+    private static final Pattern ACCOUNT_PATH = Pattern.compile("/api/v2/accounts/([^/]+)/");
+
+    private final Instance<RateLimitObserver> observers;
+
+    public RateLimitFilter(Instance<RateLimitObserver> observers) {
+        this.observers = observers;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        Instant now = Instant.now();
+        String accountId = accountId(requestContext.getUri().getPath());
+
+        // the quota for all calls
+        Optional<Integer> remaining = RateLimitHeaders.parseInt(responseContext.getHeaderString(REMAINING));
+        Optional<Instant> reset = RateLimitHeaders.parseSeconds(responseContext.getHeaderString(RESET), now);
+
+        // the quota for calls to the account's endpoint
+        Optional<Integer> accountRemaining = (accountId == null) ? Optional.empty()
+            : RateLimitHeaders.parseInt(responseContext.getHeaderString(ACCOUNT_REMAINING));
+        Optional<Instant> accountReset = RateLimitHeaders.parseSeconds(responseContext.getHeaderString(ACCOUNT_RESET), now);
+
+        if (responseContext.getStatus() == Response.Status.TOO_MANY_REQUESTS.getStatusCode()) {
+            // if the account's quota is exhausted, only that account is limited
+            if (accountRemaining.filter(count -> count <= 0).isPresent()) {
+                Instant retryAfter = accountReset.orElse(now.plus(DEFAULT_RETRY_AFTER));
+                observers.stream().forEach(observer -> observer.rateLimited(RailProvider.NORDIGEN, accountId, retryAfter));
+            } else {
+                Instant retryAfter = reset
+                    .or(() -> RateLimitHeaders.parseRetryAfter(responseContext.getHeaderString(RateLimitHeaders.RETRY_AFTER), now))
+                    .orElse(now.plus(DEFAULT_RETRY_AFTER));
+                observers.stream().forEach(observer -> observer.rateLimited(RailProvider.NORDIGEN, null, retryAfter));
+            }
+            return;
+        }
+
+        if ((remaining.isPresent()) && (reset.isPresent())) {
+            observers.stream().forEach(observer ->
+                observer.quotaObserved(RailProvider.NORDIGEN, null, remaining.get(), reset.get()));
+        }
+
+        if ((accountRemaining.isPresent()) && (accountReset.isPresent())) {
+            observers.stream().forEach(observer ->
+                observer.quotaObserved(RailProvider.NORDIGEN, accountId, accountRemaining.get(), accountReset.get()));
+        }
+    }
+
+    private String accountId(String path) {
+        Matcher matcher = ACCOUNT_PATH.matcher(path);
+        return matcher.find() ? matcher.group(1) : null;
+    }
+}
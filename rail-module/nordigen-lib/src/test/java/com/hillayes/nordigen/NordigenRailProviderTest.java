@@ -0,0 +1,217 @@
+package com.hillayes.nordigen;
+
+import com.hillayes.commons.MonetaryAmount;
+import com.hillayes.nordigen.model.*;
+import com.hillayes.nordigen.service.AccountService;
+import com.hillayes.nordigen.service.AgreementService;
+import com.hillayes.nordigen.service.InstitutionService;
+import com.hillayes.nordigen.service.RequisitionService;
+import com.hillayes.rail.api.domain.AgreementStatus;
+import com.hillayes.rail.api.domain.RailAccount;
+import com.hillayes.rail.api.domain.RailAgreement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.apache.commons.lang3.RandomStringUtils.insecure;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class NordigenRailProviderTest {
+    // the simulated latency of each call to the rail
+    private static final long LATENCY_MILLIS = 300;
+
+    AccountService accountService;
+
+    NordigenRailProvider fixture;
+
+    @BeforeEach
+    public void beforeEach() {
+        accountService = mock();
+
+        fixture = new NordigenRailProvider(accountService,
+            mock(RequisitionService.class), mock(AgreementService.class), mock(InstitutionService.class),
+            8, Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    public void afterEach() {
+        fixture.destroy();
+    }
+
+    @Test
+    public void testGetAccount_CallsAreConcurrent() {
+        // given: an agreement that has been given
+        RailAgreement agreement = mockAgreement();
+
+        // and: the account summary, balances and details are available - each after a delay
+        AccountSummary summary = mockAccountSummary();
+        when(accountService.get(summary.id)).then(delayed(Optional.of(summary)));
+        when(accountService.balances(summary.id)).then(delayed(Optional.of(List.of(mockBalance()))));
+        when(accountService.details(summary.id)).then(delayed(Optional.of(mockDetails())));
+
+        // when: the account is retrieved
+        long start = System.nanoTime();
+        Optional<RailAccount> result = fixture.getAccount(agreement, summary.id);
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        // then: the account is returned
+        assertTrue(result.isPresent());
+        assertEquals(summary.id, result.get().getId());
+
+        // and: the balance and details are included
+        assertEquals(MonetaryAmount.of("GBP", 100.0), result.get().getBalance().getAmount());
+        assertEquals("Current Account", result.get().getName());
+        assertEquals("CACC", result.get().getAccountType());
+
+        // and: the calls were made concurrently - taking less than the sum of their latency
+        assertTrue(elapsed.toMillis() < LATENCY_MILLIS * 3, "Elapsed: " + elapsed);
+    }
+
+    @Test
+    public void testGetAccount_BalanceFails() {
+        // given: an agreement that has been given
+        RailAgreement agreement = mockAgreement();
+
+        // and: the account summary and details are available
+        AccountSummary summary = mockAccountSummary();
+        when(accountService.get(summary.id)).thenReturn(Optional.of(summary));
+        when(accountService.details(summary.id)).thenReturn(Optional.of(mockDetails()));
+
+        // and: the balances call fails
+        when(accountService.balances(summary.id)).thenThrow(new IllegalStateException("balances failed"));
+
+        // when: the account is retrieved
+        // then: the failure is passed to the caller - rather than reporting a zero balance
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            fixture.getAccount(agreement, summary.id));
+        assertEquals("balances failed", exception.getMessage());
+    }
+
+    @Test
+    public void testGetAccount_DetailsFail() {
+        // given: an agreement that has been given
+        RailAgreement agreement = mockAgreement();
+
+        // and: the account summary and balances are available
+        AccountSummary summary = mockAccountSummary();
+        when(accountService.get(summary.id)).thenReturn(Optional.of(summary));
+        when(accountService.balances(summary.id)).thenReturn(Optional.of(List.of(mockBalance())));
+
+        // and: the details call fails
+        when(accountService.details(summary.id)).thenThrow(new IllegalStateException("details failed"));
+
+        // when: the account is retrieved
+        Optional<RailAccount> result = fixture.getAccount(agreement, summary.id);
+
+        // then: the account is returned
+        assertTrue(result.isPresent());
+
+        // and: the balance is included
+        assertEquals(MonetaryAmount.of("GBP", 100.0), result.get().getBalance().getAmount());
+
+        // and: the name is taken from the summary
+        assertEquals(summary.ownerName, result.get().getName());
+    }
+
+    @Test
+    public void testGetAccount_SummaryFails() {
+        // given: an agreement that has been given
+        RailAgreement agreement = mockAgreement();
+
+        // and: the account summary call fails
+        String accountId = insecure().nextAlphanumeric(20);
+        when(accountService.get(accountId)).thenThrow(new IllegalStateException("summary failed"));
+        when(accountService.balances(accountId)).thenReturn(Optional.empty());
+        when(accountService.details(accountId)).thenReturn(Optional.empty());
+
+        // when: the account is retrieved
+        // then: the failure is passed to the caller
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () ->
+            fixture.getAccount(agreement, accountId));
+        assertEquals("summary failed", exception.getMessage());
+    }
+
+    @Test
+    public void testGetAccount_NotFound() {
+        // given: an agreement that has been given
+        RailAgreement agreement = mockAgreement();
+
+        // and: the account does not exist
+        String accountId = insecure().nextAlphanumeric(20);
+        when(accountService.get(accountId)).thenReturn(Optional.empty());
+        when(accountService.balances(accountId)).thenReturn(Optional.empty());
+        when(accountService.details(accountId)).thenReturn(Optional.empty());
+
+        // when: the account is retrieved
+        Optional<RailAccount> result = fixture.getAccount(agreement, accountId);
+
+        // then: no account is returned
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testGetAccount_AgreementNotGiven() {
+        // given: an agreement that has not been given
+        RailAgreement agreement = RailAgreement.builder()
+            .id(insecure().nextAlphanumeric(20))
+            .status(AgreementStatus.WAITING)
+            .build();
+
+        // when: the account is retrieved
+        Optional<RailAccount> result = fixture.getAccount(agreement, insecure().nextAlphanumeric(20));
+
+        // then: no account is returned
+        assertTrue(result.isEmpty());
+
+        // and: the rail is not called
+        verifyNoInteractions(accountService);
+    }
+
+    private <T> Answer<T> delayed(T result) {
+        return invocation -> {
+            Thread.sleep(LATENCY_MILLIS);
+            return result;
+        };
+    }
+
+    private RailAgreement mockAgreement() {
+        return RailAgreement.builder()
+            .id(insecure().nextAlphanumeric(20))
+            .status(AgreementStatus.GIVEN)
+            .build();
+    }
+
+    private AccountSummary mockAccountSummary() {
+        return AccountSummary.builder()
+            .id(insecure().nextAlphanumeric(20))
+            .institutionId(insecure().nextAlphanumeric(20))
+            .iban(insecure().nextAlphanumeric(20))
+            .ownerName(insecure().nextAlphanumeric(10))
+            .status(AccountStatus.READY)
+            .build();
+    }
+
+    private Balance mockBalance() {
+        return Balance.builder()
+            .balanceType("interimBooked")
+            .referenceDate(LocalDate.now())
+            .balanceAmount(CurrencyAmount.builder().amount(100f).currency("GBP").build())
+            .build();
+    }
+
+    private Map<String, Object> mockDetails() {
+        return Map.of("account", Map.of(
+            "name", "Current Account",
+            "cashAccountType", "CACC",
+            "currency", "GBP"
+        ));
+    }
+}
@@ -0,0 +1,144 @@
+package com.hillayes.nordigen.api;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.api.governor.RateLimitObserver;
+import jakarta.enterprise.inject.Instance;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class RateLimitFilterTest {
+    RateLimitObserver observer;
+
+    RateLimitFilter fixture;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void beforeEach() {
+        observer = mock();
+        Instance<RateLimitObserver> observers = mock();
+        when(observers.stream()).thenAnswer(invocation -> Stream.of(observer));
+
+        fixture = new RateLimitFilter(observers);
+    }
+
+    @Test
+    public void testAccountQuota() {
+        // given: a response, to an account endpoint, that reports the quotas
+        ClientRequestContext request = mockRequest("/api/v2/accounts/account-1/transactions/");
+        ClientResponseContext response = mockResponse(200, Map.of(
+            RateLimitFilter.REMAINING, "80",
+            RateLimitFilter.RESET, "60",
+            RateLimitFilter.ACCOUNT_REMAINING, "3",
+            RateLimitFilter.ACCOUNT_RESET, "3600"
+        ));
+
+        // when: the filter is called
+        Instant now = Instant.now();
+        fixture.filter(request, response);
+
+        // then: the quota for all calls is reported
+        verify(observer).quotaObserved(eq(RailProvider.NORDIGEN), isNull(), eq(80),
+            argThat(reset -> isAbout(reset, now.plusSeconds(60))));
+
+        // and: the quota for the account is reported
+        verify(observer).quotaObserved(eq(RailProvider.NORDIGEN), eq("account-1"), eq(3),
+            argThat(reset -> isAbout(reset, now.plusSeconds(3600))));
+    }
+
+    @Test
+    public void testNoQuota() {
+        // given: a response that reports no quotas
+        ClientRequestContext request = mockRequest("/api/v2/institutions/");
+        ClientResponseContext response = mockResponse(200, Map.of());
+
+        // when: the filter is called
+        fixture.filter(request, response);
+
+        // then: no quotas are reported
+        verifyNoInteractions(observer);
+    }
+
+    @Test
+    public void testAccountRateLimited() {
+        // given: a 429 response, to an account endpoint, that reports the account's quota is exhausted
+        ClientRequestContext request = mockRequest("/api/v2/accounts/account-1/transactions/");
+        ClientResponseContext response = mockResponse(429, Map.of(
+            RateLimitFilter.REMAINING, "80",
+            RateLimitFilter.RESET, "60",
+            RateLimitFilter.ACCOUNT_REMAINING, "0",
+            RateLimitFilter.ACCOUNT_RESET, "3600"
+        ));
+
+        // when: the filter is called
+        Instant now = Instant.now();
+        fixture.filter(request, response);
+
+        // then: the account is reported as rate-limited until its quota is reset
+        verify(observer).rateLimited(eq(RailProvider.NORDIGEN), eq("account-1"),
+            argThat(retryAfter -> isAbout(retryAfter, now.plusSeconds(3600))));
+        verifyNoMoreInteractions(observer);
+    }
+
+    @Test
+    public void testProviderRateLimited() {
+        // given: a 429 response that reports the quota for all calls is exhausted
+        ClientRequestContext request = mockRequest("/api/v2/requisitions/");
+        ClientResponseContext response = mockResponse(429, Map.of(
+            RateLimitFilter.REMAINING, "0",
+            RateLimitFilter.RESET, "60"
+        ));
+
+        // when: the filter is called
+        Instant now = Instant.now();
+        fixture.filter(request, response);
+
+        // then: all calls are reported as rate-limited until the quota is reset
+        verify(observer).rateLimited(eq(RailProvider.NORDIGEN), isNull(),
+            argThat(retryAfter -> isAbout(retryAfter, now.plusSeconds(60))));
+        verifyNoMoreInteractions(observer);
+    }
+
+    @Test
+    public void testRateLimited_NoHeaders() {
+        // given: a 429 response that gives no quota or retry-after
+        ClientRequestContext request = mockRequest("/api/v2/requisitions/");
+        ClientResponseContext response = mockResponse(429, Map.of());
+
+        // when: the filter is called
+        Instant now = Instant.now();
+        fixture.filter(request, response);
+
+        // then: all calls are reported as rate-limited for the default period
+        verify(observer).rateLimited(eq(RailProvider.NORDIGEN), isNull(),
+            argThat(retryAfter -> isAbout(retryAfter, now.plus(Duration.ofMinutes(1)))));
+    }
+
+    private ClientRequestContext mockRequest(String path) {
+        ClientRequestContext request = mock();
+        when(request.getUri()).thenReturn(URI.create("https://bankaccountdata.gocardless.com" + path));
+        return request;
+    }
+
+    private ClientResponseContext mockResponse(int status, Map<String, String> headers) {
+        ClientResponseContext response = mock();
+        when(response.getStatus()).thenReturn(status);
+        when(response.getHeaderString(anyString())).thenAnswer(invocation -> headers.get(invocation.<String>getArgument(0)));
+        return response;
+    }
+
+    private boolean isAbout(Instant actual, Instant expected) {
+        return (actual != null) && (Duration.between(expected, actual).abs().toSeconds() <= 5);
+    }
+}
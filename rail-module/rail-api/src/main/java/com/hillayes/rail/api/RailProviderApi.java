@@ -8,6 +8,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Represents the interface made available by all Rail Providers that we intend
@@ -127,4 +128,29 @@ public interface RailProviderApi {
     public List<RailTransaction> listTransactions(RailAgreement agreement,
                                                   String accountId,
                                                   LocalDate dateFrom);
+
+    /**
+     * Passes the transactions for the identified account, started from the given date,
+     * to the given consumer; one page at a time, as each page is retrieved from the
+     * rail. This allows an account with a long history to be processed without holding
+     * all of its transactions in memory.
+     * <p>
+     * The default implementation passes the result of {@link #listTransactions(RailAgreement,
+     * String, LocalDate)} as a single page. Implementations whose rail returns the
+     * transactions in pages should override this.
+     *
+     * @param agreement the agreement that authorises access to the account.
+     * @param accountId the rail account's unique identifier.
+     * @param dateFrom the date of the start of the period to be searched, inclusive.
+     * @param pageConsumer the consumer to which each non-empty page is passed.
+     */
+    public default void forEachTransactionPage(RailAgreement agreement,
+                                               String accountId,
+                                               LocalDate dateFrom,
+                                               Consumer<List<RailTransaction>> pageConsumer) {
+        List<RailTransaction> transactions = listTransactions(agreement, accountId, dateFrom);
+        if (!transactions.isEmpty()) {
+            pageConsumer.accept(transactions);
+        }
+    }
 }
@@ -0,0 +1,67 @@
+package com.hillayes.rail.api.governor;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * The number of calls that remain within a rail provider's quota, and the time at
+ * which that quota is reset. A budget applies either to an individual rail account,
+ * or to all calls to the rail provider (identified by the scope PROVIDER_SCOPE).
+ */
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode
+@ToString
+public class CallBudget {
+    /**
+     * The scope of a budget that applies to all calls to a rail provider.
+     */
+    public static final String PROVIDER_SCOPE = "*";
+
+    /**
+     * The rail provider to which the budget applies.
+     */
+    private RailProvider provider;
+
+    /**
+     * The rail's identifier of the account to which the budget applies, or
+     * PROVIDER_SCOPE if it applies to all calls to the rail provider.
+     */
+    private String scope;
+
+    /**
+     * The number of calls remaining before the quota is exhausted.
+     */
+    private int remaining;
+
+    /**
+     * The time at which the quota will be reset.
+     */
+    private Instant resetsAt;
+
+    /**
+     * Tests whether the budget's quota has been reset at the given time; at which
+     * point its remaining calls no longer apply.
+     */
+    public boolean isExpired(Instant now) {
+        return (resetsAt == null) || (!resetsAt.isAfter(now));
+    }
+
+    /**
+     * Tests whether the budget's quota has been exhausted at the given time.
+     */
+    public boolean isExhausted(Instant now) {
+        return isInsufficient(1, now);
+    }
+
+    /**
+     * Tests whether the budget's quota has fewer than the given number of calls
+     * remaining at the given time.
+     */
+    public boolean isInsufficient(int calls, Instant now) {
+        return (remaining < calls) && (!isExpired(now));
+    }
+}
@@ -0,0 +1,28 @@
+package com.hillayes.rail.api.governor;
+
+import com.hillayes.rail.api.domain.RailProvider;
+
+import java.util.Optional;
+
+/**
+ * Persists the call budgets of the RailCallGovernor; so that the rail providers'
+ * quotas are respected across restarts of the service.
+ */
+public interface CallBudgetStore {
+    /**
+     * Returns the identified call budget, or empty if none has been saved.
+     *
+     * @param provider the rail provider to which the budget applies.
+     * @param scope the rail account ID, or CallBudget.PROVIDER_SCOPE.
+     * @return the identified call budget.
+     */
+    public Optional<CallBudget> load(RailProvider provider, String scope);
+
+    /**
+     * Saves the given call budget; replacing any previously saved for the same
+     * provider and scope.
+     *
+     * @param budget the budget to be saved.
+     */
+    public void save(CallBudget budget);
+}
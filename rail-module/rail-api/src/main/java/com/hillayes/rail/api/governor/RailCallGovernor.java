@@ -0,0 +1,289 @@
+package com.hillayes.rail.api.governor;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Governs the calls made to the rail providers, so that their rate-limits and quotas
+ * are not exceeded. Before work that calls a rail provider is started, a reservation
+ * is made; if that work would exceed a limit the governor returns the time at which
+ * it should be deferred to, rather than have it fail and waste a retry attempt.
+ * <p>
+ * Three limits are applied:
+ * <ul>
+ *     <li>The reservations made to each rail provider are paced by a token-bucket.</li>
+ *     <li>The calls for each rail account are limited to a daily budget. Where the rail
+ *     reports quotas for each of the account's endpoints, that budget is reduced to
+ *     the lowest of them.</li>
+ *     <li>Should a rail report a quota for all calls, or reject a call with a 429
+ *     response, no further calls are permitted until that quota is reset.</li>
+ * </ul>
+ * The budgets held in memory are authoritative. Each is read from the given
+ * CallBudgetStore only on first use, and each is updated under the lock of its own
+ * key; so calls for different accounts don't contend. Changed budgets are written
+ * back to the store, so that they survive a restart of the service, by the given
+ * executor; at most once per write interval, and outside any lock. The token-buckets
+ * are held only in memory, as they pace calls over periods of seconds.
+ */
+@Slf4j
+public class RailCallGovernor implements RateLimitObserver {
+    /**
+     * The period over which the daily budget of calls for each account applies.
+     */
+    private static final Duration BUDGET_PERIOD = Duration.ofDays(1);
+
+    /**
+     * The limits applied to each rail provider.
+     *
+     * @param callsPerSecond the sustained rate of calls to a rail provider.
+     * @param burst the max number of calls that may be made to a rail provider in a burst.
+     * @param accountDailyCalls the number of calls for each rail account permitted in
+     *     a day; unless the rail reports a quota of its own.
+     */
+    public record Limits(double callsPerSecond, int burst, int accountDailyCalls) {}
+
+    private record BudgetKey(RailProvider provider, String scope) {}
+
+    private final Limits limits;
+    private final CallBudgetStore store;
+    private final Clock clock;
+    private final Executor writeExecutor;
+
+    private final Map<RailProvider, TokenBucket> buckets = new ConcurrentHashMap<>();
+    private final Map<BudgetKey, CallBudget> budgets = new ConcurrentHashMap<>();
+
+    /**
+     * The keys of the budgets that have been read from the store; whether or not
+     * the store held them.
+     */
+    private final Set<BudgetKey> loaded = ConcurrentHashMap.newKeySet();
+
+    /**
+     * The keys of the budgets that have changed since they were last written.
+     */
+    private final Set<BudgetKey> unsaved = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean writeScheduled = new AtomicBoolean();
+
+    /**
+     * @param limits the limits applied to each rail provider.
+     * @param store the store to which the budgets are written.
+     * @param clock the clock by which budgets and token-buckets are measured.
+     * @param executor the executor on which the budgets are written to the store.
+     * @param writeInterval the delay between a budget changing and its being written;
+     *     during which further changes are gathered into the same write.
+     */
+    public RailCallGovernor(Limits limits, CallBudgetStore store, Clock clock,
+                            Executor executor, Duration writeInterval) {
+        this.limits = limits;
+        this.store = store;
+        this.clock = clock;
+        this.writeExecutor = CompletableFuture.delayedExecutor(writeInterval.toMillis(), TimeUnit.MILLISECONDS, executor);
+    }
+
+    /**
+     * Reserves a single call to the given rail provider, for the given rail account.
+     *
+     * @see #reserve(RailProvider, String, int)
+     */
+    public Optional<Instant> reserve(RailProvider provider, String accountId) {
+        return reserve(provider, accountId, 1);
+    }
+
+    /**
+     * Reserves the given number of calls to the given rail provider, for the given rail
+     * account; typically all the calls made by a single poll. If the calls are permitted
+     * they are deducted from the budgets and an empty result returned. Otherwise, nothing
+     * is deducted and the time after which the calls may be made is returned.
+     * <p>
+     * The reservation is paced as a single call, as its calls are made together.
+     *
+     * @param provider the rail provider to be called.
+     * @param accountId the rail account to which the calls refer, or null if the
+     *     calls do not refer to an account.
+     * @param calls the number of calls to be reserved.
+     * @return empty if the calls are permitted, otherwise the time to which they should
+     *     be deferred.
+     */
+    public Optional<Instant> reserve(RailProvider provider, String accountId, int calls) {
+        Instant now = clock.instant();
+
+        // has the rail reported that all calls are exhausted
+        BudgetKey providerKey = new BudgetKey(provider, CallBudget.PROVIDER_SCOPE);
+        CallBudget providerBudget = getBudget(providerKey);
+        if ((providerBudget != null) && (providerBudget.isInsufficient(calls, now))) {
+            log.debug("Rail provider quota exhausted [provider: {}, resetsAt: {}]", provider, providerBudget.getResetsAt());
+            return Optional.of(providerBudget.getResetsAt());
+        }
+
+        // has the account's budget been exhausted
+        BudgetKey accountKey = (accountId == null) ? null : new BudgetKey(provider, accountId);
+        if (accountKey != null) {
+            CallBudget accountBudget = getBudget(accountKey);
+            if ((accountBudget != null) && (accountBudget.isInsufficient(calls, now))) {
+                log.debug("Rail account quota exhausted [provider: {}, accountId: {}, resetsAt: {}]",
+                    provider, accountId, accountBudget.getResetsAt());
+                return Optional.of(accountBudget.getResetsAt());
+            }
+        }
+
+        // pace the calls to the provider
+        Duration wait = buckets
+            .computeIfAbsent(provider, key -> new TokenBucket(clock, limits.burst(), limits.callsPerSecond()))
+            .tryAcquire();
+        if (wait.isPositive()) {
+            log.trace("Rail provider calls paced [provider: {}, wait: {}]", provider, wait);
+            return Optional.of(now.plus(wait));
+        }
+
+        // deduct the calls from the account's budget - unless a concurrent call has exhausted it
+        if (accountKey != null) {
+            AtomicBoolean deducted = new AtomicBoolean();
+            CallBudget accountBudget = budgets.compute(accountKey, (key, budget) -> {
+                CallBudget current = ((budget == null) || (budget.isExpired(now)))
+                    ? CallBudget.builder()
+                        .provider(provider)
+                        .scope(accountId)
+                        .remaining(limits.accountDailyCalls())
+                        .resetsAt(now.plus(BUDGET_PERIOD))
+                        .build()
+                    : budget;
+                if (current.isInsufficient(calls, now)) {
+                    return current;
+                }
+                deducted.set(true);
+                return current.toBuilder().remaining(current.getRemaining() - calls).build();
+            });
+            if (!deducted.get()) {
+                return Optional.of(accountBudget.getResetsAt());
+            }
+            budgetChanged(accountKey);
+        }
+
+        // deduct the calls from the provider's budget
+        if ((providerBudget != null) && (!providerBudget.isExpired(now))) {
+            budgets.computeIfPresent(providerKey, (key, budget) -> (budget.isExpired(now))
+                ? budget
+                : budget.toBuilder().remaining(Math.max(0, budget.getRemaining() - calls)).build());
+            budgetChanged(providerKey);
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Records the quota reported by the rail. As the rail's count of the quota for all
+     * calls is authoritative, it replaces that held by the governor.
+     * <p>
+     * The quota reported for an account applies only to the endpoint that was called;
+     * each of the account's endpoints having a quota of its own. So, until the account's
+     * budget is reset, the lowest of the quotas reported is retained; the account's
+     * calls can only be made while every endpoint has calls remaining.
+     */
+    @Override
+    public void quotaObserved(RailProvider provider, String accountId, int remaining, Instant resetsAt) {
+        log.trace("Rail quota observed [provider: {}, accountId: {}, remaining: {}, resetsAt: {}]",
+            provider, accountId, remaining, resetsAt);
+        CallBudget observed = CallBudget.builder()
+            .provider(provider)
+            .scope(accountId == null ? CallBudget.PROVIDER_SCOPE : accountId)
+            .remaining(Math.max(0, remaining))
+            .resetsAt(resetsAt)
+            .build();
+        if (accountId == null) {
+            putBudget(observed);
+            return;
+        }
+
+        Instant now = clock.instant();
+        BudgetKey key = new BudgetKey(provider, accountId);
+        getBudget(key); // the stored budget must be read before it is compared
+        budgets.compute(key, (k, budget) ->
+            ((budget == null) || (budget.isExpired(now)) || (observed.getRemaining() < budget.getRemaining()))
+                ? observed
+                : budget);
+        budgetChanged(key);
+    }
+
+    /**
+     * Records that the rail rejected a call. No further calls, within the same scope,
+     * will be permitted until the given retry-after time.
+     */
+    @Override
+    public void rateLimited(RailProvider provider, String accountId, Instant retryAfter) {
+        log.info("Rail call rate-limited [provider: {}, accountId: {}, retryAfter: {}]", provider, accountId, retryAfter);
+        putBudget(CallBudget.builder()
+            .provider(provider)
+            .scope(accountId == null ? CallBudget.PROVIDER_SCOPE : accountId)
+            .remaining(0)
+            .resetsAt(retryAfter)
+            .build());
+    }
+
+    /**
+     * Writes the budgets that have changed since they were last written. Called by
+     * the write executor, and should be called when the governor is discarded.
+     */
+    public void flush() {
+        writeScheduled.set(false);
+
+        Iterator<BudgetKey> keys = unsaved.iterator();
+        while (keys.hasNext()) {
+            BudgetKey key = keys.next();
+            keys.remove();
+
+            // write the latest budget - any change made during the write will be written later
+            CallBudget budget = budgets.get(key);
+            try {
+                store.save(budget);
+            } catch (RuntimeException e) {
+                log.warn("Failed to write rail call budget [provider: {}, scope: {}]", key.provider(), key.scope(), e);
+                budgetChanged(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the identified budget; reading it from the store on first use. Returns
+     * null if the budget is unknown.
+     */
+    private CallBudget getBudget(BudgetKey key) {
+        if (!loaded.contains(key)) {
+            // the store is read outside any lock; a budget changed meanwhile takes precedence
+            store.load(key.provider(), key.scope())
+                .ifPresent(budget -> budgets.putIfAbsent(key, budget));
+            loaded.add(key);
+        }
+        return budgets.get(key);
+    }
+
+    private void putBudget(CallBudget budget) {
+        BudgetKey key = new BudgetKey(budget.getProvider(), budget.getScope());
+        budgets.put(key, budget);
+        loaded.add(key);
+        budgetChanged(key);
+    }
+
+    /**
+     * Marks the identified budget as changed, and schedules its write; unless a write
+     * is already scheduled.
+     */
+    private void budgetChanged(BudgetKey key) {
+        unsaved.add(key);
+        if (writeScheduled.compareAndSet(false, true)) {
+            writeExecutor.execute(this::flush);
+        }
+    }
+}
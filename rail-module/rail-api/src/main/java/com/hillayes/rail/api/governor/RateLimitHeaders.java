@@ -0,0 +1,76 @@
+package com.hillayes.rail.api.governor;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+
+/**
+ * Utility methods for the parsing of the rate-limit headers returned by the rails.
+ */
+public final class RateLimitHeaders {
+    /**
+     * The standard header that gives the time after which a rejected call may be
+     * retried.
+     */
+    public static final String RETRY_AFTER = "Retry-After";
+
+    private RateLimitHeaders() {}
+
+    /**
+     * Parses the value of a Retry-After header; which may give either the number of
+     * seconds to wait, or an HTTP date.
+     *
+     * @param value the header value, may be null.
+     * @param now the time at which the response was received.
+     * @return the time after which the call may be retried, or empty if the value
+     *     is missing or cannot be parsed.
+     */
+    public static Optional<Instant> parseRetryAfter(String value, Instant now) {
+        if ((value == null) || (value.isBlank())) {
+            return Optional.empty();
+        }
+
+        return parseSeconds(value, now)
+            .or(() -> {
+                try {
+                    return Optional.of(ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+                } catch (DateTimeParseException e) {
+                    return Optional.empty();
+                }
+            });
+    }
+
+    /**
+     * Parses a header value that gives a number of seconds from the given time.
+     *
+     * @param value the header value, may be null.
+     * @param now the time at which the response was received.
+     * @return the time the given number of seconds after now, or empty if the value
+     *     is missing or not a number.
+     */
+    public static Optional<Instant> parseSeconds(String value, Instant now) {
+        return parseInt(value)
+            .map(seconds -> now.plus(Duration.ofSeconds(Math.max(0, seconds))));
+    }
+
+    /**
+     * Parses a header value that gives an integer count.
+     *
+     * @param value the header value, may be null.
+     * @return the integer value, or empty if the value is missing or not a number.
+     */
+    public static Optional<Integer> parseInt(String value) {
+        if ((value == null) || (value.isBlank())) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Integer.parseInt(value.trim()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.hillayes.rail.api.governor;
+
+import com.hillayes.rail.api.domain.RailProvider;
+
+import java.time.Instant;
+
+/**
+ * Notified by the rail provider libraries of the rate-limits reported by the rail
+ * in its responses. Each library will look up any implementations, so it is not
+ * necessary for one to be present.
+ */
+public interface RateLimitObserver {
+    /**
+     * Called when a rail response reports the number of calls remaining in a quota.
+     *
+     * @param provider the rail provider that reported the quota.
+     * @param accountId the rail account to which the quota applies, or null if it
+     *     applies to all calls to the rail provider.
+     * @param remaining the number of calls remaining in the quota.
+     * @param resetsAt the time at which the quota will be reset.
+     */
+    public void quotaObserved(RailProvider provider, String accountId, int remaining, Instant resetsAt);
+
+    /**
+     * Called when a rail call is rejected as it exceeds the rail's rate-limit.
+     *
+     * @param provider the rail provider that rejected the call.
+     * @param accountId the rail account to which the call referred, or null if it
+     *     applies to all calls to the rail provider.
+     * @param retryAfter the time after which the call may be retried.
+     */
+    public void rateLimited(RailProvider provider, String accountId, Instant retryAfter);
+}
@@ -0,0 +1,63 @@
+package com.hillayes.rail.api.governor;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * A token-bucket used to pace the calls made to a rail provider. The bucket holds
+ * up to the given capacity of tokens, and is refilled at a constant rate. Each call
+ * takes a token; allowing short bursts of calls while limiting the sustained rate.
+ */
+public class TokenBucket {
+    private final Clock clock;
+    private final int capacity;
+    private final double tokensPerNano;
+
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * @param clock the clock used to measure the refill.
+     * @param capacity the max number of tokens the bucket holds (the max burst of calls).
+     * @param tokensPerSecond the rate at which tokens are added (the sustained call rate).
+     */
+    public TokenBucket(Clock clock, int capacity, double tokensPerSecond) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Token bucket capacity must be at least 1");
+        }
+        if (tokensPerSecond <= 0) {
+            throw new IllegalArgumentException("Token bucket rate must be greater than zero");
+        }
+
+        this.clock = clock;
+        this.capacity = capacity;
+        this.tokensPerNano = tokensPerSecond / Duration.ofSeconds(1).toNanos();
+        this.tokens = capacity;
+        this.lastRefill = nanoTime();
+    }
+
+    /**
+     * Attempts to take a token from the bucket. If a token is available it is taken
+     * and a zero duration is returned. Otherwise, no token is taken and the time to
+     * wait until one becomes available is returned.
+     */
+    public synchronized Duration tryAcquire() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return Duration.ZERO;
+        }
+
+        return Duration.ofNanos((long) Math.ceil((1 - tokens) / tokensPerNano));
+    }
+
+    private void refill() {
+        long now = nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+
+    private long nanoTime() {
+        return Duration.ofMillis(clock.millis()).toNanos();
+    }
+}
@@ -0,0 +1,323 @@
+package com.hillayes.rail.api.governor;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RailCallGovernorTest {
+    private final MutableClock clock = new MutableClock(Instant.now());
+    private final InMemoryStore store = new InMemoryStore();
+
+    @Test
+    public void testReserve_Paced() {
+        // given: a governor that allows a burst of 2 calls, at 1 call per second
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(1, 2, 100));
+
+        // when: calls are reserved without delay
+        // then: the first two are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-2").isEmpty());
+
+        // and: the third is deferred until a call is permitted
+        Optional<Instant> deferred = fixture.reserve(RailProvider.NORDIGEN, "account-3");
+        assertTrue(deferred.isPresent());
+        assertFalse(deferred.get().isAfter(clock.instant().plusSeconds(1)));
+
+        // and: calls to other providers are paced separately
+        assertTrue(fixture.reserve(RailProvider.YAPILY, "account-3").isEmpty());
+
+        // when: time passes
+        clock.advance(Duration.ofSeconds(1));
+
+        // then: the call is permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-3").isEmpty());
+    }
+
+    @Test
+    public void testReserve_AccountBudget() {
+        // given: a governor that allows 2 calls per account per day
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 2));
+
+        // when: the account's budget is used
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+
+        // then: further calls for that account are deferred until the budget is reset
+        Optional<Instant> deferred = fixture.reserve(RailProvider.NORDIGEN, "account-1");
+        assertTrue(deferred.isPresent());
+        assertTrue(deferred.get().isAfter(clock.instant().plus(Duration.ofHours(23))));
+
+        // and: calls for other accounts are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-2").isEmpty());
+
+        // and: calls that don't refer to an account are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, null).isEmpty());
+
+        // when: the budget is reset
+        clock.advance(Duration.ofDays(1));
+
+        // then: calls for the account are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+    }
+
+    @Test
+    public void testQuotaObserved_Account() {
+        // given: a governor with a generous account budget
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 100));
+
+        // when: the rail reports that the account has 1 call remaining
+        Instant resetsAt = clock.instant().plus(Duration.ofHours(6));
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 1, resetsAt);
+
+        // then: one call is permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+
+        // and: further calls are deferred until the rail's quota is reset
+        assertEquals(Optional.of(resetsAt), fixture.reserve(RailProvider.NORDIGEN, "account-1"));
+    }
+
+    @Test
+    public void testReserve_MultipleCalls() {
+        // given: a governor that allows 10 calls per account per day
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 10));
+
+        // when: two polls, of 4 calls each, are reserved for an account
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1", 4).isEmpty());
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1", 4).isEmpty());
+
+        // then: a third poll is deferred - although calls remain in the budget
+        Optional<Instant> deferred = fixture.reserve(RailProvider.NORDIGEN, "account-1", 4);
+        assertTrue(deferred.isPresent());
+
+        // and: the remaining calls may still be reserved
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1", 2).isEmpty());
+        assertEquals(deferred, fixture.reserve(RailProvider.NORDIGEN, "account-1", 1));
+    }
+
+    @Test
+    public void testQuotaObserved_AccountEndpoints() {
+        // given: a governor with a generous account budget
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 100));
+
+        // when: the rail reports the quotas of several of the account's endpoints
+        Instant resetsAt = clock.instant().plus(Duration.ofHours(6));
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 3, resetsAt);
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 1, resetsAt);
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 5, resetsAt);
+
+        // then: the lowest quota is retained - regardless of the order reported
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+        assertEquals(Optional.of(resetsAt), fixture.reserve(RailProvider.NORDIGEN, "account-1"));
+
+        // when: the quota is reset
+        clock.advance(Duration.ofHours(6));
+
+        // and: the rail reports a new quota
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 5, clock.instant().plus(Duration.ofHours(6)));
+
+        // then: the new quota replaces that which has expired
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1", 5).isEmpty());
+    }
+
+    @Test
+    public void testQuotaObserved_Provider() {
+        // given: a governor with generous limits
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 100));
+
+        // when: the rail reports that 1 call remains for all accounts
+        Instant resetsAt = clock.instant().plus(Duration.ofMinutes(1));
+        fixture.quotaObserved(RailProvider.NORDIGEN, null, 1, resetsAt);
+
+        // then: one call is permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+
+        // and: further calls, for any account, are deferred until the quota is reset
+        assertEquals(Optional.of(resetsAt), fixture.reserve(RailProvider.NORDIGEN, "account-2"));
+        assertEquals(Optional.of(resetsAt), fixture.reserve(RailProvider.NORDIGEN, null));
+
+        // and: calls to other providers are permitted
+        assertTrue(fixture.reserve(RailProvider.YAPILY, "account-2").isEmpty());
+
+        // when: the quota is reset
+        clock.advance(Duration.ofMinutes(1));
+
+        // then: calls are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-2").isEmpty());
+    }
+
+    @Test
+    public void testRateLimited() {
+        // given: a governor with generous limits
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 100));
+
+        // when: the rail rejects a call for an account
+        Instant retryAfter = clock.instant().plus(Duration.ofMinutes(5));
+        fixture.rateLimited(RailProvider.NORDIGEN, "account-1", retryAfter);
+
+        // then: calls for the account are deferred until the retry-after time
+        assertEquals(Optional.of(retryAfter), fixture.reserve(RailProvider.NORDIGEN, "account-1"));
+
+        // and: calls for other accounts are permitted
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-2").isEmpty());
+    }
+
+    @Test
+    public void testBudgetsSurviveRestart() {
+        // given: a governor whose account budget has been exhausted
+        RailCallGovernor governor = newGovernor(new RailCallGovernor.Limits(100, 100, 1));
+        assertTrue(governor.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+
+        // and: the rail has rejected calls for all accounts
+        Instant retryAfter = clock.instant().plus(Duration.ofMinutes(5));
+        governor.rateLimited(RailProvider.YAPILY, null, retryAfter);
+
+        // and: the governor is discarded
+        governor.flush();
+
+        // when: a new governor is created, with the same store
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 1));
+
+        // then: the exhausted budgets are still applied
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isPresent());
+        assertEquals(Optional.of(retryAfter), fixture.reserve(RailProvider.YAPILY, "account-1"));
+
+        // and: the budgets were saved to the store
+        assertEquals(0, store.load(RailProvider.NORDIGEN, "account-1").orElseThrow().getRemaining());
+        assertEquals(retryAfter, store.load(RailProvider.YAPILY, CallBudget.PROVIDER_SCOPE).orElseThrow().getResetsAt());
+    }
+
+    @Test
+    public void testBudgetWritesGathered() {
+        // given: a governor with generous limits
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100, 100, 100));
+
+        // when: several calls are reserved, and quotas observed, for an account
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+        fixture.quotaObserved(RailProvider.NORDIGEN, "account-1", 10, clock.instant().plus(Duration.ofHours(1)));
+        assertTrue(fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty());
+
+        // then: the store has been read only once for each budget
+        assertEquals(1, store.loadCount.get(RailProvider.NORDIGEN + "/account-1").get());
+        assertEquals(1, store.loadCount.get(RailProvider.NORDIGEN + "/" + CallBudget.PROVIDER_SCOPE).get());
+
+        // and: nothing is written until the write is due
+        assertTrue(store.budgets.isEmpty());
+
+        // when: the write is due
+        fixture.flush();
+
+        // then: the latest budget is written once
+        assertEquals(1, store.saveCount.get());
+        assertEquals(9, store.load(RailProvider.NORDIGEN, "account-1").orElseThrow().getRemaining());
+    }
+
+    @Test
+    public void testBudgetWriteScheduled() throws Exception {
+        // given: a governor that writes its budgets after a short interval
+        CountDownLatch written = new CountDownLatch(1);
+        Executor executor = task -> {
+            task.run();
+            written.countDown();
+        };
+        RailCallGovernor fixture = new RailCallGovernor(new RailCallGovernor.Limits(100, 100, 100),
+            store, clock, executor, Duration.ofMillis(10));
+
+        // when: the rail rejects a call for an account
+        Instant retryAfter = clock.instant().plus(Duration.ofMinutes(5));
+        fixture.rateLimited(RailProvider.NORDIGEN, "account-1", retryAfter);
+
+        // then: the budget is written without further calls
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals(retryAfter, store.load(RailProvider.NORDIGEN, "account-1").orElseThrow().getResetsAt());
+    }
+
+    @Test
+    public void testReserve_Concurrent() throws Exception {
+        // given: a governor that allows 100 calls per account per day
+        RailCallGovernor fixture = newGovernor(new RailCallGovernor.Limits(100_000, 100_000, 100));
+
+        // when: many threads reserve calls for the same account
+        AtomicInteger permitted = new AtomicInteger();
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 400; i++) {
+                executor.submit(() -> {
+                    if (fixture.reserve(RailProvider.NORDIGEN, "account-1").isEmpty()) {
+                        permitted.incrementAndGet();
+                    }
+                });
+            }
+        }
+
+        // then: the account's budget is not exceeded
+        assertEquals(100, permitted.get());
+    }
+
+    /**
+     * Creates a governor whose budgets are written only when flushed.
+     */
+    private RailCallGovernor newGovernor(RailCallGovernor.Limits limits) {
+        return new RailCallGovernor(limits, store, clock, Runnable::run, Duration.ofDays(1));
+    }
+
+    private static class InMemoryStore implements CallBudgetStore {
+        private final Map<String, CallBudget> budgets = new ConcurrentHashMap<>();
+        private final Map<String, AtomicInteger> loadCount = new ConcurrentHashMap<>();
+        private final AtomicInteger saveCount = new AtomicInteger();
+
+        @Override
+        public Optional<CallBudget> load(RailProvider provider, String scope) {
+            loadCount.computeIfAbsent(provider + "/" + scope, key -> new AtomicInteger()).incrementAndGet();
+            return Optional.ofNullable(budgets.get(provider + "/" + scope));
+        }
+
+        @Override
+        public void save(CallBudget budget) {
+            saveCount.incrementAndGet();
+            budgets.put(budget.getProvider() + "/" + budget.getScope(), budget);
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.hillayes.rail.api.governor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RateLimitHeadersTest {
+    private final Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Test
+    public void testParseRetryAfter_Seconds() {
+        assertEquals(Optional.of(now.plusSeconds(30)), RateLimitHeaders.parseRetryAfter("30", now));
+        assertEquals(Optional.of(now.plusSeconds(30)), RateLimitHeaders.parseRetryAfter(" 30 ", now));
+    }
+
+    @Test
+    public void testParseRetryAfter_Date() {
+        // given: a retry-after date in HTTP date format
+        Instant retryAfter = now.plusSeconds(120);
+        String value = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.ofInstant(retryAfter, ZoneOffset.UTC));
+
+        // when: the value is parsed
+        // then: the date is returned
+        assertEquals(Optional.of(retryAfter), RateLimitHeaders.parseRetryAfter(value, now));
+    }
+
+    @Test
+    public void testParseRetryAfter_Invalid() {
+        assertTrue(RateLimitHeaders.parseRetryAfter(null, now).isEmpty());
+        assertTrue(RateLimitHeaders.parseRetryAfter("", now).isEmpty());
+        assertTrue(RateLimitHeaders.parseRetryAfter("soon", now).isEmpty());
+    }
+
+    @Test
+    public void testParseSeconds_NegativeIsNow() {
+        assertEquals(Optional.of(now), RateLimitHeaders.parseSeconds("-5", now));
+    }
+
+    @Test
+    public void testParseInt() {
+        assertEquals(Optional.of(4), RateLimitHeaders.parseInt("4"));
+        assertTrue(RateLimitHeaders.parseInt("four").isEmpty());
+        assertTrue(RateLimitHeaders.parseInt(null).isEmpty());
+    }
+}
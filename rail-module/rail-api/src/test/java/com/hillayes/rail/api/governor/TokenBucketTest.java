@@ -0,0 +1,97 @@
+package com.hillayes.rail.api.governor;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TokenBucketTest {
+    private final MutableClock clock = new MutableClock(Instant.now());
+
+    @Test
+    public void testBurst() {
+        // given: a bucket with a capacity of 3 tokens
+        TokenBucket fixture = new TokenBucket(clock, 3, 1);
+
+        // when: tokens are taken without delay
+        // then: the first three are granted
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+
+        // and: the fourth must wait for the bucket to refill
+        Duration wait = fixture.tryAcquire();
+        assertTrue(wait.isPositive());
+        assertTrue(wait.compareTo(Duration.ofSeconds(1)) <= 0);
+    }
+
+    @Test
+    public void testRefill() {
+        // given: a bucket, refilled at 2 tokens per second, that has been emptied
+        TokenBucket fixture = new TokenBucket(clock, 2, 2);
+        fixture.tryAcquire();
+        fixture.tryAcquire();
+        assertTrue(fixture.tryAcquire().isPositive());
+
+        // when: half a second passes
+        clock.advance(Duration.ofMillis(500));
+
+        // then: one token is available
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+        assertTrue(fixture.tryAcquire().isPositive());
+    }
+
+    @Test
+    public void testRefillIsCapped() {
+        // given: a bucket with a capacity of 2 tokens, that has been emptied
+        TokenBucket fixture = new TokenBucket(clock, 2, 10);
+        fixture.tryAcquire();
+        fixture.tryAcquire();
+
+        // when: enough time passes to refill many more tokens than its capacity
+        clock.advance(Duration.ofMinutes(1));
+
+        // then: only its capacity can be taken
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+        assertEquals(Duration.ZERO, fixture.tryAcquire());
+        assertTrue(fixture.tryAcquire().isPositive());
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(clock, 0, 1));
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(clock, 1, 0));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
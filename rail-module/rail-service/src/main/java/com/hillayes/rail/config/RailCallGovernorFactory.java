@@ -0,0 +1,61 @@
+package com.hillayes.rail.config;
+
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
+import com.hillayes.rail.api.governor.RailCallGovernor;
+import com.hillayes.rail.service.RailCallBudgetService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Disposes;
+import jakarta.enterprise.inject.Produces;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Produces the RailCallGovernor that paces, and limits, the calls made to the rail
+ * providers. As it is also a RateLimitObserver, it is notified of the rate-limits
+ * reported by the rail provider libraries.
+ */
+@ApplicationScoped
+@Slf4j
+public class RailCallGovernorFactory {
+    // the executor on which the governor's budgets are written
+    private ExecutorService budgetWriter;
+
+    @Produces
+    @ApplicationScoped
+    public RailCallGovernor railCallGovernor(ServiceConfiguration configuration,
+                                             RailCallBudgetService railCallBudgetService) {
+        ServiceConfiguration.RateLimits rateLimits = configuration.rateLimits();
+        log.info("Creating rail call governor [callsPerSecond: {}, burst: {}, accountDailyCalls: {}, budgetWriteInterval: {}]",
+            rateLimits.callsPerSecond(), rateLimits.burst(), rateLimits.accountDailyCalls(), rateLimits.budgetWriteInterval());
+
+        RailCallGovernor.Limits limits = new RailCallGovernor.Limits(
+            rateLimits.callsPerSecond(), rateLimits.burst(), rateLimits.accountDailyCalls());
+
+        // the budgets are written by a single thread; each write replaces the last
+        budgetWriter = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+            .name("rail-call-budgets")
+            .executorType(ExecutorType.FIXED)
+            .numberOfThreads(1)
+            .build());
+        return new RailCallGovernor(limits, railCallBudgetService, Clock.systemUTC(),
+            budgetWriter, rateLimits.budgetWriteInterval());
+    }
+
+    /**
+     * Writes any budgets not yet written, so that they survive the restart; and then
+     * shuts down the executor on which they were written.
+     */
+    public void close(@Disposes RailCallGovernor railCallGovernor) {
+        log.info("Writing rail call budgets");
+        railCallGovernor.flush();
+
+        if (budgetWriter != null) {
+            log.debug("Shutting down rail call budget writer");
+            budgetWriter.shutdown();
+        }
+    }
+}
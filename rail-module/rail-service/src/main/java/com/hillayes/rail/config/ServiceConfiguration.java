@@ -26,6 +26,14 @@ public interface ServiceConfiguration {
     @WithDefault("PT1H")
     Duration accountPollingInterval();
 
+    /**
+     * The max number of transactions written, and committed, together when polling
+     * an account. Each chunk is committed independently; so an interrupted poll can
+     * resume from the most recent transaction recorded.
+     */
+    @WithDefault("500")
+    int transactionChunkSize();
+
     /**
      * The duration after which an INITIATED consent registration is considered to have
      * timed out, if no confirmation of its acceptance or denial has been received
@@ -34,6 +42,11 @@ public interface ServiceConfiguration {
     @WithDefault("PT10M")
     Duration consentTimeout();
 
+    /**
+     * The limits applied to the calls made to each rail provider.
+     */
+    RateLimits rateLimits();
+
     Categories categories();
 
     Audit audit();
@@ -57,6 +70,45 @@ public interface ServiceConfiguration {
          * The duration for which the account details are cached.
          */
         Duration accountDetails();
+
+        /**
+         * The duration for which the compiled category selectors of each category
+         * group are cached.
+         */
+        Duration categoryMatchers();
+    }
+
+    /**
+     * The limits applied by the RailCallGovernor. Each poll of a consent or account
+     * reserves the calls it makes to the rail; and is paced as a single call.
+     */
+    interface RateLimits {
+        /**
+         * The sustained rate at which polls are made to each rail provider.
+         */
+        @WithDefault("2")
+        double callsPerSecond();
+
+        /**
+         * The max number of polls made to each rail provider in a burst.
+         */
+        @WithDefault("5")
+        int burst();
+
+        /**
+         * The number of calls for each account permitted in a day; unless the rail
+         * reports a lower quota of its own. Each poll of an account makes
+         * PollAccountAdhocTask.ACCOUNT_POLL_CALLS calls; so the default permits 24 polls.
+         */
+        @WithDefault("96")
+        int accountDailyCalls();
+
+        /**
+         * The delay between a call budget changing and its being written to the
+         * database; during which further changes are gathered into the same write.
+         */
+        @WithDefault("PT5S")
+        Duration budgetWriteInterval();
     }
 
     interface Categories {
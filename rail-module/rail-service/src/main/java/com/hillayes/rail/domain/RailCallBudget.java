@@ -0,0 +1,49 @@
+package com.hillayes.rail.domain;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * Records the calls remaining in a rail provider's quota; so that the quotas are
+ * respected across restarts of the service. See RailCallGovernor.
+ */
+@Entity
+@Table(name = "rail_call_budget")
+@Getter
+@Builder(builderClassName = "Builder")
+@NoArgsConstructor
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@ToString(onlyExplicitlyIncluded = true)
+public class RailCallBudget {
+    @Id
+    @GeneratedValue(generator = "uuid2")
+    @Setter
+    private UUID id;
+
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private RailProvider provider;
+
+    /**
+     * The rail account ID, or "*" if the budget applies to all calls to the provider.
+     */
+    @ToString.Include
+    @EqualsAndHashCode.Include
+    @Column(nullable = false)
+    private String scope;
+
+    @ToString.Include
+    @Column(nullable = false)
+    private int remaining;
+
+    @ToString.Include
+    @Column(name = "resets_at")
+    private Instant resetsAt;
+}
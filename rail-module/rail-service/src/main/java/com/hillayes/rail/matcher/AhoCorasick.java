@@ -0,0 +1,180 @@
+package com.hillayes.rail.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * An Aho-Corasick automaton; finding all occurrences of a fixed set of patterns in a
+ * single pass of the text, regardless of the number of patterns. Matching is literal
+ * and case-sensitive.
+ * <p>
+ * The automaton is compiled to a deterministic table of transitions, indexed by
+ * state and character class. Each distinct character of the patterns is assigned a
+ * class, and all other characters share a class that leads back to the root. Once
+ * constructed, the automaton is immutable and may be shared between threads.
+ */
+public class AhoCorasick {
+    private static final int[] NONE = new int[0];
+
+    // the range of characters whose class is held in an array, rather than a map
+    private static final int ASCII = 128;
+
+    private final int patternCount;
+
+    // the number of character classes; including that of characters not in any pattern
+    private final int alphabetSize;
+
+    // the class of each ASCII character; zero if the character is not in any pattern
+    private final int[] asciiClasses = new int[ASCII];
+
+    // the class of each non-ASCII character that appears in the patterns
+    private final Map<Character, Integer> otherClasses = new HashMap<>();
+
+    // the next state for each state and character class; indexed by state * alphabetSize + class
+    private final int[] transitions;
+
+    // the indices of the patterns that end at each state; including those of its suffixes
+    private final int[][] outputs;
+
+    // the indices of the empty patterns; reported once for each search
+    private final int[] emptyPatterns;
+
+    /**
+     * Compiles an automaton for the given patterns. The index of each pattern in the
+     * list is that reported when it is found. An empty pattern is found in any text.
+     *
+     * @param patterns the patterns to be found.
+     */
+    public AhoCorasick(List<String> patterns) {
+        this.patternCount = patterns.size();
+
+        // assign a class to each distinct character of the patterns
+        int classCount = 1;
+        int maxStates = 1;
+        for (String pattern : patterns) {
+            maxStates += pattern.length();
+            for (int i = 0; i < pattern.length(); i++) {
+                char ch = pattern.charAt(i);
+                if (classOf(ch) == 0) {
+                    if (ch < ASCII) {
+                        asciiClasses[ch] = classCount++;
+                    } else {
+                        otherClasses.put(ch, classCount++);
+                    }
+                }
+            }
+        }
+        this.alphabetSize = classCount;
+
+        // build the trie of the patterns - missing transitions are marked -1
+        int[] table = new int[maxStates * alphabetSize];
+        Arrays.fill(table, -1);
+        List<List<Integer>> ends = new ArrayList<>(maxStates);
+        ends.add(new ArrayList<>());
+        int stateCount = 1;
+        for (int index = 0; index < patternCount; index++) {
+            String pattern = patterns.get(index);
+            int state = 0;
+            for (int i = 0; i < pattern.length(); i++) {
+                int slot = state * alphabetSize + classOf(pattern.charAt(i));
+                if (table[slot] < 0) {
+                    table[slot] = stateCount++;
+                    ends.add(new ArrayList<>());
+                }
+                state = table[slot];
+            }
+            ends.get(state).add(index);
+        }
+
+        // complete the transitions, breadth-first, following the failure links
+        this.outputs = new int[stateCount][];
+        int[] failures = new int[stateCount];
+        int[] queue = new int[stateCount];
+        int head = 0;
+        int tail = 0;
+
+        // the root is re-entered often, so its (empty) patterns are not reported there
+        this.emptyPatterns = toArray(ends.get(0), NONE);
+        outputs[0] = NONE;
+        for (int cls = 0; cls < alphabetSize; cls++) {
+            int next = table[cls];
+            if (next < 0) {
+                table[cls] = 0;
+            } else {
+                failures[next] = 0;
+                queue[tail++] = next;
+            }
+        }
+
+        while (head < tail) {
+            int state = queue[head++];
+
+            int failure = failures[state];
+            outputs[state] = toArray(ends.get(state), outputs[failure]);
+
+            for (int cls = 0; cls < alphabetSize; cls++) {
+                int slot = state * alphabetSize + cls;
+                int fallback = table[failure * alphabetSize + cls];
+                if (table[slot] < 0) {
+                    table[slot] = fallback;
+                } else {
+                    failures[table[slot]] = fallback;
+                    queue[tail++] = table[slot];
+                }
+            }
+        }
+
+        this.transitions = Arrays.copyOf(table, stateCount * alphabetSize);
+    }
+
+    /**
+     * Returns the number of patterns from which the automaton was compiled.
+     */
+    public int getPatternCount() {
+        return patternCount;
+    }
+
+    /**
+     * Reports the index of each pattern found in the given text; once for each
+     * occurrence. The patterns of each occurrence are reported as the end of that
+     * occurrence is reached.
+     *
+     * @param text the text to be searched.
+     * @param consumer the callback to receive the index of each pattern found.
+     */
+    public void forEachMatch(CharSequence text, IntConsumer consumer) {
+        for (int index : emptyPatterns) {
+            consumer.accept(index);
+        }
+
+        int state = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            state = transitions[state * alphabetSize + classOf(text.charAt(i))];
+            for (int index : outputs[state]) {
+                consumer.accept(index);
+            }
+        }
+    }
+
+    private int classOf(char ch) {
+        return (ch < ASCII) ? asciiClasses[ch] : otherClasses.getOrDefault(ch, 0);
+    }
+
+    private static int[] toArray(List<Integer> own, int[] inherited) {
+        if ((own.isEmpty()) && (inherited.length == 0)) {
+            return NONE;
+        }
+
+        int[] result = new int[own.size() + inherited.length];
+        for (int i = 0; i < own.size(); i++) {
+            result[i] = own.get(i);
+        }
+        System.arraycopy(inherited, 0, result, own.size(), inherited.length);
+        return result;
+    }
+}
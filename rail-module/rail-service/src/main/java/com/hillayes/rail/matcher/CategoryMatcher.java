@@ -0,0 +1,169 @@
+package com.hillayes.rail.matcher;
+
+import com.hillayes.rail.domain.AccountTransaction;
+import com.hillayes.rail.domain.CategorySelector;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Matches transactions to the categories whose selectors they satisfy. The selectors
+ * of each account are compiled into three {@link AhoCorasick} automata; one for each
+ * of the fields a selector may test (additional-info, reference and creditor-name).
+ * A transaction is then classified by a single pass over each of its fields, however
+ * many selectors there are.
+ * <p>
+ * As with the selectors themselves (see {@link CategorySelector}), a selector matches
+ * a transaction if the transaction's fields contain all of the selector's given texts;
+ * and a transaction falls within a category if it matches any of that category's
+ * selectors. The texts are matched literally and are case-sensitive.
+ * <p>
+ * A matcher is immutable and may be shared between threads.
+ */
+public class CategoryMatcher {
+    public static final CategoryMatcher EMPTY = new CategoryMatcher(List.of());
+
+    private final Map<UUID, AccountSelectors> accounts;
+
+    /**
+     * Compiles a matcher for the given selectors. The selectors may relate to any
+     * number of accounts and categories.
+     *
+     * @param selectors the selectors to be matched.
+     */
+    public CategoryMatcher(Collection<CategorySelector> selectors) {
+        Map<UUID, List<CategorySelector>> byAccount = new HashMap<>();
+        selectors.forEach(selector ->
+            byAccount.computeIfAbsent(selector.getAccountId(), k -> new ArrayList<>()).add(selector));
+
+        Map<UUID, AccountSelectors> compiled = new HashMap<>();
+        byAccount.forEach((accountId, list) -> compiled.put(accountId, new AccountSelectors(list)));
+        this.accounts = Map.copyOf(compiled);
+    }
+
+    /**
+     * Returns the IDs of the categories into which the given transaction falls.
+     *
+     * @param transaction the transaction to be classified.
+     * @return the IDs of the matching categories; empty if none match.
+     */
+    public Set<UUID> categorise(AccountTransaction transaction) {
+        return categorise(transaction.getAccountId(), transaction.getAdditionalInformation(),
+            transaction.getReference(), transaction.getCreditorName());
+    }
+
+    /**
+     * Returns the IDs of the categories into which a transaction, of the identified
+     * account and with the given field values, falls.
+     *
+     * @param accountId the account to which the transaction belongs.
+     * @param additionalInformation the transaction's additional-information; may be null.
+     * @param reference the transaction's reference; may be null.
+     * @param creditorName the transaction's creditor-name; may be null.
+     * @return the IDs of the matching categories; empty if none match.
+     */
+    public Set<UUID> categorise(UUID accountId,
+                                String additionalInformation,
+                                String reference,
+                                String creditorName) {
+        AccountSelectors selectors = accounts.get(accountId);
+        return (selectors == null)
+            ? Set.of()
+            : selectors.categorise(additionalInformation, reference, creditorName);
+    }
+
+    /**
+     * The compiled selectors of a single account.
+     */
+    private static class AccountSelectors {
+        // the category of each selector
+        private final UUID[] categories;
+
+        // the number of fields each selector tests
+        private final int[] required;
+
+        private final FieldMatcher info;
+        private final FieldMatcher reference;
+        private final FieldMatcher creditor;
+
+        AccountSelectors(List<CategorySelector> selectors) {
+            int count = selectors.size();
+            this.categories = new UUID[count];
+            this.required = new int[count];
+            for (int i = 0; i < count; i++) {
+                categories[i] = selectors.get(i).getCategory().getId();
+            }
+
+            this.info = new FieldMatcher(selectors, CategorySelector::getInfoContains, required);
+            this.reference = new FieldMatcher(selectors, CategorySelector::getRefContains, required);
+            this.creditor = new FieldMatcher(selectors, CategorySelector::getCreditorContains, required);
+        }
+
+        Set<UUID> categorise(String additionalInformation, String reference, String creditorName) {
+            int[] hits = new int[categories.length];
+            this.info.match(additionalInformation, hits);
+            this.reference.match(reference, hits);
+            this.creditor.match(creditorName, hits);
+
+            Set<UUID> result = null;
+            for (int i = 0; i < categories.length; i++) {
+                if (hits[i] == required[i]) {
+                    if (result == null) {
+                        result = new HashSet<>();
+                    }
+                    result.add(categories[i]);
+                }
+            }
+            return (result == null) ? Set.of() : result;
+        }
+    }
+
+    /**
+     * The texts that the selectors of an account test for in a single field.
+     */
+    private static class FieldMatcher {
+        private final AhoCorasick automaton;
+
+        // the selectors that test for each of the automaton's patterns
+        private final int[][] selectors;
+
+        FieldMatcher(List<CategorySelector> selectorList,
+                     Function<CategorySelector, String> field,
+                     int[] required) {
+            // the same text may be tested by several selectors
+            Map<String, List<Integer>> patterns = new LinkedHashMap<>();
+            for (int i = 0; i < selectorList.size(); i++) {
+                String text = field.apply(selectorList.get(i));
+                if (text != null) {
+                    patterns.computeIfAbsent(text, k -> new ArrayList<>()).add(i);
+                    required[i]++;
+                }
+            }
+
+            this.automaton = patterns.isEmpty() ? null : new AhoCorasick(List.copyOf(patterns.keySet()));
+            this.selectors = patterns.values().stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+        }
+
+        /**
+         * Increments the hit count of each selector whose text is found in the given
+         * field value. Each selector is counted once, however often its text occurs.
+         */
+        void match(String value, int[] hits) {
+            if ((automaton == null) || (value == null)) {
+                return;
+            }
+
+            boolean[] found = new boolean[selectors.length];
+            automaton.forEachMatch(value, index -> {
+                if (!found[index]) {
+                    found[index] = true;
+                    for (int selector : selectors[index]) {
+                        hits[selector]++;
+                    }
+                }
+            });
+        }
+    }
+}
@@ -2,6 +2,9 @@ package com.hillayes.rail.repository;
 
 import com.hillayes.commons.MonetaryAmount;
 import com.hillayes.commons.Strings;
+import com.hillayes.commons.jdbc.BulkWriter;
+import com.hillayes.commons.jpa.Keyset;
+import com.hillayes.commons.jpa.KeysetPage;
 import com.hillayes.commons.jpa.OrderBy;
 import com.hillayes.commons.jpa.Page;
 import com.hillayes.commons.jpa.RepositoryBase;
@@ -14,14 +17,32 @@ import jakarta.persistence.EntityManager;
 import jakarta.persistence.Tuple;
 import jakarta.persistence.criteria.*;
 import lombok.*;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.Session;
+import org.hibernate.jpa.HibernateHints;
 
 import java.math.BigDecimal;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.stream.Stream;
 
 @ApplicationScoped
+@Slf4j
 public class AccountTransactionRepository extends RepositoryBase<AccountTransaction, UUID> {
+    /**
+     * The keysets on which transactions are paged by booking date; with the ID to
+     * ensure uniqueness. Covered by the indices idx_account_user_date_id and
+     * idx_account_trans_date_id.
+     */
+    private static final Keyset<AccountTransaction> BOOKING_DATE_DESC = Keyset
+        .by("bookingDateTime", OrderBy.Direction.Descending, AccountTransaction::getBookingDateTime)
+        .then("id", OrderBy.Direction.Descending, AccountTransaction::getId);
+    private static final Keyset<AccountTransaction> BOOKING_DATE_ASC = Keyset
+        .by("bookingDateTime", OrderBy.Direction.Ascending, AccountTransaction::getBookingDateTime)
+        .then("id", OrderBy.Direction.Ascending, AccountTransaction::getId);
+
     private static final String SELECT_BY_USER =
         "SELECT t FROM AccountTransaction t " +
             "WHERE t.userId = :userId " +
@@ -29,6 +50,11 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
             "AND t.bookingDateTime < :endDate " +
             "ORDER BY t.bookingDateTime DESC";
 
+    private static final String SELECT_CATEGORISABLE =
+        "SELECT t.id, t.internalTransactionId, t.additionalInformation, t.reference, t.creditorName " +
+            "FROM AccountTransaction t " +
+            "WHERE t.accountId = :accountId";
+
     private static final String SELECT_BY_ACCOUNT =
         "SELECT t FROM AccountTransaction t " +
             "WHERE t.userId = :userId " +
@@ -39,17 +65,10 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
 
     private static final String SELECT_BY_CATEGORY =
         "select t.* from rails.account_transaction t " +
+        "inner join rails.category_assignment ca on ca.transaction_id = t.id and ca.category_id = :categoryId " +
         "where t.user_id = :userId " +
         "and t.booking_datetime >= :startDate " +
         "and t.booking_datetime < :endDate " +
-        "and exists ( " +
-        "  select 1 from rails.category_selector cs where " +
-        "    cs.category_id = :categoryId " +
-        "    and cs.account_id = t.account_id " +
-        "    and (cs.info_contains is null or t.additional_information like concat('%', cs.info_contains, '%')) " +
-        "    and (cs.ref_contains is null or t.reference like concat('%', cs.ref_contains, '%')) " +
-        "    and (cs.creditor_contains is null or t.creditor_name like concat('%', cs.creditor_contains, '%')) " +
-        ") " +
         "order by t.booking_datetime desc";
 
     private static final String SELECT_BY_NON_CATEGORY =
@@ -58,12 +77,9 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
         "and t.booking_datetime >= :startDate " +
         "and t.booking_datetime < :endDate " +
         "and not exists ( " +
-        "  select 1 from rails.category_selector cs " +
-        "  inner join rails.category c on c.group_id = :groupId and c.id = cs.category_id " +
-        "  where cs.account_id = t.account_id " +
-        "    and (cs.info_contains is null or t.additional_information like concat('%', cs.info_contains, '%')) " +
-        "    and (cs.ref_contains is null or t.reference like concat('%', cs.ref_contains, '%')) " +
-        "    and (cs.creditor_contains is null or t.creditor_name like concat('%', cs.creditor_contains, '%')) " +
+        "  select 1 from rails.category_assignment ca " +
+        "  inner join rails.category c on c.group_id = :groupId and c.id = ca.category_id " +
+        "  where ca.transaction_id = t.id " +
         ") " +
         "order by t.booking_datetime desc";
 
@@ -100,17 +116,40 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
         "group by 1, 2, 3 " +
         "order by 1 asc";
 
+    // writes batches of AccountTransaction records using native SQL statements
+    private final BulkWriter<AccountTransaction> bulkWriter;
+
+    public AccountTransactionRepository(
+        @ConfigProperty(name ="quarkus.hibernate-orm.database.default-schema", defaultValue = "rails")
+        String dbSchema,
+        AccountTransactionSqlMapper sqlMapper
+    ) {
+        this.bulkWriter = BulkWriter.builder(dbSchema + ".account_transaction", sqlMapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .conflictColumns("account_id", "internal_transaction_id")
+            .build();
+    }
+
     /**
-     * Locates the transactions whose internal ID is in the given list. The internal
-     * transaction ID is assigned by the rail service.
+     * Inserts the given batch of AccountTransaction records, within the caller's
+     * transaction. The insertion is performed using a native SQL insert statement
+     * with the clause "ON CONFLICT DO NOTHING" (see {@link BulkWriter}); so any
+     * transaction whose internal ID has already been recorded against its account
+     * will be ignored. This allows the same transactions to be retrieved from the
+     * rail more than once without creating duplicates.
      *
-     * @param internalTransactionIds the list of internal transaction IDs.
-     * @return those transactions identified in the given list.
+     * @param batch the collection of AccountTransaction records to be inserted.
+     * @return the number of records inserted; excluding those ignored.
      */
-    public List<AccountTransaction> findByInternalId(List<String> internalTransactionIds) {
-        return internalTransactionIds.isEmpty()
-            ? List.of()
-            : listAll("internalTransactionId in ?1", internalTransactionIds);
+    public int saveBatch(Collection<AccountTransaction> batch) {
+        log.debug("Saving batch of transactions [size: {}]", batch.size());
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        return getEntityManager()
+            .unwrap(Session.class)
+            .doReturningWork(connection -> bulkWriter.insert(connection, batch));
     }
 
     public Page<AccountTransaction> findByFilter(TransactionFilter filter,
@@ -127,6 +166,29 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
         return pageAll(query, page, pageSize, OrderBy.by(orderByCol, direction), params);
     }
 
+    /**
+     * Returns the page of transactions, matching the given filter, identified by the
+     * given cursor token. The transactions are ordered by booking date, in the filter's
+     * direction. Unlike {@link #findByFilter(TransactionFilter, int, int)}, the cost of
+     * each page is independent of its position within the results.
+     *
+     * @param filter the filter to select the transactions.
+     * @param cursor the token identifying the requested page; null for the first page.
+     * @param pageSize the max number of transactions to be returned.
+     * @param withCount true if the total number of matching transactions is required.
+     * @return the requested page of transactions.
+     */
+    public KeysetPage<AccountTransaction> findByFilter(TransactionFilter filter,
+                                                       String cursor,
+                                                       int pageSize,
+                                                       boolean withCount) {
+        Keyset<AccountTransaction> keyset = ("asc".equals(filter.getDirection()))
+            ? BOOKING_DATE_ASC
+            : BOOKING_DATE_DESC;
+
+        return pageByKeyset(filter.toQuery(), keyset, cursor, pageSize, withCount, filter.toParams());
+    }
+
     public List<MonetaryAmount> findTotals(TransactionFilter filter) {
         EntityManager entityManager = getEntityManager();
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -170,6 +232,25 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
             .getResultList();
     }
 
+    /**
+     * Streams the fields, of each of the identified account's transactions, that are
+     * tested by category selectors. Only those fields are read, so the account's full
+     * history can be classified without loading its transactions into the persistence
+     * context; and are fetched from the database in batches, rather than all at once.
+     * The stream must be consumed within the caller's transaction.
+     *
+     * @param accountId the account whose transactions are to be streamed.
+     * @return the stream of transaction fields.
+     */
+    public Stream<CategorisableText> streamCategorisable(UUID accountId) {
+        return getEntityManager().createQuery(SELECT_CATEGORISABLE, Object[].class)
+            .setParameter("accountId", accountId)
+            .setHint(HibernateHints.HINT_FETCH_SIZE, DEFAULT_FETCH_SIZE)
+            .getResultStream()
+            .map(row -> new CategorisableText((UUID) row[0],
+                (String) row[1], (String) row[2], (String) row[3], (String) row[4]));
+    }
+
     public List<MovementProjection> getMovementStats(UUID userId, UUID accountId,
                                                      Instant startDateInclusive, Instant endDateExclusive) {
         String query = (accountId == null) ? SELECT_USERS_MOVEMENTS : SELECT_ACCOUNTS_MOVEMENTS;
@@ -225,6 +306,17 @@ public class AccountTransactionRepository extends RepositoryBase<AccountTransact
             .getResultList();
     }
 
+    /**
+     * The fields of a transaction that are tested by category selectors.
+     */
+    public record CategorisableText(
+        UUID id,
+        String internalTransactionId,
+        String additionalInformation,
+        String reference,
+        String creditorName
+    ) {}
+
     @Builder
     @NoArgsConstructor
     @AllArgsConstructor(access = AccessLevel.PRIVATE)
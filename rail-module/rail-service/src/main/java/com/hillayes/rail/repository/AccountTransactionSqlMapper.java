@@ -0,0 +1,37 @@
+package com.hillayes.rail.repository;
+
+import com.hillayes.commons.jdbc.SqlEntityMapper;
+import com.hillayes.rail.domain.AccountTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Maps AccountTransaction records to the columns of a native SQL insert. The columns
+ * "reconciled" and "notes" are maintained by the user, and are left to take their
+ * default values.
+ */
+@ApplicationScoped
+public class AccountTransactionSqlMapper extends SqlEntityMapper<AccountTransaction> {
+    @Override
+    public Map<String, ColMapper<AccountTransaction>> initColMappings() {
+        LinkedHashMap<String, ColMapper<AccountTransaction>> result = LinkedHashMap.newLinkedHashMap(13);
+        result.put("id", (s, offset, entity) -> setUuid(s, offset, entity.getId() == null ? UUID.randomUUID() : entity.getId()));
+        result.put("user_id", (s, offset, entity) -> setUuid(s, offset, entity.getUserId()));
+        result.put("account_id", (s, offset, entity) -> setUuid(s, offset, entity.getAccountId()));
+        result.put("date_created", (s, offset, entity) -> setTimestamp(s, offset, entity.getDateCreated()));
+        result.put("internal_transaction_id", (s, offset, entity) -> setString(s, offset, entity.getInternalTransactionId()));
+        result.put("transaction_id", (s, offset, entity) -> setString(s, offset, entity.getTransactionId()));
+        result.put("booking_datetime", (s, offset, entity) -> setTimestamp(s, offset, entity.getBookingDateTime()));
+        result.put("value_datetime", (s, offset, entity) -> setTimestamp(s, offset, entity.getValueDateTime()));
+        result.put("amount", (s, offset, entity) -> setLong(s, offset, entity.getAmount().getAmount()));
+        result.put("currency_code", (s, offset, entity) -> setString(s, offset, entity.getAmount().getCurrencyCode()));
+        result.put("additional_information", (s, offset, entity) -> setString(s, offset, entity.getAdditionalInformation()));
+        result.put("creditor_name", (s, offset, entity) -> setString(s, offset, entity.getCreditorName()));
+        result.put("reference", (s, offset, entity) -> setString(s, offset, entity.getReference()));
+
+        return result;
+    }
+}
@@ -8,6 +8,7 @@ import com.hillayes.rail.domain.CategoryGroup;
 import com.hillayes.rail.domain.CategoryStatistics;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
+import jakarta.persistence.LockModeType;
 
 import java.time.Instant;
 import java.util.*;
@@ -26,6 +27,45 @@ public class CategoryGroupRepository extends RepositoryBase<CategoryGroup, UUID>
             OrderBy.by("name"), Map.of("userId", userId));
     }
 
+    public List<UUID> findIdsByUserId(UUID userId) {
+        return getEntityManager()
+            .createQuery("select g.id from CategoryGroup g where g.userId = :userId", UUID.class)
+            .setParameter("userId", userId)
+            .getResultList();
+    }
+
+    /**
+     * Returns the version of each of the identified user's category groups, keyed by
+     * group ID. The groups are locked (FOR SHARE) until the caller's transaction
+     * completes; so that their selectors cannot be changed meanwhile (see {@link
+     * #lockForSelectorChange(CategoryGroup)}).
+     *
+     * @param userId the user whose category groups are to be locked.
+     * @return the version of each of the user's groups, keyed by group ID.
+     */
+    public Map<UUID, Long> lockVersionsByUserId(UUID userId) {
+        List<Object[]> rows = getEntityManager()
+            .createNativeQuery("select id, version from rails.category_group where user_id = :userId for share")
+            .setParameter("userId", userId)
+            .getResultList();
+
+        Map<UUID, Long> result = new HashMap<>();
+        rows.forEach(row -> result.put((UUID) row[0], ((Number) row[1]).longValue()));
+        return result;
+    }
+
+    /**
+     * Locks the given category group, and increments its version, before its
+     * selectors are changed. Those that have read the group's version (see {@link
+     * #lockVersionsByUserId(UUID)}) will complete before the change is made; and
+     * those that read it after will see the new version.
+     *
+     * @param group the group whose selectors are to be changed.
+     */
+    public void lockForSelectorChange(CategoryGroup group) {
+        getEntityManager().lock(group, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    }
+
     public Optional<CategoryGroup> findByUserAndName(UUID userId, String name) {
         return findFirst("userId = :userId and name = :name",
             Map.of("userId", userId, "name", name));
@@ -73,13 +113,8 @@ public class CategoryGroupRepository extends RepositoryBase<CategoryGroup, UUID>
         "sum(case when t.amount > 0 then t.amount else 0 end) / 100 as credit, " +
         "sum(case when t.amount < 0 then abs(t.amount) else 0 end) / 100 as debit " +
         "from rails.account_transaction t " +
-        "inner join rails.category c on c.group_id = :groupId " +
-        "inner join rails.category_selector cs on " +
-        "  cs.category_id = c.id and" +
-        "  cs.account_id = t.account_id and " +
-        "  (cs.info_contains is null or t.additional_information like concat('%', cs.info_contains, '%')) and " +
-        "  (cs.ref_contains is null or t.reference like concat('%', cs.ref_contains, '%')) and " +
-        "  (cs.creditor_contains is null or t.creditor_name like concat('%', cs.creditor_contains, '%')) " +
+        "inner join rails.category_assignment ca on ca.transaction_id = t.id " +
+        "inner join rails.category c on c.id = ca.category_id and c.group_id = :groupId " +
         "where t.user_id = :userId " +
         "and t.booking_datetime >= :startDate " +
         "and t.booking_datetime < :endDate " +
@@ -97,14 +132,10 @@ public class CategoryGroupRepository extends RepositoryBase<CategoryGroup, UUID>
         "and t.booking_datetime >= :startDate " +
         "and t.booking_datetime < :endDate " +
         "and not exists ( " +
-        "  select 1 from rails.category_selector cs" +
-        "  inner join rails.category c on c.group_id = :groupId and " +
-        "    cs.category_id = c.id and " +
-        "    cs.account_id = t.account_id and " +
-        "    (cs.info_contains is null or t.additional_information like concat('%', cs.info_contains, '%')) and " +
-        "    (cs.ref_contains is null or t.reference like concat('%', cs.ref_contains, '%')) and " +
-        "    (cs.creditor_contains is null or t.creditor_name like concat('%', cs.creditor_contains, '%')) " +
-        ")" +
+        "  select 1 from rails.category_assignment ca " +
+        "  inner join rails.category c on c.id = ca.category_id and c.group_id = :groupId " +
+        "  where ca.transaction_id = t.id " +
+        ") " +
         "group by 1, 2, 3, 4 order by 1";
 
     private static final List<String> STATS_QUERIES = List.of(
@@ -1,18 +1,133 @@
 package com.hillayes.rail.repository;
 
+import com.hillayes.commons.jdbc.JdbcException;
 import com.hillayes.commons.jpa.OrderBy;
 import com.hillayes.commons.jpa.Page;
 import com.hillayes.commons.jpa.RepositoryBase;
 import com.hillayes.rail.domain.Category;
 import jakarta.enterprise.context.ApplicationScoped;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
 
-import java.util.Map;
-import java.util.UUID;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.*;
 
 @ApplicationScoped
+@Slf4j
 public class CategoryRepository extends RepositoryBase<Category, UUID> {
+    // the transaction is identified by its account and internal ID, as the ID of a
+    // transaction that had already been recorded is not known to the caller. The
+    // join on the category ignores any category that has since been deleted.
+    private static final String ASSIGN_TRANSACTION =
+        "insert into rails.category_assignment (category_id, transaction_id) " +
+        "select c.id, t.id from rails.category c " +
+        "inner join rails.account_transaction t on t.account_id = ? and t.internal_transaction_id = ? " +
+        "where c.id = ? " +
+        "on conflict do nothing";
+
+    // the ID of each transaction is known, so it is assigned without look-up
+    private static final String ASSIGN_CATEGORY =
+        "insert into rails.category_assignment (category_id, transaction_id) " +
+        "values (?, ?) " +
+        "on conflict do nothing";
+
+    private static final String UNASSIGN_CATEGORY =
+        "delete from rails.category_assignment ca " +
+        "using rails.account_transaction t " +
+        "where ca.category_id = :categoryId " +
+        "and t.id = ca.transaction_id " +
+        "and t.account_id = :accountId";
+
     public Page<Category> findByGroupId(UUID groupId, int page, int pageSize) {
         return pageAll("group.id = :groupId", page, pageSize,
             OrderBy.by("name"), Map.of("groupId", groupId));
     }
+
+    /**
+     * Records the assignment of the given account's transactions to the categories
+     * into which they fall. Any assignments already recorded are retained.
+     *
+     * @param accountId the account to which the transactions belong.
+     * @param assignments the IDs of the categories into which each transaction falls,
+     *     keyed by the transaction's internal ID.
+     * @return the number of assignments recorded.
+     */
+    public int assignTransactions(UUID accountId, Map<String, ? extends Collection<UUID>> assignments) {
+        if (assignments.isEmpty()) {
+            return 0;
+        }
+
+        log.debug("Assigning transactions to categories [accountId: {}, size: {}]", accountId, assignments.size());
+        return getEntityManager()
+            .unwrap(Session.class)
+            .doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(ASSIGN_TRANSACTION)) {
+                    for (Map.Entry<String, ? extends Collection<UUID>> entry : assignments.entrySet()) {
+                        for (UUID categoryId : entry.getValue()) {
+                            statement.setObject(1, accountId);
+                            statement.setString(2, entry.getKey());
+                            statement.setObject(3, categoryId);
+                            statement.addBatch();
+                        }
+                    }
+
+                    return Arrays.stream(statement.executeBatch())
+                        .filter(count -> count > 0)
+                        .sum();
+                } catch (SQLException e) {
+                    throw new JdbcException("Category assignment failed [accountId: " + accountId + "]", e);
+                }
+            });
+    }
+
+    /**
+     * Records the assignment of the identified transactions to the identified category.
+     * Any assignments already recorded are retained.
+     *
+     * @param categoryId the category to which the transactions are assigned.
+     * @param transactionIds the IDs of the transactions to be assigned.
+     * @return the number of assignments recorded.
+     */
+    public int assignCategory(UUID categoryId, Collection<UUID> transactionIds) {
+        if (transactionIds.isEmpty()) {
+            return 0;
+        }
+
+        log.debug("Assigning transactions to category [categoryId: {}, size: {}]", categoryId, transactionIds.size());
+        return getEntityManager()
+            .unwrap(Session.class)
+            .doReturningWork(connection -> {
+                try (PreparedStatement statement = connection.prepareStatement(ASSIGN_CATEGORY)) {
+                    for (UUID transactionId : transactionIds) {
+                        statement.setObject(1, categoryId);
+                        statement.setObject(2, transactionId);
+                        statement.addBatch();
+                    }
+
+                    return Arrays.stream(statement.executeBatch())
+                        .filter(count -> count > 0)
+                        .sum();
+                } catch (SQLException e) {
+                    throw new JdbcException("Category assignment failed [categoryId: " + categoryId + "]", e);
+                }
+            });
+    }
+
+    /**
+     * Removes the assignment of the given account's transactions to the identified
+     * category; typically before they are re-assigned after the category's selectors
+     * have changed.
+     *
+     * @param categoryId the category whose assignments are to be removed.
+     * @param accountId the account whose transactions are to be unassigned.
+     * @return the number of assignments removed.
+     */
+    public int unassignCategory(UUID categoryId, UUID accountId) {
+        log.debug("Unassigning category transactions [categoryId: {}, accountId: {}]", categoryId, accountId);
+        return getEntityManager().createNativeQuery(UNASSIGN_CATEGORY)
+            .setParameter("categoryId", categoryId)
+            .setParameter("accountId", accountId)
+            .executeUpdate();
+    }
 }
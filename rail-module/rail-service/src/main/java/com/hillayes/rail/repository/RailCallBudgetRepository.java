@@ -0,0 +1,46 @@
+package com.hillayes.rail.repository;
+
+import com.hillayes.commons.jpa.RepositoryBase;
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.domain.RailCallBudget;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+@ApplicationScoped
+public class RailCallBudgetRepository extends RepositoryBase<RailCallBudget, UUID> {
+    public Optional<RailCallBudget> findByScope(RailProvider provider, String scope) {
+        return findFirst("provider = :provider AND scope = :scope",
+            Map.of(
+                "provider", provider,
+                "scope", scope)
+        );
+    }
+
+    /**
+     * Writes the given budget values; replacing any previously written for the same
+     * provider and scope. A single statement is used, so that concurrent writes for
+     * the same provider and scope cannot conflict.
+     *
+     * @param provider the rail provider to which the budget applies.
+     * @param scope the rail account ID, or "*" if the budget applies to all calls.
+     * @param remaining the number of calls remaining.
+     * @param resetsAt the time at which the quota will be reset.
+     */
+    public void upsert(RailProvider provider, String scope, int remaining, Instant resetsAt) {
+        getEntityManager().createNativeQuery(
+                "INSERT INTO rails.rail_call_budget (id, provider, scope, remaining, resets_at)" +
+                    " VALUES (:id, :provider, :scope, :remaining, :resetsAt)" +
+                    " ON CONFLICT (provider, scope)" +
+                    " DO UPDATE SET remaining = EXCLUDED.remaining, resets_at = EXCLUDED.resets_at")
+            .setParameter("id", UUID.randomUUID())
+            .setParameter("provider", provider.name())
+            .setParameter("scope", scope)
+            .setParameter("remaining", remaining)
+            .setParameter("resetsAt", resetsAt)
+            .executeUpdate();
+    }
+}
@@ -2,6 +2,7 @@ package com.hillayes.rail.repository;
 
 import com.hillayes.commons.jpa.Page;
 import com.hillayes.commons.jpa.RepositoryBase;
+import com.hillayes.rail.domain.ConsentStatus;
 import com.hillayes.rail.domain.UserConsent;
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -9,6 +10,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 public class UserConsentRepository extends RepositoryBase<UserConsent, UUID> {
@@ -35,4 +37,16 @@ public class UserConsentRepository extends RepositoryBase<UserConsent, UUID> {
     public Optional<UserConsent> findByReference(String reference) {
         return find("reference", reference).firstResultOptional();
     }
+
+    /**
+     * Streams, from a DB cursor, all user consents of the given status. The consents
+     * are detached as they are read, so any number can be walked in constant memory.
+     * The stream must be closed within the calling transaction.
+     *
+     * @param status the status of the consents to be streamed.
+     * @return the stream of detached user consents.
+     */
+    public Stream<UserConsent> streamByStatus(ConsentStatus status) {
+        return streamDetached("status", status);
+    }
 }
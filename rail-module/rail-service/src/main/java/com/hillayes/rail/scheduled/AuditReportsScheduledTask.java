@@ -8,6 +8,8 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+
 /**
  * A scheduled task to run all the configured audit reports. To share the load,
  * this task queues a UserAuditReportsAdhocTask for each user that has at least
@@ -41,7 +43,13 @@ public class AuditReportsScheduledTask implements NamedScheduledTask {
         log.info("AuditReportsScheduledTask.run()");
 
         // queue a task to run the reports for each user
-        auditReportRepository.listUserIds()
-            .forEach(userId -> userAuditReportsAdhocTask.queueTask(userId));
+        List<UserAuditReportsAdhocTask.Payload> payloads = auditReportRepository.listUserIds().stream()
+            .map(UserAuditReportsAdhocTask.Payload::new)
+            .toList();
+
+        // queue the tasks in a single batch
+        if (!payloads.isEmpty()) {
+            userAuditReportsAdhocTask.queueTasks(payloads);
+        }
     }
 }
@@ -0,0 +1,107 @@
+package com.hillayes.rail.scheduled;
+
+import com.hillayes.executors.scheduler.TaskContext;
+import com.hillayes.executors.scheduler.tasks.AbstractNamedAdhocTask;
+import com.hillayes.executors.scheduler.tasks.TaskConclusion;
+import com.hillayes.rail.config.ServiceConfiguration;
+import com.hillayes.rail.domain.Category;
+import com.hillayes.rail.matcher.CategoryMatcher;
+import com.hillayes.rail.repository.AccountTransactionRepository;
+import com.hillayes.rail.repository.AccountTransactionRepository.CategorisableText;
+import com.hillayes.rail.repository.CategoryRepository;
+import com.hillayes.rail.service.CategoryMatcherService;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * An adhoc task that will be queued when the selectors of a category, for an account,
+ * are changed. It re-evaluates the assignment of the account's transactions to that
+ * category, so that the category's transactions and statistics reflect its new selectors.
+ * <p>
+ * The category group's matcher is re-compiled, as the task may be run by an instance
+ * of the service other than that at which the selectors were changed.
+ * <p>
+ * The account's transactions are streamed, and those that fall into the category are
+ * assigned to it in chunks; so the account's full history is never held in memory.
+ */
+@ApplicationScoped
+@Slf4j
+public class CategoriseTransactionsAdhocTask extends AbstractNamedAdhocTask<CategoriseTransactionsAdhocTask.Payload> {
+    private final ServiceConfiguration configuration;
+    private final CategoryRepository categoryRepository;
+    private final AccountTransactionRepository accountTransactionRepository;
+    private final CategoryMatcherService categoryMatcherService;
+
+    public CategoriseTransactionsAdhocTask(ServiceConfiguration configuration,
+                                           CategoryRepository categoryRepository,
+                                           AccountTransactionRepository accountTransactionRepository,
+                                           CategoryMatcherService categoryMatcherService) {
+        super("categorise-transactions");
+        this.configuration = configuration;
+        this.categoryRepository = categoryRepository;
+        this.accountTransactionRepository = accountTransactionRepository;
+        this.categoryMatcherService = categoryMatcherService;
+    }
+
+    public String queueTask(UUID categoryId, UUID accountId) {
+        log.info("Queuing task [categoryId: {}, accountId: {}]", categoryId, accountId);
+        return queueTask(new Payload(categoryId, accountId));
+    }
+
+    @Override
+    @Transactional
+    public TaskConclusion apply(TaskContext<Payload> context) {
+        UUID categoryId = context.getPayload().categoryId();
+        UUID accountId = context.getPayload().accountId();
+        log.info("Processing Categorise Transactions task [categoryId: {}, accountId: {}]", categoryId, accountId);
+
+        Category category = categoryRepository.findByIdOptional(categoryId).orElse(null);
+        if (category == null) {
+            // the category's assignments were deleted with it
+            log.debug("Category no longer exists [categoryId: {}]", categoryId);
+            return TaskConclusion.COMPLETE;
+        }
+
+        CategoryMatcher matcher = categoryMatcherService.rebuild(category.getGroup().getId());
+        categoryRepository.unassignCategory(categoryId, accountId);
+
+        int chunkSize = configuration.transactionChunkSize();
+        List<UUID> chunk = new ArrayList<>(chunkSize);
+        int count = 0;
+        try (Stream<CategorisableText> transactions = accountTransactionRepository.streamCategorisable(accountId)) {
+            Iterator<CategorisableText> iterator = transactions.iterator();
+            while (iterator.hasNext()) {
+                CategorisableText text = iterator.next();
+                if (matcher.categorise(accountId,
+                    text.additionalInformation(), text.reference(), text.creditorName()).contains(categoryId)) {
+                    chunk.add(text.id());
+                    if (chunk.size() >= chunkSize) {
+                        count += categoryRepository.assignCategory(categoryId, chunk);
+                        chunk = new ArrayList<>(chunkSize);
+                    }
+                }
+            }
+        }
+        count += categoryRepository.assignCategory(categoryId, chunk);
+        log.debug("Categorised transactions [categoryId: {}, accountId: {}, count: {}]", categoryId, accountId, count);
+        return TaskConclusion.COMPLETE;
+    }
+
+    /**
+     * The task's payload. Identifies the category whose selectors have changed, and
+     * the account to which those selectors apply.
+     *
+     * @param categoryId the identity of the category whose selectors have changed.
+     * @param accountId the identity of the account to which the selectors apply.
+     */
+    @RegisterForReflection
+    public record Payload(UUID categoryId, UUID accountId) {}
+}
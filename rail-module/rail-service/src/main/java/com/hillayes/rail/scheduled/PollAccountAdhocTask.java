@@ -1,11 +1,11 @@
 package com.hillayes.rail.scheduled;
 
-import com.hillayes.commons.jpa.OrderBy;
 import com.hillayes.executors.scheduler.TaskContext;
 import com.hillayes.executors.scheduler.tasks.AbstractNamedAdhocTask;
 import com.hillayes.executors.scheduler.tasks.TaskConclusion;
 import com.hillayes.rail.api.RailProviderApi;
 import com.hillayes.rail.api.domain.*;
+import com.hillayes.rail.api.governor.RailCallGovernor;
 import com.hillayes.rail.config.RailProviderFactory;
 import com.hillayes.rail.config.ServiceConfiguration;
 import com.hillayes.rail.domain.*;
@@ -13,7 +13,9 @@ import com.hillayes.rail.event.ConsentEventSender;
 import com.hillayes.rail.repository.AccountBalanceRepository;
 import com.hillayes.rail.repository.AccountRepository;
 import com.hillayes.rail.repository.AccountTransactionRepository;
+import com.hillayes.rail.repository.CategoryRepository;
 import com.hillayes.rail.repository.TransactionFilter;
+import com.hillayes.rail.service.CategoryMatcherService;
 import com.hillayes.rail.service.UserConsentService;
 import io.quarkus.runtime.annotations.RegisterForReflection;
 import jakarta.enterprise.context.ApplicationScoped;
@@ -23,10 +25,13 @@ import lombok.extern.slf4j.Slf4j;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneOffset;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An adhoc task to retrieve the balance and transaction data for an identified
@@ -35,13 +40,22 @@ import java.util.stream.Collectors;
 @ApplicationScoped
 @Slf4j
 public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdhocTask.Payload> {
+    /**
+     * The number of calls, for the rail account, made by each poll; to retrieve the
+     * account's summary, balances, details and transactions.
+     */
+    static final int ACCOUNT_POLL_CALLS = 4;
+
     private final ServiceConfiguration configuration;
     private final UserConsentService userConsentService;
     private final ConsentEventSender consentEventSender;
     private final AccountRepository accountRepository;
     private final AccountBalanceRepository accountBalanceRepository;
     private final AccountTransactionRepository accountTransactionRepository;
+    private final CategoryRepository categoryRepository;
+    private final CategoryMatcherService categoryMatcherService;
     private final RailProviderFactory railProviderFactory;
+    private final RailCallGovernor railCallGovernor;
 
     @RegisterForReflection
     public record Payload(
@@ -49,13 +63,32 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
         String railAccountId
     ) {}
 
+    /**
+     * The outcome of the preparation to poll an account. Either the conclusion of the
+     * task, or the account whose transactions are to be retrieved.
+     */
+    record PollTarget(
+        TaskConclusion conclusion,
+        RailProviderApi railProviderApi,
+        RailAgreement railAgreement,
+        Account account,
+        LocalDate startDate
+    ) {
+        static PollTarget concluded(TaskConclusion conclusion) {
+            return new PollTarget(conclusion, null, null, null, null);
+        }
+    }
+
     public PollAccountAdhocTask(ServiceConfiguration configuration,
                                 UserConsentService userConsentService,
                                 ConsentEventSender consentEventSender,
                                 AccountRepository accountRepository,
                                 AccountBalanceRepository accountBalanceRepository,
                                 AccountTransactionRepository accountTransactionRepository,
-                                RailProviderFactory railProviderFactory) {
+                                CategoryRepository categoryRepository,
+                                CategoryMatcherService categoryMatcherService,
+                                RailProviderFactory railProviderFactory,
+                                RailCallGovernor railCallGovernor) {
         super("poll-account");
         this.configuration = configuration;
         this.userConsentService = userConsentService;
@@ -63,7 +96,10 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
         this.accountRepository = accountRepository;
         this.accountBalanceRepository = accountBalanceRepository;
         this.accountTransactionRepository = accountTransactionRepository;
+        this.categoryRepository = categoryRepository;
+        this.categoryMatcherService = categoryMatcherService;
         this.railProviderFactory = railProviderFactory;
+        this.railCallGovernor = railCallGovernor;
     }
 
     public String queueTask(UUID consentId, String railAccountId) {
@@ -77,31 +113,104 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
      * the grace period (defined in the configuration account-polling-interval)
      * then no update is performed.
      *
-     * This will obtain a lock on the identified consent record. One consent may
-     * refer to several accounts, all of which may be being processed at the same
-     * time. If we need to suspend or expire the consent, we don't want another
-     * task to repeat that when processing another account of the same consent.
+     * The task is performed in three stages, each in its own DB transaction:
+     * <ol>
+     *     <li>The consent and account are verified, and the balance updated.</li>
+     *     <li>The transactions are retrieved from the rail, one page at a time, and
+     *     written in chunks (of the configured transaction-chunk-size); each chunk in
+     *     its own transaction. The memory used, and the duration of each transaction,
+     *     are therefore bounded; regardless of the size of the account's history.</li>
+     *     <li>The account's date-last-polled is updated.</li>
+     * </ol>
+     *
+     * Should the task fail part way through the transactions, those chunks already
+     * written remain. The next poll of the account resumes from the date of the most
+     * recent transaction recorded, and any overlap is ignored by the unique constraint
+     * on each account's internal transaction IDs.
      *
      * @param context the context containing the identifier of the Account to be updated.
      */
     @Override
-    @Transactional
     public TaskConclusion apply(TaskContext<Payload> context) {
         UUID consentId = context.getPayload().consentId();
         String railAccountId = context.getPayload().railAccountId();
         log.info("Processing Poll Account task [consentId: {}, railAccountId: {}]", consentId, railAccountId);
 
+        PollTarget target = _preparePoll(consentId, railAccountId);
+        if (target.conclusion() != null) {
+            return target.conclusion();
+        }
+
+        Account account = target.account();
+        log.debug("Updating transactions [accountId: {}, railAccountId: {}, startDate: {}]",
+            account.getId(), account.getRailAccountId(), target.startDate());
+
+        int chunkSize = configuration.transactionChunkSize();
+        AtomicInteger count = new AtomicInteger();
+        target.railProviderApi().forEachTransactionPage(target.railAgreement(),
+            account.getRailAccountId(), target.startDate(), page -> {
+                // write in date order, so that those written form an unbroken history
+                List<RailTransaction> sorted = page.stream()
+                    .sorted(Comparator.comparing(RailTransaction::getDateBooked, Comparator.nullsFirst(Comparator.naturalOrder())))
+                    .toList();
+
+                for (int index = 0; index < sorted.size(); index += chunkSize) {
+                    List<AccountTransaction> chunk = sorted.subList(index, Math.min(index + chunkSize, sorted.size()))
+                        .stream()
+                        .map(detail -> marshalTransaction(account, detail))
+                        .toList();
+                    count.addAndGet(_saveTransactions(chunk));
+                }
+            });
+
+        log.debug("Persisted transactions [accountId: {}, count: {}]", account.getId(), count.get());
+        _completePoll(account.getId());
+        return TaskConclusion.COMPLETE;
+    }
+
+    /**
+     * Verifies the consent and account, and updates the account's balance. Returns the
+     * account and the date from which its transactions are to be retrieved; or the
+     * conclusion of the task if no transactions are to be retrieved.
+     *
+     * This will obtain a lock on the identified consent record, for the duration of the
+     * transaction. One consent may refer to several accounts, all of which may be being
+     * processed at the same time. If we need to suspend or expire the consent, we don't
+     * want another task to repeat that when processing another account of the same consent.
+     *
+     * If the poll would exceed the rail's rate-limits, or the account's quota, it is
+     * re-queued for the time given by the RailCallGovernor; rather than have it fail
+     * and use one of the task's retry attempts.
+     *
+     * This method should be considered private, but cannot be marked as private as
+     * the annotations it carries will not take effect.
+     *
+     * @param consentId the identifier of the consent that authorises access to the account.
+     * @param railAccountId the rail's identifier for the account to be polled.
+     * @return the account to be polled, or the conclusion of the task.
+     */
+    @Transactional
+    public PollTarget _preparePoll(UUID consentId, String railAccountId) {
         // get a lock on the consent to ensure no other updates
         UserConsent userConsent = userConsentService.lockUserConsent(consentId).orElse(null);
         if (userConsent == null) {
             log.info("Unable to find user-consent [consentId: {}, railAccountId: {}]", consentId, railAccountId);
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (userConsent.getStatus() != ConsentStatus.GIVEN) {
             log.debug("Skipping account polling [consentId: {}, railAccountId: {}, consentStatus: {}]",
                 userConsent.getId(), railAccountId, userConsent.getStatus());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
+        }
+
+        // defer the poll if it would exceed the rail's limits
+        Optional<Instant> deferUntil = railCallGovernor.reserve(userConsent.getProvider(), railAccountId, ACCOUNT_POLL_CALLS);
+        if (deferUntil.isPresent()) {
+            log.info("Deferring account polling [consentId: {}, railAccountId: {}, until: {}]",
+                consentId, railAccountId, deferUntil.get());
+            queueTask(new Payload(consentId, railAccountId), deferUntil.get());
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         RailProviderApi railProviderApi = railProviderFactory.get(userConsent.getProvider());
@@ -109,23 +218,23 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
         if (railAgreement == null) {
             log.info("Unable to find rail-agreement [consentId: {}, railAgreementId: {}]",
                 consentId, userConsent.getAgreementId());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAgreement.getStatus() == AgreementStatus.SUSPENDED) {
             userConsentService.consentSuspended(userConsent.getId());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAgreement.getStatus() == AgreementStatus.EXPIRED) {
             userConsentService.consentExpired(userConsent.getId());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         RailAccount railAccount = railProviderApi.getAccount(railAgreement, railAccountId).orElse(null);
         if (railAccount == null) {
             log.info("Unable to find rail-account [consentId: {}, railAccountId: {}]", consentId, railAccountId);
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAccount.getStatus() == RailAccountStatus.ERROR) {
@@ -134,23 +243,23 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
                 .errorCode("RAIL-ERROR")
                 .errorDescription("Account access denied")
                 .build());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAccount.getStatus() == RailAccountStatus.SUSPENDED) {
             userConsentService.consentSuspended(userConsent.getId());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAccount.getStatus() == RailAccountStatus.EXPIRED) {
             userConsentService.consentExpired(userConsent.getId());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         if (railAccount.getStatus() != RailAccountStatus.READY) {
             log.debug("Retrying account as it's not ready [accountId: {}, railAccountId: {}, status: {}]",
                 userConsent.getId(), railAccount.getId(), railAccount.getStatus());
-            return TaskConclusion.INCOMPLETE;
+            return PollTarget.concluded(TaskConclusion.INCOMPLETE);
         }
 
         Account account = getOrCreateAccount(userConsent, railAccount);
@@ -160,17 +269,54 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
         if ((account.getDateLastPolled() != null) && (account.getDateLastPolled().isAfter(grace))) {
             log.debug("Skipping account polling [accountId: {}, lastPolled: {}]",
                 account.getId(), account.getDateLastPolled());
-            return TaskConclusion.COMPLETE;
+            return PollTarget.concluded(TaskConclusion.COMPLETE);
         }
 
         log.debug("Polling account [accountId: {}, railAccountId: {}]", account.getId(), account.getRailAccountId());
         updateBalances(account, railAccount);
-        updateTransactions(railProviderApi, railAgreement, account);
-
-        account.setDateLastPolled(Instant.now());
         accountRepository.save(account);
 
-        return TaskConclusion.COMPLETE;
+        return new PollTarget(null, railProviderApi, railAgreement, account, getStartDate(railAgreement, account));
+    }
+
+    /**
+     * Writes the given chunk of transactions in a transaction of its own. Any that
+     * have already been recorded are ignored. The transactions are then classified,
+     * by the CategoryMatcherService, and assigned to the categories whose selectors
+     * they match; in the same transaction.
+     *
+     * This method should be considered private, but cannot be marked as private as
+     * the annotations it carries will not take effect.
+     *
+     * @param chunk the chunk of transactions to be written.
+     * @return the number of transactions written.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int _saveTransactions(List<AccountTransaction> chunk) {
+        log.debug("Persisting transactions [size: {}]", chunk.size());
+        int count = accountTransactionRepository.saveBatch(chunk);
+        if (count > 0) {
+            AccountTransaction first = chunk.get(0);
+            Map<String, Set<UUID>> assignments = categoryMatcherService.categorise(first.getUserId(), chunk);
+            categoryRepository.assignTransactions(first.getAccountId(), assignments);
+        }
+        return count;
+    }
+
+    /**
+     * Records the date on which the identified account was polled.
+     *
+     * This method should be considered private, but cannot be marked as private as
+     * the annotations it carries will not take effect.
+     *
+     * @param accountId the identifier of the account that has been polled.
+     */
+    @Transactional
+    public void _completePoll(UUID accountId) {
+        accountRepository.findByIdOptional(accountId).ifPresent(account -> {
+            account.setDateLastPolled(Instant.now());
+            accountRepository.save(account);
+        });
     }
 
     private Account getOrCreateAccount(UserConsent userConsent,
@@ -227,55 +373,28 @@ public class PollAccountAdhocTask extends AbstractNamedAdhocTask<PollAccountAdho
         }
     }
 
-    private void updateTransactions(RailProviderApi railProviderApi, RailAgreement railAgreement, Account account) {
-        log.debug("Updating transactions [accountId: {}, railAccountId: {}]", account.getId(), account.getRailAccountId());
-
-        LocalDate startDate;
-        if (account.getId() != null) {
-            // find the date of the most recent transaction we hold locally
-            // we then use that as the start date for our rails request for transactions
-            OrderBy sort = OrderBy.by("bookingDateTime").descending();
-            TransactionFilter filter = TransactionFilter.builder()
-                .userId(account.getUserId())
-                .accountId(account.getId())
-                .build();
-            startDate = accountTransactionRepository.findByFilter(filter, 0, 1)
-                .stream().findFirst()
-                .map(transaction -> LocalDate.ofInstant(transaction.getBookingDateTime(), ZoneOffset.UTC)) // take date of most recent transaction
-                .orElse(LocalDate.now().minusDays(railAgreement.getMaxHistory())); // or calculate date if no transactions found
-            log.debug("Looking for transactions [accountId: {}, startDate: {}]", account.getId(), startDate);
-        } else {
-            startDate = LocalDate.now().minusDays(railAgreement.getMaxHistory());
+    /**
+     * Returns the date from which the account's transactions are to be retrieved. That
+     * is the date of the most recent transaction held locally or, if none are held,
+     * the earliest date the rail agreement allows.
+     */
+    private LocalDate getStartDate(RailAgreement railAgreement, Account account) {
+        if (account.getId() == null) {
+            return LocalDate.now().minusDays(railAgreement.getMaxHistory());
         }
 
-        // retrieve transactions from rail
-        List<RailTransaction> details = railProviderApi.listTransactions(railAgreement, account.getRailAccountId(), startDate);
-
-        // identify those internal transaction IDs we've seen before
-        // TODO: For large lists, we should consider batching this to reduce memory load
-        Set<String> existing = (account.getId() == null)
-            ? Set.of()
-            : accountTransactionRepository.findByInternalId(details.stream()
-                .unordered().parallel()
-                .map(RailTransaction::getId)
-                .distinct()
-                .toList())
-            .stream()
-            .map(AccountTransaction::getInternalTransactionId)
-            .collect(Collectors.toUnmodifiableSet());
-
-        // map the NEW transactions to our own records
-        List<AccountTransaction> transactions = details.stream()
-            .filter(detail -> !existing.contains(detail.getId()))
-            .map(detail -> marshalTransaction(account, detail))
-            .toList();
-
-        if (transactions.isEmpty()) {
-            log.debug("No transactions found [accountId: {}, startDate: {}]", account.getId(), startDate);
-        } else {
-            log.debug("Persisting transactions [size: {}]", transactions.size());
-            accountTransactionRepository.saveAll(transactions);
-        }
+        // find the date of the most recent transaction we hold locally
+        // we then use that as the start date for our rails request for transactions
+        TransactionFilter filter = TransactionFilter.builder()
+            .userId(account.getUserId())
+            .accountId(account.getId())
+            .build();
+        LocalDate startDate = accountTransactionRepository.findByFilter(filter, 0, 1)
+            .stream().findFirst()
+            .map(transaction -> LocalDate.ofInstant(transaction.getBookingDateTime(), ZoneOffset.UTC)) // take date of most recent transaction
+            .orElse(LocalDate.now().minusDays(railAgreement.getMaxHistory())); // or calculate date if no transactions found
+        log.debug("Looking for transactions [accountId: {}, startDate: {}]", account.getId(), startDate);
+        return startDate;
     }
 
     /**
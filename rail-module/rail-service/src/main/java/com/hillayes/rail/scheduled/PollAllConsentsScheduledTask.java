@@ -3,12 +3,17 @@ package com.hillayes.rail.scheduled;
 import com.hillayes.executors.scheduler.SchedulerFactory;
 import com.hillayes.executors.scheduler.tasks.NamedScheduledTask;
 import com.hillayes.rail.domain.ConsentStatus;
+import com.hillayes.rail.domain.UserConsent;
 import com.hillayes.rail.repository.UserConsentRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
 /**
  * A scheduled task to verify the status of all User Consent records whose status
  * is currently "GIVEN". To share the load, it will queue a POLL_CONSENT adhoc
@@ -36,8 +41,14 @@ public class PollAllConsentsScheduledTask implements NamedScheduledTask {
     @Transactional
     public void run() {
         log.info("PollAllConsentsScheduledTask.run()");
-        userConsentRepository.listAll().stream()
-            .filter(consent -> consent.getStatus() == ConsentStatus.GIVEN)
-            .forEach(consent -> pollConsentAdhocTask.queueTask(consent.getId()));
+        List<UUID> consentIds;
+        try (Stream<UserConsent> consents = userConsentRepository.streamByStatus(ConsentStatus.GIVEN)) {
+            consentIds = consents.map(UserConsent::getId).toList();
+        }
+
+        // queue a task for each consent - in a single batch
+        if (!consentIds.isEmpty()) {
+            pollConsentAdhocTask.queueTasks(consentIds);
+        }
     }
 }
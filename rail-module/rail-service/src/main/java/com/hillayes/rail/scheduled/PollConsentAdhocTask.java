@@ -5,6 +5,7 @@ import com.hillayes.executors.scheduler.tasks.AbstractNamedAdhocTask;
 import com.hillayes.executors.scheduler.tasks.TaskConclusion;
 import com.hillayes.rail.api.RailProviderApi;
 import com.hillayes.rail.api.domain.AgreementStatus;
+import com.hillayes.rail.api.governor.RailCallGovernor;
 import com.hillayes.rail.config.RailProviderFactory;
 import com.hillayes.rail.domain.ConsentStatus;
 import com.hillayes.rail.domain.UserConsent;
@@ -14,6 +15,8 @@ import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Instant;
+import java.util.Optional;
 import java.util.UUID;
 
 /**
@@ -26,6 +29,7 @@ public class PollConsentAdhocTask extends AbstractNamedAdhocTask<UUID> {
     private final UserConsentService userConsentService;
     private final RailProviderFactory railProviderFactory;
     private final PollAccountAdhocTask pollAccountAdhocTask;
+    private final RailCallGovernor railCallGovernor;
 
     @Override
     public String getName() {
@@ -33,6 +37,10 @@ public class PollConsentAdhocTask extends AbstractNamedAdhocTask<UUID> {
     }
 
     /**
+     * If the poll would exceed the rail's rate-limits, it is re-queued for the time
+     * given by the RailCallGovernor; rather than have it fail and use one of the task's
+     * retry attempts.
+     *
      * @param context the context containing the identifier of the UserConsent to be updated.
      */
     @Override
@@ -51,6 +59,14 @@ public class PollConsentAdhocTask extends AbstractNamedAdhocTask<UUID> {
             return TaskConclusion.COMPLETE;
         }
 
+        // defer the poll if it would exceed the rail's limits
+        Optional<Instant> deferUntil = railCallGovernor.reserve(userConsent.getProvider(), null);
+        if (deferUntil.isPresent()) {
+            log.info("Deferring consent polling [consentId: {}, until: {}]", consentId, deferUntil.get());
+            queueTask(consentId, deferUntil.get());
+            return TaskConclusion.COMPLETE;
+        }
+
         RailProviderApi railProviderApi = railProviderFactory.get(userConsent.getProvider());
         return railProviderApi.getAgreement(userConsent.getAgreementId())
             .map(agreement -> {
@@ -0,0 +1,193 @@
+package com.hillayes.rail.service;
+
+import com.hillayes.commons.caching.Cache;
+import com.hillayes.rail.config.ServiceConfiguration;
+import com.hillayes.rail.domain.AccountTransaction;
+import com.hillayes.rail.domain.CategoryGroup;
+import com.hillayes.rail.domain.CategorySelector;
+import com.hillayes.rail.matcher.CategoryMatcher;
+import com.hillayes.rail.repository.CategoryGroupRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+/**
+ * Classifies transactions into the categories whose selectors they match. The
+ * selectors of each category group are compiled into a {@link CategoryMatcher},
+ * which is cached with the version of the group from which it was compiled.
+ * <p>
+ * Each change to a group's selectors increments the group's version. Before a matcher
+ * is used, the group's version is read (and the group locked against further change
+ * until the caller's transaction completes); a cached matcher of an older version is
+ * compiled again. So every instance of the service classifies transactions with the
+ * selectors committed at the time; regardless of when its cached matcher was evicted.
+ */
+@ApplicationScoped
+@Transactional
+@RequiredArgsConstructor
+@Slf4j
+public class CategoryMatcherService {
+    private final CategoryGroupRepository categoryGroupRepository;
+    private final ServiceConfiguration config;
+    private final TransactionSynchronizationRegistry transactionRegistry;
+
+    private Cache<UUID, VersionedMatcher> matchers;
+
+    @PostConstruct
+    public void init() {
+        matchers = Cache.builder(config.caches().categoryMatchers())
+            .maxSize(5000)
+            .metrics("category-matchers")
+            .build();
+    }
+
+    /**
+     * Classifies the given transactions of the identified user into the categories,
+     * of all the user's category groups, whose selectors they match.
+     *
+     * @param userId the user to whom the transactions belong.
+     * @param transactions the transactions to be classified.
+     * @return the IDs of the matching categories, keyed by the internal transaction
+     *     ID of each transaction that matched at least one category.
+     */
+    public Map<String, Set<UUID>> categorise(UUID userId, Collection<AccountTransaction> transactions) {
+        // the groups' selectors cannot change until the caller's transaction completes
+        List<CategoryMatcher> groupMatchers = categoryGroupRepository.lockVersionsByUserId(userId).entrySet().stream()
+            .map(entry -> getMatcher(entry.getKey(), entry.getValue()))
+            .toList();
+
+        Map<String, Set<UUID>> result = new HashMap<>();
+        if (groupMatchers.isEmpty()) {
+            return result;
+        }
+
+        transactions.forEach(transaction -> {
+            Set<UUID> categoryIds = null;
+            for (CategoryMatcher matcher : groupMatchers) {
+                Set<UUID> matched = matcher.categorise(transaction);
+                if (!matched.isEmpty()) {
+                    if (categoryIds == null) {
+                        categoryIds = new HashSet<>();
+                    }
+                    categoryIds.addAll(matched);
+                }
+            }
+
+            if (categoryIds != null) {
+                result.put(transaction.getInternalTransactionId(), categoryIds);
+            }
+        });
+
+        log.debug("Categorised transactions [userId: {}, size: {}, matched: {}]",
+            userId, transactions.size(), result.size());
+        return result;
+    }
+
+    /**
+     * Returns the matcher for the selectors of the identified category group; compiling
+     * it if it is not already cached.
+     *
+     * @param groupId the category group whose matcher is required.
+     * @return the group's matcher; empty if the group does not exist.
+     */
+    public CategoryMatcher getMatcher(UUID groupId) {
+        return matchers.getValueOrCall(groupId, this::compile).matcher();
+    }
+
+    /**
+     * Returns the matcher for the given version of the identified category group;
+     * compiling it again if that cached is of another version.
+     */
+    private CategoryMatcher getMatcher(UUID groupId, long version) {
+        VersionedMatcher result = matchers.getValueOrCall(groupId, this::compile);
+        if (result.version() != version) {
+            log.debug("Category matcher out of date [groupId: {}, cached: {}, current: {}]",
+                groupId, result.version(), version);
+            matchers.remove(groupId);
+            result = matchers.getValueOrCall(groupId, this::compile);
+        }
+        return result.matcher();
+    }
+
+    /**
+     * Compiles, and caches, the matcher for the identified category group; replacing
+     * any matcher already cached.
+     *
+     * @param groupId the category group whose matcher is required.
+     * @return the group's matcher; empty if the group does not exist.
+     */
+    public CategoryMatcher rebuild(UUID groupId) {
+        matchers.remove(groupId);
+        return getMatcher(groupId);
+    }
+
+    /**
+     * To be called, within the same transaction, before the selectors of the given
+     * category group are changed. Increments the group's version, and locks it until
+     * the transaction completes; so that no transactions are classified with the
+     * group's selectors while they are being changed. The group's cached matcher is
+     * evicted once the transaction commits.
+     *
+     * @param group the category group whose selectors are to be changed.
+     */
+    public void selectorsChanging(CategoryGroup group) {
+        log.debug("Locking category group for selector change [groupId: {}]", group.getId());
+        categoryGroupRepository.lockForSelectorChange(group);
+        evict(group.getId());
+    }
+
+    /**
+     * Removes any cached matcher for the identified category group; typically when the
+     * group, or its selectors, have been changed. If called within a transaction, the
+     * matcher is removed only once that transaction commits; otherwise a matcher of
+     * the old selectors may be compiled, and cached, before the change is committed.
+     *
+     * @param groupId the category group whose matcher is to be removed.
+     */
+    public void evict(UUID groupId) {
+        if (transactionRegistry.getTransactionKey() == null) {
+            log.debug("Evicting category matcher [groupId: {}]", groupId);
+            matchers.remove(groupId);
+            return;
+        }
+
+        transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+            @Override
+            public void beforeCompletion() {
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status == Status.STATUS_COMMITTED) {
+                    log.debug("Evicting category matcher [groupId: {}]", groupId);
+                    matchers.remove(groupId);
+                }
+            }
+        });
+    }
+
+    private VersionedMatcher compile(UUID groupId) {
+        log.debug("Compiling category matcher [groupId: {}]", groupId);
+        return categoryGroupRepository.findByIdOptional(groupId)
+            .map(group -> {
+                List<CategorySelector> selectors = group.getCategories().stream()
+                    .flatMap(category -> category.getSelectors().stream())
+                    .toList();
+                return new VersionedMatcher(group.getVersion(), new CategoryMatcher(selectors));
+            })
+            .orElse(new VersionedMatcher(-1, CategoryMatcher.EMPTY));
+    }
+
+    /**
+     * A compiled matcher, and the version of the category group from which it was
+     * compiled.
+     */
+    private record VersionedMatcher(long version, CategoryMatcher matcher) {}
+}
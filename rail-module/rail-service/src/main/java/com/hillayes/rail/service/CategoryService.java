@@ -13,6 +13,7 @@ import com.hillayes.rail.errors.CategoryGroupAlreadyExistsException;
 import com.hillayes.rail.repository.AccountRepository;
 import com.hillayes.rail.repository.CategoryGroupRepository;
 import com.hillayes.rail.repository.CategoryRepository;
+import com.hillayes.rail.scheduled.CategoriseTransactionsAdhocTask;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
@@ -20,8 +21,10 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.time.Instant;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @ApplicationScoped
 @Transactional
@@ -31,6 +34,8 @@ public class CategoryService {
     private final CategoryGroupRepository categoryGroupRepository;
     private final CategoryRepository categoryRepository;
     private final AccountRepository accountRepository;
+    private final CategoryMatcherService categoryMatcherService;
+    private final CategoriseTransactionsAdhocTask categoriseTransactionsAdhocTask;
 
     /**
      * Returns the selected page of category groups for the specified user; in name order.
@@ -101,6 +106,7 @@ public class CategoryService {
         CategoryGroup group = getCategoryGroup(userId, groupId);
 
         categoryGroupRepository.delete(group);
+        categoryMatcherService.evict(groupId);
         return group;
     }
 
@@ -198,6 +204,7 @@ public class CategoryService {
             userId, categoryId);
 
         Category category = validate(userId, categoryId);
+        categoryMatcherService.selectorsChanging(category.getGroup());
         categoryRepository.delete(category);
         return category;
     }
@@ -247,6 +254,8 @@ public class CategoryService {
     /**
      * Sets the selectors for the identified category and account. Overwrites any existing selectors
      * for the same account.
+     * The account's transactions are re-assigned to the category by a background task, so the
+     * category's transactions and statistics will reflect the new selectors shortly after.
      *
      * @param userId The user ID to whom the category and account must belong.
      * @param categoryId The category ID.
@@ -264,6 +273,7 @@ public class CategoryService {
         Category category = validate(userId, categoryId);
         validateAccount(category.getGroup(), accountId);
 
+        categoryMatcherService.selectorsChanging(category.getGroup());
         category.getSelectors().removeIf(selector -> selector.getAccountId().equals(accountId));
         if (selectors != null) {
             selectors.forEach(newSelector -> category.add(accountId, selector -> selector
@@ -274,6 +284,9 @@ public class CategoryService {
         }
 
         categoryRepository.save(category);
+
+        // re-assign the account's transactions to the category
+        categoriseTransactionsAdhocTask.queueTask(categoryId, accountId);
         return category.getSelectors();
     }
 
@@ -292,10 +305,20 @@ public class CategoryService {
             .findFirst()
             .orElseThrow(() -> new NotFoundException("CategorySelector", selectorId));
 
+        // lock the groups in a consistent order; to avoid deadlock with concurrent moves
+        Stream.of(sourceCategory.getGroup(), destinationCategory.getGroup())
+            .distinct()
+            .sorted(Comparator.comparing(CategoryGroup::getId))
+            .forEach(categoryMatcherService::selectorsChanging);
+
         destinationCategory.add(selector);
 
         categoryRepository.save(sourceCategory);
         categoryRepository.save(destinationCategory);
+
+        // re-assign the account's transactions to both categories
+        categoriseTransactionsAdhocTask.queueTask(categoryId, selector.getAccountId());
+        categoriseTransactionsAdhocTask.queueTask(destinationCategoryId, selector.getAccountId());
         return selector;
     }
 
@@ -306,8 +329,14 @@ public class CategoryService {
             userId, categoryId, selectorId);
 
         Category category = validate(userId, categoryId);
+        categoryMatcherService.selectorsChanging(category.getGroup());
         CategorySelector selector = category.removeSelector(selectorId);
         categoryRepository.save(category);
+
+        // re-assign the account's transactions to the category
+        if (selector != null) {
+            categoriseTransactionsAdhocTask.queueTask(categoryId, selector.getAccountId());
+        }
         return selector;
     }
 
@@ -9,6 +9,7 @@ import jakarta.annotation.PostConstruct;
 import jakarta.enterprise.context.ApplicationScoped;
 import lombok.RequiredArgsConstructor;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,8 +24,17 @@ public class InstitutionService {
 
     @PostConstruct
     public void init() {
-        cacheByCountry = new Cache<>(config.caches().institutions());
-        cacheById = new Cache<>(config.caches().institutions());
+        // refresh popular entries in the background, before they expire
+        Duration timeToLive = config.caches().institutions();
+        cacheByCountry = Cache.builder(timeToLive)
+            .refreshAhead(timeToLive.dividedBy(10))
+            .metrics("institutions-by-country")
+            .build();
+        cacheById = Cache.builder(timeToLive)
+            .maxSize(5000)
+            .refreshAhead(timeToLive.dividedBy(10))
+            .metrics("institutions-by-id")
+            .build();
     }
 
     public List<RailInstitution> list(RailProvider railProvider,
@@ -0,0 +1,41 @@
+package com.hillayes.rail.service;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.api.governor.CallBudget;
+import com.hillayes.rail.api.governor.CallBudgetStore;
+import com.hillayes.rail.repository.RailCallBudgetRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.transaction.Transactional;
+import lombok.RequiredArgsConstructor;
+
+import java.util.Optional;
+
+/**
+ * Persists the call budgets of the RailCallGovernor. The budgets are written in a
+ * transaction of their own; so that the calls already made to a rail are recorded,
+ * even if the caller's transaction is rolled back.
+ */
+@ApplicationScoped
+@RequiredArgsConstructor
+public class RailCallBudgetService implements CallBudgetStore {
+    private final RailCallBudgetRepository railCallBudgetRepository;
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public Optional<CallBudget> load(RailProvider provider, String scope) {
+        return railCallBudgetRepository.findByScope(provider, scope)
+            .map(budget -> CallBudget.builder()
+                .provider(budget.getProvider())
+                .scope(budget.getScope())
+                .remaining(budget.getRemaining())
+                .resetsAt(budget.getResetsAt())
+                .build());
+    }
+
+    @Override
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void save(CallBudget budget) {
+        railCallBudgetRepository.upsert(budget.getProvider(), budget.getScope(),
+            budget.getRemaining(), budget.getResetsAt());
+    }
+}
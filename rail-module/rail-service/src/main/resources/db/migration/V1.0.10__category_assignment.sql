@@ -0,0 +1,20 @@
+-- a table to record the categories to which each transaction has been assigned by the
+-- categories' selectors; maintained as transactions are written and selectors change
+CREATE TABLE ${flyway:defaultSchema}.category_assignment (
+    category_id uuid NOT NULL CONSTRAINT fk_assignment_category REFERENCES ${flyway:defaultSchema}.category (id) ON DELETE CASCADE,
+    transaction_id uuid NOT NULL CONSTRAINT fk_assignment_transaction REFERENCES ${flyway:defaultSchema}.account_transaction (id) ON DELETE CASCADE,
+    CONSTRAINT category_assignment_pkey PRIMARY KEY (category_id, transaction_id)
+);
+
+CREATE INDEX idx_category_assignment_transaction_id ON ${flyway:defaultSchema}.category_assignment (transaction_id);
+
+-- assign the existing transactions to the categories whose selectors match them. as with
+-- the CategoryMatcher, the selectors' texts are matched literally and case-sensitively;
+-- strpos() is used, rather than LIKE, so that '%' and '_' in a text are not wildcards
+INSERT INTO ${flyway:defaultSchema}.category_assignment (category_id, transaction_id)
+SELECT DISTINCT cs.category_id, t.id
+FROM ${flyway:defaultSchema}.account_transaction t
+INNER JOIN ${flyway:defaultSchema}.category_selector cs ON cs.account_id = t.account_id
+WHERE (cs.info_contains IS NULL OR strpos(t.additional_information, cs.info_contains) > 0)
+AND (cs.ref_contains IS NULL OR strpos(t.reference, cs.ref_contains) > 0)
+AND (cs.creditor_contains IS NULL OR strpos(t.creditor_name, cs.creditor_contains) > 0);
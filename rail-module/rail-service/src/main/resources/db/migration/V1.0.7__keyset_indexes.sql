@@ -0,0 +1,5 @@
+-- replace booking-date indices with ones that cover the keyset (booking_datetime, id)
+DROP INDEX idx_account_trans_date CASCADE;
+CREATE INDEX idx_account_trans_date_id ON ${flyway:defaultSchema}.account_transaction (account_id, booking_datetime, id);
+DROP INDEX idx_account_user_date CASCADE;
+CREATE INDEX idx_account_user_date_id ON ${flyway:defaultSchema}.account_transaction (user_id, booking_datetime, id);
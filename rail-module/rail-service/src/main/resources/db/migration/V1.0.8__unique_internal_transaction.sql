@@ -0,0 +1,13 @@
+-- remove any duplicate transactions, retaining the earliest of each
+DELETE FROM ${flyway:defaultSchema}.account_transaction t
+USING ${flyway:defaultSchema}.account_transaction d
+WHERE d.account_id = t.account_id
+AND d.internal_transaction_id = t.internal_transaction_id
+AND (d.date_created, d.id) < (t.date_created, t.id);
+
+-- a transaction can only be recorded once per account; allows bulk inserts to ignore duplicates
+ALTER TABLE ${flyway:defaultSchema}.account_transaction
+    ADD CONSTRAINT uq_account_intrnl_id UNIQUE (account_id, internal_transaction_id);
+
+-- replaced by the unique constraint's index
+DROP INDEX idx_account_intrnl_id CASCADE;
@@ -0,0 +1,10 @@
+-- a table to hold the calls remaining in the rail providers' quotas; for each rail account
+-- and for all calls to each provider (scope = '*')
+CREATE TABLE ${flyway:defaultSchema}.rail_call_budget (
+    id uuid NOT NULL CONSTRAINT rail_call_budget_pkey PRIMARY KEY,
+    provider varchar(256) NOT NULL,
+    scope varchar(256) NOT NULL,
+    remaining integer NOT NULL,
+    resets_at timestamp NULL,
+    CONSTRAINT uq_rail_call_budget_scope UNIQUE (provider, scope)
+);
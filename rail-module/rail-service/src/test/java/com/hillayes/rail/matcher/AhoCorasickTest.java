@@ -0,0 +1,132 @@
+package com.hillayes.rail.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AhoCorasickTest {
+    @Test
+    public void testSinglePattern() {
+        // given: an automaton for a single pattern
+        AhoCorasick fixture = new AhoCorasick(List.of("abc"));
+
+        // when: the text is searched
+        // then: each occurrence is reported
+        assertEquals(List.of(0, 0), findAll(fixture, "xxabcxxabc"));
+
+        // and: nothing is reported when the pattern is absent
+        assertTrue(findAll(fixture, "ab bc acb").isEmpty());
+    }
+
+    @Test
+    public void testOverlappingPatterns() {
+        // given: the classic example - patterns that overlap and are suffixes of others
+        AhoCorasick fixture = new AhoCorasick(List.of("he", "she", "his", "hers"));
+
+        // when: the text is searched
+        List<Integer> result = findAll(fixture, "ushers");
+
+        // then: all patterns ending at each position are reported
+        assertEquals(List.of(1, 0, 3), result);
+    }
+
+    @Test
+    public void testCaseSensitive() {
+        // given: an automaton for a lower-case pattern
+        AhoCorasick fixture = new AhoCorasick(List.of("tesco"));
+
+        // when: the text contains the pattern in a different case
+        // then: no match is reported
+        assertTrue(findAll(fixture, "TESCO STORES").isEmpty());
+    }
+
+    @Test
+    public void testNonAsciiCharacters() {
+        // given: patterns containing non-ASCII characters
+        AhoCorasick fixture = new AhoCorasick(List.of("café", "€10"));
+
+        // when: the text is searched
+        // then: the patterns are found
+        assertEquals(List.of(0, 1), findAll(fixture, "le café - €10.00"));
+    }
+
+    @Test
+    public void testDuplicatePatterns() {
+        // given: the same pattern given twice
+        AhoCorasick fixture = new AhoCorasick(List.of("rent", "rent"));
+
+        // when: the text is searched
+        // then: both are reported
+        assertEquals(Set.of(0, 1), new TreeSet<>(findAll(fixture, "monthly rent")));
+    }
+
+    @Test
+    public void testEmptyPattern() {
+        // given: an empty pattern
+        AhoCorasick fixture = new AhoCorasick(List.of("", "x"));
+
+        // when: an empty text is searched
+        // then: the empty pattern is found once
+        assertEquals(List.of(0), findAll(fixture, ""));
+
+        // and: it is found once in any other text
+        assertEquals(List.of(0, 1), findAll(fixture, "abcx"));
+    }
+
+    @Test
+    public void testNoPatterns() {
+        // given: an automaton with no patterns
+        AhoCorasick fixture = new AhoCorasick(List.of());
+
+        // then: nothing is ever found
+        assertEquals(0, fixture.getPatternCount());
+        assertTrue(findAll(fixture, "any text").isEmpty());
+    }
+
+    @Test
+    public void testAgreesWithIndexOf() {
+        // given: a random set of patterns over a small alphabet
+        Random random = new Random(42);
+        List<String> patterns = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            patterns.add(randomText(random, 1 + random.nextInt(4)));
+        }
+        AhoCorasick fixture = new AhoCorasick(patterns);
+
+        for (int i = 0; i < 200; i++) {
+            // when: a random text is searched
+            String text = randomText(random, random.nextInt(40));
+            Set<Integer> result = new TreeSet<>(findAll(fixture, text));
+
+            // then: the patterns found are those found by String.contains
+            Set<Integer> expected = new TreeSet<>();
+            for (int p = 0; p < patterns.size(); p++) {
+                if (text.contains(patterns.get(p))) {
+                    expected.add(p);
+                }
+            }
+            assertEquals(expected, result, text);
+        }
+    }
+
+    private List<Integer> findAll(AhoCorasick fixture, String text) {
+        List<Integer> result = new ArrayList<>();
+        fixture.forEachMatch(text, result::add);
+        return result;
+    }
+
+    private String randomText(Random random, int length) {
+        StringBuilder result = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            result.append((char) ('a' + random.nextInt(3)));
+        }
+        return result.toString();
+    }
+}
@@ -0,0 +1,159 @@
+package com.hillayes.rail.matcher;
+
+import com.hillayes.rail.domain.AccountTransaction;
+import com.hillayes.rail.domain.Category;
+import com.hillayes.rail.domain.CategoryGroup;
+import com.hillayes.rail.domain.CategorySelector;
+import com.hillayes.rail.utils.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CategoryMatcherTest {
+    private final UUID accountId = UUID.randomUUID();
+    private final CategoryGroup group = CategoryGroup.builder()
+        .id(UUID.randomUUID())
+        .userId(UUID.randomUUID())
+        .name("group")
+        .build();
+
+    @Test
+    public void testSingleField() {
+        // given: categories with selectors testing each field
+        Category groceries = category("groceries")
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        Category rent = category("rent")
+            .add(accountId, selector -> selector.refContains("RENT"));
+        Category salary = category("salary")
+            .add(accountId, selector -> selector.infoContains("SALARY"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(groceries, rent, salary));
+
+        // when: transactions are classified
+        // then: each falls into the category whose selector it matches
+        assertEquals(Set.of(groceries.getId()), fixture.categorise(accountId, null, null, "TESCO STORES 1234"));
+        assertEquals(Set.of(rent.getId()), fixture.categorise(accountId, null, "MONTHLY RENT", null));
+        assertEquals(Set.of(salary.getId()), fixture.categorise(accountId, "ACME SALARY", null, null));
+
+        // and: one that matches no selector falls into no category
+        assertTrue(fixture.categorise(accountId, "OTHER", "OTHER", "OTHER").isEmpty());
+    }
+
+    @Test
+    public void testAllFieldsRequired() {
+        // given: a selector testing all three fields
+        Category category = category("category")
+            .add(accountId, selector -> selector
+                .infoContains("info")
+                .refContains("ref")
+                .creditorContains("creditor"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category));
+
+        // when: a transaction matches all fields
+        // then: it falls into the category
+        assertEquals(Set.of(category.getId()), fixture.categorise(accountId, "an info", "a ref", "a creditor"));
+
+        // when: a transaction matches only some fields
+        // then: it does not fall into the category
+        assertTrue(fixture.categorise(accountId, "an info", "a ref", "someone").isEmpty());
+        assertTrue(fixture.categorise(accountId, "an info", null, "a creditor").isEmpty());
+    }
+
+    @Test
+    public void testAnySelectorMatches() {
+        // given: a category with several selectors
+        Category category = category("category")
+            .add(accountId, selector -> selector.creditorContains("TESCO"))
+            .add(accountId, selector -> selector.creditorContains("SAINSBURY"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category));
+
+        // when: transactions match either selector
+        // then: they fall into the category
+        assertEquals(Set.of(category.getId()), fixture.categorise(accountId, null, null, "TESCO"));
+        assertEquals(Set.of(category.getId()), fixture.categorise(accountId, null, null, "SAINSBURYS"));
+    }
+
+    @Test
+    public void testSharedText() {
+        // given: two categories whose selectors test for the same text
+        Category category1 = category("category 1")
+            .add(accountId, selector -> selector.refContains("CARD"));
+        Category category2 = category("category 2")
+            .add(accountId, selector -> selector.refContains("CARD").creditorContains("AMAZON"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category1, category2));
+
+        // when: a transaction matches both
+        // then: it falls into both categories
+        assertEquals(Set.of(category1.getId(), category2.getId()),
+            fixture.categorise(accountId, null, "CARD PAYMENT", "AMAZON UK"));
+
+        // when: a transaction, whose text occurs twice, matches one
+        // then: it falls into that category only
+        assertEquals(Set.of(category1.getId()),
+            fixture.categorise(accountId, null, "CARD CARD", "EBAY"));
+    }
+
+    @Test
+    public void testSelectorWithNoCriteria() {
+        // given: a selector that tests no fields
+        Category category = category("everything")
+            .add(accountId, selector -> {});
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category));
+
+        // when: any transaction of the account is classified
+        // then: it falls into the category
+        assertEquals(Set.of(category.getId()), fixture.categorise(accountId, null, null, null));
+    }
+
+    @Test
+    public void testOtherAccount() {
+        // given: a selector for one account
+        Category category = category("category")
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category));
+
+        // when: a transaction of another account is classified
+        // then: it falls into no category
+        assertTrue(fixture.categorise(UUID.randomUUID(), null, null, "TESCO").isEmpty());
+    }
+
+    @Test
+    public void testCategoriseTransaction() {
+        // given: a selector for an account
+        Category category = category("category")
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        CategoryMatcher fixture = new CategoryMatcher(selectors(category));
+
+        // and: a transaction of that account
+        AccountTransaction transaction = TestData.mockAccountTransaction(builder -> builder
+            .accountId(accountId)
+            .creditorName("TESCO STORES"));
+
+        // when: the transaction is classified
+        // then: it falls into the category
+        assertEquals(Set.of(category.getId()), fixture.categorise(transaction));
+    }
+
+    @Test
+    public void testEmpty() {
+        // given: a matcher with no selectors
+        CategoryMatcher fixture = CategoryMatcher.EMPTY;
+
+        // then: no transaction falls into any category
+        assertTrue(fixture.categorise(accountId, "info", "ref", "creditor").isEmpty());
+    }
+
+    private Category category(String name) {
+        return group.addCategory(name, builder -> builder.id(UUID.randomUUID()));
+    }
+
+    private List<CategorySelector> selectors(Category... categories) {
+        return List.of(categories).stream()
+            .flatMap(category -> category.getSelectors().stream())
+            .toList();
+    }
+}
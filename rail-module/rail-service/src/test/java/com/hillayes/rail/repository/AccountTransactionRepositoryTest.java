@@ -37,6 +37,9 @@ public class AccountTransactionRepositoryTest {
     @Inject
     CategoryGroupRepository categoryGroupRepository;
 
+    @Inject
+    CategoryRepository categoryRepository;
+
     @Inject
     AccountTransactionRepository fixture;
 
@@ -576,6 +579,11 @@ public class AccountTransactionRepositoryTest {
         });
         fixture.flush();
 
+        // and: the transactions have been assigned to the categories
+        categoryTransactions.forEach((category, transactions) ->
+            categoryRepository.assignTransactions(account.getId(), transactions.stream()
+                .collect(Collectors.toMap(AccountTransaction::getInternalTransactionId, t -> Set.of(category.getId())))));
+
         // when: the statistics are retrieved for each category
         categoryTransactions.keySet().forEach(category -> {
             List<AccountTransaction> expected = categoryTransactions.get(category);
@@ -589,6 +597,76 @@ public class AccountTransactionRepositoryTest {
         });
     }
 
+    @Test
+    public void testStreamCategorisable() {
+        // given: a user-consent
+        UserConsent consent = userConsentRepository.save(mockUserConsent());
+
+        // and: two linked accounts
+        Account account = accountRepository.save(mockAccount(consent));
+        Account otherAccount = accountRepository.save(mockAccount(consent));
+
+        // and: each account has transactions
+        List<AccountTransaction> transactions = fixture.saveAll(List.of(
+            TestData.mockAccountTransaction(account, t -> t.id(null)),
+            TestData.mockAccountTransaction(account, t -> t.id(null).reference(null))
+        ));
+        fixture.save(TestData.mockAccountTransaction(otherAccount, t -> t.id(null)));
+        fixture.flush();
+
+        // when: the account's categorisable fields are streamed
+        List<AccountTransactionRepository.CategorisableText> result;
+        try (Stream<AccountTransactionRepository.CategorisableText> stream = fixture.streamCategorisable(account.getId())) {
+            result = stream.toList();
+        }
+
+        // then: the fields of only that account's transactions are returned
+        assertEquals(transactions.size(), result.size());
+        transactions.forEach(transaction -> assertTrue(result.contains(
+            new AccountTransactionRepository.CategorisableText(transaction.getId(), transaction.getInternalTransactionId(),
+                transaction.getAdditionalInformation(), transaction.getReference(), transaction.getCreditorName()))));
+    }
+
+    @Test
+    public void testSaveBatch() {
+        // given: a user-consent
+        UserConsent consent = userConsentRepository.save(mockUserConsent());
+
+        // and: a linked account
+        Account account = accountRepository.save(mockAccount(consent));
+        accountRepository.flush();
+
+        // and: a list of transactions
+        List<AccountTransaction> transactions = new ArrayList<>();
+        LocalDate bookingDate = LocalDate.now().minusWeeks(5);
+        while (bookingDate.isBefore(LocalDate.now())) {
+            transactions.add(mockTransaction(account, bookingDate));
+            bookingDate = bookingDate.plusWeeks(1);
+        }
+
+        // when: the transactions are saved as a batch
+        int count = fixture.saveBatch(transactions);
+
+        // then: all transactions are inserted
+        assertEquals(transactions.size(), count);
+
+        // and: the transactions can be retrieved
+        TransactionFilter filter = TransactionFilter.builder()
+            .userId(account.getUserId())
+            .accountId(account.getId())
+            .build();
+        assertEquals(transactions.size(), fixture.findByFilter(filter, 0, 100).getContentSize());
+
+        // when: the same transactions are saved again - with a new one
+        List<AccountTransaction> repeated = new ArrayList<>(transactions);
+        repeated.add(mockTransaction(account, LocalDate.now()));
+        count = fixture.saveBatch(repeated);
+
+        // then: only the new transaction is inserted
+        assertEquals(1, count);
+        assertEquals(repeated.size(), fixture.findByFilter(filter, 0, 100).getContentSize());
+    }
+
     private UserConsent mockUserConsent() {
         return TestData.mockUserConsent(UUID.randomUUID(), consent -> {
             consent.id(null);
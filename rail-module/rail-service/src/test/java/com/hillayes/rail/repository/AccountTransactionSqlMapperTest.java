@@ -0,0 +1,86 @@
+package com.hillayes.rail.repository;
+
+import com.hillayes.commons.MonetaryAmount;
+import com.hillayes.commons.jdbc.SqlEntityMapper;
+import com.hillayes.rail.domain.AccountTransaction;
+import com.hillayes.rail.utils.TestData;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AccountTransactionSqlMapperTest {
+    private final AccountTransactionSqlMapper fixture = new AccountTransactionSqlMapper();
+
+    @Test
+    public void testNameOrderIsConsistentWithMapping() {
+        String[] colNames = fixture.colNames.substring(1, fixture.colNames.length() - 1).split(",");
+        Map<String, SqlEntityMapper.ColMapper<AccountTransaction>> colMappings = fixture.colMappings;
+
+        assertEquals(colNames.length, colMappings.size());
+
+        AtomicInteger index = new AtomicInteger();
+        colMappings.forEach((name, mapping) -> {
+            assertEquals(colNames[index.getAndIncrement()], name);
+        });
+    }
+
+    @Test
+    public void testMap() throws SQLException {
+        // given: a PreparedStatement
+        PreparedStatement statement = mock();
+
+        // and: a transaction to be mapped
+        AccountTransaction transaction = TestData.mockAccountTransaction(t -> t
+            .amount(MonetaryAmount.of("EUR", 12345L))
+            .creditorName(null));
+
+        // when: the transaction is mapped as the second row of the statement
+        fixture.map(statement, 1, transaction);
+
+        // then: the column values are set at the row's offset
+        int offset = fixture.colMappings.size();
+        verify(statement).setObject(offset + 1, transaction.getId());
+        verify(statement).setObject(offset + 2, transaction.getUserId());
+        verify(statement).setObject(offset + 3, transaction.getAccountId());
+        verify(statement).setTimestamp(offset + 4, Timestamp.from(transaction.getDateCreated()));
+        verify(statement).setString(offset + 5, transaction.getInternalTransactionId());
+        verify(statement).setString(offset + 6, transaction.getTransactionId());
+        verify(statement).setTimestamp(offset + 7, Timestamp.from(transaction.getBookingDateTime()));
+        verify(statement).setTimestamp(offset + 8, Timestamp.from(transaction.getValueDateTime()));
+        verify(statement).setLong(offset + 9, 12345L);
+        verify(statement).setString(offset + 10, "EUR");
+        verify(statement).setString(offset + 11, transaction.getAdditionalInformation());
+        verify(statement).setNull(offset + 12, Types.VARCHAR);
+        verify(statement).setString(offset + 13, transaction.getReference());
+    }
+
+    @Test
+    public void testMap_NoId() throws SQLException {
+        // given: a PreparedStatement
+        PreparedStatement statement = mock();
+
+        // and: a transaction without an ID
+        AccountTransaction transaction = TestData.mockAccountTransaction(t -> t.id(null));
+
+        // when: the transaction is mapped
+        fixture.map(statement, 0, transaction);
+
+        // then: an ID is generated
+        verify(statement).setObject(eq(1), any(UUID.class));
+
+        // and: no null ID is set
+        verify(statement, never()).setNull(eq(1), anyInt());
+    }
+}
@@ -34,6 +34,9 @@ public class CategoryGroupRepositoryTest {
     @Inject
     AccountTransactionRepository accountTransactionRepository;
 
+    @Inject
+    CategoryRepository categoryRepository;
+
     @Inject
     CategoryGroupRepository fixture;
 
@@ -309,7 +312,7 @@ public class CategoryGroupRepositoryTest {
         // and: a collection of transactions for the account
         // and: a match for each selector
         // and: one that doesn't match the selectors
-        accountTransactionRepository.saveAll(List.of(
+        List<AccountTransaction> transactions = accountTransactionRepository.saveAll(List.of(
             TestData.mockAccountTransaction(account, transaction ->
                 transaction.id(null)
                     .bookingDateTime(now.minus(Duration.ofDays(7)))
@@ -343,6 +346,11 @@ public class CategoryGroupRepositoryTest {
         ));
         fixture.flush();
 
+        // and: the transactions have been assigned to the categories
+        IntStream.range(0, categories.size()).forEach(index ->
+            categoryRepository.assignTransactions(account.getId(),
+                Map.of(transactions.get(index).getInternalTransactionId(), Set.of(categories.get(index).getId()))));
+
         // when: the statistics are retrieved
         List<CategoryStatistics> statistics =
             fixture.getStatistics(categoryGroup, now.minus(Duration.ofDays(7)), now);
@@ -9,7 +9,10 @@ import org.junit.jupiter.api.Test;
 
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static org.apache.commons.lang3.RandomStringUtils.insecure;
@@ -27,6 +30,9 @@ public class CategoryRepositoryTest {
     @Inject
     CategoryGroupRepository categoryGroupRepository;
 
+    @Inject
+    AccountTransactionRepository accountTransactionRepository;
+
     @Inject
     CategoryRepository fixture;
 
@@ -362,6 +368,139 @@ public class CategoryRepositoryTest {
         }
     }
 
+    @Test
+    public void testAssignTransactions() {
+        // given: a user-consent
+        UserConsent consent = userConsentRepository.save(mockUserConsent());
+
+        // and: a linked account
+        Account account = accountRepository.save(mockAccount(consent));
+
+        // and: a category group for the user, with two categories
+        CategoryGroup categoryGroup = CategoryGroup.builder()
+            .userId(consent.getUserId())
+            .name(insecure().nextAlphanumeric(30))
+            .description(insecure().nextAlphanumeric(30))
+            .build();
+        Category category1 = categoryGroup.addCategory("category 1", b -> {});
+        Category category2 = categoryGroup.addCategory("category 2", b -> {});
+        categoryGroupRepository.saveAndFlush(categoryGroup);
+
+        // and: the account has transactions
+        List<AccountTransaction> transactions = List.of(
+            TestData.mockAccountTransaction(account, t -> t.id(null)),
+            TestData.mockAccountTransaction(account, t -> t.id(null)),
+            TestData.mockAccountTransaction(account, t -> t.id(null))
+        );
+        accountTransactionRepository.saveAll(transactions);
+        accountTransactionRepository.flush();
+
+        // when: the transactions are assigned to categories
+        Map<String, Set<UUID>> assignments = Map.of(
+            transactions.get(0).getInternalTransactionId(), Set.of(category1.getId()),
+            transactions.get(1).getInternalTransactionId(), Set.of(category1.getId(), category2.getId()),
+            // a category that no longer exists
+            transactions.get(2).getInternalTransactionId(), Set.of(UUID.randomUUID())
+        );
+        int count = fixture.assignTransactions(account.getId(), assignments);
+
+        // then: the assignments to existing categories are recorded
+        assertEquals(3, count);
+        assertEquals(Set.of(transactions.get(0).getId(), transactions.get(1).getId()), getAssigned(category1));
+        assertEquals(Set.of(transactions.get(1).getId()), getAssigned(category2));
+
+        // when: the same assignments are recorded again
+        count = fixture.assignTransactions(account.getId(), assignments);
+
+        // then: no further assignments are recorded
+        assertEquals(0, count);
+    }
+
+    @Test
+    public void testAssignCategory() {
+        // given: a user-consent
+        UserConsent consent = userConsentRepository.save(mockUserConsent());
+
+        // and: a linked account
+        Account account = accountRepository.save(mockAccount(consent));
+
+        // and: a category group for the user, with a category
+        CategoryGroup categoryGroup = CategoryGroup.builder()
+            .userId(consent.getUserId())
+            .name(insecure().nextAlphanumeric(30))
+            .description(insecure().nextAlphanumeric(30))
+            .build();
+        Category category = categoryGroup.addCategory("category 1", b -> {});
+        categoryGroupRepository.saveAndFlush(categoryGroup);
+
+        // and: the account has transactions
+        List<AccountTransaction> transactions = List.of(
+            TestData.mockAccountTransaction(account, t -> t.id(null)),
+            TestData.mockAccountTransaction(account, t -> t.id(null)),
+            TestData.mockAccountTransaction(account, t -> t.id(null))
+        );
+        accountTransactionRepository.saveAll(transactions);
+        accountTransactionRepository.flush();
+
+        // when: two of the transactions are assigned to the category
+        List<UUID> transactionIds = List.of(transactions.get(0).getId(), transactions.get(2).getId());
+        int count = fixture.assignCategory(category.getId(), transactionIds);
+
+        // then: the assignments are recorded
+        assertEquals(2, count);
+        assertEquals(Set.copyOf(transactionIds), getAssigned(category));
+
+        // when: the same assignments are recorded again
+        count = fixture.assignCategory(category.getId(), transactionIds);
+
+        // then: no further assignments are recorded
+        assertEquals(0, count);
+    }
+
+    @Test
+    public void testUnassignCategory() {
+        // given: a user-consent
+        UserConsent consent = userConsentRepository.save(mockUserConsent());
+
+        // and: two linked accounts
+        Account account1 = accountRepository.save(mockAccount(consent));
+        Account account2 = accountRepository.save(mockAccount(consent));
+
+        // and: a category group for the user, with a category
+        CategoryGroup categoryGroup = CategoryGroup.builder()
+            .userId(consent.getUserId())
+            .name(insecure().nextAlphanumeric(30))
+            .description(insecure().nextAlphanumeric(30))
+            .build();
+        Category category = categoryGroup.addCategory("category 1", b -> {});
+        categoryGroupRepository.saveAndFlush(categoryGroup);
+
+        // and: a transaction of each account has been assigned to the category
+        AccountTransaction transaction1 = TestData.mockAccountTransaction(account1, t -> t.id(null));
+        AccountTransaction transaction2 = TestData.mockAccountTransaction(account2, t -> t.id(null));
+        accountTransactionRepository.saveAll(List.of(transaction1, transaction2));
+        accountTransactionRepository.flush();
+        fixture.assignTransactions(account1.getId(),
+            Map.of(transaction1.getInternalTransactionId(), Set.of(category.getId())));
+        fixture.assignTransactions(account2.getId(),
+            Map.of(transaction2.getInternalTransactionId(), Set.of(category.getId())));
+
+        // when: the category is unassigned from the first account's transactions
+        int count = fixture.unassignCategory(category.getId(), account1.getId());
+
+        // then: only the first account's assignment is removed
+        assertEquals(1, count);
+        assertEquals(Set.of(transaction2.getId()), getAssigned(category));
+    }
+
+    private Set<UUID> getAssigned(Category category) {
+        List<?> result = fixture.getEntityManager()
+            .createNativeQuery("select transaction_id from rails.category_assignment where category_id = :categoryId")
+            .setParameter("categoryId", category.getId())
+            .getResultList();
+        return result.stream().map(UUID.class::cast).collect(Collectors.toSet());
+    }
+
     private UserConsent mockUserConsent() {
         return TestData.mockUserConsent(UUID.randomUUID(), consent -> consent.id(null));
     }
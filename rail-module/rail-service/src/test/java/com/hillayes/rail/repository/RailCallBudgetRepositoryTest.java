@@ -0,0 +1,67 @@
+package com.hillayes.rail.repository;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.domain.RailCallBudget;
+import io.quarkus.test.TestTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Optional;
+
+import static org.apache.commons.lang3.RandomStringUtils.insecure;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+@TestTransaction
+public class RailCallBudgetRepositoryTest {
+    @Inject
+    RailCallBudgetRepository fixture;
+
+    @Test
+    public void testUpsert_Insert() {
+        // given: a rail account for which no budget is held
+        String scope = insecure().nextAlphanumeric(20);
+        Instant resetsAt = Instant.now().plus(Duration.ofDays(1)).truncatedTo(ChronoUnit.SECONDS);
+
+        // when: a budget is written
+        fixture.upsert(RailProvider.NORDIGEN, scope, 4, resetsAt);
+        fixture.clearCache();
+
+        // then: the budget can be found
+        Optional<RailCallBudget> result = fixture.findByScope(RailProvider.NORDIGEN, scope);
+        assertTrue(result.isPresent());
+        assertNotNull(result.get().getId());
+        assertEquals(4, result.get().getRemaining());
+        assertEquals(resetsAt, result.get().getResetsAt());
+
+        // and: it is not found for other providers
+        assertTrue(fixture.findByScope(RailProvider.YAPILY, scope).isEmpty());
+    }
+
+    @Test
+    public void testUpsert_Update() {
+        // given: a budget is held for a rail account
+        String scope = insecure().nextAlphanumeric(20);
+        fixture.upsert(RailProvider.NORDIGEN, scope, 4, Instant.now().plus(Duration.ofDays(1)));
+        fixture.clearCache();
+        RailCallBudget original = fixture.findByScope(RailProvider.NORDIGEN, scope).orElseThrow();
+
+        // when: the budget is written again
+        Instant resetsAt = Instant.now().plus(Duration.ofHours(2)).truncatedTo(ChronoUnit.SECONDS);
+        fixture.upsert(RailProvider.NORDIGEN, scope, 1, resetsAt);
+        fixture.clearCache();
+
+        // then: the existing budget is updated
+        RailCallBudget result = fixture.findByScope(RailProvider.NORDIGEN, scope).orElseThrow();
+        assertEquals(original.getId(), result.getId());
+        assertEquals(1, result.getRemaining());
+        assertEquals(resetsAt, result.getResetsAt());
+
+        // and: only one budget is held
+        assertEquals(1, fixture.count("provider = ?1 AND scope = ?2", RailProvider.NORDIGEN, scope));
+    }
+}
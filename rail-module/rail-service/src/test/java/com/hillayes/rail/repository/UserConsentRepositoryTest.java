@@ -7,14 +7,20 @@ import com.hillayes.rail.domain.UserConsent;
 import io.quarkus.test.TestTransaction;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.hibernate.stat.SessionStatistics;
 import org.junit.jupiter.api.Test;
 
 import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.*;
 
 @QuarkusTest
 @TestTransaction
@@ -104,4 +110,120 @@ public class UserConsentRepositoryTest {
             }
         });
     }
+
+    @Test
+    public void testStreamByStatus() {
+        // given: a generated set of user-consents of mixed status
+        UUID userId = UUID.randomUUID();
+        int consentCount = 1200;
+        for (int i = 0; i < consentCount; i++) {
+            fixture.save(UserConsent.builder()
+                .provider(RailProvider.NORDIGEN)
+                .reference(UUID.randomUUID().toString())
+                .userId(userId)
+                .institutionId("institution-" + i)
+                .agreementId(UUID.randomUUID().toString())
+                .agreementExpires(Instant.now().plusSeconds(1000))
+                .maxHistory(80)
+                .status((i % 3 == 0) ? ConsentStatus.SUSPENDED : ConsentStatus.GIVEN)
+                .build());
+        }
+
+        // and: the consents are written, and the persistence context is emptied
+        EntityManager entityManager = fixture.getEntityManager();
+        fixture.flush();
+        entityManager.clear();
+        SessionStatistics statistics = entityManager.unwrap(Session.class).getStatistics();
+
+        // when: the consents of one status are streamed
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger maxManaged = new AtomicInteger();
+        try (Stream<UserConsent> stream = fixture.streamByStatus(ConsentStatus.GIVEN)) {
+            stream
+                .filter(consent -> userId.equals(consent.getUserId()))
+                .forEach(consent -> {
+                    // then: each consent is of the requested status
+                    assertEquals(ConsentStatus.GIVEN, consent.getStatus());
+
+                    // and: each has been detached before it is passed down the stream
+                    assertFalse(entityManager.contains(consent));
+                    maxManaged.accumulateAndGet(statistics.getEntityCount(), Math::max);
+
+                    // and: changes to the detached consents will not be persisted
+                    consent.setInstitutionId("modified");
+                    count.incrementAndGet();
+                });
+        }
+
+        // then: all consents of that status were streamed
+        assertEquals(consentCount - (consentCount + 2) / 3, count.get());
+
+        // and: the persistence context never held the streamed consents
+        assertEquals(0, maxManaged.get());
+
+        // and: none of the changes were persisted
+        fixture.flush();
+        entityManager.clear();
+        assertTrue(fixture.findByUserId(userId).stream()
+            .noneMatch(consent -> "modified".equals(consent.getInstitutionId())));
+    }
+
+    @Test
+    public void testStreamByStatus_MemoryIsBounded() {
+        // given: a large set of user-consents - each with every text column filled
+        // the consents streamed (~2KB each) far exceed the heap growth permitted below
+        UUID userId = UUID.randomUUID();
+        int consentCount = 100_000;
+        fixture.getEntityManager().createNativeQuery(
+                "insert into rails.userconsent (id, provider, user_id, institution_id, agreement_id, reference, " +
+                    "agreement_expires, max_history, callback_uri, status, error_code, error_detail) " +
+                    "select gen_random_uuid(), 'NORDIGEN', :userId, lpad(cast(i as text), 250, 'i'), repeat('a', 250), " +
+                    "repeat('r', 250), now() + interval '1 day', 80, repeat('c', 250), " +
+                    "case when i % 3 = 0 then 'SUSPENDED' else 'GIVEN' end, repeat('e', 250), repeat('d', 250) " +
+                    "from generate_series(1, :count) i")
+            .setParameter("userId", userId)
+            .setParameter("count", consentCount)
+            .executeUpdate();
+
+        EntityManager entityManager = fixture.getEntityManager();
+        entityManager.clear();
+        SessionStatistics statistics = entityManager.unwrap(Session.class).getStatistics();
+
+        // when: the consents of one status are streamed
+        int sampleInterval = 10_000;
+        AtomicInteger count = new AtomicInteger();
+        AtomicInteger maxManaged = new AtomicInteger();
+        AtomicLong baselineHeap = new AtomicLong();
+        AtomicLong peakHeap = new AtomicLong();
+        try (Stream<UserConsent> stream = fixture.streamByStatus(ConsentStatus.GIVEN)) {
+            stream
+                .filter(consent -> userId.equals(consent.getUserId()))
+                .forEach(consent -> {
+                    // sample the persistence context and heap as the stream progresses
+                    if (count.incrementAndGet() % sampleInterval == 0) {
+                        maxManaged.accumulateAndGet(statistics.getEntityCount(), Math::max);
+
+                        long used = usedHeap();
+                        baselineHeap.compareAndSet(0, used);
+                        peakHeap.accumulateAndGet(used, Math::max);
+                    }
+                });
+        }
+
+        // then: all consents of that status were streamed
+        assertEquals(consentCount - consentCount / 3, count.get());
+
+        // and: the persistence context did not accumulate the streamed consents
+        assertEquals(0, maxManaged.get());
+
+        // and: the heap did not grow with the number of consents streamed
+        long growth = peakHeap.get() - baselineHeap.get();
+        assertTrue(growth < 32 * 1024 * 1024, "Heap grew by " + growth + " bytes");
+    }
+
+    private long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
 }
@@ -0,0 +1,54 @@
+package com.hillayes.rail.scheduled;
+
+import com.hillayes.rail.repository.AuditReportConfigRepository;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class AuditReportsScheduledTaskTest {
+    private final AuditReportConfigRepository auditReportConfigRepository = mock();
+    private final UserAuditReportsAdhocTask userAuditReportsAdhocTask = mock();
+
+    private final AuditReportsScheduledTask fixture = new AuditReportsScheduledTask(
+        auditReportConfigRepository,
+        userAuditReportsAdhocTask
+    );
+
+    @Test
+    public void testGetName() {
+        assertEquals("audit-reports", fixture.getName());
+    }
+
+    @Test
+    public void testRun() {
+        // given: a collection of users with audit reports
+        List<UUID> userIds = IntStream.range(0, 5).mapToObj(i -> UUID.randomUUID()).toList();
+        when(auditReportConfigRepository.listUserIds()).thenReturn(userIds);
+
+        // when: the fixture is invoked
+        fixture.run();
+
+        // then: a task is queued for each user - in a single batch
+        verify(userAuditReportsAdhocTask).queueTasks(
+            userIds.stream().map(UserAuditReportsAdhocTask.Payload::new).toList()
+        );
+        verify(userAuditReportsAdhocTask, never()).queueTask(any(UUID.class));
+    }
+
+    @Test
+    public void testRun_NoUsers() {
+        // given: no users have audit reports
+        when(auditReportConfigRepository.listUserIds()).thenReturn(List.of());
+
+        // when: the fixture is invoked
+        fixture.run();
+
+        // then: no tasks are queued
+        verifyNoInteractions(userAuditReportsAdhocTask);
+    }
+}
@@ -0,0 +1,113 @@
+package com.hillayes.rail.scheduled;
+
+import com.hillayes.executors.scheduler.TaskContext;
+import com.hillayes.executors.scheduler.tasks.TaskConclusion;
+import com.hillayes.rail.config.ServiceConfiguration;
+import com.hillayes.rail.domain.Category;
+import com.hillayes.rail.domain.CategoryGroup;
+import com.hillayes.rail.domain.CategorySelector;
+import com.hillayes.rail.matcher.CategoryMatcher;
+import com.hillayes.rail.repository.AccountTransactionRepository;
+import com.hillayes.rail.repository.AccountTransactionRepository.CategorisableText;
+import com.hillayes.rail.repository.CategoryRepository;
+import com.hillayes.rail.service.CategoryMatcherService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class CategoriseTransactionsAdhocTaskTest {
+    ServiceConfiguration configuration = mock();
+    CategoryRepository categoryRepository = mock();
+    AccountTransactionRepository accountTransactionRepository = mock();
+    CategoryMatcherService categoryMatcherService = mock();
+
+    CategoriseTransactionsAdhocTask fixture;
+
+    @BeforeEach
+    public void setUp() {
+        when(configuration.transactionChunkSize()).thenReturn(2);
+
+        fixture = new CategoriseTransactionsAdhocTask(configuration, categoryRepository,
+            accountTransactionRepository, categoryMatcherService);
+    }
+
+    @Test
+    public void testGetName() {
+        assertEquals("categorise-transactions", fixture.getName());
+    }
+
+    @Test
+    public void testApply() {
+        // given: a category whose selectors have changed for an account
+        UUID accountId = UUID.randomUUID();
+        CategoryGroup group = CategoryGroup.builder()
+            .id(UUID.randomUUID())
+            .userId(UUID.randomUUID())
+            .name("group")
+            .build();
+        Category category = group.addCategory("category", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        when(categoryRepository.findByIdOptional(category.getId())).thenReturn(Optional.of(category));
+
+        // and: another category of the same group
+        Category other = group.addCategory("other", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.refContains("RENT"));
+
+        // and: the group's matcher is compiled from both categories' selectors
+        List<CategorySelector> selectors = new ArrayList<>(category.getSelectors());
+        selectors.addAll(other.getSelectors());
+        when(categoryMatcherService.rebuild(group.getId())).thenReturn(new CategoryMatcher(selectors));
+
+        // and: the account has transactions
+        List<CategorisableText> transactions = List.of(
+            new CategorisableText(UUID.randomUUID(), "1", null, null, "TESCO STORES"),
+            new CategorisableText(UUID.randomUUID(), "2", null, "MONTHLY RENT", null),
+            new CategorisableText(UUID.randomUUID(), "3", null, "RENT", "TESCO"),
+            new CategorisableText(UUID.randomUUID(), "4", null, null, "TESCO EXPRESS")
+        );
+        when(accountTransactionRepository.streamCategorisable(accountId)).thenReturn(transactions.stream());
+
+        // when: the task is applied
+        CategoriseTransactionsAdhocTask.Payload payload =
+            new CategoriseTransactionsAdhocTask.Payload(category.getId(), accountId);
+        TaskConclusion result = fixture.apply(new TaskContext<>(payload));
+
+        // then: the task is completed
+        assertEquals(TaskConclusion.COMPLETE, result);
+
+        // and: the group's matcher is re-compiled
+        verify(categoryMatcherService).rebuild(group.getId());
+
+        // and: the category's existing assignments are removed
+        verify(categoryRepository).unassignCategory(category.getId(), accountId);
+
+        // and: only those transactions that fall into the category are assigned to it - in chunks
+        verify(categoryRepository).assignCategory(category.getId(),
+            List.of(transactions.get(0).id(), transactions.get(2).id()));
+        verify(categoryRepository).assignCategory(category.getId(),
+            List.of(transactions.get(3).id()));
+    }
+
+    @Test
+    public void testApply_CategoryDeleted() {
+        // given: a category that no longer exists
+        UUID categoryId = UUID.randomUUID();
+        when(categoryRepository.findByIdOptional(categoryId)).thenReturn(Optional.empty());
+
+        // when: the task is applied
+        CategoriseTransactionsAdhocTask.Payload payload =
+            new CategoriseTransactionsAdhocTask.Payload(categoryId, UUID.randomUUID());
+        TaskConclusion result = fixture.apply(new TaskContext<>(payload));
+
+        // then: the task is completed
+        assertEquals(TaskConclusion.COMPLETE, result);
+
+        // and: no assignments are changed
+        verify(categoryRepository, never()).unassignCategory(any(), any());
+        verify(categoryRepository, never()).assignCategory(any(), any());
+    }
+}
@@ -6,6 +6,7 @@ import com.hillayes.executors.scheduler.TaskContext;
 import com.hillayes.executors.scheduler.tasks.TaskConclusion;
 import com.hillayes.rail.api.RailProviderApi;
 import com.hillayes.rail.api.domain.*;
+import com.hillayes.rail.api.governor.RailCallGovernor;
 import com.hillayes.rail.config.RailProviderFactory;
 import com.hillayes.rail.config.ServiceConfiguration;
 import com.hillayes.rail.domain.*;
@@ -13,6 +14,8 @@ import com.hillayes.rail.event.ConsentEventSender;
 import com.hillayes.rail.repository.AccountBalanceRepository;
 import com.hillayes.rail.repository.AccountRepository;
 import com.hillayes.rail.repository.AccountTransactionRepository;
+import com.hillayes.rail.repository.CategoryRepository;
+import com.hillayes.rail.service.CategoryMatcherService;
 import com.hillayes.rail.service.UserConsentService;
 import com.hillayes.rail.utils.TestApiData;
 import org.junit.jupiter.api.BeforeEach;
@@ -23,12 +26,13 @@ import org.mockito.ArgumentCaptor;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.List;
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
+import java.util.function.Consumer;
 
 import static org.apache.commons.lang3.RandomStringUtils.insecure;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class PollAccountAdhocTaskTest {
@@ -38,9 +42,13 @@ public class PollAccountAdhocTaskTest {
     private final AccountRepository accountRepository = mock();
     private final AccountBalanceRepository accountBalanceRepository = mock();
     private final AccountTransactionRepository accountTransactionRepository = mock();
+    private final CategoryRepository categoryRepository = mock();
+    private final CategoryMatcherService categoryMatcherService = mock();
     private final RailProviderFactory railProviderFactory = mock();
     private final RailProviderApi railProviderApi = mock();
+    private final RailCallGovernor railCallGovernor = mock();
     private final SchedulerFactory scheduler = mock();
+    private final Map<UUID, Account> savedAccounts = new HashMap<>();
 
     private final PollAccountAdhocTask fixture = new PollAccountAdhocTask(
         configuration,
@@ -49,13 +57,17 @@ public class PollAccountAdhocTaskTest {
         accountRepository,
         accountBalanceRepository,
         accountTransactionRepository,
-        railProviderFactory
+        categoryRepository,
+        categoryMatcherService,
+        railProviderFactory,
+        railCallGovernor
     );
 
     @BeforeEach
     public void init() {
         when(railProviderFactory.get(any())).thenReturn(railProviderApi);
         when(configuration.accountPollingInterval()).thenReturn(Duration.ofHours(1));
+        when(configuration.transactionChunkSize()).thenReturn(500);
 
         // simulate save functionality
         when(accountRepository.save(any())).then(invocation -> {
@@ -63,8 +75,12 @@ public class PollAccountAdhocTaskTest {
             if (account.getId() == null) {
                 account.setId(UUID.randomUUID());
             }
+            savedAccounts.put(account.getId(), account);
             return account;
         });
+        when(accountRepository.findByIdOptional(any())).then(invocation ->
+            Optional.ofNullable(savedAccounts.get(invocation.<UUID>getArgument(0)))
+        );
         when(accountBalanceRepository.save(any())).then(invocation -> {
             AccountBalance balance = invocation.getArgument(0);
             if (balance.getId() == null) {
@@ -72,6 +88,9 @@ public class PollAccountAdhocTaskTest {
             }
             return balance;
         });
+        when(accountTransactionRepository.saveBatch(any())).then(invocation ->
+            invocation.<Collection<AccountTransaction>>getArgument(0).size()
+        );
 
         // given: a polling grace period of 1 hour
         ServiceConfiguration configuration = mock();
@@ -147,7 +166,7 @@ public class PollAccountAdhocTaskTest {
 
         // and: rail-transactions records are available
         List<RailTransaction> transactions = TestApiData.mockTransactionList(10);
-        when(railProviderApi.listTransactions(eq(railAgreement), eq(railAccount.getId()), any())).thenReturn(transactions);
+        mockTransactionPages(railAgreement, railAccount.getId(), transactions);
 
         // and: balance records already exist for earlier dates
         when(accountBalanceRepository.findMostRecentByAccountId(account.getId())).thenReturn(
@@ -195,14 +214,14 @@ public class PollAccountAdhocTaskTest {
         verify(accountTransactionRepository).findByFilter(any(), anyInt(), anyInt());
 
         // and: the account transactions are retrieved
-        verify(railProviderApi).listTransactions(eq(railAgreement), eq(railAccount.getId()), any());
+        verify(railProviderApi).forEachTransactionPage(eq(railAgreement), eq(railAccount.getId()), any(), any());
 
         // and: the transactions are saved
-        verify(accountTransactionRepository).saveAll(any());
+        verify(accountTransactionRepository).saveBatch(any());
 
-        // and: the local account is updated
+        // and: the local account is updated - before and after the transactions are saved
         ArgumentCaptor<Account> accountArgumentCaptor = ArgumentCaptor.forClass(Account.class);
-        verify(accountRepository).save(accountArgumentCaptor.capture());
+        verify(accountRepository, times(2)).save(accountArgumentCaptor.capture());
         Account updatedAccount = accountArgumentCaptor.getValue();
 
         // and: the rail ID and IBAN are updated to suit details retrieved from the rail
@@ -261,7 +280,7 @@ public class PollAccountAdhocTaskTest {
 
         // and: rail-transactions records are available
         List<RailTransaction> transactions = TestApiData.mockTransactionList(10);
-        when(railProviderApi.listTransactions(eq(railAgreement), eq(railAccount.getId()), any())).thenReturn(transactions);
+        mockTransactionPages(railAgreement, railAccount.getId(), transactions);
 
         // and: balance records already exist for earlier dates
         when(accountBalanceRepository.findMostRecentByAccountId(account.getId())).thenReturn(
@@ -309,14 +328,14 @@ public class PollAccountAdhocTaskTest {
         verify(accountTransactionRepository).findByFilter(any(), anyInt(), anyInt());
 
         // and: the account transactions are retrieved
-        verify(railProviderApi).listTransactions(eq(railAgreement), eq(railAccount.getId()), any());
+        verify(railProviderApi).forEachTransactionPage(eq(railAgreement), eq(railAccount.getId()), any(), any());
 
         // and: the transactions are saved
-        verify(accountTransactionRepository).saveAll(any());
+        verify(accountTransactionRepository).saveBatch(any());
 
-        // and: the local account is updated
+        // and: the local account is updated - before and after the transactions are saved
         ArgumentCaptor<Account> accountArgumentCaptor = ArgumentCaptor.forClass(Account.class);
-        verify(accountRepository).save(accountArgumentCaptor.capture());
+        verify(accountRepository, times(2)).save(accountArgumentCaptor.capture());
         Account updatedAccount = accountArgumentCaptor.getValue();
 
         // and: the rail ID and IBAN are updated to suit details retrieved from the rail
@@ -365,7 +384,7 @@ public class PollAccountAdhocTaskTest {
 
         // and: rail-transactions records are available
         List<RailTransaction> transactions = TestApiData.mockTransactionList(10);
-        when(railProviderApi.listTransactions(eq(railAgreement), eq(railAccount.getId()), any())).thenReturn(transactions);
+        mockTransactionPages(railAgreement, railAccount.getId(), transactions);
 
         // when: the fixture is called to process the user-consent and account
         PollAccountAdhocTask.Payload payload = new PollAccountAdhocTask.Payload(userConsent.getId(), railAccount.getId());
@@ -391,14 +410,14 @@ public class PollAccountAdhocTaskTest {
         verify(accountBalanceRepository).save(any());
 
         // and: the account transactions are retrieved
-        verify(railProviderApi).listTransactions(eq(railAgreement), eq(railAccount.getId()), any());
+        verify(railProviderApi).forEachTransactionPage(eq(railAgreement), eq(railAccount.getId()), any(), any());
 
         // and: the transactions are saved
-        verify(accountTransactionRepository).saveAll(any());
+        verify(accountTransactionRepository).saveBatch(any());
 
-        // and: the local account is inserted AND updated
+        // and: the local account is inserted AND updated - before and after the transactions are saved
         ArgumentCaptor<Account> captor = ArgumentCaptor.forClass(Account.class);
-        verify(accountRepository, times(2)).save(captor.capture());
+        verify(accountRepository, times(3)).save(captor.capture());
         Account account = captor.getValue();
 
         // and: the local account is inserted with the consent ID
@@ -426,6 +445,92 @@ public class PollAccountAdhocTaskTest {
         assertEquals(TaskConclusion.COMPLETE, result);
     }
 
+    @Test
+    public void testHappyPath_TransactionsSavedInChunks() {
+        // given: a chunk size of 4 transactions
+        when(configuration.transactionChunkSize()).thenReturn(4);
+
+        // and: an identified user-consent ready to be polled
+        UserConsent userConsent = UserConsent.builder()
+            .id(UUID.randomUUID())
+            .userId(UUID.randomUUID())
+            .reference(UUID.randomUUID().toString())
+            .agreementId(UUID.randomUUID().toString())
+            .status(ConsentStatus.GIVEN)
+            .build();
+        when(userConsentService.lockUserConsent(userConsent.getId())).thenReturn(Optional.of(userConsent));
+
+        // and: a rail-agreement associated with that consent
+        RailAgreement railAgreement = RailAgreement.builder().build();
+        when(railProviderApi.getAgreement(userConsent.getAgreementId()))
+            .thenReturn(Optional.of(railAgreement));
+
+        // and: a rail-account associated with that consent
+        RailAccount railAccount = TestApiData.mockAccount();
+        when(railProviderApi.getAccount(railAgreement, railAccount.getId()))
+            .thenReturn(Optional.of(railAccount));
+
+        // and: a local account is linked to that rail-account
+        Account account = Account.builder()
+            .id(UUID.randomUUID())
+            .railAccountId(railAccount.getId())
+            .dateLastPolled(Instant.now().minus(Duration.ofHours(2)))
+            .build();
+        when(accountRepository.findByRailAccountId(railAccount.getId())).thenReturn(Optional.of(account));
+
+        // and: NO local existing transactions
+        when(accountTransactionRepository.findByFilter(any(), anyInt(), anyInt()))
+            .thenReturn(Page.empty());
+
+        // and: the transactions fall into a category
+        Map<String, Set<UUID>> assignments = Map.of(insecure().nextAlphanumeric(20), Set.of(UUID.randomUUID()));
+        when(categoryMatcherService.categorise(any(), any())).thenReturn(assignments);
+
+        // and: the rail-transactions are available in two pages
+        List<RailTransaction> page1 = TestApiData.mockTransactionList(10);
+        List<RailTransaction> page2 = TestApiData.mockTransactionList(3);
+        mockTransactionPages(railAgreement, railAccount.getId(), page1, page2);
+
+        // when: the fixture is called to process the user-consent and account
+        PollAccountAdhocTask.Payload payload = new PollAccountAdhocTask.Payload(userConsent.getId(), railAccount.getId());
+        TaskContext<PollAccountAdhocTask.Payload> context = new TaskContext<>(payload);
+        TaskConclusion result = fixture.apply(context);
+
+        // then: each page is saved in chunks of no more than the chunk size
+        ArgumentCaptor<Collection<AccountTransaction>> captor = ArgumentCaptor.captor();
+        verify(accountTransactionRepository, times(4)).saveBatch(captor.capture());
+        List<Collection<AccountTransaction>> chunks = captor.getAllValues();
+        assertEquals(4, chunks.get(0).size());
+        assertEquals(4, chunks.get(1).size());
+        assertEquals(2, chunks.get(2).size());
+        assertEquals(3, chunks.get(3).size());
+
+        // and: the transactions of each page are saved in booking-date order
+        List<Instant> bookingDates = chunks.subList(0, 3).stream()
+            .flatMap(Collection::stream)
+            .map(AccountTransaction::getBookingDateTime)
+            .toList();
+        assertEquals(page1.stream().map(RailTransaction::getDateBooked).sorted().toList(), bookingDates);
+
+        // and: all transactions are saved against the local account
+        chunks.stream().flatMap(Collection::stream).forEach(transaction -> {
+            assertEquals(account.getId(), transaction.getAccountId());
+            assertEquals(account.getUserId(), transaction.getUserId());
+        });
+
+        // and: the transactions of each chunk are categorised
+        chunks.forEach(chunk -> verify(categoryMatcherService).categorise(account.getUserId(), chunk));
+
+        // and: the categories of each chunk are assigned
+        verify(categoryRepository, times(4)).assignTransactions(eq(account.getId()), eq(assignments));
+
+        // and: the account's poll date is updated
+        assertTrue(account.getDateLastPolled().isAfter(Instant.now().minus(Duration.ofMinutes(1))));
+
+        // and: the task's result is COMPLETE
+        assertEquals(TaskConclusion.COMPLETE, result);
+    }
+
     @Test
     public void testHappyPath_NewAccount_StillProcessing() {
         // given: an identified user-consent ready to be polled
@@ -458,7 +563,7 @@ public class PollAccountAdhocTaskTest {
 
         // and: NO rail-transactions records are available
         List<RailTransaction> transactions = List.of();
-        when(railProviderApi.listTransactions(eq(railAgreement), eq(railAccount.getId()), any())).thenReturn(transactions);
+        mockTransactionPages(railAgreement, railAccount.getId(), transactions);
 
         // when: the fixture is called to process the user-consent and account
         PollAccountAdhocTask.Payload payload = new PollAccountAdhocTask.Payload(userConsent.getId(), railAccount.getId());
@@ -484,10 +589,10 @@ public class PollAccountAdhocTaskTest {
         verify(accountBalanceRepository, never()).save(any());
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
-        verify(accountTransactionRepository, never()).saveAll(any());
+        verify(accountTransactionRepository, never()).saveBatch(any());
 
         // and: NO local account is inserted or updated
         verify(accountRepository, never()).save(any());
@@ -552,7 +657,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountTransactionRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO local account is updated
         verify(accountRepository, never()).save(account);
@@ -567,6 +672,43 @@ public class PollAccountAdhocTaskTest {
         assertEquals(TaskConclusion.COMPLETE, result);
     }
 
+    @Test
+    public void testPollDeferred() {
+        // given: the adhoc task has been configured
+        fixture.taskInitialised(scheduler);
+
+        // and: an identified user-consent ready to be polled
+        UserConsent userConsent = UserConsent.builder()
+            .id(UUID.randomUUID())
+            .provider(RailProvider.NORDIGEN)
+            .status(ConsentStatus.GIVEN)
+            .build();
+        when(userConsentService.lockUserConsent(userConsent.getId())).thenReturn(Optional.of(userConsent));
+
+        // and: polling the account would exceed the rail's limits
+        String railAccountId = insecure().nextAlphanumeric(20);
+        Instant deferUntil = Instant.now().plus(Duration.ofHours(2));
+        when(railCallGovernor.reserve(RailProvider.NORDIGEN, railAccountId, PollAccountAdhocTask.ACCOUNT_POLL_CALLS))
+            .thenReturn(Optional.of(deferUntil));
+
+        // when: the fixture is called to process the user-consent and account
+        PollAccountAdhocTask.Payload payload = new PollAccountAdhocTask.Payload(userConsent.getId(), railAccountId);
+        TaskContext<PollAccountAdhocTask.Payload> context = new TaskContext<>(payload);
+        TaskConclusion result = fixture.apply(context);
+
+        // then: the rail is NOT called
+        verifyNoInteractions(railProviderApi);
+
+        // and: the task is re-queued for the time given by the governor
+        verify(scheduler).addTask(fixture, payload, deferUntil);
+
+        // and: NO local account is updated
+        verifyNoInteractions(accountRepository, accountBalanceRepository, accountTransactionRepository);
+
+        // and: the task's result is COMPLETE - so no retry attempt is used
+        assertEquals(TaskConclusion.COMPLETE, result);
+    }
+
     @Test
     public void testUserConsentNotFound() {
         // given: a user-consent cannot be found
@@ -696,7 +838,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountBalanceRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
         verifyNoInteractions(accountTransactionRepository);
@@ -750,10 +892,10 @@ public class PollAccountAdhocTaskTest {
         verify(accountBalanceRepository, never()).save(any());
 
         // and: the account transactions are NOT retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
-        verify(accountTransactionRepository, never()).saveAll(any());
+        verify(accountTransactionRepository, never()).saveBatch(any());
 
         // and: the local account is NOT updated
         verify(accountRepository, never()).save(any());
@@ -810,7 +952,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountBalanceRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
         verifyNoInteractions(accountTransactionRepository);
@@ -825,6 +967,44 @@ public class PollAccountAdhocTaskTest {
         assertEquals(TaskConclusion.COMPLETE, result);
     }
 
+    @Test
+    public void testRailAccountFails() {
+        // given: an identified user-consent ready to be polled
+        UserConsent userConsent = UserConsent.builder()
+            .id(UUID.randomUUID())
+            .status(ConsentStatus.GIVEN)
+            .agreementId(UUID.randomUUID().toString())
+            .reference(UUID.randomUUID().toString())
+            .build();
+        when(userConsentService.lockUserConsent(userConsent.getId())).thenReturn(Optional.of(userConsent));
+
+        // and: a rail-agreement associated with that consent
+        RailAgreement railAgreement = RailAgreement.builder().build();
+        when(railProviderApi.getAgreement(userConsent.getAgreementId()))
+            .thenReturn(Optional.of(railAgreement));
+
+        // and: the rail-account cannot be retrieved - e.g. its balances are unavailable
+        String railAccountId = insecure().nextAlphanumeric(20);
+        when(railProviderApi.getAccount(railAgreement, railAccountId))
+            .thenThrow(new IllegalStateException("balances failed"));
+
+        // when: the fixture is called to process the user-consent and account
+        PollAccountAdhocTask.Payload payload = new PollAccountAdhocTask.Payload(userConsent.getId(), railAccountId);
+        TaskContext<PollAccountAdhocTask.Payload> context = new TaskContext<>(payload);
+
+        // then: the failure is passed to the caller - so that the task is retried
+        assertThrows(IllegalStateException.class, () -> fixture.apply(context));
+
+        // and: NO balances are saved
+        verifyNoInteractions(accountBalanceRepository);
+
+        // and: NO account transactions are retrieved
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
+
+        // and: NO transactions are saved
+        verifyNoInteractions(accountTransactionRepository);
+    }
+
     @Test
     public void testRailAccountSuspended() {
         // given: an identified user-consent ready to be polled
@@ -870,7 +1050,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountBalanceRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
         verifyNoInteractions(accountTransactionRepository);
@@ -927,7 +1107,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountBalanceRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
         verifyNoInteractions(accountTransactionRepository);
@@ -982,7 +1162,7 @@ public class PollAccountAdhocTaskTest {
         verifyNoInteractions(accountBalanceRepository);
 
         // and: NO account transactions are retrieved
-        verify(railProviderApi, never()).listTransactions(any(), any(), any());
+        verify(railProviderApi, never()).forEachTransactionPage(any(), any(), any(), any());
 
         // and: NO transactions are saved
         verifyNoInteractions(accountTransactionRepository);
@@ -1007,4 +1187,19 @@ public class PollAccountAdhocTaskTest {
             verify(userConsentService, never()).consentDenied(any(), any());
         }
     }
+
+    /**
+     * Mocks the delivery of the given pages of transactions by the rail provider.
+     */
+    @SafeVarargs
+    private void mockTransactionPages(RailAgreement railAgreement, String railAccountId,
+                                      List<RailTransaction>... pages) {
+        doAnswer(invocation -> {
+            Consumer<List<RailTransaction>> consumer = invocation.getArgument(3);
+            Arrays.stream(pages)
+                .filter(page -> !page.isEmpty())
+                .forEach(consumer);
+            return null;
+        }).when(railProviderApi).forEachTransactionPage(eq(railAgreement), eq(railAccountId), any(), any());
+    }
 }
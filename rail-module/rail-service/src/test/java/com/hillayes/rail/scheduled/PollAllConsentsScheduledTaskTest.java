@@ -8,8 +8,11 @@ import org.mockito.InjectMocks;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.*;
 
 public class PollAllConsentsScheduledTaskTest {
@@ -29,45 +32,39 @@ public class PollAllConsentsScheduledTaskTest {
 
     @Test
     public void testRun_WithConsents() {
-        // given: a collection of accounts
+        // given: a collection of GIVEN consents
         List<UserConsent> consents = List.of(
             UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.GIVEN).build(),
-            UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.EXPIRED).build(),
             UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.GIVEN).build(),
-            UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.SUSPENDED).build(),
-            UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.GIVEN).build(),
-            UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.CANCELLED).build()
+            UserConsent.builder().id(UUID.randomUUID()).status(ConsentStatus.GIVEN).build()
         );
 
-        // and: the repository returns the consents
-        when(userConsentRepository.listAll()).thenReturn(consents);
+        // and: the repository streams the consents
+        AtomicBoolean closed = new AtomicBoolean();
+        when(userConsentRepository.streamByStatus(ConsentStatus.GIVEN))
+            .thenReturn(consents.stream().onClose(() -> closed.set(true)));
 
         // when: the fixture is invoked
         fixture.run();
 
-        // then: a poll-consent task is queued for each GIVEN consent
-        consents.forEach(consent -> {
-            if (consent.getStatus() == ConsentStatus.GIVEN) {
-                verify(pollConsentAdhocTask).queueTask(consent.getId());
-            }
-            else {
-                verify(pollConsentAdhocTask, never()).queueTask(consent.getId());
-            }
-        });
+        // then: a poll-consent task is queued for each GIVEN consent - in a single batch
+        verify(pollConsentAdhocTask).queueTasks(consents.stream().map(UserConsent::getId).toList());
+        verify(pollConsentAdhocTask, never()).queueTask(any());
+
+        // and: the stream is closed
+        assertTrue(closed.get());
     }
 
     @Test
     public void testRun_WithNoConsents() {
-        // given: an empty collection of consents
-        List<UserConsent> consents = List.of();
-
-        // and: the repository returns the empty list
-        when(userConsentRepository.listAll()).thenReturn(consents);
+        // given: the repository streams no consents
+        when(userConsentRepository.streamByStatus(ConsentStatus.GIVEN)).thenReturn(Stream.empty());
 
         // when: the fixture is invoked
         fixture.run();
 
         // then: NO poll-consent task is queued for any consent
         verify(pollConsentAdhocTask, never()).queueTask(any());
+        verify(pollConsentAdhocTask, never()).queueTasks(any());
     }
 }
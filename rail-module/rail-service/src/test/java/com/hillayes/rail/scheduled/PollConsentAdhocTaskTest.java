@@ -6,6 +6,8 @@ import com.hillayes.executors.scheduler.tasks.TaskConclusion;
 import com.hillayes.rail.api.RailProviderApi;
 import com.hillayes.rail.api.domain.AgreementStatus;
 import com.hillayes.rail.api.domain.RailAgreement;
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.api.governor.RailCallGovernor;
 import com.hillayes.rail.config.RailProviderFactory;
 import com.hillayes.rail.domain.ConsentStatus;
 import com.hillayes.rail.domain.UserConsent;
@@ -17,6 +19,8 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.EnumSource;
 import org.mockito.ArgumentCaptor;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -30,12 +34,14 @@ public class PollConsentAdhocTaskTest {
     private final RailProviderFactory railProviderFactory = mock();
     private final PollAccountAdhocTask pollAccountAdhocTask = mock();
     private final RailProviderApi railProviderApi = mock();
+    private final RailCallGovernor railCallGovernor = mock();
     private final SchedulerFactory scheduler = mock();
 
     private final PollConsentAdhocTask fixture = new PollConsentAdhocTask(
         userConsentService,
         railProviderFactory,
-        pollAccountAdhocTask
+        pollAccountAdhocTask,
+        railCallGovernor
     );
 
     @BeforeEach
@@ -285,4 +291,39 @@ public class PollConsentAdhocTaskTest {
         // and: the task's result is INCOMPLETE
         assertEquals(TaskConclusion.INCOMPLETE, result);
     }
+
+    @Test
+    public void testPollDeferred() {
+        // given: the adhoc task has been configured
+        fixture.taskInitialised(scheduler);
+
+        // and: a consent record to be processed
+        UserConsent userConsent = UserConsent.builder()
+            .id(UUID.randomUUID())
+            .provider(RailProvider.NORDIGEN)
+            .status(ConsentStatus.GIVEN)
+            .agreementId(insecure().nextAlphanumeric(20))
+            .build();
+        when(userConsentService.getUserConsent(userConsent.getId())).thenReturn(Optional.of(userConsent));
+
+        // and: polling the consent would exceed the rail's limits
+        Instant deferUntil = Instant.now().plus(Duration.ofMinutes(1));
+        when(railCallGovernor.reserve(RailProvider.NORDIGEN, null)).thenReturn(Optional.of(deferUntil));
+
+        // when: the fixture is called to process the user-consent
+        TaskContext<UUID> context = new TaskContext<>(userConsent.getId());
+        TaskConclusion result = fixture.apply(context);
+
+        // then: the rail is NOT called
+        verifyNoInteractions(railProviderApi);
+
+        // and: the task is re-queued for the time given by the governor
+        verify(scheduler).addTask(fixture, userConsent.getId(), deferUntil);
+
+        // and: NO account polling tasks are queued
+        verifyNoInteractions(pollAccountAdhocTask);
+
+        // and: the task's result is COMPLETE - so no retry attempt is used
+        assertEquals(TaskConclusion.COMPLETE, result);
+    }
 }
@@ -0,0 +1,262 @@
+package com.hillayes.rail.service;
+
+import com.hillayes.rail.config.ServiceConfiguration;
+import com.hillayes.rail.domain.*;
+import com.hillayes.rail.matcher.CategoryMatcher;
+import com.hillayes.rail.repository.CategoryGroupRepository;
+import com.hillayes.rail.utils.TestData;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CategoryMatcherServiceTest {
+    private final CategoryGroupRepository categoryGroupRepository = mock();
+    private final ServiceConfiguration config = mock();
+    private final TransactionSynchronizationRegistry transactionRegistry = mock();
+
+    private final CategoryMatcherService fixture = new CategoryMatcherService(
+        categoryGroupRepository,
+        config,
+        transactionRegistry
+    );
+
+    @BeforeEach
+    public void init() {
+        ServiceConfiguration.Caches caches = mock(ServiceConfiguration.Caches.class);
+        when(caches.categoryMatchers()).thenReturn(Duration.ofSeconds(30));
+        when(config.caches()).thenReturn(caches);
+
+        fixture.init();
+    }
+
+    @Test
+    public void testCategorise() {
+        // given: a user with an account
+        UUID userId = UUID.randomUUID();
+        UUID accountId = UUID.randomUUID();
+
+        // and: the user has two category groups
+        CategoryGroup group1 = mockCategoryGroup(userId);
+        Category groceries = group1.addCategory("groceries", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        CategoryGroup group2 = mockCategoryGroup(userId);
+        Category shopping = group2.addCategory("shopping", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.refContains("CARD"));
+        when(categoryGroupRepository.lockVersionsByUserId(userId))
+            .thenReturn(Map.of(group1.getId(), group1.getVersion(), group2.getId(), group2.getVersion()));
+
+        // and: a collection of transactions
+        AccountTransaction both = mockTransaction(accountId, "CARD PAYMENT", "TESCO");
+        AccountTransaction one = mockTransaction(accountId, "DIRECT DEBIT", "TESCO");
+        AccountTransaction neither = mockTransaction(accountId, "DIRECT DEBIT", "LANDLORD");
+
+        // when: the transactions are categorised
+        Map<String, Set<UUID>> result = fixture.categorise(userId, List.of(both, one, neither));
+
+        // then: each transaction is assigned to the categories, of all groups, it matches
+        assertEquals(Set.of(groceries.getId(), shopping.getId()), result.get(both.getInternalTransactionId()));
+        assertEquals(Set.of(groceries.getId()), result.get(one.getInternalTransactionId()));
+
+        // and: transactions that match no category are omitted
+        assertFalse(result.containsKey(neither.getInternalTransactionId()));
+    }
+
+    @Test
+    public void testCategorise_NoGroups() {
+        // given: a user with no category groups
+        UUID userId = UUID.randomUUID();
+        when(categoryGroupRepository.lockVersionsByUserId(userId)).thenReturn(Map.of());
+
+        // when: transactions are categorised
+        Map<String, Set<UUID>> result = fixture.categorise(userId,
+            List.of(mockTransaction(UUID.randomUUID(), "CARD PAYMENT", "TESCO")));
+
+        // then: no assignments are returned
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testGetMatcher_Cached() {
+        // given: a category group with selectors
+        UUID accountId = UUID.randomUUID();
+        CategoryGroup group = mockCategoryGroup(UUID.randomUUID());
+        group.addCategory("groceries", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+
+        // when: the group's matcher is retrieved several times
+        CategoryMatcher matcher = fixture.getMatcher(group.getId());
+        assertSame(matcher, fixture.getMatcher(group.getId()));
+        assertSame(matcher, fixture.getMatcher(group.getId()));
+
+        // then: the group is read only once
+        verify(categoryGroupRepository, times(1)).findByIdOptional(group.getId());
+    }
+
+    @Test
+    public void testEvict() {
+        // given: a category group with selectors
+        UUID accountId = UUID.randomUUID();
+        CategoryGroup group = mockCategoryGroup(UUID.randomUUID());
+        Category category = group.addCategory("groceries", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+
+        // and: the group's matcher has been cached
+        CategoryMatcher matcher = fixture.getMatcher(group.getId());
+        assertTrue(matcher.categorise(accountId, null, null, "SAINSBURYS").isEmpty());
+
+        // and: the category's selectors are changed
+        category.add(accountId, selector -> selector.creditorContains("SAINSBURY"));
+
+        // when: the group's matcher is evicted
+        fixture.evict(group.getId());
+
+        // then: the next matcher reflects the changed selectors
+        CategoryMatcher updated = fixture.getMatcher(group.getId());
+        assertNotSame(matcher, updated);
+        assertEquals(Set.of(category.getId()), updated.categorise(accountId, null, null, "SAINSBURYS"));
+    }
+
+    @Test
+    public void testCategorise_SelectorsChangedElsewhere() {
+        // given: a user with an account
+        UUID userId = UUID.randomUUID();
+        UUID accountId = UUID.randomUUID();
+
+        // and: a category group whose matcher has been cached
+        CategoryGroup group = mockCategoryGroup(userId);
+        Category category = group.addCategory("groceries", builder -> builder.id(UUID.randomUUID()))
+            .add(accountId, selector -> selector.creditorContains("TESCO"));
+        when(categoryGroupRepository.lockVersionsByUserId(userId)).thenReturn(Map.of(group.getId(), 0L));
+        AccountTransaction sainsburys = mockTransaction(accountId, "CARD PAYMENT", "SAINSBURYS");
+        assertTrue(fixture.categorise(userId, List.of(sainsburys)).isEmpty());
+
+        // and: the group's selectors are changed by another instance - so the cached matcher is not evicted
+        CategoryGroup changed = CategoryGroup.builder()
+            .id(group.getId())
+            .version(1L)
+            .userId(userId)
+            .name(group.getName())
+            .build();
+        changed.addCategory("groceries", builder -> builder.id(category.getId()))
+            .add(accountId, selector -> selector.creditorContains("SAINSBURY"));
+        when(categoryGroupRepository.findByIdOptional(group.getId())).thenReturn(Optional.of(changed));
+        when(categoryGroupRepository.lockVersionsByUserId(userId)).thenReturn(Map.of(group.getId(), 1L));
+
+        // when: transactions are next categorised
+        Map<String, Set<UUID>> result = fixture.categorise(userId, List.of(sainsburys));
+
+        // then: the matcher is compiled from the changed selectors
+        assertEquals(Set.of(category.getId()), result.get(sainsburys.getInternalTransactionId()));
+        verify(categoryGroupRepository, times(2)).findByIdOptional(group.getId());
+
+        // and: the new matcher is cached
+        fixture.categorise(userId, List.of(sainsburys));
+        verify(categoryGroupRepository, times(2)).findByIdOptional(group.getId());
+    }
+
+    @Test
+    public void testSelectorsChanging() {
+        // given: a category group whose matcher has been cached
+        CategoryGroup group = mockCategoryGroup(UUID.randomUUID());
+        CategoryMatcher matcher = fixture.getMatcher(group.getId());
+
+        // and: a transaction is active
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        // when: the group's selectors are about to change
+        fixture.selectorsChanging(group);
+
+        // then: the group is locked, and its version incremented
+        verify(categoryGroupRepository).lockForSelectorChange(group);
+
+        // and: the cached matcher remains until the transaction commits
+        ArgumentCaptor<Synchronization> captor = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(captor.capture());
+        assertSame(matcher, fixture.getMatcher(group.getId()));
+
+        // when: the transaction commits
+        captor.getValue().afterCompletion(Status.STATUS_COMMITTED);
+
+        // then: the cached matcher is evicted
+        assertNotSame(matcher, fixture.getMatcher(group.getId()));
+    }
+
+    @Test
+    public void testEvict_RolledBack() {
+        // given: a category group whose matcher has been cached
+        CategoryGroup group = mockCategoryGroup(UUID.randomUUID());
+        CategoryMatcher matcher = fixture.getMatcher(group.getId());
+
+        // and: a transaction is active
+        when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+        // when: the group's matcher is evicted
+        fixture.evict(group.getId());
+
+        // and: the transaction is rolled back
+        ArgumentCaptor<Synchronization> captor = ArgumentCaptor.forClass(Synchronization.class);
+        verify(transactionRegistry).registerInterposedSynchronization(captor.capture());
+        captor.getValue().afterCompletion(Status.STATUS_ROLLEDBACK);
+
+        // then: the cached matcher remains
+        assertSame(matcher, fixture.getMatcher(group.getId()));
+    }
+
+    @Test
+    public void testRebuild() {
+        // given: a category group
+        CategoryGroup group = mockCategoryGroup(UUID.randomUUID());
+
+        // and: the group's matcher has been cached
+        CategoryMatcher matcher = fixture.getMatcher(group.getId());
+
+        // when: the group's matcher is rebuilt
+        CategoryMatcher rebuilt = fixture.rebuild(group.getId());
+
+        // then: a new matcher is compiled
+        assertNotSame(matcher, rebuilt);
+        verify(categoryGroupRepository, times(2)).findByIdOptional(group.getId());
+
+        // and: the new matcher is cached
+        assertSame(rebuilt, fixture.getMatcher(group.getId()));
+    }
+
+    @Test
+    public void testGetMatcher_UnknownGroup() {
+        // given: an unknown category group
+        UUID groupId = UUID.randomUUID();
+        when(categoryGroupRepository.findByIdOptional(groupId)).thenReturn(Optional.empty());
+
+        // when: the group's matcher is retrieved
+        CategoryMatcher matcher = fixture.getMatcher(groupId);
+
+        // then: the empty matcher is returned
+        assertSame(CategoryMatcher.EMPTY, matcher);
+    }
+
+    private CategoryGroup mockCategoryGroup(UUID userId) {
+        CategoryGroup group = CategoryGroup.builder()
+            .id(UUID.randomUUID())
+            .userId(userId)
+            .name(UUID.randomUUID().toString())
+            .build();
+        when(categoryGroupRepository.findByIdOptional(group.getId())).thenReturn(Optional.of(group));
+        return group;
+    }
+
+    private AccountTransaction mockTransaction(UUID accountId, String reference, String creditorName) {
+        return TestData.mockAccountTransaction(builder -> builder
+            .accountId(accountId)
+            .reference(reference)
+            .creditorName(creditorName));
+    }
+}
@@ -0,0 +1,119 @@
+package com.hillayes.rail.service;
+
+import com.hillayes.rail.domain.*;
+import com.hillayes.rail.repository.AccountRepository;
+import com.hillayes.rail.repository.CategoryGroupRepository;
+import com.hillayes.rail.repository.UserConsentRepository;
+import com.hillayes.rail.scheduled.CategoriseTransactionsAdhocTask;
+import com.hillayes.rail.utils.TestData;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests the changing of a category's selectors while transactions are being
+ * classified by those selectors; as when a user changes their selectors during
+ * the poll of their account. Each step runs in a committed transaction of its own.
+ */
+@QuarkusTest
+public class CategorySelectorChangeTest {
+    @Inject
+    UserConsentRepository userConsentRepository;
+
+    @Inject
+    AccountRepository accountRepository;
+
+    @Inject
+    CategoryGroupRepository categoryGroupRepository;
+
+    @Inject
+    CategoryService categoryService;
+
+    @Inject
+    CategoryMatcherService categoryMatcherService;
+
+    @InjectMock
+    CategoriseTransactionsAdhocTask categoriseTransactionsAdhocTask;
+
+    @Test
+    public void testSelectorChangeOverlapsPoll() throws Exception {
+        // given: a user with an account, and a category that selects TESCO transactions
+        Category category = QuarkusTransaction.requiringNew().call(() -> {
+            UserConsent consent = userConsentRepository.save(
+                TestData.mockUserConsent(UUID.randomUUID(), c -> c.id(null)));
+            Account account = accountRepository.save(TestData.mockAccount(consent.getUserId(), a -> {
+                a.id(null);
+                a.userConsentId(consent.getId());
+                a.institutionId(consent.getInstitutionId());
+            }));
+
+            CategoryGroup group = CategoryGroup.builder()
+                .userId(consent.getUserId())
+                .name("group 1")
+                .build();
+            Category result = group.addCategory("groceries", builder -> builder.colour("#111111"))
+                .add(account.getId(), selector -> selector.creditorContains("TESCO"));
+            categoryGroupRepository.save(group);
+            return result;
+        });
+        UUID userId = category.getGroup().getUserId();
+        UUID accountId = category.getSelectors().iterator().next().getAccountId();
+
+        // and: transactions to be classified
+        AccountTransaction tesco = TestData.mockAccountTransaction(builder -> builder
+            .userId(userId).accountId(accountId).creditorName("TESCO STORES"));
+        AccountTransaction sainsbury = TestData.mockAccountTransaction(builder -> builder
+            .userId(userId).accountId(accountId).creditorName("SAINSBURYS"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // and: a poll has classified transactions, but not yet committed them
+            CountDownLatch classified = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Map<String, Set<UUID>>> poll = executor.submit(() -> QuarkusTransaction.requiringNew().call(() -> {
+                Map<String, Set<UUID>> result = categoryMatcherService.categorise(userId, List.of(tesco, sainsbury));
+                classified.countDown();
+                release.await(10, TimeUnit.SECONDS);
+                return result;
+            }));
+            assertTrue(classified.await(10, TimeUnit.SECONDS));
+
+            // when: the category's selectors are changed
+            Future<?> change = executor.submit(() -> categoryService.setCategorySelectors(userId,
+                category.getId(), accountId, List.of(CategorySelector.builder().creditorContains("SAINSBURY").build())));
+
+            // then: the change waits for the poll to complete
+            assertThrows(TimeoutException.class, () -> change.get(500, TimeUnit.MILLISECONDS));
+
+            // when: the poll completes
+            release.countDown();
+
+            // then: the poll classified its transactions by the old selectors
+            assertEquals(Set.of(tesco.getInternalTransactionId()), poll.get(10, TimeUnit.SECONDS).keySet());
+
+            // and: the change then completes
+            change.get(10, TimeUnit.SECONDS);
+
+            // when: transactions are next classified
+            Map<String, Set<UUID>> result = QuarkusTransaction.requiringNew().call(() ->
+                categoryMatcherService.categorise(userId, List.of(tesco, sainsbury)));
+
+            // then: they are classified by the new selectors
+            assertEquals(Set.of(sainsbury.getInternalTransactionId()), result.keySet());
+            assertEquals(Set.of(category.getId()), result.get(sainsbury.getInternalTransactionId()));
+        } finally {
+            executor.shutdownNow();
+            QuarkusTransaction.requiringNew().run(() -> categoryGroupRepository.deleteByUserId(userId));
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.hillayes.rail.errors.CategoryGroupAlreadyExistsException;
 import com.hillayes.rail.repository.AccountRepository;
 import com.hillayes.rail.repository.CategoryGroupRepository;
 import com.hillayes.rail.repository.CategoryRepository;
+import com.hillayes.rail.scheduled.CategoriseTransactionsAdhocTask;
 import com.hillayes.rail.utils.TestData;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,11 +30,15 @@ public class CategoryServiceTest {
     private final CategoryGroupRepository categoryGroupRepository = mock();
     private final CategoryRepository categoryRepository = mock();
     private final AccountRepository accountRepository = mock();
+    private final CategoryMatcherService categoryMatcherService = mock();
+    private final CategoriseTransactionsAdhocTask categoriseTransactionsAdhocTask = mock();
 
     private final CategoryService fixture = new CategoryService(
         categoryGroupRepository,
         categoryRepository,
-        accountRepository
+        accountRepository,
+        categoryMatcherService,
+        categoriseTransactionsAdhocTask
     );
 
     @BeforeEach
@@ -265,6 +270,9 @@ public class CategoryServiceTest {
         verify(categoryGroupRepository).delete(groupCaptor.capture());
         assertEquals(group, groupCaptor.getValue());
 
+        // and: the group's cached matcher is evicted
+        verify(categoryMatcherService).evict(group.getId());
+
         // and: the deleted group is returned
         assertEquals(group, deletedGroup);
     }
@@ -576,6 +584,9 @@ public class CategoryServiceTest {
         verify(categoryRepository).delete(categoryCaptor.capture());
         assertEquals(category, categoryCaptor.getValue());
 
+        // and: the group is locked for the selector change
+        verify(categoryMatcherService).selectorsChanging(group);
+
         // and: the deleted category is returned
         assertEquals(category, deletedCategory);
     }
@@ -856,6 +867,12 @@ public class CategoryServiceTest {
                     || Objects.equals(s.getRefContains(), newSelector.getRefContains())
                     || Objects.equals(s.getCreditorContains(), newSelector.getCreditorContains())))
         );
+
+        // and: the group is locked for the selector change
+        verify(categoryMatcherService).selectorsChanging(group);
+
+        // and: the account's transactions are re-assigned to the category
+        verify(categoriseTransactionsAdhocTask).queueTask(category.getId(), account.getId());
     }
 
     @ParameterizedTest
@@ -1120,6 +1137,13 @@ public class CategoryServiceTest {
         // and: the both categories have been updated
         verify(categoryRepository).save(category);
         verify(categoryRepository).save(destCategory);
+
+        // and: the group is locked for the selector change
+        verify(categoryMatcherService, times(1)).selectorsChanging(group);
+
+        // and: the account's transactions are re-assigned to both categories
+        verify(categoriseTransactionsAdhocTask).queueTask(category.getId(), account.getId());
+        verify(categoriseTransactionsAdhocTask).queueTask(destCategory.getId(), account.getId());
     }
 
     @Test
@@ -1155,6 +1179,12 @@ public class CategoryServiceTest {
 
         // and: the category has been updated
         verify(categoryRepository).save(category);
+
+        // and: the group is locked for the selector change
+        verify(categoryMatcherService).selectorsChanging(group);
+
+        // and: the account's transactions are re-assigned to the category
+        verify(categoriseTransactionsAdhocTask).queueTask(category.getId(), account.getId());
     }
 
     @Test
@@ -20,6 +20,7 @@ import java.util.Currency;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @ApplicationScoped
 @RequiredArgsConstructor
@@ -220,7 +221,25 @@ public class YapilyRailProvider implements RailProviderApi {
                                                   String accountId,
                                                   LocalDate dateFrom) {
         log.debug("Getting transactions [agreementId: {}, accountId: {}]", agreement.getId(), accountId);
-        return accountsService.getAccountTransactions(agreement.getAuthToken(), accountId, dateFrom).stream()
+        return marshalTransactions(accountsService.getAccountTransactions(agreement.getAuthToken(), accountId, dateFrom));
+    }
+
+    @Override
+    public void forEachTransactionPage(RailAgreement agreement,
+                                       String accountId,
+                                       LocalDate dateFrom,
+                                       Consumer<List<RailTransaction>> pageConsumer) {
+        log.debug("Getting transaction pages [agreementId: {}, accountId: {}]", agreement.getId(), accountId);
+        accountsService.forEachTransactionPage(agreement.getAuthToken(), accountId, dateFrom, page -> {
+            List<RailTransaction> transactions = marshalTransactions(page);
+            if (!transactions.isEmpty()) {
+                pageConsumer.accept(transactions);
+            }
+        });
+    }
+
+    private List<RailTransaction> marshalTransactions(List<Transaction> transactions) {
+        return transactions.stream()
             .filter(transaction -> transaction.getStatus() == TransactionStatusEnum.PENDING)
             .map(transaction -> RailTransaction.builder()
                 .id(transaction.getId())
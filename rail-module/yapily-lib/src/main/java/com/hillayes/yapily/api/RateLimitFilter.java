@@ -0,0 +1,44 @@
+package com.hillayes.yapily.api;
+
+import com.hillayes.rail.api.domain.RailProvider;
+import com.hillayes.rail.api.governor.RateLimitHeaders;
+import com.hillayes.rail.api.governor.RateLimitObserver;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Singleton;
+import jakarta.ws.rs.client.ClientRequestContext;
+import jakarta.ws.rs.client.ClientResponseContext;
+import jakarta.ws.rs.client.ClientResponseFilter;
+import jakarta.ws.rs.core.Response;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Reports the calls rejected by the Yapily rail, as they exceed its rate-limit, to
+ * any RateLimitObservers. Yapily applies its rate-limit to all calls made with our
+ * application credentials, and gives the time at which calls may be resumed in the
+ * standard Retry-After header.
+ */
+@Singleton
+public class RateLimitFilter implements ClientResponseFilter {
+    // the retry-after period to be assumed if the rail gives none
+    private static final Duration DEFAULT_RETRY_AFTER = Duration.ofMinutes(1);
+
+    private final Instance<RateLimitObserver> observers;
+
+    public RateLimitFilter(Instance<RateLimitObserver> observers) {
+        this.observers = observers;
+    }
+
+    @Override
+    public void filter(ClientRequestContext requestContext, ClientResponseContext responseContext) {
+        if (responseContext.getStatus() != Response.Status.TOO_MANY_REQUESTS.getStatusCode()) {
+            return;
+        }
+
+        Instant now = Instant.now();
+        Instant retryAfter = RateLimitHeaders.parseRetryAfter(responseContext.getHeaderString(RateLimitHeaders.RETRY_AFTER), now)
+            .orElse(now.plus(DEFAULT_RETRY_AFTER));
+        observers.stream().forEach(observer -> observer.rateLimited(RailProvider.YAPILY, null, retryAfter));
+    }
+}
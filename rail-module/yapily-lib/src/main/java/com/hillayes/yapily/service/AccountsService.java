@@ -17,6 +17,7 @@ import java.time.ZoneOffset;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 @ApplicationScoped
 @Slf4j
@@ -50,9 +51,24 @@ public class AccountsService extends AbstractRailService {
     }
 
     public List<Transaction> getAccountTransactions(String consentToken, String accountId, LocalDate from) {
+        List<Transaction> result = new ArrayList<>();
+        forEachTransactionPage(consentToken, accountId, from, result::addAll);
+        return result;
+    }
+
+    /**
+     * Retrieves the transactions of the identified account, from the given date, in
+     * pages; passing each non-empty page to the given consumer as it is retrieved.
+     *
+     * @param consentToken the token authorising access to the account.
+     * @param accountId the account whose transactions are to be retrieved.
+     * @param from the date from which transactions are to be retrieved, inclusive.
+     * @param pageConsumer the consumer to which each page is passed.
+     */
+    public void forEachTransactionPage(String consentToken, String accountId, LocalDate from,
+                                       Consumer<List<Transaction>> pageConsumer) {
         log.debug("Retrieving account transactions [accountId: {}, from: {}]", accountId, from);
 
-        List<Transaction> result = new ArrayList<>();
         Instant start = from.atStartOfDay().toInstant(ZoneOffset.UTC);
         Instant now = Instant.now();
         int offset = 0;
@@ -63,9 +79,8 @@ public class AccountsService extends AbstractRailService {
             if ((data == null) || (data.isEmpty())) {
                 break;
             }
-            result.addAll(data);
+            pageConsumer.accept(data);
             offset += TRANSACTION_PAGE_SIZE;
         } while (data.size() == TRANSACTION_PAGE_SIZE);
-        return result;
     }
 }
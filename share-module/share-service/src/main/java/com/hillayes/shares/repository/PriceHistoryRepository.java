@@ -1,9 +1,12 @@
 package com.hillayes.shares.repository;
 
-import com.hillayes.commons.correlation.Correlation;
+import com.hillayes.commons.jdbc.BulkWriter;
 import com.hillayes.commons.jpa.OrderBy;
 import com.hillayes.commons.jpa.Page;
 import com.hillayes.commons.jpa.RepositoryBase;
+import com.hillayes.executors.concurrent.ExecutorConfiguration;
+import com.hillayes.executors.concurrent.ExecutorFactory;
+import com.hillayes.executors.concurrent.ExecutorType;
 import com.hillayes.shares.domain.PriceHistory;
 import com.hillayes.shares.domain.ShareIndex;
 import com.hillayes.shares.domain.SharePriceResolution;
@@ -16,11 +19,9 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.hibernate.Session;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
 import java.time.LocalDate;
 import java.util.*;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicInteger;
 
 @ApplicationScoped
@@ -37,8 +38,8 @@ public class PriceHistoryRepository extends RepositoryBase<PriceHistory, UUID> {
      */
     private String dbSchema;
 
-    // a utility method to map PriceHistory records to native SQL statements
-    private final PriceHistorySqlMapper sqlMapper;
+    // writes batches of PriceHistory records using native SQL statements
+    private final BulkWriter<PriceHistory> bulkWriter;
 
     public PriceHistoryRepository(
         @ConfigProperty(name = "one-stop.shares.share-price.insert-batch-size", defaultValue = "50")
@@ -49,13 +50,17 @@ public class PriceHistoryRepository extends RepositoryBase<PriceHistory, UUID> {
     ) {
         this.insertBatchSize = insertBatchSize;
         this.dbSchema = dbSchema;
-        this.sqlMapper = sqlMapper;
+        this.bulkWriter = BulkWriter.builder(dbSchema + ".price_history", sqlMapper)
+            .conflictPolicy(BulkWriter.ConflictPolicy.IGNORE)
+            .chunkSize(insertBatchSize)
+            .build();
     }
 
     // a pool of virtual threads on which batches can be persisted
-    private static final ExecutorService executorService = Executors.newThreadPerTaskExecutor(
-        Thread.ofVirtual().name("virtual-thread-", 1L).factory()
-    );
+    private static final ExecutorService executorService = ExecutorFactory.newExecutor(ExecutorConfiguration.builder()
+        .name("price-history-insert")
+        .executorType(ExecutorType.VIRTUAL)
+        .build());
 
     // maintains a count of active virtual threads
     private final AtomicInteger pendingBatchCount = new AtomicInteger();
@@ -128,36 +133,34 @@ public class PriceHistoryRepository extends RepositoryBase<PriceHistory, UUID> {
         batch.forEachRemaining(asList::add);
 
         // queue a threaded task to insert the records
-        String correlationId = Correlation.getCorrelationId().orElse(null);
+        // the executor propagates the caller's correlation ID to the task
         pendingBatchCount.incrementAndGet();
-        executorService.submit(() -> Correlation.run(
-            correlationId,
-            () -> {
-                try {
-                    _saveBatch(asList);
-                } catch (Exception e) {
-                    PriceHistory.PrimaryKey from = asList.getFirst().getId();
-                    PriceHistory.PrimaryKey to = asList.getLast().getId();
-                    if (from.getDate().isAfter(to.getDate())) {
-                        PriceHistory.PrimaryKey x = from;
-                        from = to;
-                        to = x;
-                    }
-                    log.warn("Unexpected exception saving prices [shareId: {}, from: {}, to: {}]",
-                        from.getShareIndexId(), from.getDate(), to.getDate(), e);
-                } finally {
-                    pendingBatchCount.decrementAndGet();
+        executorService.submit(() -> {
+            try {
+                _saveBatch(asList);
+            } catch (Exception e) {
+                PriceHistory.PrimaryKey from = asList.getFirst().getId();
+                PriceHistory.PrimaryKey to = asList.getLast().getId();
+                if (from.getDate().isAfter(to.getDate())) {
+                    PriceHistory.PrimaryKey x = from;
+                    from = to;
+                    to = x;
                 }
-            }));
+                log.warn("Unexpected exception saving prices [shareId: {}, from: {}, to: {}]",
+                    from.getShareIndexId(), from.getDate(), to.getDate(), e);
+            } finally {
+                pendingBatchCount.decrementAndGet();
+            }
+        });
     }
 
     /**
      * Performs the insertion of the given collection of PriceHistory records.
      * The insertion is performed using a native SQL insert statement with the
-     * clause "ON CONFLICT DO NOTHING". This allows multiple threads to attempt to
-     * insert the same records without throwing a constraint exception. This is
-     * only viable as the PriceHistory records carry historic and immutable
-     * data.
+     * clause "ON CONFLICT DO NOTHING" (see {@link BulkWriter}). This allows multiple
+     * threads to attempt to insert the same records without throwing a constraint
+     * exception. This is only viable as the PriceHistory records carry historic and
+     * immutable data.
      *
      * This method is only intended to be called from a virtual thread, initiated
      * from within this class. As such it should be considered private, but cannot
@@ -169,31 +172,8 @@ public class PriceHistoryRepository extends RepositoryBase<PriceHistory, UUID> {
     @ActivateRequestContext
     public void _saveBatch(Collection<PriceHistory> batch) {
         log.debug("_saveBatch [size: {}]", batch.size());
-        // construct a native SQL statement
-        StringBuilder sql = new StringBuilder("INSERT INTO ").append(dbSchema).append(".price_history ")
-            .append(sqlMapper.colNames)
-            .append(" VALUES ");
-
-        // add col place-holders for each row to be inserted
-        for (int i = 0; i < batch.size(); i++) {
-            if (i > 0) sql.append(',');
-            sql.append(sqlMapper.colPlaceholders);
-        }
-
-        // add ON CONFLICT clause to ignore duplicate (constraint) conflicts
-        sql.append(" ON CONFLICT DO NOTHING");
-
         try (Connection connection = getConnection()) {
-            try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
-                // map each record to the SQL statement place-holders
-                AtomicInteger index = new AtomicInteger();
-                batch.forEach(entry ->
-                    sqlMapper.map(statement, index.getAndIncrement(), entry)
-                );
-
-                // perform the batch insert
-                statement.execute();
-            }
+            bulkWriter.insert(connection, batch);
         } catch (DatabaseException e) {
             throw e;
         } catch (Exception e) {
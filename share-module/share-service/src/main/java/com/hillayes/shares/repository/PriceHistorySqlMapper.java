@@ -1,5 +1,6 @@
 package com.hillayes.shares.repository;
 
+import com.hillayes.commons.jdbc.SqlEntityMapper;
 import com.hillayes.shares.domain.PriceHistory;
 import jakarta.enterprise.context.ApplicationScoped;
 
@@ -2,12 +2,16 @@ package com.hillayes.shares.scheduled;
 
 import com.hillayes.executors.scheduler.SchedulerFactory;
 import com.hillayes.executors.scheduler.tasks.NamedScheduledTask;
+import com.hillayes.shares.domain.ShareIndex;
 import com.hillayes.shares.repository.ShareIndexRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
+import java.util.UUID;
+
 /**
  * A scheduled task to retrieve the latest share prices for the configured
  * ShareIndex records.
@@ -33,7 +37,13 @@ public class PollAllShareIndicesTask implements NamedScheduledTask {
     @Transactional
     public void run() {
         log.info("PollAllShareIndicesTask.run()");
-        shareIndexRepository.listAll()
-            .forEach(shareIndex -> pollShareIndexAdhocTask.queueTask(shareIndex.getId()));
+        List<UUID> shareIndexIds = shareIndexRepository.listAll().stream()
+            .map(ShareIndex::getId)
+            .toList();
+
+        // queue a task for each index - in a single batch
+        if (!shareIndexIds.isEmpty()) {
+            pollShareIndexAdhocTask.queueTasks(shareIndexIds);
+        }
     }
 }
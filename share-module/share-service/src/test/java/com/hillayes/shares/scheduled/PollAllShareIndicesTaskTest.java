@@ -40,11 +40,9 @@ public class PollAllShareIndicesTaskTest {
         // Then: the indices are retrieved
         verify(shareIndexRepository).listAll();
 
-        // And: each index is passed to the PollShareIndex task
-        verify(pollShareIndexAdhocTask, times(indices.size())).queueTask(any(UUID.class));
-        indices.forEach(index ->
-            verify(pollShareIndexAdhocTask).queueTask(index.getId())
-        );
+        // And: each index is passed to the PollShareIndex task - in a single batch
+        verify(pollShareIndexAdhocTask).queueTasks(indices.stream().map(ShareIndex::getId).toList());
+        verify(pollShareIndexAdhocTask, never()).queueTask(any(UUID.class));
     }
 
     @Test